@@ -0,0 +1,84 @@
+package org.xmlcml.euclid.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xmlcml.euclid.AssignmentSolver;
+import org.xmlcml.euclid.SparseDistanceMatrix;
+
+import blogspot.software_and_algorithms.stern_library.optimization.HungarianAlgorithm;
+
+/** assignment of displaced points to their originals (peaks to atoms).
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AssignmentBenchmark {
+
+	private final static double CUTOFF = 1.5;
+
+	@Param({"300", "1000"})
+	public int size;
+
+	private double[][] dense;
+	private SparseDistanceMatrix sparse;
+	private SparseDistanceMatrix sparseNext;
+	private AssignmentSolver solver;
+	private AssignmentSolver warmSolver;
+
+	@Setup
+	public void setup() {
+		double[] atoms = BenchmarkData.randomDoubles(3 * size);
+		Random random = new Random(size);
+		double[] peaks = new double[3 * size];
+		double[] peaksNext = new double[3 * size];
+		double box = Math.cbrt(size);
+		for (int i = 0; i < atoms.length; i++) {
+			atoms[i] *= 4 * box;
+			peaks[i] = atoms[i] + 0.2 * random.nextGaussian();
+			peaksNext[i] = peaks[i] + 0.02 * random.nextGaussian();
+		}
+		sparse = new SparseDistanceMatrix(3, atoms, peaks, CUTOFF);
+		sparseNext = new SparseDistanceMatrix(3, atoms, peaksNext, CUTOFF);
+		dense = sparse.getRealMatrix().getMatrix();
+		solver = new AssignmentSolver();
+		warmSolver = new AssignmentSolver();
+		warmSolver.setWarmStart(true);
+	}
+
+	@Benchmark
+	public int[] hungarian() {
+		return new HungarianAlgorithm(dense).execute();
+	}
+
+	@Benchmark
+	public int[] solveDense() {
+		return solver.solve(dense);
+	}
+
+	@Benchmark
+	public int[] solveSparse() {
+		return solver.solve(sparse);
+	}
+
+	@Benchmark
+	public int[] solveSparseWarm() {
+		warmSolver.solve(sparse);
+		return warmSolver.solve(sparseNext);
+	}
+}
@@ -0,0 +1,57 @@
+package org.xmlcml.euclid.bench;
+
+import java.util.Random;
+
+/** reproducible random data for the benchmarks.
+ *
+ */
+class BenchmarkData {
+
+	private final static long SEED = 1234567L;
+
+	private BenchmarkData() {
+	}
+
+	/**
+	 * @param n
+	 * @return n values uniform in [0, 1)
+	 */
+	static double[] randomDoubles(int n) {
+		Random random = new Random(SEED);
+		double[] d = new double[n];
+		for (int i = 0; i < n; i++) {
+			d[i] = random.nextDouble();
+		}
+		return d;
+	}
+
+	/**
+	 * @param n
+	 * @return n * n matrix with dominant diagonal (well conditioned)
+	 */
+	static double[][] randomMatrix(int n) {
+		Random random = new Random(SEED);
+		double[][] m = new double[n][n];
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				m[i][j] = random.nextDouble() - 0.5;
+			}
+			m[i][i] += n;
+		}
+		return m;
+	}
+
+	/**
+	 * @param n
+	 * @return symmetric n * n matrix
+	 */
+	static double[][] randomSymmetricMatrix(int n) {
+		double[][] m = randomMatrix(n);
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < i; j++) {
+				m[i][j] = m[j][i];
+			}
+		}
+		return m;
+	}
+}
@@ -0,0 +1,74 @@
+package org.xmlcml.euclid.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xmlcml.euclid.LUDecomposition;
+import org.xmlcml.euclid.RealArray;
+import org.xmlcml.euclid.RealMatrix;
+import org.xmlcml.euclid.RealSquareMatrix;
+
+/** dense matrix multiplication, determinant, inversion and eigenvalues.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MatrixBenchmark {
+
+	@Param({"10", "50", "200"})
+	public int order;
+
+	private RealMatrix a;
+	private RealMatrix b;
+	private RealSquareMatrix square;
+	private RealSquareMatrix symmetric;
+	private double[][] array;
+
+	@Setup
+	public void setup() {
+		array = BenchmarkData.randomMatrix(order);
+		a = new RealMatrix(array);
+		b = new RealMatrix(BenchmarkData.randomMatrix(order));
+		square = new RealSquareMatrix(array);
+		symmetric = new RealSquareMatrix(BenchmarkData.randomSymmetricMatrix(order));
+	}
+
+	@Benchmark
+	public RealMatrix multiply() {
+		return a.multiply(b);
+	}
+
+	@Benchmark
+	public double determinant() {
+		return square.determinant();
+	}
+
+	@Benchmark
+	public double luDeterminant() {
+		return new LUDecomposition(array).getDeterminant();
+	}
+
+	@Benchmark
+	public RealSquareMatrix inverse() {
+		return square.getInverse();
+	}
+
+	@Benchmark
+	public RealArray eigenvalues() {
+		return symmetric.calculateEigenvalues();
+	}
+}
@@ -0,0 +1,75 @@
+package org.xmlcml.euclid.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xmlcml.euclid.NumberScanner;
+import org.xmlcml.euclid.RealArray;
+import org.xmlcml.euclid.Util;
+import org.xmlcml.stml.attribute.DelimiterAttribute;
+
+/** parsing of delimited number lists as found in STMLArray content.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParsingBenchmark {
+
+	@Param({"1000", "100000"})
+	public int size;
+
+	private String spaced;
+	private String commaSeparated;
+	private DelimiterAttribute delimiter;
+
+	@Setup
+	public void setup() {
+		double[] d = BenchmarkData.randomDoubles(size);
+		StringBuilder space = new StringBuilder();
+		StringBuilder comma = new StringBuilder();
+		for (int i = 0; i < d.length; i++) {
+			if (i > 0) {
+				space.append(' ');
+			}
+			space.append(d[i]);
+			comma.append(d[i]).append(',');
+		}
+		spaced = space.toString();
+		commaSeparated = comma.toString();
+		delimiter = new DelimiterAttribute(",");
+	}
+
+	@Benchmark
+	public RealArray realArrayFromString() {
+		return new RealArray(spaced);
+	}
+
+	@Benchmark
+	public double[] splitToDoubleArray() {
+		return Util.splitToDoubleArray(commaSeparated, ",");
+	}
+
+	@Benchmark
+	public double[] delimitedContent() {
+		return delimiter.getNumberScanner(commaSeparated).nextDoubles();
+	}
+
+	@Benchmark
+	public double[] numberScanner() {
+		return NumberScanner.parseDoubles(spaced);
+	}
+}
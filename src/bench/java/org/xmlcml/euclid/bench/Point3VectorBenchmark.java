@@ -0,0 +1,57 @@
+package org.xmlcml.euclid.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xmlcml.euclid.Angle;
+import org.xmlcml.euclid.Point3Vector;
+import org.xmlcml.euclid.Transform3;
+
+/** rigid-body transformation and superposition of point sets.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Point3VectorBenchmark {
+
+	@Param({"100", "10000"})
+	public int points;
+
+	private Point3Vector moving;
+	private Point3Vector reference;
+	private Transform3 transform;
+
+	@Setup
+	public void setup() {
+		reference = new Point3Vector(BenchmarkData.randomDoubles(3 * points));
+		transform = new Transform3(new Angle(0.1), new Angle(0.2), new Angle(0.3));
+		// rotations only, so repeated transform() keeps coordinates bounded
+		moving = new Point3Vector(reference);
+		moving.transform(transform);
+	}
+
+	@Benchmark
+	public Point3Vector transform() {
+		moving.transform(transform);
+		return moving;
+	}
+
+	@Benchmark
+	public Transform3 fitTo() {
+		return moving.fitTo(reference);
+	}
+}
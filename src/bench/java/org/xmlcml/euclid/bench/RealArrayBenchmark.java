@@ -0,0 +1,119 @@
+package org.xmlcml.euclid.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xmlcml.euclid.IntSet;
+import org.xmlcml.euclid.RandomNumberGenerator;
+import org.xmlcml.euclid.RandomStream;
+import org.xmlcml.euclid.RealArray;
+
+/** RealArray arithmetic and filtering.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RealArrayBenchmark {
+
+	@Param({"1000", "100000"})
+	public int size;
+
+	private RealArray a;
+	private RealArray b;
+	private RealArray filter;
+	private RealArray wideFilter;
+	private RandomNumberGenerator generator;
+	private RandomStream stream;
+	private double[] variates;
+
+	@Setup
+	public void setup() {
+		a = new RealArray(BenchmarkData.randomDoubles(size));
+		b = new RealArray(BenchmarkData.randomDoubles(size));
+		filter = RealArray.getFilter(5, RealArray.Filter.GAUSSIAN);
+		wideFilter = RealArray.getFilter(100, RealArray.Filter.GAUSSIAN);
+		generator = new RandomNumberGenerator(1234L);
+		stream = new RandomStream(1234L);
+		variates = new double[size];
+	}
+
+	@Benchmark
+	public RealArray plus() {
+		return a.plus(b);
+	}
+
+	@Benchmark
+	public RealArray multiplyBy() {
+		return a.multiplyBy(1.5);
+	}
+
+	@Benchmark
+	public double sumAllElements() {
+		return a.sumAllElements();
+	}
+
+	@Benchmark
+	public double innerProduct() {
+		return a.dotProduct(b);
+	}
+
+	@Benchmark
+	public RealArray applyFilter() {
+		return a.applyFilter(filter);
+	}
+
+	@Benchmark
+	public RealArray applyWideFilter() {
+		return a.applyFilter(wideFilter);
+	}
+
+	@Benchmark
+	public RealArray powerSpectrum() {
+		return a.powerSpectrum();
+	}
+
+	@Benchmark
+	public double[] gaussianSynchronized() {
+		for (int i = 0; i < size; i++) {
+			variates[i] = generator.nextGaussian();
+		}
+		return variates;
+	}
+
+	@Benchmark
+	public double[] gaussianStream() {
+		stream.fillGaussian(variates);
+		return variates;
+	}
+
+	@Benchmark
+	public RealArray sortAscending() {
+		RealArray copy = new RealArray(a);
+		copy.sortAscending();
+		return copy;
+	}
+
+	@Benchmark
+	public IntSet indexSortAscending() {
+		return a.indexSortAscending();
+	}
+
+	@Benchmark
+	public IntSet indexesOfLargestElements() {
+		return a.indexesOfLargestElements(10);
+	}
+}
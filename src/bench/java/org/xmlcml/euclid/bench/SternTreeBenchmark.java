@@ -0,0 +1,124 @@
+package org.xmlcml.euclid.bench;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xmlcml.euclid.RealRange;
+import org.xmlcml.euclid.RealRangeArray;
+
+import blogspot.software_and_algorithms.stern_library.data_structure.DynamicIntervalTree;
+import blogspot.software_and_algorithms.stern_library.data_structure.Interval;
+import blogspot.software_and_algorithms.stern_library.data_structure.RedBlackTree;
+import blogspot.software_and_algorithms.stern_library.data_structure.StaticIntervalTree;
+
+/** construction and stabbing queries on the stern_library trees.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SternTreeBenchmark {
+
+	private final static int QUERIES = 1000;
+
+	@Param({"1000", "100000"})
+	public int size;
+
+	private Set<Interval<Double>> intervals;
+	private StaticIntervalTree<Double, Interval<Double>> staticTree;
+	private DynamicIntervalTree<Double, Interval<Double>> dynamicTree;
+	private RedBlackTree<Double> redBlackTree;
+	private RealRangeArray linearRanges;
+	private RealRangeArray indexedRanges;
+	private double[] queries;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(1234567L);
+		intervals = new HashSet<Interval<Double>>();
+		staticTree = new StaticIntervalTree<Double, Interval<Double>>();
+		dynamicTree = new DynamicIntervalTree<Double, Interval<Double>>();
+		redBlackTree = new RedBlackTree<Double>();
+		linearRanges = new RealRangeArray();
+		indexedRanges = new RealRangeArray();
+		indexedRanges.setIndexed(true);
+		for (int i = 0; i < size; i++) {
+			double low = random.nextDouble() * size;
+			Interval<Double> interval = new Interval<Double>(low, true, low + random.nextDouble() * 10, true);
+			intervals.add(interval);
+			dynamicTree.insert(interval);
+			redBlackTree.insert(low);
+			RealRange range = new RealRange(interval.getLow(), interval.getHigh());
+			linearRanges.add(range);
+			indexedRanges.add(range);
+		}
+		staticTree.buildTree(intervals);
+		queries = new double[QUERIES];
+		for (int i = 0; i < QUERIES; i++) {
+			queries[i] = random.nextDouble() * size;
+		}
+	}
+
+	@Benchmark
+	public StaticIntervalTree<Double, Interval<Double>> buildStaticTree() {
+		StaticIntervalTree<Double, Interval<Double>> tree = new StaticIntervalTree<Double, Interval<Double>>();
+		tree.buildTree(intervals);
+		return tree;
+	}
+
+	@Benchmark
+	public void staticContaining(Blackhole blackhole) {
+		List<Interval<Double>> target = new ArrayList<Interval<Double>>();
+		for (double q : queries) {
+			target.clear();
+			blackhole.consume(staticTree.fetchContainingIntervals(target, q));
+		}
+	}
+
+	@Benchmark
+	public void dynamicContaining(Blackhole blackhole) {
+		for (double q : queries) {
+			blackhole.consume(dynamicTree.fetchContainingIntervals(q));
+		}
+	}
+
+	@Benchmark
+	public void redBlackContains(Blackhole blackhole) {
+		for (double q : queries) {
+			blackhole.consume(redBlackTree.contains(q));
+		}
+	}
+
+	@Benchmark
+	public void realRangeArrayContaining(Blackhole blackhole) {
+		for (double q : queries) {
+			blackhole.consume(linearRanges.getRangesContaining(q));
+		}
+	}
+
+	@Benchmark
+	public void indexedRealRangeArrayContaining(Blackhole blackhole) {
+		for (double q : queries) {
+			blackhole.consume(indexedRanges.getRangesContaining(q));
+		}
+	}
+}
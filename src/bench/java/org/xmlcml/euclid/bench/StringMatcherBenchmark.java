@@ -0,0 +1,89 @@
+package org.xmlcml.euclid.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xmlcml.euclid.StringMatcher;
+
+import blogspot.software_and_algorithms.stern_library.string.DamerauLevenshteinAlgorithm;
+
+/** fuzzy lookup of a misspelt name in a dictionary of name-like strings.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StringMatcherBenchmark {
+
+	private final static String[] PARTS = {"meth", "eth", "prop", "but", "pent", "hex", "benz", "phen", "yl", "ane",
+			"ene", "ol", "al", "one", "oic", "acid", "amine", "chloro", "bromo", "nitro", "-2-", "-1,3-", "di", "tri"};
+	private final static int MAX_DISTANCE = 2;
+
+	@Param({"100000"})
+	public int size;
+
+	private List<String> names;
+	private String query;
+	private DamerauLevenshteinAlgorithm algorithm;
+	private StringMatcher matcher;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		names = new ArrayList<String>(size);
+		for (int i = 0; i < size; i++) {
+			StringBuilder name = new StringBuilder();
+			int parts = 2 + random.nextInt(5);
+			for (int j = 0; j < parts; j++) {
+				name.append(PARTS[random.nextInt(PARTS.length)]);
+			}
+			names.add(name.toString());
+		}
+		StringBuilder misspelt = new StringBuilder(names.get(size / 2));
+		char c = misspelt.charAt(1);
+		misspelt.setCharAt(1, misspelt.charAt(2));
+		misspelt.setCharAt(2, c);
+		query = misspelt.toString();
+		algorithm = new DamerauLevenshteinAlgorithm(1, 1, 1, 1);
+		matcher = new StringMatcher(names);
+	}
+
+	@Benchmark
+	public int fullTable() {
+		int best = Integer.MAX_VALUE;
+		for (String name : names) {
+			best = Math.min(best, algorithm.execute(query, name));
+		}
+		return best;
+	}
+
+	@Benchmark
+	public int banded() {
+		int best = Integer.MAX_VALUE;
+		for (String name : names) {
+			best = Math.min(best, algorithm.execute(query, name, MAX_DISTANCE));
+		}
+		return best;
+	}
+
+	@Benchmark
+	public List<StringMatcher.Match> bestMatches() {
+		return matcher.getBestMatches(query, 10, MAX_DISTANCE);
+	}
+}
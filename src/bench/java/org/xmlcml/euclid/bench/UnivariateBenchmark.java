@@ -0,0 +1,90 @@
+package org.xmlcml.euclid.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xmlcml.euclid.RealArray;
+import org.xmlcml.euclid.Univariate;
+import org.xmlcml.euclid.UnivariateAccumulator;
+
+/** summary statistics over a RealArray.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UnivariateBenchmark {
+
+	@Param({"1000", "100000"})
+	public int size;
+
+	private RealArray data;
+	private double[] chiSquared;
+	private double[] pValues;
+
+	@Setup
+	public void setup() {
+		data = new RealArray(BenchmarkData.randomDoubles(size));
+		chiSquared = new double[size];
+		for (int i = 0; i < size; i++) {
+			chiSquared[i] = 0.001 + 20.0 * Math.abs(data.elementAt(i));
+		}
+		pValues = new double[size];
+	}
+
+	@Benchmark
+	public double meanAndVariance() {
+		Univariate univariate = new Univariate(data);
+		return univariate.getMean() + univariate.getVariance();
+	}
+
+	@Benchmark
+	public double median() {
+		return new Univariate(data).getMedian();
+	}
+
+	@Benchmark
+	public double streamingMedian() {
+		return new UnivariateAccumulator().add(data).getMedian();
+	}
+
+	@Benchmark
+	public double parallelAccumulate() {
+		UnivariateAccumulator acc = UnivariateAccumulator.accumulate(data.getArray(), 0, size);
+		return acc.getMean() + acc.getVariance();
+	}
+
+	@Benchmark
+	public double[] pchisq() {
+		for (int i = 0; i < size; i++) {
+			pValues[i] = Univariate.pchisq(chiSquared[i], 5.0);
+		}
+		return pValues;
+	}
+
+	@Benchmark
+	public double[] pchisqBulk() {
+		Univariate.pchisq(chiSquared, 5.0, pValues);
+		return pValues;
+	}
+
+	@Benchmark
+	public int[] histogram() {
+		Univariate univariate = new Univariate(data);
+		univariate.setBinCount(100);
+		return univariate.getHistogramCounts();
+	}
+}
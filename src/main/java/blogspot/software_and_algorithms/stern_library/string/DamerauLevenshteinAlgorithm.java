@@ -1,7 +1,6 @@
 package blogspot.software_and_algorithms.stern_library.string;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 /* Copyright (c) 2012 Kevin L. Stern
  * 
@@ -52,7 +51,9 @@ import java.util.Map;
  * 
  * The running time of the Damerau-Levenshtein algorithm is O(n*m) where n is
  * the length of the source string and m is the length of the target string.
- * This implementation consumes O(n*m) space.
+ * This implementation consumes O(n*m) space. When only distances up to a
+ * limit matter, {@link #execute(String, String, int)} computes and stores
+ * only a band of the table and stops early.
  * 
  * @author Kevin L. Stern
  */
@@ -91,70 +92,234 @@ public class DamerauLevenshteinAlgorithm {
 	 * string and the specified target string.
 	 */
 	public int execute(String source, String target) {
-		if (source.length() == 0) {
-			return target.length() * insertCost;
+		return execute(source, target, Integer.MAX_VALUE - 1);
+	}
+
+	/**
+	 * Compute the Damerau-Levenshtein distance between the specified source
+	 * string and the specified target string if it is no more than
+	 * maxDistance.
+	 * <p>
+	 * 
+	 * Only the cells of the table within a band about the diagonal are
+	 * computed and stored: a cell is skipped if the difference in length of
+	 * the prefixes plus that of the suffixes costs more than maxDistance in
+	 * deletions and insertions. The computation stops early once no alignment
+	 * can cost maxDistance or less. For a band of width w, at most 2 *
+	 * maxDistance / min(deleteCost, insertCost) + 1, the running time is
+	 * O(n*min(w, m) + (n + m) log n) and the space is O(n*min(w, m)).
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if the band has more than Integer.MAX_VALUE cells.
+	 * 
+	 * @param maxDistance
+	 *            the largest distance of interest (>= 0).
+	 * @return the distance, or maxDistance + 1 if the distance is greater.
+	 */
+	public int execute(String source, String target, int maxDistance) {
+		if (maxDistance < 0 || maxDistance == Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Unsupported maxDistance "
+					+ maxDistance);
+		}
+		final int n = source.length(), m = target.length();
+		final int cap = maxDistance + 1;
+		if (n == 0) {
+			return (int) Math.min((long) m * insertCost, cap);
 		}
-		if (target.length() == 0) {
-			return source.length() * deleteCost;
+		if (m == 0) {
+			return (int) Math.min((long) n * deleteCost, cap);
 		}
-		int[][] table = new int[source.length()][target.length()];
-		Map<Character, Integer> sourceIndexByCharacter = new HashMap<Character, Integer>();
-		if (source.charAt(0) != target.charAt(0)) {
-			table[0][0] = Math.min(replaceCost, deleteCost + insertCost);
+		/*
+		 * Band: cell (i, j) lies on an alignment costing no more than
+		 * maxDistance only if lengthCost(i - j) + lengthCost((n - m) - (i - j))
+		 * <= maxDistance.
+		 */
+		int dLo = n - m, dHi = n - m;
+		if (lengthCost(n - m) > maxDistance) {
+			return cap;
 		}
-		sourceIndexByCharacter.put(source.charAt(0), 0);
-		for (int i = 1; i < source.length(); i++) {
-			int deleteDistance = table[i - 1][0] + deleteCost;
-			int insertDistance = (i + 1) * deleteCost + insertCost;
-			int matchDistance = i * deleteCost
-					+ (source.charAt(i) == target.charAt(0) ? 0 : replaceCost);
-			table[i][0] = Math.min(Math.min(deleteDistance, insertDistance),
-					matchDistance);
+		while (dLo > -(m - 1)
+				&& lengthCost(dLo - 1) + lengthCost(n - m - dLo + 1) <= maxDistance) {
+			dLo--;
 		}
-		for (int j = 1; j < target.length(); j++) {
-			int deleteDistance = table[0][j - 1] + insertCost;
-			int insertDistance = (j + 1) * insertCost + deleteCost;
-			int matchDistance = j * insertCost
-					+ (source.charAt(0) == target.charAt(j) ? 0 : replaceCost);
-			table[0][j] = Math.min(Math.min(deleteDistance, insertDistance),
-					matchDistance);
+		while (dHi < n - 1
+				&& lengthCost(dHi + 1) + lengthCost(n - m - dHi - 1) <= maxDistance) {
+			dHi++;
 		}
-		for (int i = 1; i < source.length(); i++) {
-			int maxSourceLetterMatchIndex = source.charAt(i) == target
-					.charAt(0) ? 0 : -1;
-			for (int j = 1; j < target.length(); j++) {
-				Integer candidateSwapIndex = sourceIndexByCharacter.get(target
-						.charAt(j));
-				int jSwap = maxSourceLetterMatchIndex;
-				int deleteDistance = table[i - 1][j] + deleteCost;
-				int insertDistance = table[i][j - 1] + insertCost;
-				int matchDistance = table[i - 1][j - 1];
-				if (source.charAt(i) != target.charAt(j)) {
-					matchDistance += replaceCost;
-				} else {
-					maxSourceLetterMatchIndex = j;
+		int[] sourceIds = new int[n];
+		int[] targetIds = new int[m];
+		int alphabetSize = alphabet(source, target, sourceIds, targetIds);
+		/*
+		 * Last row of the source in which each character occurs, and last
+		 * column of the target to the left of the band.
+		 */
+		int[] sourceIndexByCharacter = new int[alphabetSize];
+		Arrays.fill(sourceIndexByCharacter, -1);
+		int[] targetIndexByCharacter = new int[alphabetSize];
+		Arrays.fill(targetIndexByCharacter, -1);
+		int jLeft = 0;
+		Table table = new Table(n, m, dLo, dHi, cap);
+		/*
+		 * Lower bound on rows not yet visited by alignments which skip the
+		 * current row with a swap (from row iSwap - 1 to row i they pay (i -
+		 * iSwap - 1) deletions).
+		 */
+		long skipBound = 0;
+		for (int i = 0; i < n; i++) {
+			int jLo = Math.max(0, i - dHi), jHi = Math.min(m - 1, i - dLo);
+			for (; jLeft < jLo; jLeft++) {
+				if (targetIds[jLeft] >= 0) {
+					targetIndexByCharacter[targetIds[jLeft]] = jLeft;
 				}
-				int swapDistance;
-				if (candidateSwapIndex != null && jSwap != -1) {
-					int iSwap = candidateSwapIndex;
-					int preSwapCost;
-					if (iSwap == 0 && jSwap == 0) {
-						preSwapCost = 0;
+			}
+			int maxSourceLetterMatchIndex = targetIndexByCharacter[sourceIds[i]];
+			long rowMin = cap, rowBound = cap;
+			for (int j = jLo; j <= jHi; j++) {
+				long distance;
+				if (i == 0 && j == 0) {
+					distance = source.charAt(0) != target.charAt(0) ? Math.min(
+							replaceCost, (long) deleteCost + insertCost) : 0;
+				} else if (i == 0) {
+					long deleteDistance = table.get(0, j - 1) + (long) insertCost;
+					long insertDistance = (j + 1L) * insertCost + deleteCost;
+					long matchDistance = (long) j * insertCost
+							+ (source.charAt(0) == target.charAt(j) ? 0
+									: replaceCost);
+					distance = Math.min(Math.min(deleteDistance, insertDistance),
+							matchDistance);
+				} else if (j == 0) {
+					long deleteDistance = table.get(i - 1, 0) + (long) deleteCost;
+					long insertDistance = (i + 1L) * deleteCost + insertCost;
+					long matchDistance = (long) i * deleteCost
+							+ (source.charAt(i) == target.charAt(0) ? 0
+									: replaceCost);
+					distance = Math.min(Math.min(deleteDistance, insertDistance),
+							matchDistance);
+				} else {
+					int iSwap = targetIds[j] < 0 ? -1
+							: sourceIndexByCharacter[targetIds[j]];
+					int jSwap = maxSourceLetterMatchIndex;
+					long deleteDistance = table.get(i - 1, j) + (long) deleteCost;
+					long insertDistance = table.get(i, j - 1) + (long) insertCost;
+					long matchDistance = table.get(i - 1, j - 1);
+					if (source.charAt(i) != target.charAt(j)) {
+						matchDistance += replaceCost;
+					}
+					long swapDistance;
+					if (iSwap != -1 && jSwap != -1) {
+						long preSwapCost;
+						if (iSwap == 0) {
+							preSwapCost = (long) jSwap * insertCost;
+						} else if (jSwap == 0) {
+							preSwapCost = (long) iSwap * deleteCost;
+						} else {
+							preSwapCost = table.get(iSwap - 1, jSwap - 1);
+						}
+						swapDistance = preSwapCost + (long) (i - iSwap - 1)
+								* deleteCost + (long) (j - jSwap - 1)
+								* insertCost + swapCost;
 					} else {
-						preSwapCost = table[Math.max(0, iSwap - 1)][Math.max(0,
-								jSwap - 1)];
+						swapDistance = Long.MAX_VALUE;
 					}
-					swapDistance = preSwapCost + (i - iSwap - 1) * deleteCost
-							+ (j - jSwap - 1) * insertCost + swapCost;
-				} else {
-					swapDistance = Integer.MAX_VALUE;
+					distance = Math.min(
+							Math.min(Math.min(deleteDistance, insertDistance),
+									matchDistance), swapDistance);
+				}
+				if (source.charAt(i) == target.charAt(j)) {
+					maxSourceLetterMatchIndex = j;
 				}
-				table[i][j] = Math.min(
-						Math.min(Math.min(deleteDistance, insertDistance),
-								matchDistance), swapDistance);
+				int value = (int) Math.min(distance, cap);
+				table.set(i, j, value);
+				rowMin = Math.min(rowMin, value);
+				rowBound = Math.min(rowBound, value
+						+ lengthCost((n - 1 - i) - (m - 1 - j)));
+			}
+			sourceIndexByCharacter[sourceIds[i]] = i;
+			/*
+			 * Every alignment either passes through this row, or skips it
+			 * with a swap, or starts in column 0 of a later row at a cost of
+			 * at least (i + 1) deletions.
+			 */
+			if (i < n - 1
+					&& Math.min(Math.min(rowBound, skipBound + swapCost),
+							(i + 1L) * deleteCost) > maxDistance) {
+				return cap;
+			}
+			skipBound = Math.min(skipBound + deleteCost, rowMin);
+		}
+		return table.get(n - 1, m - 1);
+	}
+
+	/**
+	 * The cost in deletions (d > 0) or insertions (d < 0) of a difference d
+	 * in length.
+	 */
+	private long lengthCost(int d) {
+		return d > 0 ? (long) d * deleteCost : -(long) d * insertCost;
+	}
+
+	/**
+	 * Number the distinct characters of the source, recording the number of
+	 * each source character and of each target character (-1 if not in the
+	 * source).
+	 * 
+	 * @return the number of distinct source characters.
+	 */
+	private static int alphabet(String source, String target,
+			int[] sourceIds, int[] targetIds) {
+		char[] alphabet = source.toCharArray();
+		Arrays.sort(alphabet);
+		int size = 0;
+		for (int i = 0; i < alphabet.length; i++) {
+			if (i == 0 || alphabet[i] != alphabet[i - 1]) {
+				alphabet[size++] = alphabet[i];
 			}
-			sourceIndexByCharacter.put(source.charAt(i), i);
 		}
-		return table[source.length() - 1][target.length() - 1];
+		for (int i = 0; i < sourceIds.length; i++) {
+			sourceIds[i] = Arrays.binarySearch(alphabet, 0, size,
+					source.charAt(i));
+		}
+		for (int j = 0; j < targetIds.length; j++) {
+			int id = Arrays.binarySearch(alphabet, 0, size, target.charAt(j));
+			targetIds[j] = id < 0 ? -1 : id;
+		}
+		return size;
+	}
+
+	/**
+	 * The band of the table of distances, with cells outside the band reading
+	 * as cap. Row i holds the width columns from offset(i), which include the
+	 * columns j with dLo <= i - j <= dHi.
+	 */
+	private static class Table {
+		private final int[] cells;
+		private final int m, dLo, dHi, cap, width;
+
+		Table(int n, int m, int dLo, int dHi, int cap) {
+			this.width = Math.min(m, dHi - dLo + 1);
+			if ((long) n * width > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Table too large: " + n
+						+ " x " + width);
+			}
+			this.cells = new int[n * width];
+			this.m = m;
+			this.dLo = dLo;
+			this.dHi = dHi;
+			this.cap = cap;
+		}
+
+		private int index(int i, int j) {
+			int offset = Math.min(Math.max(i - dHi, 0), m - width);
+			return i * width + j - offset;
+		}
+
+		int get(int i, int j) {
+			int d = i - j;
+			return d < dLo || d > dHi ? cap : cells[index(i, j)];
+		}
+
+		void set(int i, int j, int value) {
+			cells[index(i, j)] = value;
+		}
 	}
 }
@@ -0,0 +1,589 @@
+package org.xmlcml.euclid;
+
+import java.util.Arrays;
+
+/** minimum cost assignment of rows to columns for dense or sparse costs.
+ *
+ * alternative to stern_library HungarianAlgorithm for large, rectangular or
+ * mostly forbidden problems (e.g. matching peaks to atoms frame by frame).
+ * Costs are held in compressed sparse row (CSR) form; missing and infinite
+ * entries are forbidden pairs, so a SparseDistanceMatrix can be used directly.
+ * Rectangular problems are solved without padding (the smaller side is
+ * assigned).
+ *
+ * the algorithm is shortest augmenting paths with row and column potentials
+ * (the augmentation of Jonker and Volgenant), scanning only the stored entries
+ * and only the columns reached by each search. Each augmentation is O(e + k^2)
+ * for e entries and k columns reached, O(n^3) in the worst dense case. The
+ * result is of maximum size and of minimum cost among assignments of that
+ * size; rows left without a column get -1. (Internally each row of the
+ * smaller side has a private "unassigned" column whose cost exceeds any
+ * difference in total cost, so every search succeeds.)
+ *
+ * work arrays are kept and grown between calls of solve(). With
+ * setWarmStart(true) a solve of the same shape starts from the previous
+ * column potentials and keeps those previous pairs which are still optimal
+ * for their rows, so a small change of costs needs few augmentations.
+ *
+ * not thread-safe; use one solver per thread.
+ *
+ */
+public class AssignmentSolver {
+
+	private boolean warmStart;
+
+	// internal problem: n <= mReal, transposed if the caller's rows > cols;
+	// column mReal + i is the unassigned column of row i, m = mReal + n
+	private int n;
+	private int mReal;
+	private int m;
+	private boolean transposed;
+	private int[] rowStart = new int[1];
+	private int[] colIndex = new int[0];
+	private double[] cost = new double[0];
+	// transposition and dense conversion buffers
+	private int[] tRowStart = new int[1];
+	private int[] tColIndex = new int[0];
+	private double[] tCost = new double[0];
+
+	private double[] u = new double[0];
+	private double[] v = new double[0];
+	private int[] col4row = new int[0];
+	private int[] row4col = new int[0];
+	private double[] shortest = new double[0];
+	private int[] path = new int[0];
+	private boolean[] scannedCol = new boolean[0];
+	private int[] scannedRows = new int[0];
+	private int[] scannedCols = new int[0];
+	private int[] todo = new int[0];
+	private int[] touched = new int[0];
+	// columns of the entries, for warm starts
+	private int[] colStart = new int[1];
+	private int[] colRow = new int[0];
+	private double[] colCost = new double[0];
+
+	// previous solution, in internal orientation
+	private int lastRows = -1;
+	private int lastCols = -1;
+	private boolean solved;
+	private int[] assignment;
+	private double totalCost;
+	private int assignedCount;
+
+	/** solver with empty workspace. */
+	public AssignmentSolver() {
+	}
+
+	/** start later solves from the previous solution.
+	 *
+	 * only used when the next problem has the same numbers of rows and
+	 * columns as the last one.
+	 *
+	 * @param warmStart
+	 */
+	public void setWarmStart(boolean warmStart) {
+		this.warmStart = warmStart;
+	}
+
+	/** @return true if later solves start from the previous solution */
+	public boolean isWarmStart() {
+		return warmStart;
+	}
+
+	/** solve for a dense matrix.
+	 *
+	 * @param costs costs[i][j] of assigning row i to column j;
+	 * Double.POSITIVE_INFINITY for forbidden pairs; rows of equal length
+	 * @return column of each row, or -1 if unassigned
+	 * @throws EuclidRuntimeException if rows differ in length or a cost is NaN
+	 */
+	public int[] solve(double[][] costs) {
+		int rows = costs.length;
+		int cols = (rows == 0) ? 0 : costs[0].length;
+		ensureEntries(rows + 1, rows * cols, true);
+		int e = 0;
+		for (int i = 0; i < rows; i++) {
+			if (costs[i].length != cols) {
+				throw new EuclidRuntimeException("irregular cost matrix at row " + i);
+			}
+			tRowStart[i] = e;
+			for (int j = 0; j < cols; j++) {
+				double c = costs[i][j];
+				if (Double.isNaN(c)) {
+					throw new EuclidRuntimeException("NaN cost at (" + i + "," + j + ")");
+				}
+				if (c != Double.POSITIVE_INFINITY) {
+					tColIndex[e] = j;
+					tCost[e++] = c;
+				}
+			}
+		}
+		tRowStart[rows] = e;
+		return solve(rows, cols, tRowStart, tColIndex, tCost);
+	}
+
+	/** solve for a RealMatrix.
+	 *
+	 * @param costs as solve(double[][])
+	 * @return column of each row, or -1 if unassigned
+	 */
+	public int[] solve(RealMatrix costs) {
+		if (costs.getRows() == 0) {
+			return solve(0, costs.getCols(), new int[1], new int[0], new double[0]);
+		}
+		return solve(costs.getMatrix());
+	}
+
+	/** solve for distances within a cutoff.
+	 *
+	 * pairs beyond the cutoff are forbidden
+	 *
+	 * @param distances
+	 * @return column of each row, or -1 if unassigned
+	 */
+	public int[] solve(SparseDistanceMatrix distances) {
+		return solve(distances.getRows(), distances.getCols(), distances.getRowStart(),
+				distances.getColumnIndexes(), distances.getDistances());
+	}
+
+	/** solve for costs in compressed sparse row form.
+	 *
+	 * row i has costs[k] for column colIndex[k], rowStart[i] &lt;= k &lt;
+	 * rowStart[i + 1]; other pairs are forbidden. Arrays are not changed or kept.
+	 *
+	 * @param rows
+	 * @param cols
+	 * @param rowStart length rows + 1
+	 * @param colIndex columns, each row without repeats
+	 * @param costs
+	 * @return column of each row, or -1 if unassigned
+	 * @throws EuclidRuntimeException if arrays are inconsistent or a cost is NaN
+	 */
+	public int[] solve(int rows, int cols, int[] rowStart, int[] colIndex, double[] costs) {
+		check(rows, cols, rowStart, colIndex, costs);
+		transposed = rows > cols;
+		n = Math.min(rows, cols);
+		mReal = Math.max(rows, cols);
+		m = mReal + n;
+		if (transposed) {
+			transpose(rows, cols, rowStart, colIndex, costs);
+		} else {
+			copyEntries(rows, rowStart, colIndex, costs);
+		}
+		setUnassignedCosts();
+		ensureWorkspace();
+		boolean warm = warmStart && solved && lastRows == rows && lastCols == cols;
+		initialize(warm);
+		for (int r = 0; r < n; r++) {
+			if (col4row[r] == -1) {
+				augment(r);
+			}
+		}
+		lastRows = rows;
+		lastCols = cols;
+		solved = true;
+		return createAssignment(rows);
+	}
+
+	/** @return column of each row from the last solve (copy), or null */
+	public int[] getAssignment() {
+		return (assignment == null) ? null : assignment.clone();
+	}
+
+	/** @return total cost of the last assignment */
+	public double getCost() {
+		return totalCost;
+	}
+
+	/** @return number of rows assigned by the last solve */
+	public int getAssignedCount() {
+		return assignedCount;
+	}
+
+	private static void check(int rows, int cols, int[] rowStart, int[] colIndex, double[] costs) {
+		if (rows < 0 || cols < 0 || rowStart.length < rows + 1) {
+			throw new EuclidRuntimeException("bad dimensions " + rows + "/" + cols + "/" + rowStart.length);
+		}
+		int e = rowStart[rows];
+		if (rowStart[0] != 0 || e > colIndex.length || e > costs.length) {
+			throw new EuclidRuntimeException("bad entry count " + e);
+		}
+		for (int i = 0; i < rows; i++) {
+			if (rowStart[i + 1] < rowStart[i]) {
+				throw new EuclidRuntimeException("decreasing rowStart at " + i);
+			}
+		}
+		for (int k = 0; k < e; k++) {
+			if (colIndex[k] < 0 || colIndex[k] >= cols) {
+				throw new EuclidRuntimeException("bad column " + colIndex[k] + " at " + k);
+			}
+			if (Double.isNaN(costs[k])) {
+				throw new EuclidRuntimeException("NaN cost at " + k);
+			}
+		}
+	}
+
+	private void ensureEntries(int starts, int entries, boolean buffer) {
+		if (buffer) {
+			if (tRowStart.length < starts) {
+				tRowStart = new int[starts];
+			}
+			if (tColIndex.length < entries) {
+				tColIndex = new int[entries];
+				tCost = new double[entries];
+			}
+		} else {
+			if (rowStart.length < starts) {
+				rowStart = new int[starts];
+			}
+			if (colIndex.length < entries) {
+				colIndex = new int[entries];
+				cost = new double[entries];
+			}
+		}
+	}
+
+	// copy, dropping infinite costs and ending each row with its unassigned
+	// column (the arrays may be the dense buffers)
+	private void copyEntries(int rows, int[] start, int[] index, double[] costs) {
+		ensureEntries(rows + 1, start[rows] + rows, false);
+		int e = 0;
+		for (int i = 0; i < rows; i++) {
+			rowStart[i] = e;
+			for (int k = start[i]; k < start[i + 1]; k++) {
+				if (costs[k] != Double.POSITIVE_INFINITY) {
+					colIndex[e] = index[k];
+					cost[e++] = costs[k];
+				}
+			}
+			colIndex[e++] = mReal + i;
+		}
+		rowStart[rows] = e;
+	}
+
+	private void transpose(int rows, int cols, int[] start, int[] index, double[] costs) {
+		int entries = start[rows];
+		ensureEntries(cols + 1, entries + cols, false);
+		Arrays.fill(rowStart, 0, cols + 1, 1);
+		rowStart[0] = 0;
+		for (int k = 0; k < entries; k++) {
+			if (costs[k] != Double.POSITIVE_INFINITY) {
+				rowStart[index[k] + 1]++;
+			}
+		}
+		for (int j = 0; j < cols; j++) {
+			rowStart[j + 1] += rowStart[j];
+		}
+		// rowStart[j] is used as the fill pointer of row j, then restored
+		for (int i = 0; i < rows; i++) {
+			for (int k = start[i]; k < start[i + 1]; k++) {
+				if (costs[k] != Double.POSITIVE_INFINITY) {
+					int p = rowStart[index[k]]++;
+					colIndex[p] = i;
+					cost[p] = costs[k];
+				}
+			}
+		}
+		for (int j = 0; j < cols; j++) {
+			colIndex[rowStart[j]++] = mReal + j;
+		}
+		for (int j = cols; j > 0; j--) {
+			rowStart[j] = rowStart[j - 1];
+		}
+		rowStart[0] = 0;
+	}
+
+	// unassigned cost > any difference in total cost between assignments
+	private void setUnassignedCosts() {
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < n; i++) {
+			for (int k = rowStart[i]; k < rowStart[i + 1] - 1; k++) {
+				min = Math.min(min, cost[k]);
+				max = Math.max(max, cost[k]);
+			}
+		}
+		double unassigned = (min > max) ? 1.0
+				: (n + 1) * (max - min) + Math.abs(max) + Math.abs(min) + 1.0;
+		for (int i = 0; i < n; i++) {
+			cost[rowStart[i + 1] - 1] = unassigned;
+		}
+	}
+
+	private void ensureWorkspace() {
+		if (u.length < n) {
+			u = new double[n];
+			col4row = grow(col4row, n);
+			scannedRows = new int[n];
+		}
+		if (v.length < m) {
+			double[] vv = new double[m];
+			System.arraycopy(v, 0, vv, 0, v.length);
+			v = vv;
+			row4col = new int[m];
+			shortest = new double[m];
+			Arrays.fill(shortest, Double.POSITIVE_INFINITY);
+			path = new int[m];
+			scannedCol = new boolean[m];
+			scannedCols = new int[m];
+			todo = new int[m];
+			touched = new int[m];
+		}
+	}
+
+	private static int[] grow(int[] a, int size) {
+		int[] b = new int[size];
+		System.arraycopy(a, 0, b, 0, a.length);
+		return b;
+	}
+
+	// feasible potentials: every reduced cost cost - u - v >= 0, each pair has
+	// reduced cost 0 and every free column has v = 0 (the maximum)
+	private void initialize(boolean warm) {
+		Arrays.fill(row4col, 0, m, -1);
+		if (!warm) {
+			Arrays.fill(v, 0, m, 0.0);
+			for (int i = 0; i < n; i++) {
+				int argmin = rowMinimum(i);
+				if (row4col[argmin] == -1) {
+					col4row[i] = argmin;
+					row4col[argmin] = i;
+				} else {
+					col4row[i] = -1;
+				}
+			}
+			return;
+		}
+		for (int i = 0; i < n; i++) {
+			int j = col4row[i];
+			if (j != -1 && row4col[j] == -1) {
+				row4col[j] = i;
+			} else {
+				col4row[i] = -1;
+			}
+		}
+		for (int j = 0; j < m; j++) {
+			if (row4col[j] == -1) {
+				v[j] = 0.0;
+			}
+		}
+		// keep previous pairs which are still tight; freed columns go to todo
+		int nTodo = 0;
+		for (int i = 0; i < n; i++) {
+			rowMinimum(i);
+			int j = col4row[i];
+			if (j != -1 && !(reducedCost(i, j) <= 0.0)) {
+				col4row[i] = -1;
+				row4col[j] = -1;
+				todo[nTodo++] = j;
+			}
+		}
+		if (nTodo == 0) {
+			return;
+		}
+		// raising v of a freed column to 0 lowers u of its rows, which may free more
+		buildColumns();
+		while (nTodo > 0) {
+			int j = todo[--nTodo];
+			v[j] = 0.0;
+			for (int k = colStart[j]; k < colStart[j + 1]; k++) {
+				int i = colRow[k];
+				if (colCost[k] < u[i]) {
+					u[i] = colCost[k];
+					int jj = col4row[i];
+					if (jj != -1) {
+						col4row[i] = -1;
+						row4col[jj] = -1;
+						todo[nTodo++] = jj;
+					}
+				}
+			}
+		}
+	}
+
+	// sets u[i] to the minimum reduced cost of row i and returns its column
+	private int rowMinimum(int i) {
+		double min = Double.POSITIVE_INFINITY;
+		int argmin = -1;
+		for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+			int j = colIndex[k];
+			double reduced = cost[k] - v[j];
+			if (reduced < min) {
+				min = reduced;
+				argmin = j;
+			}
+		}
+		u[i] = min;
+		return argmin;
+	}
+
+	// cost - u - v of (i, j), or infinity if not allowed
+	private double reducedCost(int i, int j) {
+		for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+			if (colIndex[k] == j) {
+				return cost[k] - u[i] - v[j];
+			}
+		}
+		return Double.POSITIVE_INFINITY;
+	}
+
+	// column-wise copy of the entries
+	private void buildColumns() {
+		int entries = rowStart[n];
+		if (colStart.length < m + 1) {
+			colStart = new int[m + 1];
+		}
+		if (colRow.length < entries) {
+			colRow = new int[entries];
+			colCost = new double[entries];
+		}
+		Arrays.fill(colStart, 0, m + 1, 0);
+		for (int k = 0; k < entries; k++) {
+			colStart[colIndex[k] + 1]++;
+		}
+		for (int j = 0; j < m; j++) {
+			colStart[j + 1] += colStart[j];
+		}
+		for (int i = 0; i < n; i++) {
+			for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+				int p = colStart[colIndex[k]]++;
+				colRow[p] = i;
+				colCost[p] = cost[k];
+			}
+		}
+		for (int j = m; j > 0; j--) {
+			colStart[j] = colStart[j - 1];
+		}
+		colStart[0] = 0;
+	}
+
+	// shortest augmenting path from free row r.
+	// An unassigned column reached from a scanned row is always free (a row
+	// assigned to its own is only reached through it), so only the closest
+	// one is kept rather than adding them all to todo
+	private void augment(int r) {
+		int nScannedRows = 0;
+		int nScannedCols = 0;
+		int nTodo = 0;
+		int nTouched = 0;
+		double minVal = 0.0;
+		double unassignedDist = Double.POSITIVE_INFINITY;
+		int unassignedCol = -1;
+		int unassignedRow = -1;
+		int sink = -1;
+		int i = r;
+		while (true) {
+			scannedRows[nScannedRows++] = i;
+			for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+				int j = colIndex[k];
+				if (scannedCol[j]) {
+					continue;
+				}
+				double reduced = minVal + cost[k] - u[i] - v[j];
+				if (j >= mReal) {
+					if (reduced < unassignedDist) {
+						unassignedDist = reduced;
+						unassignedCol = j;
+						unassignedRow = i;
+					}
+				} else if (reduced < shortest[j]) {
+					if (shortest[j] == Double.POSITIVE_INFINITY) {
+						todo[nTodo++] = j;
+						touched[nTouched++] = j;
+					}
+					shortest[j] = reduced;
+					path[j] = i;
+				}
+			}
+			// closest reached column, preferring free ones on ties
+			int best = -1;
+			double dBest = Double.POSITIVE_INFINITY;
+			for (int t = 0; t < nTodo; t++) {
+				double d = shortest[todo[t]];
+				if (d < dBest || (d == dBest && row4col[todo[t]] == -1 && row4col[todo[best]] != -1)) {
+					best = t;
+					dBest = d;
+				}
+			}
+			if (unassignedCol != -1 && (best == -1 || unassignedDist < dBest
+					|| (unassignedDist == dBest && row4col[todo[best]] != -1))) {
+				shortest[unassignedCol] = unassignedDist;
+				path[unassignedCol] = unassignedRow;
+				touched[nTouched++] = unassignedCol;
+				scannedCols[nScannedCols++] = unassignedCol;
+				minVal = unassignedDist;
+				sink = unassignedCol;
+				break;
+			}
+			if (best == -1) {
+				break;
+			}
+			int j = todo[best];
+			todo[best] = todo[--nTodo];
+			scannedCol[j] = true;
+			scannedCols[nScannedCols++] = j;
+			minVal = shortest[j];
+			if (row4col[j] == -1) {
+				sink = j;
+				break;
+			}
+			i = row4col[j];
+		}
+		if (sink != -1) {
+			u[r] += minVal;
+			for (int s = 0; s < nScannedRows; s++) {
+				int row = scannedRows[s];
+				if (row != r) {
+					u[row] += minVal - shortest[col4row[row]];
+				}
+			}
+			for (int s = 0; s < nScannedCols; s++) {
+				int col = scannedCols[s];
+				v[col] -= minVal - shortest[col];
+			}
+			int j = sink;
+			while (true) {
+				int row = path[j];
+				row4col[j] = row;
+				int next = col4row[row];
+				col4row[row] = j;
+				if (row == r) {
+					break;
+				}
+				j = next;
+			}
+		}
+		for (int s = 0; s < nScannedCols; s++) {
+			scannedCol[scannedCols[s]] = false;
+		}
+		for (int s = 0; s < nTouched; s++) {
+			shortest[touched[s]] = Double.POSITIVE_INFINITY;
+		}
+	}
+
+	private int[] createAssignment(int rows) {
+		assignment = new int[rows];
+		Arrays.fill(assignment, -1);
+		totalCost = 0.0;
+		assignedCount = 0;
+		for (int i = 0; i < n; i++) {
+			int j = col4row[i];
+			if (j >= mReal) {
+				continue;
+			}
+			for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+				if (colIndex[k] == j) {
+					totalCost += cost[k];
+					break;
+				}
+			}
+			assignedCount++;
+			if (transposed) {
+				assignment[j] = i;
+			} else {
+				assignment[i] = j;
+			}
+		}
+		return assignment.clone();
+	}
+}
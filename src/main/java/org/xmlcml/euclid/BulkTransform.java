@@ -0,0 +1,176 @@
+package org.xmlcml.euclid;
+
+import java.util.concurrent.RecursiveAction;
+
+/** affine transformation of packed coordinate buffers.
+ *
+ * kernels behind Transform3.transform(double[] ...) and Transform2.transform(double[] ...).
+ * Coefficients are the top rows of the homogeneous matrix in row-major order
+ * (3x4 = 12 for 3-D, 2x3 = 6 for 2-D), extracted once per call.
+ *
+ * Coordinates are addressed as x[xOff + stride * i] etc. so that one kernel serves
+ * interleaved buffers (x = y = z, offsets 0, 1, 2, stride 3) and separate
+ * per-axis arrays (stride 1). Calls with at least PARALLEL_THRESHOLD points are
+ * split into ranges on the shared ForkJoinPool.
+ *
+ */
+final class BulkTransform {
+
+	/** minimum number of points before the transform is run in parallel */
+	final static int PARALLEL_THRESHOLD = 1 << 16;
+	private final static int CHUNK = 1 << 14;
+
+	private BulkTransform() {
+	}
+
+	/** 3x4 coefficients of second * first (first applied first).
+	 */
+	static double[] concatenate3(double[] second, double[] first) {
+		double[] c = new double[12];
+		for (int i = 0; i < 3; i++) {
+			for (int j = 0; j < 4; j++) {
+				double sum = (j == 3) ? second[4 * i + 3] : 0.0;
+				for (int k = 0; k < 3; k++) {
+					sum += second[4 * i + k] * first[4 * k + j];
+				}
+				c[4 * i + j] = sum;
+			}
+		}
+		return c;
+	}
+
+	/** 2x3 coefficients of second * first (first applied first).
+	 */
+	static double[] concatenate2(double[] second, double[] first) {
+		double[] c = new double[6];
+		for (int i = 0; i < 2; i++) {
+			for (int j = 0; j < 3; j++) {
+				double sum = (j == 2) ? second[3 * i + 2] : 0.0;
+				for (int k = 0; k < 2; k++) {
+					sum += second[3 * i + k] * first[3 * k + j];
+				}
+				c[3 * i + j] = sum;
+			}
+		}
+		return c;
+	}
+
+	/** transform count points (or those in index) in place.
+	 *
+	 * @param c 12 (3-D) or 6 (2-D) coefficients
+	 * @param x
+	 * @param y
+	 * @param z null for 2-D
+	 * @param xOff
+	 * @param yOff
+	 * @param zOff
+	 * @param stride
+	 * @param count number of points in buffers
+	 * @param index points to transform (null for all); out of range values are ignored
+	 */
+	static void apply(double[] c, double[] x, double[] y, double[] z,
+			int xOff, int yOff, int zOff, int stride, int count, int[] index) {
+		int n = (index == null) ? count : index.length;
+		Task task = new Task(c, x, y, z, xOff, yOff, zOff, stride, count, index, 0, n);
+		if (n >= PARALLEL_THRESHOLD) {
+			MatrixMultiplier.getPool().invoke(task);
+		} else {
+			task.apply();
+		}
+	}
+
+	private static class Task extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private double[] c;
+		private double[] x;
+		private double[] y;
+		private double[] z;
+		private int xOff;
+		private int yOff;
+		private int zOff;
+		private int stride;
+		private int count;
+		private int[] index;
+		private int from;
+		private int to;
+
+		Task(double[] c, double[] x, double[] y, double[] z, int xOff, int yOff, int zOff,
+				int stride, int count, int[] index, int from, int to) {
+			this.c = c;
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.xOff = xOff;
+			this.yOff = yOff;
+			this.zOff = zOff;
+			this.stride = stride;
+			this.count = count;
+			this.index = index;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= CHUNK) {
+				apply();
+			} else {
+				int mid = (from + to) >>> 1;
+				invokeAll(new Task(c, x, y, z, xOff, yOff, zOff, stride, count, index, from, mid),
+						new Task(c, x, y, z, xOff, yOff, zOff, stride, count, index, mid, to));
+			}
+		}
+
+		void apply() {
+			if (z == null) {
+				apply2();
+			} else {
+				apply3();
+			}
+		}
+
+		private void apply3() {
+			double m00 = c[0], m01 = c[1], m02 = c[2], m03 = c[3];
+			double m10 = c[4], m11 = c[5], m12 = c[6], m13 = c[7];
+			double m20 = c[8], m21 = c[9], m22 = c[10], m23 = c[11];
+			for (int k = from; k < to; k++) {
+				int i = k;
+				if (index != null) {
+					i = index[k];
+					if (i < 0 || i >= count) {
+						continue;
+					}
+				}
+				int ix = xOff + stride * i;
+				int iy = yOff + stride * i;
+				int iz = zOff + stride * i;
+				double xx = x[ix];
+				double yy = y[iy];
+				double zz = z[iz];
+				x[ix] = m00 * xx + m01 * yy + m02 * zz + m03;
+				y[iy] = m10 * xx + m11 * yy + m12 * zz + m13;
+				z[iz] = m20 * xx + m21 * yy + m22 * zz + m23;
+			}
+		}
+
+		private void apply2() {
+			double m00 = c[0], m01 = c[1], m02 = c[2];
+			double m10 = c[3], m11 = c[4], m12 = c[5];
+			for (int k = from; k < to; k++) {
+				int i = k;
+				if (index != null) {
+					i = index[k];
+					if (i < 0 || i >= count) {
+						continue;
+					}
+				}
+				int ix = xOff + stride * i;
+				int iy = yOff + stride * i;
+				double xx = x[ix];
+				double yy = y[iy];
+				x[ix] = m00 * xx + m01 * yy + m02;
+				y[iy] = m10 * xx + m11 * yy + m12;
+			}
+		}
+	}
+}
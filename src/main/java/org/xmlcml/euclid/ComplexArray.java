@@ -0,0 +1,324 @@
+package org.xmlcml.euclid;
+
+/** array of complex numbers held as interleaved (re, im) doubles.
+ *
+ * avoids an object per element for spectral work. Element i has its real
+ * part at getArray()[2 * i] and imaginary part at getArray()[2 * i + 1];
+ * elements can be read or written as Complex or Polar.
+ *
+ * fft() and inverseFFT() transform in place for any size (see RealArray.fft());
+ * twiddle factors are cached per size, so repeated transforms of the same
+ * length do not recompute them.
+ *
+ */
+public class ComplexArray {
+
+	private double[] array;
+	private int nelem;
+
+	/** zero array.
+	 *
+	 * @param n number of elements
+	 */
+	public ComplexArray(int n) {
+		if (n < 0) {
+			throw new EuclidRuntimeException("negative size: " + n);
+		}
+		nelem = n;
+		array = new double[2 * n];
+	}
+
+	/** from real and imaginary parts.
+	 *
+	 * @param real
+	 * @param imaginary null for a real array, else same length as real
+	 * @throws EuclidRuntimeException if lengths differ
+	 */
+	public ComplexArray(double[] real, double[] imaginary) {
+		this(real.length);
+		if (imaginary != null && imaginary.length != real.length) {
+			throw new EuclidRuntimeException("unequal lengths " + real.length + " / " + imaginary.length);
+		}
+		for (int i = 0; i < nelem; i++) {
+			array[2 * i] = real[i];
+			array[2 * i + 1] = (imaginary == null) ? 0.0 : imaginary[i];
+		}
+	}
+
+	/** real array.
+	 *
+	 * @param real
+	 */
+	public ComplexArray(RealArray real) {
+		this(real.getArray(), null);
+	}
+
+	/** from Complex values.
+	 *
+	 * @param values
+	 */
+	public ComplexArray(Complex[] values) {
+		this(values.length);
+		for (int i = 0; i < nelem; i++) {
+			setElementAt(i, values[i]);
+		}
+	}
+
+	/** copy.
+	 *
+	 * @param complexArray
+	 */
+	public ComplexArray(ComplexArray complexArray) {
+		nelem = complexArray.nelem;
+		array = complexArray.array.clone();
+	}
+
+	/** from interleaved (re, im) values.
+	 *
+	 * @param interleaved even length (copied)
+	 * @return array
+	 * @throws EuclidRuntimeException if length is odd
+	 */
+	public static ComplexArray createFromInterleaved(double[] interleaved) {
+		if (interleaved.length % 2 != 0) {
+			throw new EuclidRuntimeException("interleaved array must have even length: " + interleaved.length);
+		}
+		ComplexArray complexArray = new ComplexArray(interleaved.length / 2);
+		System.arraycopy(interleaved, 0, complexArray.array, 0, interleaved.length);
+		return complexArray;
+	}
+
+	/** @return number of elements */
+	public int size() {
+		return nelem;
+	}
+
+	/** interleaved (re, im) values.
+	 *
+	 * @return array of length 2 * size() (not copied)
+	 */
+	public double[] getArray() {
+		return array;
+	}
+
+	/** @param i
+	 * @return real part of element i */
+	public double getReal(int i) {
+		return array[2 * i];
+	}
+
+	/** @param i
+	 * @return imaginary part of element i */
+	public double getImaginary(int i) {
+		return array[2 * i + 1];
+	}
+
+	/** @param i
+	 * @return element i as new Complex */
+	public Complex elementAt(int i) {
+		return new Complex(array[2 * i], array[2 * i + 1]);
+	}
+
+	/** @param i
+	 * @return element i as new Polar */
+	public Polar getPolar(int i) {
+		return new Polar(array[2 * i], array[2 * i + 1]);
+	}
+
+	/** set element.
+	 *
+	 * @param i
+	 * @param real
+	 * @param imaginary
+	 */
+	public void setElementAt(int i, double real, double imaginary) {
+		array[2 * i] = real;
+		array[2 * i + 1] = imaginary;
+	}
+
+	/** set element.
+	 *
+	 * @param i
+	 * @param c
+	 */
+	public void setElementAt(int i, Complex c) {
+		setElementAt(i, c.getReal(), c.getImaginary());
+	}
+
+	/** @return real parts */
+	public RealArray getRealArray() {
+		double[] re = new double[nelem];
+		for (int i = 0; i < nelem; i++) {
+			re[i] = array[2 * i];
+		}
+		return new RealArray(re);
+	}
+
+	/** @return imaginary parts */
+	public RealArray getImaginaryArray() {
+		double[] im = new double[nelem];
+		for (int i = 0; i < nelem; i++) {
+			im[i] = array[2 * i + 1];
+		}
+		return new RealArray(im);
+	}
+
+	/** @return moduli */
+	public RealArray getAbsArray() {
+		double[] r = new double[nelem];
+		for (int i = 0; i < nelem; i++) {
+			r[i] = Math.sqrt(array[2 * i] * array[2 * i] + array[2 * i + 1] * array[2 * i + 1]);
+		}
+		return new RealArray(r);
+	}
+
+	/** squared moduli.
+	 *
+	 * for the output of fft() this is the (unnormalised) power spectrum
+	 *
+	 * @return re^2 + im^2 of each element
+	 */
+	public RealArray getPowerSpectrum() {
+		double[] p = new double[nelem];
+		for (int i = 0; i < nelem; i++) {
+			p[i] = array[2 * i] * array[2 * i] + array[2 * i + 1] * array[2 * i + 1];
+		}
+		return new RealArray(p);
+	}
+
+	/** @return elements as new Complex objects */
+	public Complex[] getComplexArray() {
+		Complex[] c = new Complex[nelem];
+		for (int i = 0; i < nelem; i++) {
+			c[i] = elementAt(i);
+		}
+		return c;
+	}
+
+	/** forward discrete Fourier transform in place.
+	 *
+	 * X(k) = sum(j) x(j) exp(-2 pi i jk / n); no scaling.
+	 *
+	 * @return this
+	 */
+	public ComplexArray fft() {
+		if (nelem > 0) {
+			FFT.transform(array, 0, nelem, false);
+		}
+		return this;
+	}
+
+	/** inverse discrete Fourier transform in place.
+	 *
+	 * x(j) = sum(k) X(k) exp(2 pi i jk / n) / n, so inverseFFT() undoes fft().
+	 *
+	 * @return this
+	 */
+	public ComplexArray inverseFFT() {
+		if (nelem > 0) {
+			FFT.transform(array, 0, nelem, true);
+		}
+		return this;
+	}
+
+	/** multiply elementwise in place.
+	 *
+	 * @param c same size
+	 * @return this
+	 * @throws EuclidRuntimeException if sizes differ
+	 */
+	public ComplexArray multiplyBy(ComplexArray c) {
+		multiply(c, 1.0);
+		return this;
+	}
+
+	/** multiply elementwise by the conjugate of c in place.
+	 *
+	 * for transforms this gives the cross-spectrum used for correlation
+	 *
+	 * @param c same size
+	 * @return this
+	 * @throws EuclidRuntimeException if sizes differ
+	 */
+	public ComplexArray multiplyByConjugate(ComplexArray c) {
+		multiply(c, -1.0);
+		return this;
+	}
+
+	private void multiply(ComplexArray c, double sign) {
+		if (c.nelem != nelem) {
+			throw new EuclidRuntimeException("unequal sizes " + nelem + " / " + c.nelem);
+		}
+		double[] b = c.array;
+		for (int i = 0; i < 2 * nelem; i += 2) {
+			double bi = sign * b[i + 1];
+			double re = array[i] * b[i] - array[i + 1] * bi;
+			double im = array[i] * bi + array[i + 1] * b[i];
+			array[i] = re;
+			array[i + 1] = im;
+		}
+	}
+
+	/** multiply all elements by a real factor in place.
+	 *
+	 * @param f
+	 * @return this
+	 */
+	public ComplexArray multiplyBy(double f) {
+		for (int i = 0; i < 2 * nelem; i++) {
+			array[i] *= f;
+		}
+		return this;
+	}
+
+	/** complex conjugate in place.
+	 *
+	 * @return this
+	 */
+	public ComplexArray conjugate() {
+		for (int i = 1; i < 2 * nelem; i += 2) {
+			array[i] = -array[i];
+		}
+		return this;
+	}
+
+	/** copy truncated or padded with zeros.
+	 *
+	 * @param n new size
+	 * @return new array
+	 */
+	public ComplexArray resize(int n) {
+		ComplexArray c = new ComplexArray(n);
+		System.arraycopy(array, 0, c.array, 0, 2 * Math.min(n, nelem));
+		return c;
+	}
+
+	/** circular cross-correlation.
+	 *
+	 * r(k) = sum(j) this(j + k) conj(c(j)), indices mod size(), computed by FFT.
+	 *
+	 * @param c same size
+	 * @return r(0)..r(size() - 1)
+	 * @throws EuclidRuntimeException if sizes differ
+	 */
+	public ComplexArray crossCorrelation(ComplexArray c) {
+		if (c.nelem != nelem) {
+			throw new EuclidRuntimeException("unequal sizes " + nelem + " / " + c.nelem);
+		}
+		ComplexArray b = new ComplexArray(c).fft();
+		return new ComplexArray(this).fft().multiplyByConjugate(b).inverseFFT();
+	}
+
+	/** @return elements as (re,im) pairs */
+	public String toString() {
+		StringBuilder sb = new StringBuilder("(");
+		for (int i = 0; i < nelem; i++) {
+			if (i > 0) {
+				sb.append(EuclidConstants.S_COMMA);
+			}
+			sb.append(EuclidConstants.S_LBRAK + array[2 * i] + EuclidConstants.S_COMMA + array[2 * i + 1] + EuclidConstants.S_RBRAK);
+		}
+		sb.append(")");
+		return sb.toString();
+	}
+}
@@ -0,0 +1,233 @@
+package org.xmlcml.euclid;
+
+import java.util.concurrent.RecursiveAction;
+
+/** sliding filter kernel behind RealArray.applyFilter and StreamingFilter.
+ *
+ * out[j] = sum(k) f[k] * x[j - mid + k] / weight, mid = (nf - 1) / 2.
+ * Where the filter overlaps the ends of x only the overlapping terms are used
+ * and weight is the sum of their |f[k]|; elsewhere it is the given interior weight.
+ *
+ * the interior is computed directly for small filters, directly in chunks on
+ * the shared ForkJoinPool when n * nf is large, and by overlap-save FFT for
+ * filters of at least FFT_THRESHOLD elements. FFT blocks are real so two are
+ * packed into each complex transform.
+ *
+ */
+final class Convolution {
+
+	/** minimum filter length for the FFT path */
+	final static int FFT_THRESHOLD = 64;
+	/** minimum number of multiply-adds before the interior is split across threads */
+	final static long PARALLEL_WORK = 1L << 20;
+	private final static int CHUNK_WORK = 1 << 16;
+
+	private Convolution() {
+	}
+
+	/** filter x[0..n) into out[0..to-from) for outputs from..to.
+	 *
+	 * @param x
+	 * @param n number of valid elements in x
+	 * @param f filter
+	 * @param interiorWeight divisor where the filter lies wholly in x
+	 * @param out receives output j at out[j - from]
+	 * @param from
+	 * @param to
+	 */
+	static void filter(double[] x, int n, double[] f, double interiorWeight, double[] out, int from, int to) {
+		int nf = f.length;
+		int mid = (nf - 1) / 2;
+		int right = nf - 1 - mid;
+		int lo = Math.min(to, Math.max(from, mid));
+		int hi = Math.max(lo, Math.min(to, n - right));
+		for (int j = from; j < lo; j++) {
+			out[j - from] = edge(x, n, f, j);
+		}
+		for (int j = hi; j < to; j++) {
+			out[j - from] = edge(x, n, f, j);
+		}
+		int count = hi - lo;
+		if (count <= 0) {
+			return;
+		}
+		boolean parallel = (long) count * nf >= PARALLEL_WORK;
+		if (nf >= FFT_THRESHOLD && count >= nf) {
+			FFTTask task = new FFTTask(x, n, f, interiorWeight, out, from, lo, hi);
+			if (parallel) {
+				MatrixMultiplier.getPool().invoke(task);
+			} else {
+				task.compute();
+			}
+		} else if (parallel) {
+			MatrixMultiplier.getPool().invoke(new DirectTask(x, f, interiorWeight, out, from, lo, hi));
+		} else {
+			direct(x, f, interiorWeight, out, from, lo, hi);
+		}
+	}
+
+	// output j with the filter truncated at either or both ends of x
+	private static double edge(double[] x, int n, double[] f, int j) {
+		int mid = (f.length - 1) / 2;
+		int kLo = Math.max(0, mid - j);
+		int kHi = Math.min(f.length, n - j + mid);
+		double wt = 0.0;
+		double sum = 0.0;
+		int l = j - mid + kLo;
+		for (int k = kLo; k < kHi; k++) {
+			wt += Math.abs(f[k]);
+			sum += f[k] * x[l++];
+		}
+		return sum / wt;
+	}
+
+	private static void direct(double[] x, double[] f, double wt, double[] out, int from, int lo, int hi) {
+		int nf = f.length;
+		int mid = (nf - 1) / 2;
+		for (int j = lo; j < hi; j++) {
+			double sum = 0.0;
+			int l = j - mid;
+			for (int k = 0; k < nf; k++) {
+				sum += f[k] * x[l++];
+			}
+			out[j - from] = sum / wt;
+		}
+	}
+
+	private static class DirectTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private double[] x;
+		private double[] f;
+		private double wt;
+		private double[] out;
+		private int from;
+		private int lo;
+		private int hi;
+
+		DirectTask(double[] x, double[] f, double wt, double[] out, int from, int lo, int hi) {
+			this.x = x;
+			this.f = f;
+			this.wt = wt;
+			this.out = out;
+			this.from = from;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if ((long) (hi - lo) * f.length <= CHUNK_WORK || hi - lo < 2) {
+				direct(x, f, wt, out, from, lo, hi);
+			} else {
+				int m = (lo + hi) >>> 1;
+				invokeAll(new DirectTask(x, f, wt, out, from, lo, m),
+						new DirectTask(x, f, wt, out, from, m, hi));
+			}
+		}
+	}
+
+	// overlap-save over outputs [lo, hi); each block of size fftSize yields step outputs
+	private static class FFTTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private double[] x;
+		private int n;
+		private int nf;
+		private double wt;
+		private double[] out;
+		private int from;
+		private int lo;
+		private int hi;
+		private int fftSize;
+		private int step;
+		private double[] spectrum;
+		private int firstPair;
+		private int lastPair;
+
+		FFTTask(double[] x, int n, double[] f, double wt, double[] out, int from, int lo, int hi) {
+			this.x = x;
+			this.n = n;
+			this.nf = f.length;
+			this.wt = wt;
+			this.out = out;
+			this.from = from;
+			this.lo = lo;
+			this.hi = hi;
+			this.fftSize = FFT.nextPowerOf2(4 * nf);
+			this.step = fftSize - nf + 1;
+			// correlation with f is convolution with f reversed
+			spectrum = new double[2 * fftSize];
+			for (int k = 0; k < nf; k++) {
+				spectrum[2 * k] = f[nf - 1 - k];
+			}
+			FFT.transform(spectrum, 0, fftSize, false);
+			int nblock = (hi - lo + step - 1) / step;
+			firstPair = 0;
+			lastPair = (nblock + 1) / 2;
+		}
+
+		private FFTTask(FFTTask parent, int firstPair, int lastPair) {
+			this.x = parent.x;
+			this.n = parent.n;
+			this.nf = parent.nf;
+			this.wt = parent.wt;
+			this.out = parent.out;
+			this.from = parent.from;
+			this.lo = parent.lo;
+			this.hi = parent.hi;
+			this.fftSize = parent.fftSize;
+			this.step = parent.step;
+			this.spectrum = parent.spectrum;
+			this.firstPair = firstPair;
+			this.lastPair = lastPair;
+		}
+
+		@Override
+		protected void compute() {
+			if (lastPair - firstPair > 1 && getPool() != null) {
+				int m = (firstPair + lastPair) >>> 1;
+				invokeAll(new FFTTask(this, firstPair, m), new FFTTask(this, m, lastPair));
+				return;
+			}
+			double[] buffer = new double[2 * fftSize];
+			for (int p = firstPair; p < lastPair; p++) {
+				pair(p, buffer);
+			}
+		}
+
+		// blocks 2p (real part) and 2p + 1 (imaginary part)
+		private void pair(int p, double[] buffer) {
+			int j0 = lo + 2 * p * step;
+			int j1 = j0 + step;
+			int mid = (nf - 1) / 2;
+			load(buffer, 0, j0 - mid);
+			load(buffer, 1, j1 - mid);
+			FFT.transform(buffer, 0, fftSize, false);
+			for (int i = 0; i < 2 * fftSize; i += 2) {
+				double re = buffer[i] * spectrum[i] - buffer[i + 1] * spectrum[i + 1];
+				double im = buffer[i] * spectrum[i + 1] + buffer[i + 1] * spectrum[i];
+				buffer[i] = re;
+				buffer[i + 1] = im;
+			}
+			FFT.transform(buffer, 0, fftSize, true);
+			store(buffer, 0, j0);
+			store(buffer, 1, j1);
+		}
+
+		private void load(double[] buffer, int part, int start) {
+			int len = Math.max(0, Math.min(fftSize, n - start));
+			for (int t = 0; t < len; t++) {
+				buffer[2 * t + part] = x[start + t];
+			}
+			for (int t = len; t < fftSize; t++) {
+				buffer[2 * t + part] = 0.0;
+			}
+		}
+
+		private void store(double[] buffer, int part, int j0) {
+			int end = Math.min(hi, j0 + step);
+			for (int j = j0; j < end; j++) {
+				out[j - from] = buffer[2 * (j - j0 + nf - 1) + part] / wt;
+			}
+		}
+	}
+}
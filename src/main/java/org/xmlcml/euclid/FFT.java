@@ -0,0 +1,237 @@
+package org.xmlcml.euclid;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** in-place complex FFT on interleaved (re, im) double arrays.
+ *
+ * iterative radix-2 for powers of 2; other sizes use Bluestein's chirp-z
+ * algorithm on a power of 2 at least 2n - 1, so every size is O(n log n).
+ * Twiddle factors are cached for each power of 2 (at most 31 sizes). Bluestein
+ * chirps are cached for the BLUESTEIN_CACHE_SIZE sizes used most recently, so
+ * a long-running process that sees many lengths (e.g. from Convolution or
+ * crossCorrelation) holds a bounded amount of memory.
+ *
+ */
+final class FFT {
+
+	/** number of Bluestein plans kept; the least recently used is dropped */
+	final static int BLUESTEIN_CACHE_SIZE = 8;
+
+	private final static ConcurrentHashMap<Integer, double[]> TWIDDLES = new ConcurrentHashMap<Integer, double[]>();
+	// access order, guarded by itself
+	private final static Map<Integer, Bluestein> BLUESTEIN = new LinkedHashMap<Integer, Bluestein>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, Bluestein> eldest) {
+			return size() > BLUESTEIN_CACHE_SIZE;
+		}
+	};
+
+	private FFT() {
+	}
+
+	/** @return true if n is a power of 2 (and > 0) */
+	static boolean isPowerOf2(int n) {
+		return n > 0 && (n & (n - 1)) == 0;
+	}
+
+	/** @return smallest power of 2 >= n */
+	static int nextPowerOf2(int n) {
+		int m = 1;
+		while (m < n) {
+			m <<= 1;
+		}
+		return m;
+	}
+
+	/** cos and sin of 2 pi k / n for k < n / 2, interleaved.
+	 *
+	 * cached only if n is a power of 2.
+	 */
+	static double[] getTwiddles(int n) {
+		double[] w = isPowerOf2(n) ? TWIDDLES.get(n) : null;
+		if (w == null) {
+			int half = Math.max(1, n / 2);
+			w = new double[2 * half];
+			for (int k = 0; k < half; k++) {
+				double angle = 2.0 * Math.PI * k / n;
+				w[2 * k] = Math.cos(angle);
+				w[2 * k + 1] = Math.sin(angle);
+			}
+			if (isPowerOf2(n)) {
+				double[] old = TWIDDLES.putIfAbsent(n, w);
+				if (old != null) {
+					w = old;
+				}
+			}
+		}
+		return w;
+	}
+
+	/** discard cached twiddles and chirps. */
+	static void clearCache() {
+		TWIDDLES.clear();
+		synchronized (BLUESTEIN) {
+			BLUESTEIN.clear();
+		}
+	}
+
+	/** transform n complex values starting at data[offset] in place.
+	 *
+	 * forward uses exp(-2 pi i jk / n); inverse uses exp(+2 pi i jk / n) and
+	 * divides by n.
+	 *
+	 * @param data interleaved re, im
+	 * @param offset index of first real part
+	 * @param n number of complex values
+	 * @param inverse
+	 */
+	static void transform(double[] data, int offset, int n, boolean inverse) {
+		if (n < 1) {
+			throw new EuclidRuntimeException("FFT size must be positive: " + n);
+		}
+		if (isPowerOf2(n)) {
+			radix2(data, offset, n, inverse);
+		} else if (inverse) {
+			// inverse(x) = conj(forward(conj(x))) / n
+			conjugate(data, offset, n);
+			getBluestein(n).transform(data, offset);
+			double scale = 1.0 / n;
+			for (int i = offset; i < offset + 2 * n; i += 2) {
+				data[i] *= scale;
+				data[i + 1] *= -scale;
+			}
+		} else {
+			getBluestein(n).transform(data, offset);
+		}
+	}
+
+	private static void conjugate(double[] data, int offset, int n) {
+		for (int i = offset + 1; i < offset + 2 * n; i += 2) {
+			data[i] = -data[i];
+		}
+	}
+
+	private static Bluestein getBluestein(int n) {
+		Bluestein plan;
+		synchronized (BLUESTEIN) {
+			plan = BLUESTEIN.get(n);
+		}
+		if (plan == null) {
+			// plans are immutable, so a duplicate built by another thread is harmless
+			plan = new Bluestein(n);
+			synchronized (BLUESTEIN) {
+				BLUESTEIN.put(n, plan);
+			}
+		}
+		return plan;
+	}
+
+	private static void radix2(double[] data, int offset, int n, boolean inverse) {
+		if (n == 1) {
+			return;
+		}
+		// bit reversal
+		for (int i = 1, j = 0; i < n; i++) {
+			int bit = n >> 1;
+			for (; (j & bit) != 0; bit >>= 1) {
+				j ^= bit;
+			}
+			j ^= bit;
+			if (i < j) {
+				int a = offset + 2 * i;
+				int b = offset + 2 * j;
+				double t = data[a];
+				data[a] = data[b];
+				data[b] = t;
+				t = data[a + 1];
+				data[a + 1] = data[b + 1];
+				data[b + 1] = t;
+			}
+		}
+		double[] w = getTwiddles(n);
+		double sign = inverse ? 1.0 : -1.0;
+		for (int len = 2; len <= n; len <<= 1) {
+			int half = len >> 1;
+			int stride = n / len;
+			for (int start = 0; start < n; start += len) {
+				for (int k = 0; k < half; k++) {
+					double wr = w[2 * k * stride];
+					double wi = sign * w[2 * k * stride + 1];
+					int a = offset + 2 * (start + k);
+					int b = a + 2 * half;
+					double br = data[b] * wr - data[b + 1] * wi;
+					double bi = data[b] * wi + data[b + 1] * wr;
+					data[b] = data[a] - br;
+					data[b + 1] = data[a + 1] - bi;
+					data[a] += br;
+					data[a + 1] += bi;
+				}
+			}
+		}
+		if (inverse) {
+			double scale = 1.0 / n;
+			for (int i = offset; i < offset + 2 * n; i++) {
+				data[i] *= scale;
+			}
+		}
+	}
+
+	// forward DFT of any size as a convolution with a chirp, done by radix-2
+	private static class Bluestein {
+		private int n;
+		private int m;
+		// exp(-i pi k^2 / n)
+		private double[] chirp;
+		// forward transform of the conjugate chirp wrapped to size m
+		private double[] spectrum;
+
+		Bluestein(int n) {
+			this.n = n;
+			m = nextPowerOf2(2 * n - 1);
+			chirp = new double[2 * n];
+			long twoN = 2L * n;
+			for (int k = 0; k < n; k++) {
+				// k^2 mod 2n keeps the angle small
+				double angle = Math.PI * (((long) k * k) % twoN) / n;
+				chirp[2 * k] = Math.cos(angle);
+				chirp[2 * k + 1] = -Math.sin(angle);
+			}
+			spectrum = new double[2 * m];
+			spectrum[0] = chirp[0];
+			spectrum[1] = -chirp[1];
+			for (int k = 1; k < n; k++) {
+				spectrum[2 * k] = spectrum[2 * (m - k)] = chirp[2 * k];
+				spectrum[2 * k + 1] = spectrum[2 * (m - k) + 1] = -chirp[2 * k + 1];
+			}
+			radix2(spectrum, 0, m, false);
+		}
+
+		void transform(double[] data, int offset) {
+			double[] a = new double[2 * m];
+			for (int k = 0; k < n; k++) {
+				double re = data[offset + 2 * k];
+				double im = data[offset + 2 * k + 1];
+				a[2 * k] = re * chirp[2 * k] - im * chirp[2 * k + 1];
+				a[2 * k + 1] = re * chirp[2 * k + 1] + im * chirp[2 * k];
+			}
+			radix2(a, 0, m, false);
+			for (int i = 0; i < 2 * m; i += 2) {
+				double re = a[i] * spectrum[i] - a[i + 1] * spectrum[i + 1];
+				double im = a[i] * spectrum[i + 1] + a[i + 1] * spectrum[i];
+				a[i] = re;
+				a[i + 1] = im;
+			}
+			radix2(a, 0, m, true);
+			for (int k = 0; k < n; k++) {
+				double re = a[2 * k];
+				double im = a[2 * k + 1];
+				data[offset + 2 * k] = re * chirp[2 * k] - im * chirp[2 * k + 1];
+				data[offset + 2 * k + 1] = re * chirp[2 * k + 1] + im * chirp[2 * k];
+			}
+		}
+	}
+}
@@ -0,0 +1,434 @@
+package org.xmlcml.euclid;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+
+/** one-pass counting histogram.
+ *
+ * bins are [edge(i), edge(i+1)); the last bin also includes its upper edge.
+ * Fixed-width bins are found by division, log bins by division of logs and
+ * arbitrary edges (e.g. from quantiles) by binary search, so adding n values
+ * is O(n) (O(n log bins) for arbitrary edges) with no sorting.
+ *
+ * values outside the edges are counted as underflow or overflow unless
+ * clamping is set, when they go into the first or last bin (as Univariate).
+ * NaN values are counted separately. Values in each bin are only kept if
+ * setRetainValues(true) is called before adding.
+ *
+ * large arrays are counted in parallel; histograms with the same edges can
+ * be merged.
+ *
+ */
+public class Histogram {
+
+	/** minimum number of values before add(double[]...) counts in parallel */
+	final static int PARALLEL_THRESHOLD = 1 << 16;
+
+	private final static int FIXED = 0;
+	private final static int LOG = 1;
+	private final static int EDGES = 2;
+
+	private int type;
+	private double[] edges;
+	private int nbins;
+	private double min;
+	private double width;
+	private long[] counts;
+	private long underflow;
+	private long overflow;
+	private long nanCount;
+	private boolean clamp;
+	private RealArray[] values;
+
+	/** histogram with arbitrary edges.
+	 *
+	 * @param edges non-decreasing, at least 2, first < last (copied)
+	 * @throws EuclidRuntimeException if edges are invalid
+	 */
+	public Histogram(double[] edges) {
+		this(EDGES, edges.clone());
+	}
+
+	private Histogram(int type, double[] edges) {
+		if (edges.length < 2 || !(edges[0] < edges[edges.length - 1])) {
+			throw new EuclidRuntimeException("need at least 2 edges with first < last");
+		}
+		for (int i = 1; i < edges.length; i++) {
+			if (!(edges[i] >= edges[i - 1])) {
+				throw new EuclidRuntimeException("edges must be non-decreasing at " + i);
+			}
+		}
+		this.type = type;
+		this.edges = edges;
+		this.nbins = edges.length - 1;
+		this.counts = new long[nbins];
+	}
+
+	/** equal-width bins from min to max.
+	 *
+	 * @param min
+	 * @param max
+	 * @param nbins
+	 * @return histogram
+	 */
+	public static Histogram createFixed(double min, double max, int nbins) {
+		checkBins(nbins);
+		return createFixedWidth(min, (max - min) / nbins, nbins);
+	}
+
+	/** equal-width bins starting at min.
+	 *
+	 * bin of x is (int) ((x - min) / width)
+	 *
+	 * @param min
+	 * @param width > 0
+	 * @param nbins
+	 * @return histogram
+	 */
+	public static Histogram createFixedWidth(double min, double width, int nbins) {
+		checkBins(nbins);
+		if (!(width > 0.0)) {
+			throw new EuclidRuntimeException("bin width must be positive: " + width);
+		}
+		double[] edges = new double[nbins + 1];
+		for (int i = 0; i <= nbins; i++) {
+			edges[i] = min + i * width;
+		}
+		Histogram histogram = new Histogram(FIXED, edges);
+		histogram.min = min;
+		histogram.width = width;
+		return histogram;
+	}
+
+	/** bins of equal width in log(x).
+	 *
+	 * @param min > 0
+	 * @param max > min
+	 * @param nbins
+	 * @return histogram
+	 */
+	public static Histogram createLog(double min, double max, int nbins) {
+		checkBins(nbins);
+		if (!(min > 0.0) || !(max > min)) {
+			throw new EuclidRuntimeException("log bins need 0 < min < max: " + min + ", " + max);
+		}
+		double logMin = Math.log(min);
+		double logWidth = (Math.log(max) - logMin) / nbins;
+		double[] edges = new double[nbins + 1];
+		for (int i = 0; i <= nbins; i++) {
+			edges[i] = Math.exp(logMin + i * logWidth);
+		}
+		edges[0] = min;
+		edges[nbins] = max;
+		Histogram histogram = new Histogram(LOG, edges);
+		histogram.min = logMin;
+		histogram.width = logWidth;
+		return histogram;
+	}
+
+	/** bins holding (approximately) equal numbers of values.
+	 *
+	 * edges are the quantiles of the accumulator, so repeated values may
+	 * give empty bins
+	 *
+	 * @param accumulator statistics of the data
+	 * @param nbins
+	 * @return histogram
+	 */
+	public static Histogram createQuantile(UnivariateAccumulator accumulator, int nbins) {
+		checkBins(nbins);
+		double[] edges = new double[nbins + 1];
+		for (int i = 0; i <= nbins; i++) {
+			edges[i] = accumulator.getQuantile((double) i / nbins);
+		}
+		for (int i = 1; i <= nbins; i++) {
+			edges[i] = Math.max(edges[i], edges[i - 1]);
+		}
+		edges[0] = accumulator.getMin();
+		edges[nbins] = accumulator.getMax();
+		return new Histogram(EDGES, edges);
+	}
+
+	private static void checkBins(int nbins) {
+		if (nbins < 1) {
+			throw new EuclidRuntimeException("need at least one bin: " + nbins);
+		}
+	}
+
+	/** put values outside the edges into the first or last bin.
+	 *
+	 * @param clamp
+	 */
+	public void setClamp(boolean clamp) {
+		this.clamp = clamp;
+	}
+
+	/** keep the values in each bin (see getValues).
+	 *
+	 * @param retain
+	 * @throws EuclidRuntimeException if values have already been added
+	 */
+	public void setRetainValues(boolean retain) {
+		if (getTotal() > 0) {
+			throw new EuclidRuntimeException("set retention before adding values");
+		}
+		if (retain) {
+			values = new RealArray[nbins];
+			for (int i = 0; i < nbins; i++) {
+				values[i] = new RealArray();
+			}
+		} else {
+			values = null;
+		}
+	}
+
+	/** @return number of bins */
+	public int getBinCount() {
+		return nbins;
+	}
+
+	/** @return copy of the nbins + 1 edges */
+	public double[] getEdges() {
+		return edges.clone();
+	}
+
+	/** @return copy of the counts in each bin */
+	public long[] getCounts() {
+		return counts.clone();
+	}
+
+	/** @param bin
+	 * @return count in bin */
+	public long getCount(int bin) {
+		return counts[bin];
+	}
+
+	/** @return values below the first edge (0 if clamped) */
+	public long getUnderflow() {
+		return underflow;
+	}
+
+	/** @return values above the last edge (0 if clamped) */
+	public long getOverflow() {
+		return overflow;
+	}
+
+	/** @return NaN values seen */
+	public long getNaNCount() {
+		return nanCount;
+	}
+
+	/** @return all values seen including underflow, overflow and NaN */
+	public long getTotal() {
+		long total = underflow + overflow + nanCount;
+		for (long c : counts) {
+			total += c;
+		}
+		return total;
+	}
+
+	/** values in bin, in order of adding.
+	 *
+	 * @param bin
+	 * @return values (not copied)
+	 * @throws EuclidRuntimeException if values are not retained
+	 */
+	public RealArray getValues(int bin) {
+		if (values == null) {
+			throw new EuclidRuntimeException("values not retained; use setRetainValues(true)");
+		}
+		return values[bin];
+	}
+
+	/** bin for value.
+	 *
+	 * ignores clamping
+	 *
+	 * @param x
+	 * @return bin; -1 if below first edge, getBinCount() if above last edge or NaN
+	 */
+	public int getBin(double x) {
+		if (x != x || x > edges[nbins]) {
+			return nbins;
+		}
+		if (x < edges[0]) {
+			return -1;
+		}
+		int bin;
+		if (type == FIXED) {
+			bin = (int) ((x - min) / width);
+		} else if (type == LOG) {
+			bin = (int) ((Math.log(x) - min) / width);
+			// logs may round across an edge
+			while (bin > 0 && x < edges[bin]) {
+				bin--;
+			}
+			while (bin < nbins - 1 && x >= edges[bin + 1]) {
+				bin++;
+			}
+		} else {
+			bin = Arrays.binarySearch(edges, x);
+			if (bin < 0) {
+				bin = -bin - 2;
+			} else {
+				// last of equal edges
+				while (bin < nbins && edges[bin + 1] == x) {
+					bin++;
+				}
+			}
+		}
+		return Math.min(bin, nbins - 1);
+	}
+
+	/** count one value.
+	 *
+	 * @param x
+	 */
+	public void add(double x) {
+		int bin = getBin(x);
+		if (bin < 0) {
+			if (!clamp) {
+				underflow++;
+				return;
+			}
+			bin = 0;
+		} else if (bin >= nbins) {
+			if (x != x) {
+				nanCount++;
+				return;
+			}
+			if (!clamp) {
+				overflow++;
+				return;
+			}
+			bin = nbins - 1;
+		}
+		counts[bin]++;
+		if (values != null) {
+			values[bin].addElement(x);
+		}
+	}
+
+	/** count values[offset..offset+length).
+	 *
+	 * runs in parallel for large arrays unless values are retained
+	 *
+	 * @param values
+	 * @param offset
+	 * @param length
+	 */
+	public void add(double[] values, int offset, int length) {
+		if (offset < 0 || length < 0 || offset + length > values.length) {
+			throw new EuclidRuntimeException("bad range " + offset + "/" + length + " for " + values.length);
+		}
+		if (length < PARALLEL_THRESHOLD || this.values != null) {
+			for (int i = offset; i < offset + length; i++) {
+				add(values[i]);
+			}
+		} else {
+			long[] c = MatrixMultiplier.getPool().invoke(new CountTask(this, values, offset, offset + length));
+			addCounts(c);
+		}
+	}
+
+	/** count all elements.
+	 *
+	 * @param realArray
+	 */
+	public void add(RealArray realArray) {
+		add(realArray.getArray(), 0, realArray.size());
+	}
+
+	/** add counts (and retained values) of another histogram.
+	 *
+	 * @param histogram must have the same edges
+	 * @throws EuclidRuntimeException if edges differ
+	 */
+	public void merge(Histogram histogram) {
+		if (!Arrays.equals(edges, histogram.edges)) {
+			throw new EuclidRuntimeException("cannot merge histograms with different edges");
+		}
+		long[] c = Arrays.copyOf(histogram.counts, nbins + 3);
+		c[nbins] = histogram.underflow;
+		c[nbins + 1] = histogram.overflow;
+		c[nbins + 2] = histogram.nanCount;
+		addCounts(c);
+		if (values != null && histogram.values != null) {
+			for (int i = 0; i < nbins; i++) {
+				RealArray v = histogram.values[i];
+				for (int j = 0; j < v.size(); j++) {
+					values[i].addElement(v.elementAt(j));
+				}
+			}
+		}
+	}
+
+	// counts, then underflow, overflow, NaN
+	private void addCounts(long[] c) {
+		for (int i = 0; i < nbins; i++) {
+			counts[i] += c[i];
+		}
+		underflow += c[nbins];
+		overflow += c[nbins + 1];
+		nanCount += c[nbins + 2];
+	}
+
+	// counts values into c without touching the histogram
+	private void count(double[] values, int from, int to, long[] c) {
+		for (int i = from; i < to; i++) {
+			double x = values[i];
+			int bin = getBin(x);
+			if (bin < 0) {
+				if (clamp) {
+					c[0]++;
+				} else {
+					c[nbins]++;
+				}
+			} else if (bin >= nbins) {
+				if (x != x) {
+					c[nbins + 2]++;
+				} else if (clamp) {
+					c[nbins - 1]++;
+				} else {
+					c[nbins + 1]++;
+				}
+			} else {
+				c[bin]++;
+			}
+		}
+	}
+
+	private static class CountTask extends RecursiveTask<long[]> {
+		private static final long serialVersionUID = 1L;
+		private final static int CHUNK = 1 << 15;
+		private Histogram histogram;
+		private double[] values;
+		private int from;
+		private int to;
+
+		CountTask(Histogram histogram, double[] values, int from, int to) {
+			this.histogram = histogram;
+			this.values = values;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected long[] compute() {
+			if (to - from <= CHUNK) {
+				long[] c = new long[histogram.nbins + 3];
+				histogram.count(values, from, to, c);
+				return c;
+			}
+			int mid = (from + to) >>> 1;
+			CountTask right = new CountTask(histogram, values, mid, to);
+			right.fork();
+			long[] c = new CountTask(histogram, values, from, mid).compute();
+			long[] r = right.join();
+			for (int i = 0; i < c.length; i++) {
+				c[i] += r[i];
+			}
+			return c;
+		}
+	}
+}
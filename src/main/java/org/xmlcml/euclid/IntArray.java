@@ -317,7 +317,10 @@ public class IntArray extends ArrayBase implements Iterable<Integer> {
         }
     }
     /**
-     * create from a space-separated string of integers.
+     * create from a whitespace-separated string of integers.
+     * 
+     * parsed in a single pass by NumberScanner; leading and trailing
+     * whitespace is ignored.
      * 
      * @param string
      *            of form "1 3 56 2..."
@@ -325,7 +328,13 @@ public class IntArray extends ArrayBase implements Iterable<Integer> {
      *                a substring could not be interpreted as integer
      */
     public IntArray(String string) throws NumberFormatException {
-        this(string.split(S_WHITEREGEX));
+        try {
+            array = NumberScanner.parseInts(string);
+        } catch (EuclidRuntimeException e) {
+            throw new NumberFormatException(e.getMessage());
+        }
+        nelem = array.length;
+        bufsize = nelem;
     }
     /**
      * contracts internal array to be of same length as number of elements.
@@ -1109,7 +1118,7 @@ public class IntArray extends ArrayBase implements Iterable<Integer> {
         return temp;
     }
     /**
-     * quick sort - modified from p96 - 97 (Hansen - C++ answer book)
+     * sorting - kernels are in ParallelSort
      * 
      * Scalar sort refers to sorting IntArray and IntArray (and similar classes)
      * where the objects themeselves are sorted.
@@ -1123,64 +1132,13 @@ public class IntArray extends ArrayBase implements Iterable<Integer> {
         x[a] = x[b];
         x[b] = tmp;
     }
-    // scalar sort routines (internal)
-    static final int CUTOFF = 16;
-    private void inssort(int left, int right) {
-        int k;
-        for (int i = left + 1; i <= right; i++) {
-            int v = array[i];
-            int j;
-            for (j = i, k = j - 1; j > 0 && array[k] > v; j--, k--) {
-                array[j] = array[k];
-            }
-            array[j] = v;
-        }
-    }
-    private int partition(int left, int right) {
-        int mid = (left + right) / 2;
-        if (array[left] > array[mid])
-            xfswap(array, left, mid);
-        if (array[left] > array[right])
-            xfswap(array, left, right);
-        if (array[mid] > array[right])
-            xfswap(array, mid, right);
-        int j = right - 1;
-        xfswap(array, mid, j);
-        int i = left;
-        int v = array[j];
-        do {
-            do {
-                i++;
-            } while (array[i] < v);
-            do {
-                j--;
-            } while (array[j] > v);
-            xfswap(array, i, j);
-        } while (i < j);
-        xfswap(array, j, i);
-        xfswap(array, i, right - 1);
-        return i;
-    }
-    private void iqsort(int left, int right) {
-        while (right - left > CUTOFF) {
-            int i = partition(left, right);
-            if (i - left > right - i) {
-                iqsort(i + 1, right);
-                right = i - 1;
-            } else {
-                iqsort(left, i - 1);
-                left = i + 1;
-            }
-        }
-    }
     /**
      * sorts array into ascending order. MODIFIES this
      */
     public void sortAscending() {
         if (nelem <= 0)
             return;
-        iqsort(0, nelem - 1);
-        inssort(0, nelem - 1);
+        ParallelSort.sort(array, 0, nelem);
     }
     /**
      * sorts array into descending order. MODIFIES this
@@ -1200,94 +1158,46 @@ public class IntArray extends ArrayBase implements Iterable<Integer> {
             j--;
         }
     }
-    private static final int XXCUTOFF = 16;
     /**
      * get indexes of ascending sorted array. this array NOT MODIFIED
      * 
+     * the sort is stable (equal elements keep their order) and large arrays
+     * are sorted in parallel
+     * 
      * @return indexes idx so that element(idx(0)) is lowest
      */
     public IntSet indexSortAscending() {
-        if (nelem <= 0) {
-            return new IntSet();
-        }
-        IntSet idx = new IntSet(nelem);
-        IntArray iarray = new IntArray(idx.getElements());
-        xxiqsort(iarray, array, 0, nelem - 1);
-        xxinssort(iarray, array, 0, nelem - 1);
-        try {
-            idx = new IntSet(iarray.getArray());
-        } catch (Exception e) {
-            throw new EuclidRuntimeException(e.toString());
-        }
-        return idx;
+        return IntSet.createPermutation(ParallelSort.argsort(array, nelem, false));
     }
     /**
      * get indexes of descending sorted array. this array NOT MODIFIED
      * 
+     * the sort is stable (equal elements keep their order)
+     * 
      * @return indexes idx so that element(idx(0)) is highest
      */
     public IntSet indexSortDescending() {
-        IntSet idx;
-        idx = indexSortAscending();
-        int[] temp = new IntArray(idx.getElements()).getReverseArray();
-        try {
-            idx = new IntSet(temp);
-        } catch (Exception e) {
-            throw new EuclidRuntimeException(e.toString());
-        }
-        return idx;
-    }
-    private void xxinssort(IntArray iarr, int[] pfl, int left, int right) {
-        int j, k;
-        for (int i = left + 1; i <= right; i++) {
-            int v = iarr.elementAt(i);
-            for (j = i, k = j - 1; j > 0 && pfl[iarr.elementAt(k)] > pfl[v]; j--, k--) {
-                iarr.setElementAt(j, iarr.elementAt(k));
-            }
-            iarr.setElementAt(j, v);
-        }
+        return IntSet.createPermutation(ParallelSort.argsort(array, nelem, true));
     }
-    private int xxpartition(IntArray iarr, int[] pfl, int left, int right) {
-        int mid = (left + right) / 2;
-        if (pfl[iarr.elementAt(left)] > pfl[iarr.elementAt(mid)])
-            xxfswap(iarr, left, mid);
-        if (pfl[iarr.elementAt(left)] > pfl[iarr.elementAt(right)])
-            xxfswap(iarr, left, right);
-        if (pfl[iarr.elementAt(mid)] > pfl[iarr.elementAt(right)])
-            xxfswap(iarr, mid, right);
-        int j = right - 1;
-        xxfswap(iarr, mid, j);
-        int i = left;
-        int v = pfl[iarr.elementAt(j)];
-        do {
-            do {
-                i++;
-            } while (pfl[iarr.elementAt(i)] < v);
-            do {
-                j--;
-            } while (pfl[iarr.elementAt(j)] > v);
-            xxfswap(iarr, i, j);
-        } while (i < j);
-        xxfswap(iarr, j, i);
-        xxfswap(iarr, i, right - 1);
-        return i;
-    }
-    private void xxiqsort(IntArray iarr, int[] pfl, int left, int right) {
-        while (right - left > XXCUTOFF) {
-            int i = xxpartition(iarr, pfl, left, right);
-            if (i - left > right - i) {
-                xxiqsort(iarr, pfl, i + 1, right);
-                right = i - 1;
-            } else {
-                xxiqsort(iarr, pfl, left, i - 1);
-                left = i + 1;
-            }
-        }
+    /**
+     * get indexes of the k smallest elements without sorting the whole array.
+     * this array NOT MODIFIED
+     * 
+     * @param k number of indexes (truncated to size())
+     * @return indexes in ascending order of element; ties in index order
+     */
+    public IntSet indexesOfSmallestElements(int k) {
+        return IntSet.createPermutation(ParallelSort.select(array, nelem, k, false));
     }
-    private void xxfswap(IntArray iarr, int a, int b) {
-        int t = iarr.elementAt(a);
-        iarr.setElementAt(a, iarr.elementAt(b));
-        iarr.setElementAt(b, t);
+    /**
+     * get indexes of the k largest elements without sorting the whole array.
+     * this array NOT MODIFIED
+     * 
+     * @param k number of indexes (truncated to size())
+     * @return indexes in descending order of element; ties in index order
+     */
+    public IntSet indexesOfLargestElements(int k) {
+        return IntSet.createPermutation(ParallelSort.select(array, nelem, k, true));
     }
     
 	/**
@@ -0,0 +1,399 @@
+package org.xmlcml.euclid;
+
+/** rectangular integer matrix held in a single contiguous int[].
+ *
+ * Alternative to IntMatrix (which holds one int[] per row). Element (i, j) is
+ * at data[offset + i * rowStride + j * colStride], so row, column, sub-matrix and
+ * transposed views share storage with the matrix they came from; altering a view
+ * alters the original and vice versa. Use copy() to detach.
+ *
+ * A freshly created matrix is contiguous in C order (rowStride = cols, colStride = 1)
+ * and getMatrixAsArray() then returns the backing array without copying.
+ *
+ */
+public class IntFlatMatrix implements EuclidConstants {
+
+	private int[] data;
+	private int offset;
+	private int rows;
+	private int cols;
+	private int rowStride;
+	private int colStride;
+
+	/** create zeroed matrix.
+	 *
+	 * @param rows
+	 * @param cols
+	 */
+	public IntFlatMatrix(int rows, int cols) {
+		this(new int[Math.max(rows, 0) * Math.max(cols, 0)], 0,
+				Math.max(rows, 0), Math.max(cols, 0), Math.max(cols, 0), 1);
+	}
+
+	/** wrap existing array in C order (column fastest).
+	 *
+	 * the array is NOT copied.
+	 *
+	 * @param rows
+	 * @param cols
+	 * @param array of length rows * cols
+	 * @throws EuclidRuntimeException if array is wrong size
+	 */
+	public IntFlatMatrix(int rows, int cols, int[] array) throws EuclidRuntimeException {
+		this(array, 0, rows, cols, cols, 1);
+		if (array == null || array.length != rows * cols) {
+			throw new EuclidRuntimeException("rows * cols (" + rows + S_STAR + cols
+					+ ") != array (" + (array == null ? null : array.length) + S_RBRAK);
+		}
+	}
+
+	/** copy of IntMatrix.
+	 *
+	 * @param m
+	 */
+	public IntFlatMatrix(IntMatrix m) {
+		this(m.getRows(), m.getCols());
+		int[][] flmat = m.getMatrix();
+		for (int i = 0; i < rows; i++) {
+			System.arraycopy(flmat[i], 0, data, i * cols, cols);
+		}
+	}
+
+	private IntFlatMatrix(int[] data, int offset, int rows, int cols, int rowStride, int colStride) {
+		this.data = data;
+		this.offset = offset;
+		this.rows = rows;
+		this.cols = cols;
+		this.rowStride = rowStride;
+		this.colStride = colStride;
+	}
+
+	/**
+	 * @return number of rows
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * @return number of columns
+	 */
+	public int getCols() {
+		return cols;
+	}
+
+	/** backing array (shared with all views).
+	 *
+	 * @return array
+	 */
+	public int[] getData() {
+		return data;
+	}
+
+	/**
+	 * @return index in getData() of element (0, 0)
+	 */
+	public int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * @return increment in getData() between rows
+	 */
+	public int getRowStride() {
+		return rowStride;
+	}
+
+	/**
+	 * @return increment in getData() between columns
+	 */
+	public int getColStride() {
+		return colStride;
+	}
+
+	/** is the matrix the whole of its backing array in C order.
+	 *
+	 * @return true if getMatrixAsArray() needs no copy
+	 */
+	public boolean isContiguous() {
+		return offset == 0 && colStride == 1 && (rowStride == cols || rows <= 1)
+				&& data.length == rows * cols;
+	}
+
+	/** extracts a given element.
+	 *
+	 * @param row
+	 * @param col
+	 * @return element
+	 * @throws EuclidRuntimeException bad row or col
+	 */
+	public int elementAt(int row, int col) throws EuclidRuntimeException {
+		checkRow(row);
+		checkColumn(col);
+		return data[offset + row * rowStride + col * colStride];
+	}
+
+	/** sets a given element.
+	 *
+	 * MODIFIES matrix (and any views sharing the element)
+	 * @param row
+	 * @param col
+	 * @param f
+	 * @throws EuclidRuntimeException bad row or col
+	 */
+	public void setElementAt(int row, int col, int f) throws EuclidRuntimeException {
+		checkRow(row);
+		checkColumn(col);
+		data[offset + row * rowStride + col * colStride] = f;
+	}
+
+	private void checkRow(int row) throws EuclidRuntimeException {
+		if (row < 0 || row >= rows)
+			throw new EuclidRuntimeException("Bad value of row: " + row + S_SLASH + rows);
+	}
+
+	private void checkColumn(int col) throws EuclidRuntimeException {
+		if (col < 0 || col >= cols)
+			throw new EuclidRuntimeException("Bad value of col: " + col + S_SLASH + cols);
+	}
+
+	/** matrix as 1-D array in C order: (m(0,0), m(0,1) ...).
+	 *
+	 * if isContiguous() this is the backing array itself (NOT a copy), so
+	 * alterations to it alter the matrix. Otherwise a copy.
+	 *
+	 * @return array
+	 */
+	public int[] getMatrixAsArray() {
+		if (isContiguous()) {
+			return data;
+		}
+		int[] temp = new int[rows * cols];
+		copyTo(temp);
+		return temp;
+	}
+
+	private void copyTo(int[] temp) {
+		int k = 0;
+		for (int i = 0; i < rows; i++) {
+			int ii = offset + i * rowStride;
+			if (colStride == 1) {
+				System.arraycopy(data, ii, temp, k, cols);
+				k += cols;
+			} else {
+				for (int j = 0; j < cols; j++) {
+					temp[k++] = data[ii];
+					ii += colStride;
+				}
+			}
+		}
+	}
+
+	/** deep copy, contiguous in C order.
+	 *
+	 * @return new matrix not sharing storage
+	 */
+	public IntFlatMatrix copy() {
+		IntFlatMatrix m = new IntFlatMatrix(rows, cols);
+		copyTo(m.data);
+		return m;
+	}
+
+	/** convert to IntMatrix (copy).
+	 *
+	 * @return new matrix
+	 */
+	public IntMatrix getIntMatrix() {
+		return new IntMatrix(getMatrix());
+	}
+
+	/** copy as java 2-D array.
+	 *
+	 * @return new array
+	 */
+	public int[][] getMatrix() {
+		int[][] m = new int[rows][cols];
+		for (int i = 0; i < rows; i++) {
+			int ii = offset + i * rowStride;
+			if (colStride == 1) {
+				System.arraycopy(data, ii, m[i], 0, cols);
+			} else {
+				int[] mi = m[i];
+				for (int j = 0; j < cols; j++) {
+					mi[j] = data[ii];
+					ii += colStride;
+				}
+			}
+		}
+		return m;
+	}
+
+	/** transpose as view.
+	 *
+	 * no data are copied; the view shares storage with this.
+	 *
+	 * @return transposed view
+	 */
+	public IntFlatMatrix getTranspose() {
+		return new IntFlatMatrix(data, offset, cols, rows, colStride, rowStride);
+	}
+
+	/** row as 1 * cols view.
+	 *
+	 * @param row
+	 * @return view sharing storage
+	 * @throws EuclidRuntimeException bad row
+	 */
+	public IntFlatMatrix getRowView(int row) throws EuclidRuntimeException {
+		checkRow(row);
+		return new IntFlatMatrix(data, offset + row * rowStride, 1, cols, rowStride, colStride);
+	}
+
+	/** column as rows * 1 view.
+	 *
+	 * @param col
+	 * @return view sharing storage
+	 * @throws EuclidRuntimeException bad col
+	 */
+	public IntFlatMatrix getColumnView(int col) throws EuclidRuntimeException {
+		checkColumn(col);
+		return new IntFlatMatrix(data, offset + col * colStride, rows, 1, rowStride, colStride);
+	}
+
+	/** sub-matrix as view.
+	 *
+	 * @param lowrow inclusive
+	 * @param hirow inclusive
+	 * @param lowcol inclusive
+	 * @param hicol inclusive
+	 * @return view sharing storage
+	 * @throws EuclidRuntimeException impossible values of indexes
+	 */
+	public IntFlatMatrix getSubMatrixView(int lowrow, int hirow, int lowcol, int hicol)
+			throws EuclidRuntimeException {
+		if (hirow >= rows || lowrow < 0 || hirow < lowrow) {
+			throw new EuclidRuntimeException("bad row index: " + lowrow + S_SLASH + hirow
+					+ " outside 0/" + rows);
+		}
+		if (hicol >= cols || lowcol < 0 || hicol < lowcol) {
+			throw new EuclidRuntimeException("bad col index: " + lowcol + S_SLASH + hicol
+					+ " outside 0/" + cols);
+		}
+		return new IntFlatMatrix(data, offset + lowrow * rowStride + lowcol * colStride,
+				hirow - lowrow + 1, hicol - lowcol + 1, rowStride, colStride);
+	}
+
+	/** row data (copy).
+	 *
+	 * @param row
+	 * @return array of length cols
+	 * @throws EuclidRuntimeException bad row
+	 */
+	public IntArray extractRowData(int row) throws EuclidRuntimeException {
+		return new IntArray(getRowView(row).getMatrixAsArray());
+	}
+
+	/** column data (copy).
+	 *
+	 * @param col
+	 * @return array of length rows
+	 * @throws EuclidRuntimeException bad col
+	 */
+	public IntArray extractColumnData(int col) throws EuclidRuntimeException {
+		checkColumn(col);
+		int[] temp = new int[rows];
+		int ii = offset + col * colStride;
+		for (int i = 0; i < rows; i++) {
+			temp[i] = data[ii];
+			ii += rowStride;
+		}
+		return new IntArray(temp);
+	}
+
+	/** set all elements (of this view).
+	 *
+	 * @param f
+	 */
+	public void setAllElements(int f) {
+		for (int i = 0; i < rows; i++) {
+			int ii = offset + i * rowStride;
+			for (int j = 0; j < cols; j++) {
+				data[ii] = f;
+				ii += colStride;
+			}
+		}
+	}
+
+	/** multiply all elements by scalar.
+	 *
+	 * MODIFIES matrix
+	 * @param f
+	 */
+	public void multiplyBy(int f) {
+		for (int i = 0; i < rows; i++) {
+			int ii = offset + i * rowStride;
+			for (int j = 0; j < cols; j++) {
+				data[ii] *= f;
+				ii += colStride;
+			}
+		}
+	}
+
+	/** matrix multiplication.
+	 *
+	 * result = this * m as new contiguous matrix; works on views of any stride
+	 *
+	 * @param m
+	 * @return new matrix
+	 * @throws EuclidRuntimeException m.rows != this.cols
+	 */
+	public IntFlatMatrix multiply(IntFlatMatrix m) throws EuclidRuntimeException {
+		if (m.rows != this.cols) {
+			throw new EuclidRuntimeException("unequal matrices (" + this.cols + ", "
+					+ m.rows + S_RBRAK);
+		}
+		IntFlatMatrix result = new IntFlatMatrix(rows, m.cols);
+		int[] c = result.data;
+		int ncols = m.cols;
+		for (int i = 0; i < rows; i++) {
+			int ci = i * ncols;
+			int aik = offset + i * rowStride;
+			for (int k = 0; k < cols; k++) {
+				int a = data[aik];
+				aik += colStride;
+				int bkj = m.offset + k * m.rowStride;
+				for (int j = 0; j < ncols; j++) {
+					c[ci + j] += a * m.data[bkj];
+					bkj += m.colStride;
+				}
+			}
+		}
+		return result;
+	}
+
+	/** are all elements equal.
+	 *
+	 * @param m
+	 * @return true if same shape and elements
+	 */
+	public boolean isEqualTo(IntFlatMatrix m) {
+		if (m == null || m.rows != rows || m.cols != cols) {
+			return false;
+		}
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < cols; j++) {
+				if (data[offset + i * rowStride + j * colStride] !=
+						m.data[m.offset + i * m.rowStride + j * m.colStride]) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/** same format as IntMatrix.toString().
+	 */
+	public String toString() {
+		return getIntMatrix().toString();
+	}
+}
@@ -302,11 +302,8 @@ public class IntMatrix implements EuclidConstants {
      */
     public int[] getMatrixAsArray() {
         int[] temp = new int[rows * cols];
-        int count = 0;
         for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                temp[count++] = flmat[i][j];
-            }
+            System.arraycopy(flmat[i], 0, temp, i * cols, cols);
         }
         return temp;
     }
@@ -412,6 +409,7 @@ public class IntMatrix implements EuclidConstants {
      * 
      * multiplies conformable matrices to give NEW matrix. this is unaltered
      * result = 'this' * m; (order matters)
+     * uses blocked (and for large matrices parallel) MatrixMultiplier
      * 
      * @param m
      * @exception EuclidRuntimeException
@@ -421,14 +419,7 @@ public class IntMatrix implements EuclidConstants {
     public IntMatrix multiply(IntMatrix m) throws EuclidRuntimeException {
         checkConformable2(m);
         IntMatrix m1 = new IntMatrix(rows, m.cols);
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < m.cols; j++) {
-                m1.flmat[i][j] = 0;
-                for (int k = 0; k < cols; k++) {
-                    m1.flmat[i][j] += flmat[i][k] * m.flmat[k][j];
-                }
-            }
-        }
+        MatrixMultiplier.multiply(flmat, m.flmat, m1.flmat, rows, cols, m.cols);
         return m1;
     }
     /**
@@ -458,11 +449,8 @@ public class IntMatrix implements EuclidConstants {
         IntMatrix mm = this.multiply(m);
         this.rows = mm.rows;
         this.cols = mm.cols;
-        this.flmat = new int[this.rows][];
-        for (int i = 0; i < rows; i++) {
-            this.flmat[i] = new int[this.cols];
-            System.arraycopy(mm.flmat[i], 0, this.flmat[i], 0, this.cols);
-        }
+        // mm is a new private matrix so its storage can be adopted without copying
+        this.flmat = mm.flmat;
     }
     /**
      * subtract value from each row. this[i,j] = this[i,j] - d[j] modifies this
@@ -8,6 +8,10 @@ import java.util.List;
 
 /** holds an array of IntRanges
  * may or may not overlap or be sorted
+ * 
+ * setIndexed(true) answers includes() and the getRanges...() queries from an
+ * IntRangeIndex (interval tree) rebuilt after changes made through this class;
+ * ranges changed directly need setIndexed(true) again.
  * @author pm286
  *
  */
@@ -15,6 +19,8 @@ public class IntRangeArray implements Iterable<IntRange> {
 
 	private static final PrintStream SYSOUT = System.out;
 	private List<IntRange> rangeList;
+	private boolean indexed;
+	private IntRangeIndex index;
 
 	public IntRangeArray() {
 		init();
@@ -42,10 +48,12 @@ public class IntRangeArray implements Iterable<IntRange> {
 	
 	public void add(IntRange range) {
 		rangeList.add(range);
+		index = null;
 	}
 	
 	public void sort() {
 		Collections.sort(rangeList);
+		index = null;
 	}
 	
 	public void sortAndRemoveOverlapping() {
@@ -71,6 +79,7 @@ public class IntRangeArray implements Iterable<IntRange> {
 			}
 		}
 		rangeList = newList;
+		index = null;
 	}
 
 	@Override
@@ -171,6 +180,88 @@ public class IntRangeArray implements Iterable<IntRange> {
 		return rangeList.iterator();
 	}
 
+	/** is the range completely contained within any subrange?
+	 * 
+	 * O(log n) if indexed
+	 * @param ir
+	 * @return
+	 */
+	public boolean includes(IntRange ir) {
+		if (indexed) {
+			return getIndex().includes(ir);
+		}
+		for (IntRange range : rangeList) {
+			if (range != null && range.includes(ir)) return true;
+		}
+		return false;
+	}
+
+	/** ranges which include x
+	 * 
+	 * O(log n + k) if indexed
+	 * @param x
+	 * @return ranges in order of this array
+	 */
+	public List<IntRange> getRangesContaining(int x) {
+		if (indexed) {
+			return getIndex().getRangesContaining(x);
+		}
+		List<IntRange> result = new ArrayList<IntRange>();
+		for (IntRange range : rangeList) {
+			if (range != null && range.isValid() && range.includes(x)) {
+				result.add(range);
+			}
+		}
+		return result;
+	}
+
+	/** ranges which intersect ir (including touching ends)
+	 * 
+	 * O(log n + k) if indexed
+	 * @param ir
+	 * @return ranges in order of this array
+	 */
+	public List<IntRange> getRangesOverlapping(IntRange ir) {
+		if (indexed) {
+			return getIndex().getRangesOverlapping(ir);
+		}
+		List<IntRange> result = new ArrayList<IntRange>();
+		if (ir != null) {
+			for (IntRange range : rangeList) {
+				if (range != null && range.intersectsWith(ir)) {
+					result.add(range);
+				}
+			}
+		}
+		return result;
+	}
+
+	/** answer queries from an interval tree
+	 * 
+	 * setIndexed(true) also rebuilds the index
+	 * @param indexed
+	 */
+	public void setIndexed(boolean indexed) {
+		this.indexed = indexed;
+		index = null;
+	}
+
+	public boolean isIndexed() {
+		return indexed;
+	}
+
+	/** interval index of the current ranges
+	 * 
+	 * built on demand and kept until this array is changed
+	 * @return index
+	 */
+	public IntRangeIndex getIndex() {
+		if (index == null) {
+			index = new IntRangeIndex(rangeList);
+		}
+		return index;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
@@ -185,6 +276,7 @@ public class IntRangeArray implements Iterable<IntRange> {
 	public void set(int i, IntRange intRange) {
 		ensureCapacity(i + 1);
 		rangeList.set(i, intRange);
+		index = null;
 	}
 
 	/** ensure total size of list is >= cap
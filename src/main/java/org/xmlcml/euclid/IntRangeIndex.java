@@ -0,0 +1,139 @@
+package org.xmlcml.euclid;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import blogspot.software_and_algorithms.stern_library.data_structure.StaticIntervalTree;
+
+/** static interval index over a list of IntRanges.
+ *
+ * stabbing (containing a point), overlap and inclusion queries take
+ * O(log n + k) for k results, using a StaticIntervalTree of
+ * IntRangeIntervals. Ranges are closed as in IntRange.includes().
+ *
+ * the index is a snapshot: it holds the ranges but not their endpoints, so
+ * it must be rebuilt if ranges are added, removed or changed. Invalid ranges
+ * are skipped. Results are in the order of the original list.
+ *
+ */
+public class IntRangeIndex {
+
+	private final static Comparator<IntRangeInterval> SERIAL_COMPARATOR = new Comparator<IntRangeInterval>() {
+		public int compare(IntRangeInterval o1, IntRangeInterval o2) {
+			return (o1.getSerial() < o2.getSerial()) ? -1 : ((o1.getSerial() == o2.getSerial()) ? 0 : 1);
+		}
+	};
+
+	private StaticIntervalTree<Integer, IntRangeInterval> tree;
+	private int size;
+
+	/** index ranges.
+	 *
+	 * @param ranges null entries and invalid ranges are skipped
+	 */
+	public IntRangeIndex(List<IntRange> ranges) {
+		Set<IntRangeInterval> intervals = new HashSet<IntRangeInterval>();
+		for (int i = 0; i < ranges.size(); i++) {
+			IntRange range = ranges.get(i);
+			if (range != null && range.isValid()) {
+				intervals.add(new IntRangeInterval(range, i));
+			}
+		}
+		size = intervals.size();
+		if (size > 0) {
+			tree = new StaticIntervalTree<Integer, IntRangeInterval>();
+			tree.buildTree(intervals);
+			for (IntRangeInterval interval : intervals) {
+				tree.insert(interval);
+			}
+		}
+	}
+
+	/** @return number of indexed ranges */
+	public int size() {
+		return size;
+	}
+
+	/** ranges which include x.
+	 *
+	 * @param x
+	 * @return ranges in list order; empty if none
+	 */
+	public List<IntRange> getRangesContaining(int x) {
+		if (tree == null) {
+			return new ArrayList<IntRange>();
+		}
+		return toRanges(fetchContaining(x));
+	}
+
+	/** ranges which intersect range (including touching ends).
+	 *
+	 * @param range
+	 * @return ranges in list order; empty if none or range is invalid
+	 */
+	public List<IntRange> getRangesOverlapping(IntRange range) {
+		if (tree == null || range == null || !range.isValid()) {
+			return new ArrayList<IntRange>();
+		}
+		IntRangeInterval query = new IntRangeInterval(range, -1);
+		return toRanges(tree.fetchOverlappingIntervals(new ArrayList<IntRangeInterval>(), query));
+	}
+
+	/** ranges which include the whole of range.
+	 *
+	 * @param range
+	 * @return ranges in list order; empty if none or range is invalid
+	 */
+	public List<IntRange> getRangesIncluding(IntRange range) {
+		List<IntRange> result = new ArrayList<IntRange>();
+		if (tree == null || range == null || !range.isValid()) {
+			return result;
+		}
+		int max = range.getMax();
+		for (IntRangeInterval interval : sorted(fetchContaining(range.getMin()))) {
+			if (interval.getHigh() >= max) {
+				result.add(interval.getRange());
+			}
+		}
+		return result;
+	}
+
+	/** is range completely within any indexed range?
+	 *
+	 * @param range
+	 * @return true if included
+	 */
+	public boolean includes(IntRange range) {
+		if (tree == null || range == null || !range.isValid()) {
+			return false;
+		}
+		int max = range.getMax();
+		for (IntRangeInterval interval : fetchContaining(range.getMin())) {
+			if (interval.getHigh() >= max) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private List<IntRangeInterval> fetchContaining(int x) {
+		return tree.fetchContainingIntervals(new ArrayList<IntRangeInterval>(), x);
+	}
+
+	private static List<IntRangeInterval> sorted(List<IntRangeInterval> intervals) {
+		Collections.sort(intervals, SERIAL_COMPARATOR);
+		return intervals;
+	}
+
+	private static List<IntRange> toRanges(List<IntRangeInterval> intervals) {
+		List<IntRange> ranges = new ArrayList<IntRange>(intervals.size());
+		for (IntRangeInterval interval : sorted(intervals)) {
+			ranges.add(interval.getRange());
+		}
+		return ranges;
+	}
+}
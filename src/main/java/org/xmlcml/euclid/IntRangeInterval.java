@@ -0,0 +1,65 @@
+package org.xmlcml.euclid;
+
+import blogspot.software_and_algorithms.stern_library.data_structure.Interval;
+
+/** closed Interval over an IntRange for the stern_library interval trees.
+ *
+ * endpoints are copied when created, so later changes to the range are not
+ * seen. Intervals are ordered by endpoints then serial, so equal ranges
+ * with different serials are distinct in the trees.
+ *
+ */
+public class IntRangeInterval extends Interval<Integer> {
+
+	private IntRange range;
+	private int serial;
+
+	/** interval for a valid range.
+	 *
+	 * @param range
+	 * @param serial position of range in its collection
+	 * @throws EuclidRuntimeException if range is null or invalid
+	 */
+	public IntRangeInterval(IntRange range, int serial) {
+		super(checkedMin(range), true, range.getMax(), true);
+		this.range = range;
+		this.serial = serial;
+	}
+
+	private static Integer checkedMin(IntRange range) {
+		if (range == null || !range.isValid()) {
+			throw new EuclidRuntimeException("cannot index invalid range: " + range);
+		}
+		return range.getMin();
+	}
+
+	/** @return range (not copied) */
+	public IntRange getRange() {
+		return range;
+	}
+
+	/** @return serial */
+	public int getSerial() {
+		return serial;
+	}
+
+	@Override
+	public int compareTo(Interval<Integer> o) {
+		int result = super.compareTo(o);
+		if (result == 0 && o instanceof IntRangeInterval) {
+			int s = ((IntRangeInterval) o).serial;
+			result = (serial < s) ? -1 : ((serial == s) ? 0 : 1);
+		}
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return super.equals(obj) && ((IntRangeInterval) obj).serial == serial;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * super.hashCode() + serial;
+	}
+}
@@ -17,10 +17,8 @@
 package org.xmlcml.euclid;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import org.apache.log4j.Logger;
@@ -56,13 +54,6 @@ public class IntSet implements EuclidConstants {
 
     Set<Integer> set;
 
-	/** gets all permutations of integers from 0 to n-1.
-	 * crude
-	 * @param number 
-	 * @return list of all permutations (no special order)
-	 */
-	public static Map<Integer, List<List<Integer>>> integerMap = new HashMap<Integer, List<List<Integer>>>();
-
     /**
      * constructor.
      */
@@ -109,7 +100,7 @@ public class IntSet implements EuclidConstants {
             min = is.min;
             max = is.max;
             this.set = new HashSet<Integer>();
-            for (Integer ii : is.set) {
+            for (Integer ii : is.getSet()) {
                 this.set.add(ii);
             }
         }
@@ -135,6 +126,31 @@ public class IntSet implements EuclidConstants {
         }
     }
 
+    /**
+     * wrap a permutation known to be distinct (e.g. from a sort). the array is
+     * not copied or checked and the membership set is only built if needed
+     * 
+     * @param perm
+     * @return set
+     */
+    static IntSet createPermutation(int[] perm) {
+        IntSet is = new IntSet();
+        is.array = perm;
+        is.nelem = perm.length;
+        is.set = null;
+        return is;
+    }
+
+    private Set<Integer> getSet() {
+        if (set == null) {
+            set = new HashSet<Integer>();
+            for (int i = 0; i < nelem; i++) {
+                set.add(new Integer(array[i]));
+            }
+        }
+        return set;
+    }
+
     /**
      * use another IntSet to subscript this one that is I(new) = I(this)
      * subscripted by I(sub); Result has dimension of I(sub). If any of I(sub)
@@ -255,7 +271,7 @@ public class IntSet implements EuclidConstants {
             throw new EuclidRuntimeException("value (" + value + ")outside range ("
                     + min + "..." + max + S_RBRAK);
         }
-        if (set.contains(value)) {
+        if (getSet().contains(value)) {
             throw new EuclidRuntimeException("value already in set: " + value);
         }
         if (nelem >= array.length) {
@@ -270,7 +286,7 @@ public class IntSet implements EuclidConstants {
             array = temp;
         }
         array[nelem++] = value;
-        set.add(new Integer(value));
+        getSet().add(new Integer(value));
         return true;
     }
 
@@ -281,7 +297,7 @@ public class IntSet implements EuclidConstants {
      * @return tur if contains
      */
     public boolean contains(int value) {
-        return set.contains(new Integer(value));
+        return getSet().contains(new Integer(value));
     }
 
     /**
@@ -314,11 +330,7 @@ public class IntSet implements EuclidConstants {
      * sort the IntSet; MODIFIES 'this'
      */
     public void sortAscending() {
-        IntArray temp = this.getIntArray();
-        temp.sortAscending();
-        for (int i = 0; i < nelem; i++) {
-            array[i] = temp.array[i];
-        }
+        ParallelSort.sort(array, 0, nelem);
     }
 
     /**
@@ -442,57 +454,70 @@ public class IntSet implements EuclidConstants {
         return s.toString();
     }
 
-	private static List<Integer> copy(List<Integer> list) {
-		List<Integer> newList = new ArrayList<Integer>();
-		for (Integer ii : list) {
-			newList.add(ii);
-		}
-		return newList;
-	}
-
 	/** create all permutations of an integer.
-	 * runs from 0,1,... number-1
+	 * runs from 1,2,... number; number is inserted at each position of
+	 * each permutation of number-1 in turn. Nothing is cached; for large
+	 * numbers use permutations(), which does not hold them all
 	 * @param number
 	 * @return
 	 */
 	public static List<int[]> getPermutations(Integer number) {
-		List<int[]> intArrayList = new ArrayList<int[]>();
-		List<List<Integer>> intListList = IntSet.getPermutations0(number);
-		for (List<Integer> intList : intListList) {
-			int size = intList.size();
-			int[] ints = new int[size];
-			for (int i = 0; i < size; i++) {
-				ints[i] = intList.get(i).intValue();
+		int n = number.intValue();
+		List<int[]> intArrayList = new ArrayList<int[]>((int) Math.min(IntSetGenerator.factorial(n), 1 << 20));
+		// position[k] is where k was inserted, 0 <= position[k] < k
+		int[] position = new int[n + 1];
+		while (true) {
+			int[] ints = new int[n];
+			for (int k = 1; k <= n; k++) {
+				int p = position[k];
+				System.arraycopy(ints, p, ints, p + 1, k - 1 - p);
+				ints[p] = k;
 			}
 			intArrayList.add(ints);
+			int k = n;
+			while (k >= 1 && ++position[k] == k) {
+				position[k--] = 0;
+			}
+			if (k < 1) {
+				break;
+			}
 		}
 		return intArrayList;
 	}
 
-	/** create all permutations of an integer.
-	 * runs from 0,1,... number-1
-	 * @param number
-	 * @return
+	/** streaming permutations of 0,1,... n-1 in lexicographic order.
+	 * one int[] is updated in place; see IntSetGenerator
+	 * @param n at most 20
+	 * @return generator of n! permutations
 	 */
-	private static List<List<Integer>> getPermutations0(Integer number) {
-		List<List<Integer>> listList = IntSet.integerMap.get(number);
-		if (listList == null) {
-			listList = new ArrayList<List<Integer>>();
-			if (number.equals(0)) {
-	    		listList.add(new ArrayList<Integer>());
-			} else {
-		    	List<List<Integer>> listListMinus = IntSet.getPermutations0(new Integer(number - 1));
-		    	for (List<Integer> listMinus : listListMinus) {
-	    			for (Integer ii = 0; ii < number; ii++) {
-	    				List<Integer> copyList = IntSet.copy(listMinus);
-	    				copyList.add(ii.intValue(), number);
-	    				listList.add(copyList);
-	    			}
-		    	}
-			}
-	    	IntSet.integerMap.put(number, listList);
+	public static IntSetGenerator permutations(int n) {
+		return new IntSetGenerator.Permutations(n, 0, IntSetGenerator.factorial(n));
+	}
+
+	/** streaming k-subsets of 0,1,... n-1 in lexicographic order.
+	 * each is ascending; see IntSetGenerator
+	 * @param n
+	 * @param k 0 <= k <= n
+	 * @return generator of n!/(k!(n-k)!) combinations
+	 */
+	public static IntSetGenerator combinations(int n, int k) {
+		if (n < 0 || k < 0 || k > n) {
+			throw new EuclidRuntimeException("bad combination " + n + ", " + k);
+		}
+		return new IntSetGenerator.Combinations(n, k, 0, IntSetGenerator.binomial(n, k));
+	}
+
+	/** streaming subsets of 0,1,... n-1 in Gray code order.
+	 * starts with the empty set; each subset is ascending and differs
+	 * from the last by one element; see IntSetGenerator
+	 * @param n at most 62
+	 * @return generator of 2^n subsets
+	 */
+	public static IntSetGenerator subsets(int n) {
+		if (n < 0 || n > 62) {
+			throw new EuclidRuntimeException("subsets need 0 <= n <= 62: " + n);
 		}
-		return listList;
+		return new IntSetGenerator.Subsets(n, 0, 1L << n);
 	}
 
 }
@@ -0,0 +1,289 @@
+package org.xmlcml.euclid;
+
+/** streaming generator of permutations, combinations or subsets of 0..n-1.
+ *
+ * created by IntSet.permutations(), IntSet.combinations() and IntSet.subsets().
+ * Each call of next() updates one int[] in place, so enumerating allocates
+ * nothing; getCurrent() returns that array (first getSize() elements), which
+ * must be copied to be kept.
+ *
+ * every item has a rank (its position in the order of the generator) and a
+ * generator covers a range of ranks. trySplit() hands the upper half of the
+ * remaining range to a new generator, so the items can be enumerated in
+ * parallel (e.g. by ForkJoin tasks). Nothing is cached between generators.
+ *
+ * <pre>
+ * IntSetGenerator perm = IntSet.permutations(5);
+ * while (perm.next()) {
+ *     int[] p = perm.getCurrent();
+ *     ...
+ * }
+ * </pre>
+ *
+ * not thread-safe; split and give each thread its own generator.
+ *
+ */
+public abstract class IntSetGenerator {
+
+	protected int n;
+	protected int[] current;
+	protected int size;
+	// rank of the next item and end of range (exclusive)
+	protected long rank;
+	protected long end;
+	private boolean started;
+
+	protected IntSetGenerator(int n, int capacity, long from, long to) {
+		this.n = n;
+		this.current = new int[capacity];
+		this.rank = from;
+		this.end = to;
+	}
+
+	/** advance to the next item.
+	 *
+	 * @return false if there are no more items
+	 */
+	public boolean next() {
+		if (rank >= end) {
+			return false;
+		}
+		if (started) {
+			successor();
+		} else {
+			unrank(rank);
+			started = true;
+		}
+		rank++;
+		return true;
+	}
+
+	/** current item.
+	 *
+	 * @return array updated in place by next(); only the first getSize()
+	 * elements are used
+	 */
+	public int[] getCurrent() {
+		return current;
+	}
+
+	/** @return number of elements in the current item */
+	public int getSize() {
+		return size;
+	}
+
+	/** @return copy of the current item */
+	public int[] copyCurrent() {
+		int[] copy = new int[size];
+		System.arraycopy(current, 0, copy, 0, size);
+		return copy;
+	}
+
+	/** @return rank of the current item (-1 before the first call of next()) */
+	public long getRank() {
+		return started ? rank - 1 : -1;
+	}
+
+	/** @return number of items not yet returned by next() */
+	public long getRemaining() {
+		return end - rank;
+	}
+
+	/** split off the upper half of the remaining items.
+	 *
+	 * @return generator for the items this one will no longer return; null
+	 * if fewer than 2 remain
+	 */
+	public IntSetGenerator trySplit() {
+		long remaining = end - rank;
+		if (remaining < 2) {
+			return null;
+		}
+		long mid = rank + remaining / 2;
+		IntSetGenerator upper = create(mid, end);
+		end = mid;
+		return upper;
+	}
+
+	/** new generator over ranks [from, to) */
+	protected abstract IntSetGenerator create(long from, long to);
+
+	/** set current to the item of the given rank */
+	protected abstract void unrank(long r);
+
+	/** set current to the following item */
+	protected abstract void successor();
+
+	static long factorial(int n) {
+		if (n < 0 || n > 20) {
+			throw new EuclidRuntimeException("factorial out of long range: " + n);
+		}
+		long f = 1;
+		for (int i = 2; i <= n; i++) {
+			f *= i;
+		}
+		return f;
+	}
+
+	static long binomial(int n, int k) {
+		if (k < 0 || k > n) {
+			return 0;
+		}
+		k = Math.min(k, n - k);
+		long b = 1;
+		for (int i = 1; i <= k; i++) {
+			// exact: b * (n - k + i) is divisible by i
+			long num = b * (n - k + i);
+			if (num / (n - k + i) != b) {
+				throw new EuclidRuntimeException("binomial out of long range: " + n + ", " + k);
+			}
+			b = num / i;
+		}
+		return b;
+	}
+
+	/** permutations of 0..n-1 in lexicographic order. */
+	static class Permutations extends IntSetGenerator {
+
+		Permutations(int n, long from, long to) {
+			super(n, n, from, to);
+			size = n;
+		}
+
+		@Override
+		protected IntSetGenerator create(long from, long to) {
+			return new Permutations(n, from, to);
+		}
+
+		// factorial number system
+		@Override
+		protected void unrank(long r) {
+			for (int i = 0; i < n; i++) {
+				current[i] = i;
+			}
+			for (int i = 0; i < n; i++) {
+				long f = factorial(n - 1 - i);
+				int j = i + (int) (r / f);
+				r %= f;
+				int v = current[j];
+				System.arraycopy(current, i, current, i + 1, j - i);
+				current[i] = v;
+			}
+		}
+
+		@Override
+		protected void successor() {
+			int i = n - 2;
+			while (i >= 0 && current[i] > current[i + 1]) {
+				i--;
+			}
+			if (i < 0) {
+				return;
+			}
+			int j = n - 1;
+			while (current[j] < current[i]) {
+				j--;
+			}
+			swap(i, j);
+			for (int lo = i + 1, hi = n - 1; lo < hi; lo++, hi--) {
+				swap(lo, hi);
+			}
+		}
+
+		private void swap(int i, int j) {
+			int t = current[i];
+			current[i] = current[j];
+			current[j] = t;
+		}
+	}
+
+	/** k-subsets of 0..n-1, each ascending, in lexicographic order. */
+	static class Combinations extends IntSetGenerator {
+		private int k;
+
+		Combinations(int n, int k, long from, long to) {
+			super(n, k, from, to);
+			this.k = k;
+			size = k;
+		}
+
+		@Override
+		protected IntSetGenerator create(long from, long to) {
+			return new Combinations(n, k, from, to);
+		}
+
+		@Override
+		protected void unrank(long r) {
+			int c = 0;
+			for (int i = 0; i < k; i++) {
+				// skip the combinations starting with c at position i
+				long skip;
+				while (r >= (skip = binomial(n - c - 1, k - i - 1))) {
+					r -= skip;
+					c++;
+				}
+				current[i] = c++;
+			}
+		}
+
+		@Override
+		protected void successor() {
+			int i = k - 1;
+			while (i >= 0 && current[i] == n - k + i) {
+				i--;
+			}
+			if (i < 0) {
+				return;
+			}
+			current[i]++;
+			for (int j = i + 1; j < k; j++) {
+				current[j] = current[j - 1] + 1;
+			}
+		}
+	}
+
+	/** all subsets of 0..n-1, each ascending, in binary reflected Gray code
+	 * order: each subset differs from the previous by one element. */
+	static class Subsets extends IntSetGenerator {
+		private long mask;
+
+		Subsets(int n, long from, long to) {
+			super(n, n, from, to);
+		}
+
+		@Override
+		protected IntSetGenerator create(long from, long to) {
+			return new Subsets(n, from, to);
+		}
+
+		@Override
+		protected void unrank(long r) {
+			mask = r ^ (r >>> 1);
+			size = 0;
+			for (int i = 0; i < n; i++) {
+				if ((mask & (1L << i)) != 0) {
+					current[size++] = i;
+				}
+			}
+		}
+
+		// rank has not yet been incremented, so the new item has rank + 0
+		@Override
+		protected void successor() {
+			int bit = Long.numberOfTrailingZeros(rank);
+			mask ^= 1L << bit;
+			int pos = 0;
+			while (pos < size && current[pos] < bit) {
+				pos++;
+			}
+			if ((mask & (1L << bit)) != 0) {
+				System.arraycopy(current, pos, current, pos + 1, size - pos);
+				current[pos] = bit;
+				size++;
+			} else {
+				System.arraycopy(current, pos + 1, current, pos, size - pos - 1);
+				size--;
+			}
+		}
+	}
+}
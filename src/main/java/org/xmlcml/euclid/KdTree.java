@@ -0,0 +1,563 @@
+package org.xmlcml.euclid;
+
+import java.util.Arrays;
+
+/** k-d tree over points in 2 or more dimensions.
+ *
+ * Spatial index for neighbour queries on Real2Vector, Real2Array, Point3Vector
+ * and Point3Array (see their createKdTree() methods). Points are referred to by
+ * their index in the order they were supplied/added, so results are the same
+ * serials as the linear-scan methods (getClosestPoint(), subSet(), etc.) return.
+ *
+ * Coordinates are held packed (dimension values per point). Every point is a node;
+ * each node also holds the bounding box of its subtree, which is used to prune
+ * nearest, furthest, radius and box queries. The tree built by the constructor is
+ * balanced; add() inserts without rebalancing (call rebuild() after many inserts).
+ *
+ * Ties in distance are resolved in favour of the lower index, as the linear scans do.
+ *
+ */
+public class KdTree {
+
+	private final static int NONE = -1;
+
+	private int dim;
+	private int nelem;
+	private double[] coords;
+	private int[] left;
+	private int[] right;
+	private int[] splitDim;
+	private double[] boxMin;
+	private double[] boxMax;
+	private int root = NONE;
+
+	/** create empty tree.
+	 *
+	 * @param dimension number of coordinates per point (at least 1)
+	 */
+	public KdTree(int dimension) {
+		if (dimension < 1) {
+			throw new EuclidRuntimeException("bad dimension: " + dimension);
+		}
+		this.dim = dimension;
+		allocate(16);
+	}
+
+	/** build balanced tree.
+	 *
+	 * @param dimension number of coordinates per point
+	 * @param packedCoords coordinates of point i are at [i * dimension ... (i+1) * dimension - 1]; COPIED
+	 * @throws EuclidRuntimeException if length is not a multiple of dimension
+	 */
+	public KdTree(int dimension, double[] packedCoords) {
+		this(dimension);
+		if (packedCoords.length % dimension != 0) {
+			throw new EuclidRuntimeException("array length ("+packedCoords.length+
+					") not multiple of dimension "+dimension);
+		}
+		int n = packedCoords.length / dimension;
+		allocate(Math.max(n, 16));
+		System.arraycopy(packedCoords, 0, coords, 0, packedCoords.length);
+		nelem = n;
+		rebuild();
+	}
+
+	private void allocate(int capacity) {
+		coords = resize(coords, capacity * dim);
+		boxMin = resize(boxMin, capacity * dim);
+		boxMax = resize(boxMax, capacity * dim);
+		left = resize(left, capacity);
+		right = resize(right, capacity);
+		splitDim = resize(splitDim, capacity);
+	}
+
+	private double[] resize(double[] a, int n) {
+		double[] b = new double[n];
+		if (a != null) {
+			System.arraycopy(a, 0, b, 0, Math.min(a.length, n));
+		}
+		return b;
+	}
+
+	private int[] resize(int[] a, int n) {
+		int[] b = new int[n];
+		if (a != null) {
+			System.arraycopy(a, 0, b, 0, Math.min(a.length, n));
+		}
+		return b;
+	}
+
+	/**
+	 * @return number of points
+	 */
+	public int size() {
+		return nelem;
+	}
+
+	/**
+	 * @return number of coordinates per point
+	 */
+	public int getDimension() {
+		return dim;
+	}
+
+	/** coordinate of point.
+	 *
+	 * @param i point index
+	 * @param d axis
+	 * @return coordinate
+	 */
+	public double getCoordinate(int i, int d) {
+		if (i < 0 || i >= nelem || d < 0 || d >= dim) {
+			throw new EuclidRuntimeException("bad index: " + i + "/" + d);
+		}
+		return coords[i * dim + d];
+	}
+
+	/** rebalance the tree over all points.
+	 *
+	 * O(n log n); indexes of points are unchanged
+	 */
+	public void rebuild() {
+		int[] perm = new int[nelem];
+		for (int i = 0; i < nelem; i++) {
+			perm[i] = i;
+		}
+		root = build(perm, 0, nelem);
+	}
+
+	private int build(int[] perm, int lo, int hi) {
+		if (lo >= hi) {
+			return NONE;
+		}
+		int d = widestDimension(perm, lo, hi);
+		int mid = (lo + hi) >>> 1;
+		select(perm, lo, hi - 1, mid, d);
+		int node = perm[mid];
+		splitDim[node] = d;
+		left[node] = build(perm, lo, mid);
+		right[node] = build(perm, mid + 1, hi);
+		resetBox(node);
+		if (left[node] != NONE) {
+			includeBox(node, left[node]);
+		}
+		if (right[node] != NONE) {
+			includeBox(node, right[node]);
+		}
+		return node;
+	}
+
+	private int widestDimension(int[] perm, int lo, int hi) {
+		int best = 0;
+		double bestSpread = -1.0;
+		for (int d = 0; d < dim; d++) {
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for (int i = lo; i < hi; i++) {
+				double c = coords[perm[i] * dim + d];
+				if (c < min) min = c;
+				if (c > max) max = c;
+			}
+			if (max - min > bestSpread) {
+				bestSpread = max - min;
+				best = d;
+			}
+		}
+		return best;
+	}
+
+	/** quickselect: place k-th smallest (on axis d) at perm[k] with smaller to the left.
+	 */
+	private void select(int[] perm, int lo, int hi, int k, int d) {
+		while (hi > lo) {
+			int m = (lo + hi) >>> 1;
+			double pivot = coords[perm[m] * dim + d];
+			int i = lo;
+			int j = hi;
+			while (i <= j) {
+				while (coords[perm[i] * dim + d] < pivot) i++;
+				while (coords[perm[j] * dim + d] > pivot) j--;
+				if (i <= j) {
+					int t = perm[i];
+					perm[i] = perm[j];
+					perm[j] = t;
+					i++;
+					j--;
+				}
+			}
+			if (k <= j) {
+				hi = j;
+			} else if (k >= i) {
+				lo = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	private void resetBox(int node) {
+		System.arraycopy(coords, node * dim, boxMin, node * dim, dim);
+		System.arraycopy(coords, node * dim, boxMax, node * dim, dim);
+	}
+
+	private void includeBox(int node, int child) {
+		int n = node * dim;
+		int c = child * dim;
+		for (int d = 0; d < dim; d++) {
+			if (boxMin[c + d] < boxMin[n + d]) boxMin[n + d] = boxMin[c + d];
+			if (boxMax[c + d] > boxMax[n + d]) boxMax[n + d] = boxMax[c + d];
+		}
+	}
+
+	/** insert point.
+	 *
+	 * tree is not rebalanced
+	 *
+	 * @param point (length dimension); COPIED
+	 * @return index of new point
+	 */
+	public int add(double[] point) {
+		checkQuery(point);
+		if (nelem * dim >= coords.length) {
+			allocate(Math.max(16, nelem * 2));
+		}
+		int node = nelem++;
+		System.arraycopy(point, 0, coords, node * dim, dim);
+		left[node] = NONE;
+		right[node] = NONE;
+		resetBox(node);
+		if (root == NONE) {
+			root = node;
+			splitDim[node] = 0;
+			return node;
+		}
+		int p = root;
+		while (true) {
+			int pp = p * dim;
+			for (int d = 0; d < dim; d++) {
+				if (point[d] < boxMin[pp + d]) boxMin[pp + d] = point[d];
+				if (point[d] > boxMax[pp + d]) boxMax[pp + d] = point[d];
+			}
+			int sd = splitDim[p];
+			if (point[sd] < coords[pp + sd]) {
+				if (left[p] == NONE) {
+					left[p] = node;
+					break;
+				}
+				p = left[p];
+			} else {
+				if (right[p] == NONE) {
+					right[p] = node;
+					break;
+				}
+				p = right[p];
+			}
+		}
+		splitDim[node] = (splitDim[p] + 1) % dim;
+		return node;
+	}
+
+	private void checkQuery(double[] q) {
+		if (q == null || q.length != dim) {
+			throw new EuclidRuntimeException("point must have " + dim + " coordinates");
+		}
+	}
+
+	private double distance2(int i, double[] q) {
+		int ii = i * dim;
+		double sum = 0.0;
+		for (int d = 0; d < dim; d++) {
+			double delta = coords[ii + d] - q[d];
+			sum += delta * delta;
+		}
+		return sum;
+	}
+
+	/** squared distance from q to nearest point of subtree box. */
+	private double minBoxDistance2(int node, double[] q) {
+		int nn = node * dim;
+		double sum = 0.0;
+		for (int d = 0; d < dim; d++) {
+			double c = q[d];
+			double delta = 0.0;
+			if (c < boxMin[nn + d]) {
+				delta = boxMin[nn + d] - c;
+			} else if (c > boxMax[nn + d]) {
+				delta = c - boxMax[nn + d];
+			}
+			sum += delta * delta;
+		}
+		return sum;
+	}
+
+	/** squared distance from q to furthest corner of subtree box. */
+	private double maxBoxDistance2(int node, double[] q) {
+		int nn = node * dim;
+		double sum = 0.0;
+		for (int d = 0; d < dim; d++) {
+			double delta = Math.max(Math.abs(q[d] - boxMin[nn + d]), Math.abs(q[d] - boxMax[nn + d]));
+			sum += delta * delta;
+		}
+		return sum;
+	}
+
+	/** work stack for iterative traversal (one per query so queries are thread-safe). */
+	private static class NodeStack {
+		private int[] nodes = new int[64];
+		private int top = 0;
+
+		void push(int node) {
+			if (node == NONE) {
+				return;
+			}
+			if (top >= nodes.length) {
+				int[] s = new int[nodes.length * 2];
+				System.arraycopy(nodes, 0, s, 0, nodes.length);
+				nodes = s;
+			}
+			nodes[top++] = node;
+		}
+
+		boolean isEmpty() {
+			return top == 0;
+		}
+
+		int pop() {
+			return nodes[--top];
+		}
+	}
+
+	private NodeStack createStack() {
+		NodeStack stack = new NodeStack();
+		stack.push(root);
+		return stack;
+	}
+
+	/** index of nearest point.
+	 *
+	 * equivalent to Real2Vector.getClosestPoint()
+	 *
+	 * @param q query point
+	 * @return index or -1 if tree is empty
+	 */
+	public int getNearestPoint(double[] q) {
+		checkQuery(q);
+		int best = -1;
+		double bestD2 = Double.POSITIVE_INFINITY;
+		NodeStack stack = createStack();
+		while (!stack.isEmpty()) {
+			int node = stack.pop();
+			if (minBoxDistance2(node, q) > bestD2) {
+				continue;
+			}
+			double d2 = distance2(node, q);
+			if (d2 < bestD2 || (d2 == bestD2 && node < best)) {
+				bestD2 = d2;
+				best = node;
+			}
+			pushChildren(stack, node, q);
+		}
+		return best;
+	}
+
+	/** push far child then near child (so near is visited first). */
+	private void pushChildren(NodeStack stack, int node, double[] q) {
+		int sd = splitDim[node];
+		boolean goLeft = q[sd] < coords[node * dim + sd];
+		stack.push(goLeft ? right[node] : left[node]);
+		stack.push(goLeft ? left[node] : right[node]);
+	}
+
+	/** indexes of k nearest points.
+	 *
+	 * @param q query point
+	 * @param k maximum number of points
+	 * @return indexes, nearest first
+	 */
+	public IntSet getNearestPoints(double[] q, int k) {
+		checkQuery(q);
+		k = Math.min(k, nelem);
+		if (k <= 0) {
+			return new IntSet();
+		}
+		// max-heap on (distance, index) of current best k
+		double[] heapD = new double[k];
+		int[] heapI = new int[k];
+		int heapSize = 0;
+		NodeStack stack = createStack();
+		while (!stack.isEmpty()) {
+			int node = stack.pop();
+			if (heapSize == k && minBoxDistance2(node, q) > heapD[0]) {
+				continue;
+			}
+			double d2 = distance2(node, q);
+			if (heapSize < k) {
+				heapD[heapSize] = d2;
+				heapI[heapSize] = node;
+				siftUp(heapD, heapI, heapSize++);
+			} else if (d2 < heapD[0] || (d2 == heapD[0] && node < heapI[0])) {
+				heapD[0] = d2;
+				heapI[0] = node;
+				siftDown(heapD, heapI, 0, heapSize);
+			}
+			pushChildren(stack, node, q);
+		}
+		int[] result = new int[heapSize];
+		for (int i = heapSize - 1; i >= 0; i--) {
+			result[i] = heapI[0];
+			heapD[0] = heapD[i];
+			heapI[0] = heapI[i];
+			siftDown(heapD, heapI, 0, i);
+		}
+		return new IntSet(result);
+	}
+
+	private static boolean greater(double[] d, int[] idx, int a, int b) {
+		return d[a] > d[b] || (d[a] == d[b] && idx[a] > idx[b]);
+	}
+
+	private static void swap(double[] d, int[] idx, int a, int b) {
+		double td = d[a];
+		d[a] = d[b];
+		d[b] = td;
+		int ti = idx[a];
+		idx[a] = idx[b];
+		idx[b] = ti;
+	}
+
+	private static void siftUp(double[] d, int[] idx, int i) {
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			if (!greater(d, idx, i, parent)) {
+				break;
+			}
+			swap(d, idx, i, parent);
+			i = parent;
+		}
+	}
+
+	private static void siftDown(double[] d, int[] idx, int i, int size) {
+		while (true) {
+			int l = 2 * i + 1;
+			if (l >= size) {
+				break;
+			}
+			int c = (l + 1 < size && greater(d, idx, l + 1, l)) ? l + 1 : l;
+			if (!greater(d, idx, c, i)) {
+				break;
+			}
+			swap(d, idx, i, c);
+			i = c;
+		}
+	}
+
+	/** indexes of all points within radius (inclusive) of q.
+	 *
+	 * @param q query point
+	 * @param radius
+	 * @return indexes in ascending order
+	 */
+	public IntSet getPointsWithinRadius(double[] q, double radius) {
+		return new IntSet(getPointsWithinRadiusAsArray(q, radius));
+	}
+
+	int[] getPointsWithinRadiusAsArray(double[] q, double radius) {
+		checkQuery(q);
+		double r2 = radius * radius;
+		IntArray found = new IntArray();
+		NodeStack stack = createStack();
+		while (!stack.isEmpty()) {
+			int node = stack.pop();
+			if (minBoxDistance2(node, q) > r2) {
+				continue;
+			}
+			if (distance2(node, q) <= r2) {
+				found.addElement(node);
+			}
+			stack.push(left[node]);
+			stack.push(right[node]);
+		}
+		return sorted(found);
+	}
+
+	private int[] sorted(IntArray found) {
+		int[] result = found.getArray();
+		Arrays.sort(result);
+		return result;
+	}
+
+	/** indexes of all points inside box (inclusive bounds).
+	 *
+	 * @param min lower bound for each axis
+	 * @param max upper bound for each axis
+	 * @return indexes in ascending order
+	 */
+	public IntSet getPointsInBox(double[] min, double[] max) {
+		checkQuery(min);
+		checkQuery(max);
+		IntArray found = new IntArray();
+		NodeStack stack = createStack();
+		while (!stack.isEmpty()) {
+			int node = stack.pop();
+			int nn = node * dim;
+			boolean overlaps = true;
+			boolean inside = true;
+			for (int d = 0; d < dim; d++) {
+				if (boxMax[nn + d] < min[d] || boxMin[nn + d] > max[d]) {
+					overlaps = false;
+					break;
+				}
+				double c = coords[nn + d];
+				if (c < min[d] || c > max[d]) {
+					inside = false;
+				}
+			}
+			if (!overlaps) {
+				continue;
+			}
+			if (inside) {
+				found.addElement(node);
+			}
+			stack.push(left[node]);
+			stack.push(right[node]);
+		}
+		return new IntSet(sorted(found));
+	}
+
+	/** lowest index of any point inside box (inclusive bounds).
+	 *
+	 * @param min lower bound for each axis
+	 * @param max upper bound for each axis
+	 * @return index or -1 if none
+	 */
+	public int getFirstPointInBox(double[] min, double[] max) {
+		IntSet is = getPointsInBox(min, max);
+		return (is.size() == 0) ? -1 : is.elementAt(0);
+	}
+
+	/** index of furthest point from q.
+	 *
+	 * @param q query point
+	 * @return index or -1 if tree is empty
+	 */
+	public int getFurthestPoint(double[] q) {
+		checkQuery(q);
+		int best = -1;
+		double bestD2 = Double.NEGATIVE_INFINITY;
+		NodeStack stack = createStack();
+		while (!stack.isEmpty()) {
+			int node = stack.pop();
+			if (maxBoxDistance2(node, q) < bestD2) {
+				continue;
+			}
+			double d2 = distance2(node, q);
+			if (d2 > bestD2 || (d2 == bestD2 && node < best)) {
+				bestD2 = d2;
+				best = node;
+			}
+			stack.push(left[node]);
+			stack.push(right[node]);
+		}
+		return best;
+	}
+}
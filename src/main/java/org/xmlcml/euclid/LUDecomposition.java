@@ -0,0 +1,259 @@
+package org.xmlcml.euclid;
+
+/** LU decomposition with partial (row) pivoting of a square matrix.
+ *
+ * PA = LU where L is unit lower triangular and U upper triangular. L and U are packed
+ * into a single n*n row-major array (the unit diagonal of L is implicit).
+ *
+ * Cost is O(n^3) to decompose and O(n^2) for each subsequent solve. Used by
+ * RealSquareMatrix for determinant(), getInverse() and solve() of any order.
+ *
+ * The decomposition keeps a snapshot of the matrix it was built from so that
+ * callers caching it can check whether the matrix has since been altered.
+ *
+ */
+public class LUDecomposition {
+
+	/** isNearlySingular() if the smallest pivot is below this times the largest */
+	public final static double SINGULARITY_EPS = 1.0E-12;
+
+	private int n;
+	private double[] lu;
+	private int[] pivot;
+	private int pivotSign;
+	private double[] original;
+	private boolean singular;
+
+	/** decompose a square matrix.
+	 *
+	 * the matrix is not altered.
+	 *
+	 * @param matrix
+	 * @throws EuclidRuntimeException if matrix is not square
+	 */
+	public LUDecomposition(double[][] matrix) {
+		n = matrix.length;
+		lu = new double[n * n];
+		for (int i = 0; i < n; i++) {
+			if (matrix[i].length != n) {
+				throw new EuclidRuntimeException("non square matrix");
+			}
+			System.arraycopy(matrix[i], 0, lu, i * n, n);
+		}
+		original = new double[n * n];
+		System.arraycopy(lu, 0, original, 0, n * n);
+		decompose();
+	}
+
+	/** Doolittle elimination (row-oriented so inner loops run along contiguous rows).
+	 */
+	private void decompose() {
+		pivot = new int[n];
+		for (int i = 0; i < n; i++) {
+			pivot[i] = i;
+		}
+		pivotSign = 1;
+		singular = false;
+		for (int k = 0; k < n; k++) {
+			// find pivot
+			int p = k;
+			double max = Math.abs(lu[k * n + k]);
+			for (int i = k + 1; i < n; i++) {
+				double a = Math.abs(lu[i * n + k]);
+				if (a > max) {
+					max = a;
+					p = i;
+				}
+			}
+			if (p != k) {
+				int pk = p * n;
+				int kk = k * n;
+				for (int j = 0; j < n; j++) {
+					double t = lu[pk + j];
+					lu[pk + j] = lu[kk + j];
+					lu[kk + j] = t;
+				}
+				int t = pivot[p];
+				pivot[p] = pivot[k];
+				pivot[k] = t;
+				pivotSign = -pivotSign;
+			}
+			int kn = k * n;
+			double diag = lu[kn + k];
+			// only an exact zero; badly scaled matrices can have tiny valid pivots
+			if (diag == 0.0) {
+				singular = true;
+				continue;
+			}
+			for (int i = k + 1; i < n; i++) {
+				int in = i * n;
+				double f = lu[in + k] / diag;
+				lu[in + k] = f;
+				if (f != 0.0) {
+					for (int j = k + 1; j < n; j++) {
+						lu[in + j] -= f * lu[kn + j];
+					}
+				}
+			}
+		}
+	}
+
+	/** order of matrix.
+	 *
+	 * @return number of rows (= cols)
+	 */
+	public int getOrder() {
+		return n;
+	}
+
+	/** is the decomposed matrix singular.
+	 *
+	 * @return true if a pivot was exactly zero
+	 */
+	public boolean isSingular() {
+		return singular;
+	}
+
+	/** is the matrix singular or close to it.
+	 *
+	 * a rough test of conditioning: the ratio of the smallest to the largest
+	 * pivot is at most SINGULARITY_EPS. Note that a well-conditioned but badly
+	 * scaled matrix (e.g. diagonal with elements 1e6 and 1e-7) also passes;
+	 * isSingular(), getInverse() and solve() are not affected.
+	 *
+	 * @return true if singular or nearly so
+	 */
+	public boolean isNearlySingular() {
+		if (singular) {
+			return true;
+		}
+		double min = Double.POSITIVE_INFINITY;
+		double max = 0.0;
+		for (int i = 0; i < n; i++) {
+			double a = Math.abs(lu[i * n + i]);
+			min = Math.min(min, a);
+			max = Math.max(max, a);
+		}
+		return n > 0 && min <= SINGULARITY_EPS * max;
+	}
+
+	/** determinant.
+	 *
+	 * product of U diagonal times sign of row permutation
+	 * @return determinant (0.0 if singular)
+	 */
+	public double getDeterminant() {
+		double det = pivotSign;
+		for (int i = 0; i < n; i++) {
+			det *= lu[i * n + i];
+		}
+		return det;
+	}
+
+	/** row permutation.
+	 *
+	 * row i of LU corresponds to row getPivot()[i] of the original matrix.
+	 * @return copy of pivot indices
+	 */
+	public int[] getPivot() {
+		int[] p = new int[n];
+		System.arraycopy(pivot, 0, p, 0, n);
+		return p;
+	}
+
+	/** has the matrix changed since it was decomposed.
+	 *
+	 * O(n^2) comparison with the snapshot taken at construction.
+	 * @param matrix
+	 * @return true if same dimensions and identical element values
+	 */
+	public boolean isDecompositionOf(double[][] matrix) {
+		if (matrix.length != n) {
+			return false;
+		}
+		for (int i = 0; i < n; i++) {
+			double[] row = matrix[i];
+			if (row.length != n) {
+				return false;
+			}
+			int in = i * n;
+			for (int j = 0; j < n; j++) {
+				if (Double.doubleToLongBits(row[j]) != Double.doubleToLongBits(original[in + j])) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/** solve Ax = b.
+	 *
+	 * @param b right-hand side (length order); not altered
+	 * @return x
+	 * @throws EuclidRuntimeException if singular or wrong length
+	 */
+	public double[] solve(double[] b) {
+		if (b.length != n) {
+			throw new EuclidRuntimeException("rhs has wrong length: "+b.length+" expected "+n);
+		}
+		checkNonSingular();
+		double[] x = new double[n];
+		for (int i = 0; i < n; i++) {
+			x[i] = b[pivot[i]];
+		}
+		solveInPlace(x, 0, 1);
+		return x;
+	}
+
+	/** inverse of matrix.
+	 *
+	 * @return new n*n array
+	 * @throws EuclidRuntimeException if singular
+	 */
+	public double[][] getInverse() {
+		checkNonSingular();
+		// solve for all columns at once; column j of the identity permuted is stored
+		// with stride n in a row-major work array
+		double[] work = new double[n * n];
+		for (int i = 0; i < n; i++) {
+			work[i * n + pivot[i]] = 1.0;
+		}
+		for (int j = 0; j < n; j++) {
+			solveInPlace(work, j, n);
+		}
+		double[][] inv = new double[n][n];
+		for (int i = 0; i < n; i++) {
+			System.arraycopy(work, i * n, inv[i], 0, n);
+		}
+		return inv;
+	}
+
+	/** forward and back substitution on a strided (permuted) vector.
+	 */
+	private void solveInPlace(double[] x, int offset, int stride) {
+		// L y = Pb
+		for (int i = 1; i < n; i++) {
+			int in = i * n;
+			double sum = x[offset + i * stride];
+			for (int k = 0; k < i; k++) {
+				sum -= lu[in + k] * x[offset + k * stride];
+			}
+			x[offset + i * stride] = sum;
+		}
+		// U x = y
+		for (int i = n - 1; i >= 0; i--) {
+			int in = i * n;
+			double sum = x[offset + i * stride];
+			for (int k = i + 1; k < n; k++) {
+				sum -= lu[in + k] * x[offset + k * stride];
+			}
+			x[offset + i * stride] = sum / lu[in + i];
+		}
+	}
+
+	private void checkNonSingular() {
+		if (singular) {
+			throw new EuclidRuntimeException("singular matrix");
+		}
+	}
+}
@@ -0,0 +1,197 @@
+package org.xmlcml.euclid;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/** matrix product kernels used by RealMatrix and IntMatrix.
+ *
+ * c = a * b is computed in i-k-j order over square tiles so that the inner loop
+ * runs along rows of b and c (no column walks) and each tile of b is reused
+ * for a block of rows of a. For each element the terms are still summed in
+ * increasing k so results are identical to the simple triple loop.
+ *
+ * Products with at least PARALLEL_THRESHOLD multiply-adds are split into
+ * row blocks and run on a shared ForkJoinPool.
+ *
+ */
+public class MatrixMultiplier {
+
+	/** edge of square tile */
+	public final static int BLOCK = 64;
+	/** minimum rows*inner*cols before the product is run in parallel */
+	public final static long PARALLEL_THRESHOLD = 64L * 64L * 64L * 8L;
+
+	private static ForkJoinPool pool;
+
+	private MatrixMultiplier() {
+	}
+
+	/** pool shared by the parallel kernels.
+	 */
+	static synchronized ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool();
+		}
+		return pool;
+	}
+
+	private static boolean isParallel(int rows, int inner, int cols) {
+		return rows > BLOCK && (long) rows * (long) inner * (long) cols >= PARALLEL_THRESHOLD;
+	}
+
+	/** c = a * b.
+	 *
+	 * c must be zeroed and have at least a.length rows of b[0].length columns.
+	 * a, b and c must be distinct arrays.
+	 *
+	 * @param a rows * inner
+	 * @param b inner * cols
+	 * @param c rows * cols (result)
+	 * @param rows
+	 * @param inner
+	 * @param cols
+	 */
+	public static void multiply(double[][] a, double[][] b, double[][] c, int rows, int inner, int cols) {
+		if (isParallel(rows, inner, cols)) {
+			getPool().invoke(new RealTask(a, b, c, 0, rows, inner, cols));
+		} else {
+			multiplyRows(a, b, c, 0, rows, inner, cols);
+		}
+	}
+
+	/** c = a * b.
+	 *
+	 * integer version of multiply(double[][] ...)
+	 *
+	 * @param a rows * inner
+	 * @param b inner * cols
+	 * @param c rows * cols (result)
+	 * @param rows
+	 * @param inner
+	 * @param cols
+	 */
+	public static void multiply(int[][] a, int[][] b, int[][] c, int rows, int inner, int cols) {
+		if (isParallel(rows, inner, cols)) {
+			getPool().invoke(new IntTask(a, b, c, 0, rows, inner, cols));
+		} else {
+			multiplyRows(a, b, c, 0, rows, inner, cols);
+		}
+	}
+
+	static void multiplyRows(double[][] a, double[][] b, double[][] c, int row0, int row1, int inner, int cols) {
+		for (int ii = row0; ii < row1; ii += BLOCK) {
+			int iMax = Math.min(ii + BLOCK, row1);
+			for (int kk = 0; kk < inner; kk += BLOCK) {
+				int kMax = Math.min(kk + BLOCK, inner);
+				for (int jj = 0; jj < cols; jj += BLOCK) {
+					int jMax = Math.min(jj + BLOCK, cols);
+					for (int i = ii; i < iMax; i++) {
+						double[] ai = a[i];
+						double[] ci = c[i];
+						for (int k = kk; k < kMax; k++) {
+							double aik = ai[k];
+							double[] bk = b[k];
+							for (int j = jj; j < jMax; j++) {
+								ci[j] += aik * bk[j];
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	static void multiplyRows(int[][] a, int[][] b, int[][] c, int row0, int row1, int inner, int cols) {
+		for (int ii = row0; ii < row1; ii += BLOCK) {
+			int iMax = Math.min(ii + BLOCK, row1);
+			for (int kk = 0; kk < inner; kk += BLOCK) {
+				int kMax = Math.min(kk + BLOCK, inner);
+				for (int jj = 0; jj < cols; jj += BLOCK) {
+					int jMax = Math.min(jj + BLOCK, cols);
+					for (int i = ii; i < iMax; i++) {
+						int[] ai = a[i];
+						int[] ci = c[i];
+						for (int k = kk; k < kMax; k++) {
+							int aik = ai[k];
+							int[] bk = b[k];
+							for (int j = jj; j < jMax; j++) {
+								ci[j] += aik * bk[j];
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/** splits row range in half (on block boundaries) until it is a single block.
+	 */
+	private static int split(int row0, int row1) {
+		int nblocks = (row1 - row0 + BLOCK - 1) / BLOCK;
+		return (nblocks <= 1) ? -1 : row0 + (nblocks / 2) * BLOCK;
+	}
+
+	private static class RealTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private double[][] a;
+		private double[][] b;
+		private double[][] c;
+		private int row0;
+		private int row1;
+		private int inner;
+		private int cols;
+
+		RealTask(double[][] a, double[][] b, double[][] c, int row0, int row1, int inner, int cols) {
+			this.a = a;
+			this.b = b;
+			this.c = c;
+			this.row0 = row0;
+			this.row1 = row1;
+			this.inner = inner;
+			this.cols = cols;
+		}
+
+		@Override
+		protected void compute() {
+			int mid = split(row0, row1);
+			if (mid < 0) {
+				multiplyRows(a, b, c, row0, row1, inner, cols);
+			} else {
+				invokeAll(new RealTask(a, b, c, row0, mid, inner, cols),
+						new RealTask(a, b, c, mid, row1, inner, cols));
+			}
+		}
+	}
+
+	private static class IntTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private int[][] a;
+		private int[][] b;
+		private int[][] c;
+		private int row0;
+		private int row1;
+		private int inner;
+		private int cols;
+
+		IntTask(int[][] a, int[][] b, int[][] c, int row0, int row1, int inner, int cols) {
+			this.a = a;
+			this.b = b;
+			this.c = c;
+			this.row0 = row0;
+			this.row1 = row1;
+			this.inner = inner;
+			this.cols = cols;
+		}
+
+		@Override
+		protected void compute() {
+			int mid = split(row0, row1);
+			if (mid < 0) {
+				multiplyRows(a, b, c, row0, row1, inner, cols);
+			} else {
+				invokeAll(new IntTask(a, b, c, row0, mid, inner, cols),
+						new IntTask(a, b, c, mid, row1, inner, cols));
+			}
+		}
+	}
+}
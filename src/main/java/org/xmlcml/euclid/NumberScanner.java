@@ -0,0 +1,441 @@
+package org.xmlcml.euclid;
+
+/** single-pass scanner parsing delimited numbers straight into primitives.
+ *
+ * Replaces String.split() followed by Double.valueOf()/Integer.valueOf() per token;
+ * no regex, no intermediate String[] and (for ordinary decimal numbers) no String
+ * per token. Used by RealArray(String), IntArray(String), Util.splitToDoubleArray(),
+ * Util.splitToIntArray() and STMLArray.
+ *
+ * The delimiter is either whitespace (runs of any length, leading and trailing
+ * ignored) or a literal string. With a literal delimiter, whitespace round tokens
+ * is ignored, trailing empty tokens are dropped (as String.split()) and any other
+ * empty token is an error.
+ *
+ * Doubles: the XSD special values INF, -INF and NaN are recognised. Decimal numbers
+ * of up to 15 significant digits and decimal exponent up to 22 are converted exactly
+ * (correctly rounded) in place; anything else (long mantissae, large exponents,
+ * FORTRAN D exponents, "Infinity", etc.) falls back to Real.parseDouble().
+ *
+ * <pre>
+ * NumberScanner scanner = new NumberScanner(content, ",");
+ * while (scanner.hasNext()) {
+ *     double d = scanner.nextDouble();
+ * }
+ * </pre>
+ *
+ */
+public class NumberScanner {
+
+	private final static double[] POWERS_OF_TEN = {
+		1.0E0, 1.0E1, 1.0E2, 1.0E3, 1.0E4, 1.0E5, 1.0E6, 1.0E7, 1.0E8, 1.0E9, 1.0E10,
+		1.0E11, 1.0E12, 1.0E13, 1.0E14, 1.0E15, 1.0E16, 1.0E17, 1.0E18, 1.0E19, 1.0E20,
+		1.0E21, 1.0E22,
+	};
+	/** doubles are exact up to 2^53 so 15 decimal digits are always exact */
+	private final static int MAX_EXACT_DIGITS = 15;
+
+	private CharSequence s;
+	private String delimiter;
+	private int pos;
+	private int end;
+	private int tokenStart;
+	private int tokenEnd;
+	private int count;
+
+	/** scanner over whitespace-separated numbers.
+	 *
+	 * @param s string to scan (not copied)
+	 */
+	public NumberScanner(CharSequence s) {
+		this(s, null);
+	}
+
+	/** scanner over delimited numbers.
+	 *
+	 * @param s string to scan (not copied)
+	 * @param delimiter literal delimiter; null or whitespace means any whitespace
+	 */
+	public NumberScanner(CharSequence s, String delimiter) {
+		if (s == null) {
+			throw new EuclidRuntimeException("null argument");
+		}
+		this.s = s;
+		this.delimiter = (delimiter == null || delimiter.trim().length() == 0) ? null : delimiter;
+		this.pos = 0;
+		this.end = s.length();
+		if (this.delimiter != null) {
+			dropTrailingEmptyTokens();
+			pos = skipWhitespace(0, end);
+		}
+	}
+
+	/**
+	 * @param c
+	 * @return true if c matches regex \s
+	 */
+	public static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+	}
+
+	private int skipWhitespace(int i, int limit) {
+		while (i < limit && isWhitespace(s.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	private void dropTrailingEmptyTokens() {
+		int dl = delimiter.length();
+		while (true) {
+			while (end > 0 && isWhitespace(s.charAt(end - 1))) {
+				end--;
+			}
+			if (end >= dl && regionMatches(end - dl, delimiter)) {
+				end -= dl;
+			} else {
+				break;
+			}
+		}
+	}
+
+	private boolean regionMatches(int start, String t) {
+		if (start < 0 || start + t.length() > s.length()) {
+			return false;
+		}
+		for (int i = 0; i < t.length(); i++) {
+			if (s.charAt(start + i) != t.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** are there more tokens.
+	 *
+	 * @return true if nextDouble() or nextInt() will return a value (or fail to parse)
+	 */
+	public boolean hasNext() {
+		if (delimiter == null) {
+			pos = skipWhitespace(pos, end);
+		}
+		return pos < end;
+	}
+
+	/** number of tokens returned so far.
+	 *
+	 * @return count
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	private void nextToken() {
+		if (!hasNext()) {
+			throw new EuclidRuntimeException("no more numbers after " + count);
+		}
+		tokenStart = pos;
+		if (delimiter == null) {
+			while (pos < end && !isWhitespace(s.charAt(pos))) {
+				pos++;
+			}
+			tokenEnd = pos;
+		} else {
+			char d0 = delimiter.charAt(0);
+			while (pos < end && !(s.charAt(pos) == d0 && regionMatches(pos, delimiter))) {
+				pos++;
+			}
+			tokenEnd = pos;
+			while (tokenEnd > tokenStart && isWhitespace(s.charAt(tokenEnd - 1))) {
+				tokenEnd--;
+			}
+			if (pos < end) {
+				pos = skipWhitespace(pos + delimiter.length(), end);
+			}
+			if (tokenEnd == tokenStart) {
+				throw new EuclidRuntimeException("Empty number at position " + count);
+			}
+		}
+		count++;
+	}
+
+	/** parse next token as double.
+	 *
+	 * @return value
+	 * @throws EuclidRuntimeException no more tokens or token is not a double
+	 */
+	public double nextDouble() {
+		nextToken();
+		try {
+			return parseDouble(s, tokenStart, tokenEnd);
+		} catch (NumberFormatException nfe) {
+			throw new EuclidRuntimeException("Bad double (" + s.subSequence(tokenStart, tokenEnd)
+					+ ") at position " + (count - 1), nfe);
+		}
+	}
+
+	/** parse next token as int.
+	 *
+	 * @return value
+	 * @throws EuclidRuntimeException no more tokens or token is not an int
+	 */
+	public int nextInt() {
+		nextToken();
+		try {
+			return parseInt(s, tokenStart, tokenEnd);
+		} catch (NumberFormatException nfe) {
+			throw new EuclidRuntimeException("Bad int (" + s.subSequence(tokenStart, tokenEnd)
+					+ ") at position " + (count - 1), nfe);
+		}
+	}
+
+	/** parse all remaining tokens as doubles.
+	 *
+	 * @return array (length is number of tokens)
+	 * @throws EuclidRuntimeException bad token
+	 */
+	public double[] nextDoubles() {
+		double[] dd = new double[16];
+		int n = 0;
+		while (hasNext()) {
+			if (n == dd.length) {
+				double[] temp = new double[2 * n];
+				System.arraycopy(dd, 0, temp, 0, n);
+				dd = temp;
+			}
+			dd[n++] = nextDouble();
+		}
+		double[] result = new double[n];
+		System.arraycopy(dd, 0, result, 0, n);
+		return result;
+	}
+
+	/** parse all remaining tokens as ints.
+	 *
+	 * @return array (length is number of tokens)
+	 * @throws EuclidRuntimeException bad token
+	 */
+	public int[] nextInts() {
+		int[] ii = new int[16];
+		int n = 0;
+		while (hasNext()) {
+			if (n == ii.length) {
+				int[] temp = new int[2 * n];
+				System.arraycopy(ii, 0, temp, 0, n);
+				ii = temp;
+			}
+			ii[n++] = nextInt();
+		}
+		int[] result = new int[n];
+		System.arraycopy(ii, 0, result, 0, n);
+		return result;
+	}
+
+	/** parse whitespace-separated doubles.
+	 *
+	 * @param s
+	 * @return array
+	 * @throws EuclidRuntimeException bad token
+	 */
+	public static double[] parseDoubles(CharSequence s) {
+		return new NumberScanner(s).nextDoubles();
+	}
+
+	/** parse delimited doubles.
+	 *
+	 * @param s
+	 * @param delimiter literal; null or whitespace for any whitespace
+	 * @return array
+	 * @throws EuclidRuntimeException bad token
+	 */
+	public static double[] parseDoubles(CharSequence s, String delimiter) {
+		return new NumberScanner(s, delimiter).nextDoubles();
+	}
+
+	/** parse whitespace-separated ints.
+	 *
+	 * @param s
+	 * @return array
+	 * @throws EuclidRuntimeException bad token
+	 */
+	public static int[] parseInts(CharSequence s) {
+		return new NumberScanner(s).nextInts();
+	}
+
+	/** parse delimited ints.
+	 *
+	 * @param s
+	 * @param delimiter literal; null or whitespace for any whitespace
+	 * @return array
+	 * @throws EuclidRuntimeException bad token
+	 */
+	public static int[] parseInts(CharSequence s, String delimiter) {
+		return new NumberScanner(s, delimiter).nextInts();
+	}
+
+	/** parse double, including INF, -INF and NaN.
+	 *
+	 * leading and trailing whitespace is ignored
+	 *
+	 * @param s
+	 * @return value
+	 * @throws NumberFormatException not a double
+	 */
+	public static double parseDouble(String s) {
+		return parseDouble(s, 0, s.length());
+	}
+
+	/** parse part of a string as double, including INF, -INF and NaN.
+	 *
+	 * leading and trailing whitespace is ignored
+	 *
+	 * @param s
+	 * @param start inclusive
+	 * @param end exclusive
+	 * @return value
+	 * @throws NumberFormatException not a double
+	 */
+	public static double parseDouble(CharSequence s, int start, int end) {
+		while (start < end && isWhitespace(s.charAt(start))) {
+			start++;
+		}
+		while (end > start && isWhitespace(s.charAt(end - 1))) {
+			end--;
+		}
+		int len = end - start;
+		if (len == 3 && matches(s, start, "INF")) {
+			return Double.POSITIVE_INFINITY;
+		} else if (len == 4 && matches(s, start, "-INF")) {
+			return Double.NEGATIVE_INFINITY;
+		} else if (len == 3 && matches(s, start, "NaN")) {
+			return Double.NaN;
+		}
+		int i = start;
+		boolean negative = false;
+		if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+			negative = s.charAt(i) == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int significant = 0;
+		int scale = 0;
+		boolean point = false;
+		for (; i < end; i++) {
+			char c = s.charAt(i);
+			if (c >= '0' && c <= '9') {
+				digits++;
+				if (significant > 0 || c != '0') {
+					significant++;
+					if (significant > MAX_EXACT_DIGITS) {
+						return slowParseDouble(s, start, end);
+					}
+					mantissa = 10 * mantissa + (c - '0');
+				}
+				if (point) {
+					scale--;
+				}
+			} else if (c == '.' && !point) {
+				point = true;
+			} else {
+				break;
+			}
+		}
+		if (digits == 0) {
+			return slowParseDouble(s, start, end);
+		}
+		if (i < end) {
+			char c = s.charAt(i);
+			if (c != 'e' && c != 'E') {
+				return slowParseDouble(s, start, end);
+			}
+			i++;
+			boolean negativeExponent = false;
+			if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+				negativeExponent = s.charAt(i) == '-';
+				i++;
+			}
+			if (i == end) {
+				return slowParseDouble(s, start, end);
+			}
+			int exponent = 0;
+			for (; i < end; i++) {
+				c = s.charAt(i);
+				if (c < '0' || c > '9' || exponent > 1000) {
+					return slowParseDouble(s, start, end);
+				}
+				exponent = 10 * exponent + (c - '0');
+			}
+			scale += (negativeExponent) ? -exponent : exponent;
+		}
+		double value;
+		if (mantissa == 0) {
+			value = 0.0;
+		} else if (scale >= 0 && scale < POWERS_OF_TEN.length) {
+			value = (double) mantissa * POWERS_OF_TEN[scale];
+		} else if (scale < 0 && -scale < POWERS_OF_TEN.length) {
+			value = (double) mantissa / POWERS_OF_TEN[-scale];
+		} else {
+			return slowParseDouble(s, start, end);
+		}
+		return (negative) ? -value : value;
+	}
+
+	private static double slowParseDouble(CharSequence s, int start, int end) {
+		if (start == end) {
+			throw new NumberFormatException("empty String");
+		}
+		return Real.parseDouble(s.subSequence(start, end).toString());
+	}
+
+	private static boolean matches(CharSequence s, int start, String t) {
+		for (int i = 0; i < t.length(); i++) {
+			if (s.charAt(start + i) != t.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** parse part of a string as int.
+	 *
+	 * accepts the same forms as Integer.parseInt() (optional sign, decimal digits);
+	 * leading and trailing whitespace is ignored
+	 *
+	 * @param s
+	 * @param start inclusive
+	 * @param end exclusive
+	 * @return value
+	 * @throws NumberFormatException not an int or out of range
+	 */
+	public static int parseInt(CharSequence s, int start, int end) {
+		while (start < end && isWhitespace(s.charAt(start))) {
+			start++;
+		}
+		while (end > start && isWhitespace(s.charAt(end - 1))) {
+			end--;
+		}
+		int i = start;
+		boolean negative = false;
+		if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+			negative = s.charAt(i) == '-';
+			i++;
+		}
+		if (i == end) {
+			throw new NumberFormatException("For input string: \"" + s.subSequence(start, end) + "\"");
+		}
+		long limit = (negative) ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+		long value = 0;
+		for (; i < end; i++) {
+			char c = s.charAt(i);
+			if (c < '0' || c > '9') {
+				throw new NumberFormatException("For input string: \"" + s.subSequence(start, end) + "\"");
+			}
+			value = 10 * value + (c - '0');
+			if (value > limit) {
+				throw new NumberFormatException("For input string: \"" + s.subSequence(start, end) + "\"");
+			}
+		}
+		return (int) ((negative) ? -value : value);
+	}
+}
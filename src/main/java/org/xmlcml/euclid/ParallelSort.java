@@ -0,0 +1,383 @@
+package org.xmlcml.euclid;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+/** primitive sorting kernels for RealArray, IntArray and IntSet.
+ *
+ * value sorts use Arrays.sort below PARALLEL_THRESHOLD elements; larger
+ * ranges are sorted in blocks on the shared ForkJoinPool and merged.
+ *
+ * argsort is a stable merge sort on (key, index) pairs, so equal keys keep
+ * their original order in both directions; top-k selection uses a bounded heap.
+ * select ranks NaN keys after all others in both directions; ordering of
+ * NaN keys is not defined for argsort.
+ *
+ */
+final class ParallelSort {
+
+	/** minimum number of elements before sorting in parallel */
+	final static int PARALLEL_THRESHOLD = 1 << 16;
+	private final static int LEAF = 1 << 13;
+	private final static int INSERTION = 32;
+
+	private ParallelSort() {
+	}
+
+	/** sort a[from..to) ascending.
+	 */
+	static void sort(double[] a, int from, int to) {
+		if (to - from < PARALLEL_THRESHOLD) {
+			Arrays.sort(a, from, to);
+		} else {
+			MatrixMultiplier.getPool().invoke(new DoubleSortTask(a, new double[a.length], from, to));
+		}
+	}
+
+	/** sort a[from..to) ascending.
+	 */
+	static void sort(int[] a, int from, int to) {
+		if (to - from < PARALLEL_THRESHOLD) {
+			Arrays.sort(a, from, to);
+		} else {
+			MatrixMultiplier.getPool().invoke(new IntSortTask(a, new int[a.length], from, to));
+		}
+	}
+
+	/** stable permutation sorting keys[0..n).
+	 *
+	 * @param keys not modified
+	 * @param n
+	 * @param descending
+	 * @return idx so that keys[idx[0]] is lowest (highest if descending)
+	 */
+	static int[] argsort(double[] keys, int n, boolean descending) {
+		double[] k = new double[n];
+		int[] idx = new int[n];
+		for (int i = 0; i < n; i++) {
+			k[i] = descending ? -keys[i] : keys[i];
+			idx[i] = i;
+		}
+		argsort(k, idx);
+		return idx;
+	}
+
+	/** stable permutation sorting keys[0..n).
+	 */
+	static int[] argsort(int[] keys, int n, boolean descending) {
+		double[] k = new double[n];
+		int[] idx = new int[n];
+		for (int i = 0; i < n; i++) {
+			// ints are exact as doubles
+			k[i] = descending ? -(double) keys[i] : keys[i];
+			idx[i] = i;
+		}
+		argsort(k, idx);
+		return idx;
+	}
+
+	private static void argsort(double[] k, int[] idx) {
+		int n = k.length;
+		ArgSortTask task = new ArgSortTask(k, idx, new double[n], new int[n], 0, n);
+		if (n < PARALLEL_THRESHOLD) {
+			task.sort(0, n);
+		} else {
+			MatrixMultiplier.getPool().invoke(task);
+		}
+	}
+
+	/** indexes of the count smallest (or largest) of keys[0..n).
+	 *
+	 * @param keys not modified
+	 * @param n
+	 * @param count truncated to n
+	 * @param largest
+	 * @return indexes, best first; equal keys are in index order
+	 */
+	static int[] select(double[] keys, int n, int count, boolean largest) {
+		count = Math.min(count, n);
+		if (count <= 0) {
+			return new int[0];
+		}
+		double[] k = keys;
+		if (largest) {
+			k = new double[n];
+			for (int i = 0; i < n; i++) {
+				k[i] = -keys[i];
+			}
+		}
+		// root of heap is the worst of the current best count
+		int[] heap = new int[count];
+		for (int i = 0; i < count; i++) {
+			heap[i] = i;
+		}
+		for (int i = count / 2 - 1; i >= 0; i--) {
+			siftDown(k, heap, i, count);
+		}
+		for (int i = count; i < n; i++) {
+			if (better(k, i, heap[0])) {
+				heap[0] = i;
+				siftDown(k, heap, 0, count);
+			}
+		}
+		for (int size = count - 1; size > 0; size--) {
+			int t = heap[0];
+			heap[0] = heap[size];
+			heap[size] = t;
+			siftDown(k, heap, 0, size);
+		}
+		return heap;
+	}
+
+	static int[] select(int[] keys, int n, int count, boolean largest) {
+		double[] k = new double[n];
+		for (int i = 0; i < n; i++) {
+			k[i] = keys[i];
+		}
+		return select(k, n, count, largest);
+	}
+
+	/** sort key[lo..hi] (inclusive) ascending, permuting other in step.
+	 *
+	 * in-place quicksort, recursing on the smaller half; not stable
+	 */
+	static void sortPairs(double[] key, double[] other, int lo, int hi) {
+		while (hi - lo > 16) {
+			int mid = (lo + hi) >>> 1;
+			if (key[mid] < key[lo]) {
+				swap(key, other, lo, mid);
+			}
+			if (key[hi] < key[lo]) {
+				swap(key, other, lo, hi);
+			}
+			if (key[hi] < key[mid]) {
+				swap(key, other, mid, hi);
+			}
+			double pivot = key[mid];
+			int i = lo;
+			int j = hi;
+			while (i <= j) {
+				while (key[i] < pivot) {
+					i++;
+				}
+				while (key[j] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					swap(key, other, i, j);
+					i++;
+					j--;
+				}
+			}
+			if (j - lo < hi - i) {
+				sortPairs(key, other, lo, j);
+				lo = i;
+			} else {
+				sortPairs(key, other, i, hi);
+				hi = j;
+			}
+		}
+		for (int i = lo + 1; i <= hi; i++) {
+			double k = key[i];
+			double o = other[i];
+			int j = i - 1;
+			while (j >= lo && key[j] > k) {
+				key[j + 1] = key[j];
+				other[j + 1] = other[j];
+				j--;
+			}
+			key[j + 1] = k;
+			other[j + 1] = o;
+		}
+	}
+
+	static void swap(double[] key, double[] other, int i, int j) {
+		double t = key[i];
+		key[i] = key[j];
+		key[j] = t;
+		t = other[i];
+		other[i] = other[j];
+		other[j] = t;
+	}
+
+	private static boolean better(double[] k, int i, int j) {
+		if (k[i] < k[j]) {
+			return true;
+		}
+		if (k[i] > k[j]) {
+			return false;
+		}
+		// equal or unordered; NaN is worse than any number
+		boolean nanI = Double.isNaN(k[i]);
+		boolean nanJ = Double.isNaN(k[j]);
+		return (nanI == nanJ) ? i < j : nanJ;
+	}
+
+	private static void siftDown(double[] k, int[] heap, int i, int size) {
+		int node = heap[i];
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && better(k, heap[child], heap[child + 1])) {
+				child++;
+			}
+			if (!better(k, node, heap[child])) {
+				break;
+			}
+			heap[i] = heap[child];
+			i = child;
+		}
+		heap[i] = node;
+	}
+
+	private static class DoubleSortTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private double[] a;
+		private double[] buffer;
+		private int from;
+		private int to;
+
+		DoubleSortTask(double[] a, double[] buffer, int from, int to) {
+			this.a = a;
+			this.buffer = buffer;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= LEAF) {
+				Arrays.sort(a, from, to);
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new DoubleSortTask(a, buffer, from, mid), new DoubleSortTask(a, buffer, mid, to));
+			// same total order as Arrays.sort (-0.0 before 0.0, NaN last)
+			if (Double.compare(a[mid - 1], a[mid]) <= 0) {
+				return;
+			}
+			System.arraycopy(a, from, buffer, from, mid - from);
+			int i = from;
+			int j = mid;
+			int out = from;
+			while (i < mid && j < to) {
+				a[out++] = (Double.compare(a[j], buffer[i]) < 0) ? a[j++] : buffer[i++];
+			}
+			System.arraycopy(buffer, i, a, out, mid - i);
+		}
+	}
+
+	private static class IntSortTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private int[] a;
+		private int[] buffer;
+		private int from;
+		private int to;
+
+		IntSortTask(int[] a, int[] buffer, int from, int to) {
+			this.a = a;
+			this.buffer = buffer;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= LEAF) {
+				Arrays.sort(a, from, to);
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new IntSortTask(a, buffer, from, mid), new IntSortTask(a, buffer, mid, to));
+			if (a[mid - 1] <= a[mid]) {
+				return;
+			}
+			System.arraycopy(a, from, buffer, from, mid - from);
+			int i = from;
+			int j = mid;
+			int out = from;
+			while (i < mid && j < to) {
+				a[out++] = (a[j] < buffer[i]) ? a[j++] : buffer[i++];
+			}
+			System.arraycopy(buffer, i, a, out, mid - i);
+		}
+	}
+
+	// stable merge sort of (k, idx) pairs; kb and ib are scratch of the same length
+	private static class ArgSortTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private double[] k;
+		private int[] idx;
+		private double[] kb;
+		private int[] ib;
+		private int from;
+		private int to;
+
+		ArgSortTask(double[] k, int[] idx, double[] kb, int[] ib, int from, int to) {
+			this.k = k;
+			this.idx = idx;
+			this.kb = kb;
+			this.ib = ib;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= LEAF) {
+				sort(from, to);
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new ArgSortTask(k, idx, kb, ib, from, mid), new ArgSortTask(k, idx, kb, ib, mid, to));
+			merge(from, mid, to);
+		}
+
+		void sort(int lo, int hi) {
+			if (hi - lo <= INSERTION) {
+				for (int i = lo + 1; i < hi; i++) {
+					double kk = k[i];
+					int ii = idx[i];
+					int j = i - 1;
+					while (j >= lo && k[j] > kk) {
+						k[j + 1] = k[j];
+						idx[j + 1] = idx[j];
+						j--;
+					}
+					k[j + 1] = kk;
+					idx[j + 1] = ii;
+				}
+				return;
+			}
+			int mid = (lo + hi) >>> 1;
+			sort(lo, mid);
+			sort(mid, hi);
+			merge(lo, mid, hi);
+		}
+
+		// left run wins ties, which keeps the sort stable
+		private void merge(int lo, int mid, int hi) {
+			if (!(k[mid - 1] > k[mid])) {
+				return;
+			}
+			System.arraycopy(k, lo, kb, lo, mid - lo);
+			System.arraycopy(idx, lo, ib, lo, mid - lo);
+			int i = lo;
+			int j = mid;
+			int out = lo;
+			while (i < mid && j < hi) {
+				if (k[j] < kb[i]) {
+					k[out] = k[j];
+					idx[out++] = idx[j++];
+				} else {
+					k[out] = kb[i];
+					idx[out++] = ib[i++];
+				}
+			}
+			System.arraycopy(kb, i, k, out, mid - i);
+			System.arraycopy(ib, i, idx, out, mid - i);
+		}
+	}
+}
@@ -0,0 +1,586 @@
+package org.xmlcml.euclid;
+
+import org.xmlcml.euclid.Axis.Axis3;
+
+/** packed (structure-of-arrays) set of 3D points.
+ *
+ * Analogue of Point3Vector for large coordinate sets: x, y and z are held in
+ * three contiguous double[] buffers rather than one Point3 (and double[3]) per
+ * point. Point3 objects are only created on demand by get(i), and bulk
+ * operations (centroid, transforms, distances, fitting) run directly over the
+ * buffers.
+ *
+ * Point3Array is to Point3Vector what Real2Array is to Real2Vector.
+ *
+ */
+public class Point3Array implements EuclidConstants {
+
+	private final static int DEFAULT_CAPACITY = 16;
+
+	private double[] x;
+	private double[] y;
+	private double[] z;
+	private int nelem;
+
+	/** empty array.
+	 */
+	public Point3Array() {
+		this(0);
+	}
+
+	/** array of n points all at origin.
+	 *
+	 * @param n
+	 */
+	public Point3Array(int n) {
+		n = Math.max(n, 0);
+		int cap = Math.max(n, DEFAULT_CAPACITY);
+		x = new double[cap];
+		y = new double[cap];
+		z = new double[cap];
+		nelem = n;
+	}
+
+	/** from three parallel arrays. COPIES
+	 *
+	 * @param x
+	 * @param y
+	 * @param z
+	 * @throws EuclidRuntimeException arrays of different lengths
+	 */
+	public Point3Array(double[] x, double[] y, double[] z) throws EuclidRuntimeException {
+		this(x.length);
+		if (y.length != nelem || z.length != nelem) {
+			throw new EuclidRuntimeException("incompatible array sizes "+x.length+"/"+y.length+"/"+z.length);
+		}
+		System.arraycopy(x, 0, this.x, 0, nelem);
+		System.arraycopy(y, 0, this.y, 0, nelem);
+		System.arraycopy(z, 0, this.z, 0, nelem);
+	}
+
+	/** from interleaved coordinates (x, y, z, x, y, z ...). COPIES
+	 *
+	 * @param xyz
+	 * @throws EuclidRuntimeException length not multiple of 3
+	 */
+	public Point3Array(double[] xyz) throws EuclidRuntimeException {
+		this(checkXYZ(xyz) / 3);
+		for (int i = 0, j = 0; i < nelem; i++) {
+			x[i] = xyz[j++];
+			y[i] = xyz[j++];
+			z[i] = xyz[j++];
+		}
+	}
+
+	private static int checkXYZ(double[] xyz) {
+		if (xyz == null) {
+			throw new EuclidRuntimeException("null array");
+		}
+		if (xyz.length % 3 != 0) {
+			throw new EuclidRuntimeException("array length must be multiple of 3");
+		}
+		return xyz.length;
+	}
+
+	/** from Point3Vector. COPIES
+	 *
+	 * @param pv (must not contain null points)
+	 */
+	public Point3Array(Point3Vector pv) {
+		this(pv.size());
+		for (int i = 0; i < nelem; i++) {
+			double[] p = pv.getPoint3(i).flarray;
+			x[i] = p[0];
+			y[i] = p[1];
+			z[i] = p[2];
+		}
+	}
+
+	/** copy constructor.
+	 *
+	 * @param pa
+	 */
+	public Point3Array(Point3Array pa) {
+		this(pa.nelem);
+		System.arraycopy(pa.x, 0, x, 0, nelem);
+		System.arraycopy(pa.y, 0, y, 0, nelem);
+		System.arraycopy(pa.z, 0, z, 0, nelem);
+	}
+
+	/** convert to Point3Vector (creates one Point3 per point).
+	 *
+	 * @return new vector
+	 */
+	public Point3Vector getPoint3Vector() {
+		Point3Vector pv = new Point3Vector();
+		for (int i = 0; i < nelem; i++) {
+			pv.add(new Point3(x[i], y[i], z[i]));
+		}
+		return pv;
+	}
+
+	/**
+	 * @return number of points
+	 */
+	public int size() {
+		return nelem;
+	}
+
+	private void ensureCapacity(int n) {
+		if (n > x.length) {
+			int cap = Math.max(n, x.length * 2);
+			x = grow(x, cap);
+			y = grow(y, cap);
+			z = grow(z, cap);
+		}
+	}
+
+	private double[] grow(double[] a, int cap) {
+		double[] b = new double[cap];
+		System.arraycopy(a, 0, b, 0, nelem);
+		return b;
+	}
+
+	/** append point.
+	 *
+	 * @param xx
+	 * @param yy
+	 * @param zz
+	 */
+	public void add(double xx, double yy, double zz) {
+		ensureCapacity(nelem + 1);
+		x[nelem] = xx;
+		y[nelem] = yy;
+		z[nelem] = zz;
+		nelem++;
+	}
+
+	/** append point (coordinates are copied).
+	 *
+	 * @param p
+	 */
+	public void add(Point3 p) {
+		add(p.flarray[0], p.flarray[1], p.flarray[2]);
+	}
+
+	private void checkIndex(int i) {
+		if (i < 0 || i >= nelem) {
+			throw new EuclidRuntimeException("index out of range: " + i + S_SLASH + nelem);
+		}
+	}
+
+	/** set coordinates of point i.
+	 *
+	 * @param i
+	 * @param xx
+	 * @param yy
+	 * @param zz
+	 */
+	public void setElementAt(int i, double xx, double yy, double zz) {
+		checkIndex(i);
+		x[i] = xx;
+		y[i] = yy;
+		z[i] = zz;
+	}
+
+	/** set coordinates of point i.
+	 *
+	 * @param i
+	 * @param p
+	 */
+	public void setElementAt(int i, Point3 p) {
+		setElementAt(i, p.flarray[0], p.flarray[1], p.flarray[2]);
+	}
+
+	/** point i as NEW Point3.
+	 *
+	 * altering the Point3 does not alter this
+	 * @param i
+	 * @return point
+	 */
+	public Point3 get(int i) {
+		checkIndex(i);
+		return new Point3(x[i], y[i], z[i]);
+	}
+
+	/**
+	 * @param i
+	 * @return x coordinate of point i
+	 */
+	public double getX(int i) {
+		checkIndex(i);
+		return x[i];
+	}
+
+	/**
+	 * @param i
+	 * @return y coordinate of point i
+	 */
+	public double getY(int i) {
+		checkIndex(i);
+		return y[i];
+	}
+
+	/**
+	 * @param i
+	 * @return z coordinate of point i
+	 */
+	public double getZ(int i) {
+		checkIndex(i);
+		return z[i];
+	}
+
+	/** single coordinate.
+	 *
+	 * @param i
+	 * @param axis
+	 * @return coordinate
+	 */
+	public double getCoordinate(int i, Axis3 axis) {
+		return getCoordinate(i, axis.value);
+	}
+
+	double getCoordinate(int i, int axis) {
+		checkIndex(i);
+		return (axis == 0) ? x[i] : ((axis == 1) ? y[i] : z[i]);
+	}
+
+	/** x-buffer by REFERENCE.
+	 *
+	 * only the first size() elements are meaningful; the buffer may be
+	 * replaced when points are added
+	 *
+	 * @return buffer
+	 */
+	public double[] getXBuffer() {
+		return x;
+	}
+
+	/** y-buffer by REFERENCE; see getXBuffer().
+	 *
+	 * @return buffer
+	 */
+	public double[] getYBuffer() {
+		return y;
+	}
+
+	/** z-buffer by REFERENCE; see getXBuffer().
+	 *
+	 * @return buffer
+	 */
+	public double[] getZBuffer() {
+		return z;
+	}
+
+	/** all coordinates for one axis. COPY
+	 *
+	 * @param axis
+	 * @return array of length size()
+	 */
+	public RealArray getXYZ(Axis3 axis) {
+		double[] a = (axis.value == 0) ? x : ((axis.value == 1) ? y : z);
+		return new RealArray(nelem, a);
+	}
+
+	/** interleaved coordinates x,y,z,x,y,z ...
+	 *
+	 * @return new array of length 3*size()
+	 */
+	public double[] getArray() {
+		double[] f = new double[3 * nelem];
+		for (int i = 0, j = 0; i < nelem; i++) {
+			f[j++] = x[i];
+			f[j++] = y[i];
+			f[j++] = z[i];
+		}
+		return f;
+	}
+
+	/** interleaved coordinates x,y,z,x,y,z ...
+	 *
+	 * @return new array of length 3*size()
+	 */
+	public RealArray getXYZ() {
+		return new RealArray(getArray());
+	}
+
+	/** range of coordinates.
+	 *
+	 * @return range (empty if no points)
+	 */
+	public Real3Range getRange3() {
+		Real3Range range = new Real3Range();
+		if (nelem > 0) {
+			range.add(Axis3.X, rangeOf(x));
+			range.add(Axis3.Y, rangeOf(y));
+			range.add(Axis3.Z, rangeOf(z));
+		}
+		return range;
+	}
+
+	private RealRange rangeOf(double[] a) {
+		double min = a[0];
+		double max = a[0];
+		for (int i = 1; i < nelem; i++) {
+			double d = a[i];
+			if (d < min) {
+				min = d;
+			} else if (d > max) {
+				max = d;
+			}
+		}
+		return new RealRange(min, max);
+	}
+
+	/** centroid.
+	 *
+	 * @return centroid or null if no points
+	 */
+	public Point3 getCentroid() {
+		if (nelem < 1) {
+			return null;
+		}
+		double sx = 0.0;
+		double sy = 0.0;
+		double sz = 0.0;
+		for (int i = 0; i < nelem; i++) {
+			sx += x[i];
+			sy += y[i];
+			sz += z[i];
+		}
+		double scale = 1.0 / nelem;
+		return new Point3(sx * scale, sy * scale, sz * scale);
+	}
+
+	/** translate all points. MODIFIES this
+	 *
+	 * @param dx
+	 * @param dy
+	 * @param dz
+	 */
+	public void plusEquals(double dx, double dy, double dz) {
+		for (int i = 0; i < nelem; i++) {
+			x[i] += dx;
+			y[i] += dy;
+			z[i] += dz;
+		}
+	}
+
+	/** translate all points. MODIFIES this
+	 *
+	 * @param v
+	 */
+	public void plusEquals(Vector3 v) {
+		plusEquals(v.flarray[0], v.flarray[1], v.flarray[2]);
+	}
+
+	/** scale all coordinates. MODIFIES this
+	 *
+	 * @param scale
+	 */
+	public void multiplyByEquals(double scale) {
+		for (int i = 0; i < nelem; i++) {
+			x[i] *= scale;
+			y[i] *= scale;
+			z[i] *= scale;
+		}
+	}
+
+	/** translate centroid to origin. MODIFIES this
+	 */
+	public void moveToCentroid() {
+		Point3 c = getCentroid();
+		if (c != null) {
+			plusEquals(-c.flarray[0], -c.flarray[1], -c.flarray[2]);
+		}
+	}
+
+	/** transform all coordinates. MODIFIES this
+	 *
+	 * the 3x4 coefficients are extracted once and applied over the buffers
+	 *
+	 * @param t
+	 */
+	public void transform(Transform3 t) {
+		BulkTransform.apply(t.getAffineCoefficients(), x, y, z, 0, 0, 0, 1, nelem, null);
+	}
+
+	/** transform subset of coordinates. MODIFIES this
+	 *
+	 * indexes outside range are ignored (as Point3Vector)
+	 *
+	 * @param t
+	 * @param is
+	 */
+	public void transform(Transform3 t, IntSet is) {
+		BulkTransform.apply(t.getAffineCoefficients(), x, y, z, 0, 0, 0, 1, nelem, is.getElements());
+	}
+
+	/** distance between two points.
+	 *
+	 * @param i1
+	 * @param i2
+	 * @return distance
+	 */
+	public double distance(int i1, int i2) {
+		checkIndex(i1);
+		checkIndex(i2);
+		double dx = x[i1] - x[i2];
+		double dy = y[i1] - y[i2];
+		double dz = z[i1] - z[i2];
+		return Math.sqrt(dx * dx + dy * dy + dz * dz);
+	}
+
+	/** distance matrix.
+	 *
+	 * @return matrix
+	 */
+	public RealSquareMatrix getDistanceMatrix() {
+		RealSquareMatrix distances = new RealSquareMatrix(nelem);
+		double[][] d = distances.getMatrix();
+		for (int i = 0; i < nelem; i++) {
+			double xi = x[i];
+			double yi = y[i];
+			double zi = z[i];
+			double[] di = d[i];
+			for (int j = i + 1; j < nelem; j++) {
+				double dx = xi - x[j];
+				double dy = yi - y[j];
+				double dz = zi - z[j];
+				double dist = Math.sqrt(dx * dx + dy * dy + dz * dz);
+				di[j] = dist;
+				d[j][i] = dist;
+			}
+		}
+		return distances;
+	}
+
+	/** sparse distance matrix of pairs within a cutoff.
+	 *
+	 * @param cutoff maximum distance stored (Double.POSITIVE_INFINITY for all)
+	 * @return symmetric sparse distance matrix
+	 */
+	public SparseDistanceMatrix getDistanceMatrix(double cutoff) {
+		return new SparseDistanceMatrix(3, getArray(), cutoff);
+	}
+
+	/** sum of squared distances between corresponding points.
+	 *
+	 * @param pa
+	 * @return sum
+	 * @throws EuclidRuntimeException different sizes
+	 */
+	public double getSigmaDeltaSquared(Point3Array pa) throws EuclidRuntimeException {
+		if (pa.nelem != nelem) {
+			throw new EuclidRuntimeException("Vectors of different lengths");
+		}
+		double d = 0.0;
+		for (int i = 0; i < nelem; i++) {
+			double dx = x[i] - pa.x[i];
+			double dy = y[i] - pa.y[i];
+			double dz = z[i] - pa.z[i];
+			d += dx * dx + dy * dy + dz * dz;
+		}
+		return d;
+	}
+
+	/** rms between two point sets; same definition as Point3Vector.rms().
+	 *
+	 * @param pa
+	 * @return rms
+	 */
+	public double rms(Point3Array pa) {
+		return Math.sqrt(getSigmaDeltaSquared(pa)) / nelem;
+	}
+
+	/** point furthest from p.
+	 *
+	 * @param p
+	 * @return serial or -1 if empty
+	 */
+	public int getFurthestPointFrom(Point3 p) {
+		double px = p.flarray[0];
+		double py = p.flarray[1];
+		double pz = p.flarray[2];
+		double d2 = -0.1;
+		int serial = -1;
+		for (int i = 0; i < nelem; i++) {
+			double dx = x[i] - px;
+			double dy = y[i] - py;
+			double dz = z[i] - pz;
+			double dd = dx * dx + dy * dy + dz * dz;
+			if (dd > d2) {
+				d2 = dd;
+				serial = i;
+			}
+		}
+		return serial;
+	}
+
+	/** spatial index over the current points.
+	 *
+	 * indexes in the tree are the serials of this; the tree is a snapshot
+	 * and is not updated if this is altered.
+	 *
+	 * @return tree of dimension 3
+	 */
+	public KdTree createKdTree() {
+		return new KdTree(3, getArray());
+	}
+
+	/** inertial tensor about origin; same as Point3Vector.calculateNonMassWeightedInertialTensor().
+	 *
+	 * @return tensor
+	 */
+	public RealSquareMatrix calculateNonMassWeightedInertialTensor() {
+		double xx = 0.0, yy = 0.0, zz = 0.0, xy = 0.0, xz = 0.0, yz = 0.0;
+		for (int i = 0; i < nelem; i++) {
+			double xi = x[i];
+			double yi = y[i];
+			double zi = z[i];
+			xx += xi * xi;
+			yy += yi * yi;
+			zz += zi * zi;
+			xy += xi * yi;
+			xz += xi * zi;
+			yz += yi * zi;
+		}
+		return new RealSquareMatrix(new double[][] {
+				new double[] {yy + zz, -xy, -xz},
+				new double[] {-xy, xx + zz, -yz},
+				new double[] {-xz, -yz, xx + yy},
+		});
+	}
+
+	/** fit this onto a reference of the same size.
+	 *
+	 * least-squares superposition; same result as Point3Vector.fitTo().
+	 *
+	 * @param ref
+	 * @return transformation taking this onto ref
+	 * @throws EuclidRuntimeException different sizes or no points
+	 */
+	public Transform3 fitTo(Point3Array ref) throws EuclidRuntimeException {
+		if (ref.nelem != nelem) {
+			throw new EuclidRuntimeException("arrays of different lengths: "+nelem+"/"+ref.nelem);
+		}
+		Superposition superposition = new Superposition();
+		superposition.fit(getArray(), 0, ref.getArray(), 0, nelem);
+		return superposition.getTransform3();
+	}
+
+	/** to string.
+	 *
+	 * @return string
+	 */
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(S_LBRAK);
+		for (int i = 0; i < nelem; i++) {
+			sb.append(S_LBRAK).append(x[i]).append(S_COMMA).append(y[i]).append(S_COMMA)
+				.append(z[i]).append(S_RBRAK).append(S_NEWLINE);
+		}
+		sb.append(S_RBRAK);
+		return sb.toString();
+	}
+}
@@ -537,9 +537,9 @@ public class Point3Vector implements EuclidConstants {
      * @param t
      */
     public void transform(Transform3 t) {
+        double[] c = t.getAffineCoefficients();
         for (int i = 0; i < size(); i++) {
-            Point3 p = new Point3(getPoint3(i));
-            vector.set(i, p.transform(t));
+            vector.set(i, transform(c, getPoint3(i)));
         }
     }
     /**
@@ -549,15 +549,24 @@ public class Point3Vector implements EuclidConstants {
      * @param is
      */
     public void transform(Transform3 t, IntSet is) {
+        double[] c = t.getAffineCoefficients();
         int nis = is.size();
         for (int j = 0; j < nis; j++) {
             int i = is.elementAt(j);
             if (i >= 0 && i < size()) {
-                Point3 p = new Point3(getPoint3(i));
-                vector.set(i, p.transform(t));
+                vector.set(i, transform(c, getPoint3(i)));
             }
         }
     }
+    
+    // new point from 3x4 coefficients; the original is not modified as it may be shared
+    private static Point3 transform(double[] c, Point3 p) {
+        double[] f = p.flarray;
+        return new Point3(
+            c[0] * f[0] + c[1] * f[1] + c[2] * f[2] + c[3],
+            c[4] * f[0] + c[5] * f[1] + c[6] * f[2] + c[7],
+            c[8] * f[0] + c[9] * f[1] + c[10] * f[2] + c[11]);
+    }
 
     /**
      * get distance between 2 points.
@@ -683,6 +692,18 @@ public class Point3Vector implements EuclidConstants {
         return distances;
     }
     
+    /**
+     * sparse distance matrix of pairs within a cutoff.
+     * 
+     * uses cell lists so cost is O(n + number of pairs) rather than O(n^2)
+     * 
+     * @param cutoff maximum distance stored (Double.POSITIVE_INFINITY for all)
+     * @return symmetric sparse distance matrix
+     */
+    public SparseDistanceMatrix getDistanceMatrix(double cutoff) {
+        return new SparseDistanceMatrix(3, getArray(), cutoff);
+    }
+    
     public RealSquareMatrix calculateNonMassWeightedInertialTensor() {
     	RealSquareMatrix rsm = new RealSquareMatrix(3);
     	for (int i = 0; i < this.size(); i++) {
@@ -704,41 +725,49 @@ public class Point3Vector implements EuclidConstants {
     }
     
     /**
-     * get Inertial axes; do not throw exception for pathological cases, but
-     * return it. Axes (lengths and unit vectors) are returned through the
-     * arguments eigval and eigvect. OBSOLETE
-     * NYI
+     * get Inertial axes. Axes (lengths and unit vectors) are returned through the
+     * arguments eigval and eigvect.
+     * 
+     * eigenvalues of calculateNonMassWeightedInertialTensor() about the centroid,
+     * in decreasing order; eigenvectors are the rows of eigvect
+     * 
      * @param eigval
      * @param eigvect
-     * @param illCond
+     * @param illCond not used
      * @exception EuclidRuntimeException
      *                must have at least 3 points
-     *                @deprecated (doesn't work)
      */
     public void inertialAxes(RealArray eigval, RealSquareMatrix eigvect,
     		EuclidRuntimeException illCond) throws EuclidRuntimeException {
-        RealArray val = new RealArray(3);
-        RealSquareMatrix vect = new RealSquareMatrix(3);
-        illCond = null;
-        eigval.shallowCopy(val);
+        if (size() < 3) {
+            throw new EuclidRuntimeException("must have at least 3 points");
+        }
+        Point3Vector centred = new Point3Vector(this);
+        centred.moveToCentroid();
+        double[] tensor = centred.calculateNonMassWeightedInertialTensor().getMatrixAsArray();
+        double[] values = new double[3];
+        SymmetricEigenDecomposition.decompose3x3(tensor, 1, values, tensor);
+        RealSquareMatrix vect = new RealSquareMatrix(3, tensor);
+        vect.transpose();
+        eigval.shallowCopy(new RealArray(values));
         eigvect.shallowCopy(vect);
     }
     /**
      * get best plane
      * 
+     * least-squares plane through the centroid; its normal is the axis of
+     * largest inertia
+     * 
      * @return plane
      * 
      * @exception EuclidRuntimeException
      *                must have at least 3 points
-     *                @deprecated doesn't work
      */
     public Plane3 bestPlane() throws EuclidRuntimeException {
         RealSquareMatrix eigvect = new RealSquareMatrix(3);
         RealArray eigval = new RealArray(3);
-        EuclidRuntimeException illCond = null;
-        inertialAxes(eigval, eigvect, illCond);
-        // smallest eigenvalue
-        RealArray temp = eigvect.extractRowData(2);
+        inertialAxes(eigval, eigvect, null);
+        RealArray temp = eigvect.extractRowData(0);
         Vector3 v = new Vector3(temp);
         // construct plane
         double dist = v.dot(getCentroid().getArray());
@@ -918,6 +947,19 @@ public class Point3Vector implements EuclidConstants {
         }
         return serial;
     }
+    /**
+     * create spatial index over the current points.
+     * 
+     * indexes in the tree are the serials of this, so the tree's
+     * getFurthestPoint() and getNearestPoint() are equivalent to
+     * getFurthestPointFrom() etc. without a linear scan. The tree is a
+     * snapshot and is not updated if this is altered.
+     * 
+     * @return tree of dimension 3
+     */
+    public KdTree createKdTree() {
+        return new KdTree(3, getArray());
+    }
     /**
      * get point making smallest angle with two others. useful for alignments
      * 
@@ -1202,90 +1244,20 @@ public class Point3Vector implements EuclidConstants {
     /**
      * fit two coordinates of same length and alignment
      * 
-     * CURRENTLY NOT VALIDATED
+     * least-squares superposition (see Superposition)
      * 
      * @param ref
      * @return transformation
      * @exception EuclidRuntimeException
-     *                some unusual geometry (for example one coordinate set is
-     *                linear, has coincident points, etc.)
+     *                different lengths or no points
      */
     public Transform3 fitTo(Point3Vector ref) throws EuclidRuntimeException {
-        // these should be set as parameters?
-        double damp = 1.0;
-        double converge = 0.0002;
-        Point3 thisCent = this.getCentroid();
-        Point3 refCent = ref.getCentroid();
-        /**
-         * make copies of each molecule and translate to centroid
-         */
-        Point3Vector thistmp = new Point3Vector(this);
-        Point3Vector reftmp = new Point3Vector(ref);
-        thistmp.moveToCentroid();
-        reftmp.moveToCentroid();
-        /**
-         * roughly rotate moving molecule onto reference one
-         */
-        Transform3 t = thistmp.roughAlign(reftmp);
-        thistmp.transform(t);
-        
-        RealArray shift = new RealArray(3);
-        int NCYC = 20;
-        for (int icyc = 0; icyc < NCYC; icyc++) {
-            double maxshift = 0.0;
-            /**
-             * loop through x,y,z
-             */
-            for (int jax0 = 0; jax0 < 3; jax0++) {
-                int jax1 = (jax0 + 1) % 3;
-                int jax2 = (jax1 + 1) % 3;
-                double rh = 0.0;
-                double lh = 0.0;
-                for (int ipt = 0; ipt < size(); ipt++) {
-                    double refj1 = reftmp.getCoordinate(ipt, jax1);
-                    double refj2 = reftmp.getCoordinate(ipt, jax2);
-                    double movj1 = thistmp.getCoordinate(ipt, jax1);
-                    double movj2 = thistmp.getCoordinate(ipt, jax2);
-                    lh += refj1 * refj1 + refj2 * refj2;
-                    rh += refj1 * (refj2 - movj2) - refj2 * (refj1 - movj1);
-                }
-                /**
-                 * get shifts
-                 */
-                double sft = -(damp * (rh / lh));
-                maxshift = Math.max(maxshift, Math.abs(sft));
-                shift.setElementAt(jax0, sft);
-            }
-            /**
-             * break out if converged
-             */
-            if (maxshift < converge) {
-//            	LOG.debug("CONVERGED");
-                break;
-            } else if (maxshift < 0.1) {
-                // not yet used
-                damp = 1.0;
-            } else if (maxshift > 0.1) {
-                // not yet used
-                damp = 1.0;
-            }
-//        	LOG.debug("CYCLE");
-            /**
-             * make transformation matrix by rotations about 3 axes
-             */
-            Transform3 t1 = new Transform3(
-        		new Angle(shift.elementAt(0)),
-                new Angle(shift.elementAt(1)),
-                new Angle(shift.elementAt(2)));
-            thistmp.transform(t1);
-            /**
-             * concatenate transformations
-             */
-            t = new Transform3(t1.concatenate(t));
+        if (ref.size() != size()) {
+            throw new EuclidRuntimeException("arrays of different lengths: "+this.size()+"/"+ref.size());
         }
-        Transform3 tt = translateRotateRetranslate(thisCent,
-				refCent, t);
-        return tt;
+        Superposition superposition = new Superposition();
+        superposition.fit(this.getArray(), 0, ref.getArray(), 0, size());
+        return superposition.getTransform3();
     }
     /**
      * to string.
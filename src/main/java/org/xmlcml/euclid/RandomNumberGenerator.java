@@ -42,6 +42,10 @@ import java.io.ObjectOutputStream;
  * Vol. 8, No. 1, January 1998, pp 3--30.
  */
 
+/*
+ * all methods are synchronized on one generator; for parallel work give
+ * each thread its own unsynchronised RandomStream (see RandomStream.split()).
+ */
 public class RandomNumberGenerator implements java.io.Serializable {
   static final long serialVersionUID = 3905348978240129619L;
 
@@ -0,0 +1,502 @@
+package org.xmlcml.euclid;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** unsynchronised random number generator with splittable streams.
+ *
+ * has the distributions of RandomNumberGenerator (same algorithms) but
+ * no locks, so each thread should have its own stream. The generator is
+ * xoshiro256** (Blackman and Vigna), period 2^256 - 1; the seed is expanded
+ * with SplitMix64.
+ *
+ * jump() advances a stream by 2^128 values, so split() (which returns a copy
+ * and then jumps this stream) gives non-overlapping streams. createStreams()
+ * makes n reproducible streams from one master seed, e.g. one per ForkJoin
+ * task; current() is a convenience stream per thread (not reproducible).
+ *
+ * <pre>
+ * RandomStream[] streams = RandomStream.createStreams(1234L, ntasks);
+ * // task i
+ * streams[i].fillGaussian(block);
+ * </pre>
+ *
+ * the fill methods generate whole arrays of variates.
+ *
+ */
+public class RandomStream {
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	private static final long[] JUMP = {
+		0x180ec6d33cfd0abaL, 0xd5a61266f0c9392cL, 0xa9582618e03fc9aaL, 0x39abdc4529b1661cL};
+	private static final double DOUBLE_UNIT = 1.0 / (1L << 53);
+
+	private static final AtomicLong SEEDER = new AtomicLong(mix(System.nanoTime()) ^ System.currentTimeMillis());
+	private static final ThreadLocal<RandomStream> CURRENT = new ThreadLocal<RandomStream>() {
+		@Override
+		protected RandomStream initialValue() {
+			return new RandomStream(SEEDER.getAndAdd(GOLDEN_GAMMA));
+		}
+	};
+
+	private long s0;
+	private long s1;
+	private long s2;
+	private long s3;
+	private double nextGaussian;
+	private boolean haveNextGaussian = false;
+
+	/** stream with a seed from the clock and a global sequence. */
+	public RandomStream() {
+		this(SEEDER.getAndAdd(GOLDEN_GAMMA));
+	}
+
+	/** reproducible stream.
+	 *
+	 * @param seed
+	 */
+	public RandomStream(long seed) {
+		long x = seed;
+		s0 = mix(x += GOLDEN_GAMMA);
+		s1 = mix(x += GOLDEN_GAMMA);
+		s2 = mix(x += GOLDEN_GAMMA);
+		s3 = mix(x += GOLDEN_GAMMA);
+	}
+
+	/** copy with the same state (gives the same values as stream).
+	 *
+	 * @param stream
+	 */
+	public RandomStream(RandomStream stream) {
+		s0 = stream.s0;
+		s1 = stream.s1;
+		s2 = stream.s2;
+		s3 = stream.s3;
+		nextGaussian = stream.nextGaussian;
+		haveNextGaussian = stream.haveNextGaussian;
+	}
+
+	/** n non-overlapping streams from one seed.
+	 *
+	 * stream i starts i * 2^128 values after new RandomStream(seed), so results
+	 * depend only on seed and i, not on thread scheduling.
+	 *
+	 * @param seed
+	 * @param n
+	 * @return streams
+	 */
+	public static RandomStream[] createStreams(long seed, int n) {
+		RandomStream stream = new RandomStream(seed);
+		RandomStream[] streams = new RandomStream[n];
+		for (int i = 0; i < n; i++) {
+			streams[i] = stream.split();
+		}
+		return streams;
+	}
+
+	/** stream for the current thread.
+	 *
+	 * created on first use with a different seed for each thread.
+	 *
+	 * @return stream (not to be shared with other threads)
+	 */
+	public static RandomStream current() {
+		return CURRENT.get();
+	}
+
+	// SplitMix64 finaliser
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/** @return next 64 random bits */
+	public long nextLong() {
+		long result = Long.rotateLeft(s1 * 5, 7) * 9;
+		long t = s1 << 17;
+		s2 ^= s0;
+		s3 ^= s1;
+		s1 ^= s2;
+		s0 ^= s3;
+		s2 ^= t;
+		s3 = Long.rotateLeft(s3, 45);
+		return result;
+	}
+
+	/** advance by 2^128 values.
+	 *
+	 * the cached Gaussian is discarded.
+	 */
+	public void jump() {
+		long t0 = 0;
+		long t1 = 0;
+		long t2 = 0;
+		long t3 = 0;
+		for (long jump : JUMP) {
+			for (int b = 0; b < 64; b++) {
+				if ((jump & (1L << b)) != 0) {
+					t0 ^= s0;
+					t1 ^= s1;
+					t2 ^= s2;
+					t3 ^= s3;
+				}
+				nextLong();
+			}
+		}
+		s0 = t0;
+		s1 = t1;
+		s2 = t2;
+		s3 = t3;
+		haveNextGaussian = false;
+	}
+
+	/** new stream starting here; this stream then jumps past it.
+	 *
+	 * the new stream can use 2^128 values before it would reach this one.
+	 *
+	 * @return new stream
+	 */
+	public RandomStream split() {
+		RandomStream stream = new RandomStream(this);
+		stream.haveNextGaussian = false;
+		jump();
+		return stream;
+	}
+
+	// generate integers between 0 and 2^32
+	public int nextInt() {
+		return (int) (nextLong() >>> 32);
+	}
+
+	// generate integers between 0 and n-1 (inclusive)
+	public int nextInt(int n) {
+		if (n <= 0) {
+			throw new IllegalArgumentException("n must be positive");
+		}
+		// multiply-shift with rejection of the biased low products
+		long m = (nextLong() >>> 32) * n;
+		if ((m & 0xffffffffL) < n) {
+			long threshold = (0x100000000L - n) % n;
+			while ((m & 0xffffffffL) < threshold) {
+				m = (nextLong() >>> 32) * n;
+			}
+		}
+		return (int) (m >>> 32);
+	}
+
+	// generate Poisson(lambda)
+	// E(X)=lambda ; Var(X)=lambda
+	public int nextPoisson(double lambda) {
+		int v = -1;
+		double l = Math.exp(-lambda);
+		double p = 1.0;
+		while (p >= l) {
+			p *= nextUniform();
+			v++;
+		}
+		return v;
+	}
+
+	// generate Poisson(1)
+	// E(X)=1 ; Var(X)=1
+	public int nextPoisson() {
+		return nextPoisson(1);
+	}
+
+	// generate random boolean variables
+	public boolean nextBoolean() {
+		return nextLong() < 0;
+	}
+
+	// generates true with probability p
+	public boolean nextBoolean(double p) {
+		return nextUniform() < p;
+	}
+
+	// generate U(0,1)
+	// E(X)=1/2 ; Var(X)=1/12
+	public double nextUniform() {
+		return (nextLong() >>> 11) * DOUBLE_UNIT;
+	}
+
+	// generate U(a,b)
+	// E(X)=(b-a)/2 ; Var(X)=(b-a)^2/12
+	public double nextUniform(double a, double b) {
+		return a + (b - a) * nextUniform();
+	}
+
+	// generate N(0,1)
+	// E(X)=0 ; Var(X)=1
+	public double nextGaussian() {
+		if (haveNextGaussian) {
+			haveNextGaussian = false;
+			return nextGaussian;
+		}
+		double r = gaussianRadius();
+		double theta = 2 * Math.PI * nextUniform();
+		nextGaussian = r * Math.sin(theta);
+		haveNextGaussian = true;
+		return r * Math.cos(theta);
+	}
+
+	// Box-Muller radius; 1 - U is in (0,1] so the log is finite
+	private double gaussianRadius() {
+		return Math.sqrt(-2 * Math.log(1.0 - nextUniform()));
+	}
+
+	// generate N(m,s2)
+	// E(X)=m ; Var(X)=s2
+	public double nextGaussian(double m, double s2) {
+		return nextGaussian() * Math.sqrt(s2) + m;
+	}
+
+	// generate Gamma(1,1)
+	// E(X)=1 ; Var(X)=1
+	public double nextGamma() {
+		return nextGamma(1, 1, 0);
+	}
+
+	// generate Gamma(alpha,beta)
+	// E(X)=alpha*beta ; Var(X)=alpha*beta^2
+	public double nextGamma(double alpha, double beta) {
+		return nextGamma(alpha, beta, 0);
+	}
+
+	// generate shifted-Gamma(alpha,beta)
+	// E(X)=alpha*beta+lambda ; Var(X)=alpha*beta^2
+	public double nextGamma(double alpha, double beta, double lambda) {
+		checkPositive(alpha, beta);
+		return beta * nextStandardGamma(alpha) + lambda;
+	}
+
+	private double nextStandardGamma(double alpha) {
+		double gamma;
+		if (alpha < 1) {
+			double b = 1 + alpha * Math.exp(-1);
+			while (true) {
+				double p = b * nextUniform();
+				if (p > 1) {
+					gamma = -Math.log((b - p) / alpha);
+					if (nextUniform() <= Math.pow(gamma, alpha - 1)) {
+						break;
+					}
+				} else {
+					gamma = Math.pow(p, 1 / alpha);
+					if (nextUniform() <= Math.exp(-gamma)) {
+						break;
+					}
+				}
+			}
+		} else if (alpha == 1) {
+			gamma = -Math.log(1.0 - nextUniform());
+		} else {
+			double y = -Math.log(1.0 - nextUniform());
+			while (nextUniform() > Math.pow(y * Math.exp(1 - y), alpha - 1)) {
+				y = -Math.log(1.0 - nextUniform());
+			}
+			gamma = alpha * y;
+		}
+		return gamma;
+	}
+
+	// generate Exp(1)
+	// E(X)=1 ; Var(X)=1
+	public double nextExp() {
+		return nextGamma(1, 1, 0);
+	}
+
+	// generate Exp(beta)
+	// E(X)=beta ; Var(X)=beta^2
+	public double nextExp(double beta) {
+		return nextGamma(1, beta, 0);
+	}
+
+	// generate shifted-Exp(beta)
+	// E(X)=beta+lambda ; Var(X)=beta^2
+	public double nextExp(double beta, double lambda) {
+		return nextGamma(1, beta, lambda);
+	}
+
+	// generate ChiSq(1)
+	// E(X)=1 ; Var(X)=2
+	public double nextChiSq() {
+		return nextGamma(0.5, 2, 0);
+	}
+
+	// generate ChiSq(df)
+	// E(X)=df ; Var(X)=2*df
+	public double nextChiSq(int df) {
+		return nextGamma(0.5 * (double) df, 2, 0);
+	}
+
+	// generate shifted-ChiSq(df)
+	// E(X)=df+lambda ; Var(X)=2*df
+	public double nextChiSq(int df, double lambda) {
+		return nextGamma(0.5 * (double) df, 2, lambda);
+	}
+
+	// generate Beta(alpha,beta)
+	// E(X)=a/(a+b) ; Var(X)=ab/[(a+b+1)(a+b)^2]
+	public double nextBeta(double alpha, double beta) {
+		checkPositive(alpha, beta);
+		if (alpha == 1 && beta == 1) {
+			return nextUniform();
+		} else if (alpha >= 1 && beta >= 1) {
+			double a = alpha - 1;
+			double b = beta - 1;
+			double c = a + b;
+			double l = c * Math.log(c);
+			double mu = a / c;
+			double sigma = 0.5 / Math.sqrt(c);
+			while (true) {
+				double y;
+				double x;
+				do {
+					y = nextGaussian();
+					x = sigma * y + mu;
+				} while (x < 0 || x > 1);
+				double u = nextUniform();
+				if (Math.log(u) < a * Math.log(x / a) + b * Math.log((1 - x) / b) + l + 0.5 * y * y) {
+					return x;
+				}
+			}
+		} else {
+			double v1;
+			double v2;
+			do {
+				v1 = Math.pow(nextUniform(), 1 / alpha);
+				v2 = Math.pow(nextUniform(), 1 / beta);
+			} while (v1 + v2 > 1);
+			return v1 / (v1 + v2);
+		}
+	}
+
+	private static void checkPositive(double alpha, double beta) {
+		if (alpha <= 0 || beta <= 0) {
+			throw new IllegalArgumentException("alpha and beta must be strictly positive.");
+		}
+	}
+
+	/** fill with U(0,1).
+	 *
+	 * @param values
+	 */
+	public void fillUniform(double[] values) {
+		for (int i = 0; i < values.length; i++) {
+			values[i] = (nextLong() >>> 11) * DOUBLE_UNIT;
+		}
+	}
+
+	/** fill with U(a,b).
+	 *
+	 * @param values
+	 * @param a
+	 * @param b
+	 */
+	public void fillUniform(double[] values, double a, double b) {
+		double range = b - a;
+		for (int i = 0; i < values.length; i++) {
+			values[i] = a + range * nextUniform();
+		}
+	}
+
+	/** fill with N(0,1).
+	 *
+	 * both Box-Muller values are used, so no Gaussian is left cached.
+	 *
+	 * @param values
+	 */
+	public void fillGaussian(double[] values) {
+		fillGaussian(values, 0.0, 1.0);
+	}
+
+	/** fill with N(m,s2).
+	 *
+	 * @param values
+	 * @param m mean
+	 * @param s2 variance
+	 */
+	public void fillGaussian(double[] values, double m, double s2) {
+		double s = Math.sqrt(s2);
+		int i = 0;
+		if (haveNextGaussian && values.length > 0) {
+			values[i++] = nextGaussian() * s + m;
+		}
+		for (; i + 1 < values.length; i += 2) {
+			double r = gaussianRadius() * s;
+			double theta = 2 * Math.PI * nextUniform();
+			values[i] = r * Math.cos(theta) + m;
+			values[i + 1] = r * Math.sin(theta) + m;
+		}
+		if (i < values.length) {
+			values[i] = nextGaussian() * s + m;
+		}
+	}
+
+	/** fill with shifted-Gamma(alpha,beta).
+	 *
+	 * @param values
+	 * @param alpha
+	 * @param beta
+	 * @param lambda shift
+	 */
+	public void fillGamma(double[] values, double alpha, double beta, double lambda) {
+		checkPositive(alpha, beta);
+		for (int i = 0; i < values.length; i++) {
+			values[i] = beta * nextStandardGamma(alpha) + lambda;
+		}
+	}
+
+	/** fill with Exp(beta).
+	 *
+	 * @param values
+	 * @param beta mean
+	 */
+	public void fillExp(double[] values, double beta) {
+		fillGamma(values, 1, beta, 0);
+	}
+
+	/** fill with ChiSq(df).
+	 *
+	 * @param values
+	 * @param df degrees of freedom
+	 */
+	public void fillChiSq(double[] values, int df) {
+		fillGamma(values, 0.5 * (double) df, 2, 0);
+	}
+
+	/** fill with Beta(alpha,beta).
+	 *
+	 * @param values
+	 * @param alpha
+	 * @param beta
+	 */
+	public void fillBeta(double[] values, double alpha, double beta) {
+		checkPositive(alpha, beta);
+		for (int i = 0; i < values.length; i++) {
+			values[i] = nextBeta(alpha, beta);
+		}
+	}
+
+	/** fill with Poisson(lambda).
+	 *
+	 * @param values
+	 * @param lambda
+	 */
+	public void fillPoisson(int[] values, double lambda) {
+		for (int i = 0; i < values.length; i++) {
+			values[i] = nextPoisson(lambda);
+		}
+	}
+
+	/** fill with integers 0..n-1.
+	 *
+	 * @param values
+	 * @param n
+	 */
+	public void fillInt(int[] values, int n) {
+		for (int i = 0; i < values.length; i++) {
+			values[i] = nextInt(n);
+		}
+	}
+}
@@ -58,12 +58,9 @@ public class Real2Array implements EuclidConstants ,  Iterable<Real2>  {
      * @return range
      */
     public Real2Range getRange2() {
-        Real2Range range = new Real2Range();
-        for (int i = 0; i < nelem; i++) {
-            Real2 r2 = new Real2(xarr.elementAt(i), yarr.elementAt(i));
-            range.add(r2);
-        }
-        return range;
+        double[] bounds = getBounds(null);
+        return (bounds == null) ? new Real2Range() : new Real2Range(
+        		new RealRange(bounds[0], bounds[1]), new RealRange(bounds[2], bounds[3]));
     }
 
     /** copy
@@ -230,6 +227,22 @@ public class Real2Array implements EuclidConstants ,  Iterable<Real2>  {
     public int size() {
         return nelem;
     }
+    /**
+     * create spatial index over the current points.
+     * 
+     * indexes in the tree are the element serials of this; the tree is a
+     * snapshot and is not updated if this is altered.
+     * 
+     * @return tree of dimension 2
+     */
+    public KdTree createKdTree() {
+        double[] xy = new double[2 * nelem];
+        for (int i = 0; i < nelem; i++) {
+            xy[2 * i] = xarr.elementAt(i);
+            xy[2 * i + 1] = yarr.elementAt(i);
+        }
+        return new KdTree(2, xy);
+    }
     /**
      * get element.
      * 
@@ -275,11 +288,13 @@ public class Real2Array implements EuclidConstants ,  Iterable<Real2>  {
     	}
     }
     
+    /** transform all points in place.
+     * coefficients are extracted once and applied over the x and y arrays
+     * @param t2
+     */
     public void transformBy(Transform2 t2) {
-    	for (int i = 0; i < nelem; i++) {
-    		Real2 xy = this.get(i);
-    		xy.transformBy(t2);
-    		this.setElement(i, xy);
+    	if (nelem > 0) {
+    		t2.transform(xarr.getArray(), yarr.getArray(), nelem);
     	}
     }
     
@@ -535,6 +550,278 @@ public class Real2Array implements EuclidConstants ,  Iterable<Real2>  {
 		}
 		return points;
 	}
+
+	/** visit every point without creating Real2s.
+	 * 
+	 * @param visitor
+	 */
+	public void forEach(Real2Visitor visitor) {
+		if (nelem > 0) {
+			forEach(0, nelem - 1, visitor);
+		}
+	}
+
+	/** visit points in range without creating Real2s.
+	 * 
+	 * @param start inclusive
+	 * @param end inclusive
+	 * @param visitor
+	 */
+	public void forEach(int start, int end, Real2Visitor visitor) {
+		checkRange(start, end);
+		if (end < start) {
+			return;
+		}
+		double[] x = xarr.getArray();
+		double[] y = yarr.getArray();
+		for (int i = start; i <= end; i++) {
+			visitor.visit(x[i], y[i]);
+		}
+	}
+
+	/** fold all points into a single value.
+	 * 
+	 * @param value initial value
+	 * @param reducer
+	 * @return value after last point (initial value if empty)
+	 */
+	public double reduce(double value, Real2Reducer reducer) {
+		return (nelem == 0) ? value : reduce(0, nelem - 1, value, reducer);
+	}
+
+	/** fold points in range into a single value.
+	 * 
+	 * @param start inclusive
+	 * @param end inclusive
+	 * @param value initial value
+	 * @param reducer
+	 * @return value after last point
+	 */
+	public double reduce(int start, int end, double value, Real2Reducer reducer) {
+		checkRange(start, end);
+		if (end < start) {
+			return value;
+		}
+		double[] x = xarr.getArray();
+		double[] y = yarr.getArray();
+		for (int i = start; i <= end; i++) {
+			value = reducer.reduce(value, x[i], y[i]);
+		}
+		return value;
+	}
+
+	/** cursor over all points.
+	 * 
+	 * the cursor reads the current backing arrays and is invalidated by
+	 * adding or deleting points
+	 * 
+	 * @return cursor positioned before the first point
+	 */
+	public Cursor cursor() {
+		return (nelem == 0) ? new Cursor(null, null, 0, -1) : cursor(0, nelem - 1);
+	}
+
+	/** cursor over points in range.
+	 * 
+	 * @param start inclusive
+	 * @param end inclusive
+	 * @return cursor positioned before start
+	 */
+	public Cursor cursor(int start, int end) {
+		checkRange(start, end);
+		return new Cursor(xarr.getArray(), yarr.getArray(), start, end);
+	}
+
+	/** bounding box in one pass.
+	 * 
+	 * @param bounds xmin, xmax, ymin, ymax (allocated if null)
+	 * @return bounds or null if no points
+	 */
+	public double[] getBounds(double[] bounds) {
+		return (nelem == 0) ? null : getBounds(0, nelem - 1, bounds);
+	}
+
+	/** bounding box of points in range.
+	 * 
+	 * @param start inclusive
+	 * @param end inclusive
+	 * @param bounds xmin, xmax, ymin, ymax (allocated if null)
+	 * @return bounds or null if range is empty
+	 */
+	public double[] getBounds(int start, int end, double[] bounds) {
+		checkRange(start, end);
+		if (end < start) {
+			return null;
+		}
+		double[] x = xarr.getArray();
+		double[] y = yarr.getArray();
+		double xmin = x[start];
+		double xmax = xmin;
+		double ymin = y[start];
+		double ymax = ymin;
+		for (int i = start + 1; i <= end; i++) {
+			double xx = x[i];
+			double yy = y[i];
+			if (xx < xmin) {
+				xmin = xx;
+			} else if (xx > xmax) {
+				xmax = xx;
+			}
+			if (yy < ymin) {
+				ymin = yy;
+			} else if (yy > ymax) {
+				ymax = yy;
+			}
+		}
+		if (bounds == null) {
+			bounds = new double[4];
+		}
+		bounds[0] = xmin;
+		bounds[1] = xmax;
+		bounds[2] = ymin;
+		bounds[3] = ymax;
+		return bounds;
+	}
+
+	/** unweighted centroid in one pass.
+	 * 
+	 * @param xy x and y (allocated if null)
+	 * @return xy or null if no points
+	 */
+	public double[] getCentroid(double[] xy) {
+		return (nelem == 0) ? null : getCentroid(0, nelem - 1, xy);
+	}
+
+	/** unweighted centroid of points in range.
+	 * 
+	 * @param start inclusive
+	 * @param end inclusive
+	 * @param xy x and y (allocated if null)
+	 * @return xy or null if range is empty
+	 */
+	public double[] getCentroid(int start, int end, double[] xy) {
+		checkRange(start, end);
+		if (end < start) {
+			return null;
+		}
+		double[] x = xarr.getArray();
+		double[] y = yarr.getArray();
+		double sumx = 0.0;
+		double sumy = 0.0;
+		for (int i = start; i <= end; i++) {
+			sumx += x[i];
+			sumy += y[i];
+		}
+		if (xy == null) {
+			xy = new double[2];
+		}
+		int n = end - start + 1;
+		xy[0] = sumx / n;
+		xy[1] = sumy / n;
+		return xy;
+	}
+
+	/** sort in place on x (0) or y (1) without creating index sets.
+	 * 
+	 * the order of points with equal keys is not defined
+	 * 
+	 * @param xy = 0 sort on x; xy = 1 sort on y
+	 * @param ascending
+	 */
+	public void sortByAxis(int xy, boolean ascending) {
+		if (nelem > 0) {
+			sortByAxis(0, nelem - 1, xy, ascending);
+		}
+	}
+
+	/** sort points in range in place on x (0) or y (1).
+	 * 
+	 * @param start inclusive
+	 * @param end inclusive
+	 * @param xy = 0 sort on x; xy = 1 sort on y
+	 * @param ascending
+	 */
+	public void sortByAxis(int start, int end, int xy, boolean ascending) {
+		if (xy != 0 && xy != 1) {
+			throw new EuclidRuntimeException("axis must be 0 or 1: " + xy);
+		}
+		checkRange(start, end);
+		if (end <= start) {
+			return;
+		}
+		double[] key = (xy == 0) ? xarr.getArray() : yarr.getArray();
+		double[] other = (xy == 0) ? yarr.getArray() : xarr.getArray();
+		ParallelSort.sortPairs(key, other, start, end);
+		if (!ascending) {
+			for (int i = start, j = end; i < j; i++, j--) {
+				ParallelSort.swap(key, other, i, j);
+			}
+		}
+	}
+
+	private void checkRange(int start, int end) {
+		if (start < 0 || end >= nelem || end < start - 1) {
+			throw new EuclidRuntimeException("bad range " + start + " - " + end + " for " + nelem + " points");
+		}
+	}
+
+	/** primitive cursor over a range of points.
+	 * 
+	 * <pre>
+	 * Real2Array.Cursor c = array.cursor();
+	 * while (c.next()) {
+	 *     c.set(c.getX() * 2, c.getY());
+	 * }
+	 * </pre>
+	 */
+	public static class Cursor {
+		private double[] x;
+		private double[] y;
+		private int index;
+		private int end;
+
+		Cursor(double[] x, double[] y, int start, int end) {
+			this.x = x;
+			this.y = y;
+			this.index = start - 1;
+			this.end = end;
+		}
+
+		/** advance to next point.
+		 * @return false if no more points
+		 */
+		public boolean next() {
+			if (index >= end) {
+				return false;
+			}
+			index++;
+			return true;
+		}
+
+		/** @return index of current point in array */
+		public int getIndex() {
+			return index;
+		}
+
+		/** @return x of current point */
+		public double getX() {
+			return x[index];
+		}
+
+		/** @return y of current point */
+		public double getY() {
+			return y[index];
+		}
+
+		/** overwrite current point. MODIFIES array
+		 * @param xx
+		 * @param yy
+		 */
+		public void set(double xx, double yy) {
+			x[index] = xx;
+			y[index] = yy;
+		}
+	}
 	
 }
 class Real2Iterator implements Iterator<Real2> {
@@ -0,0 +1,18 @@
+package org.xmlcml.euclid;
+
+/** folds the coordinates of each point into a running value.
+ *
+ * used by reduce() on Real2Array and Real2Vector.
+ *
+ */
+public interface Real2Reducer {
+
+	/** combine one point with the value so far.
+	 *
+	 * @param value result of previous points (initial value for the first)
+	 * @param x
+	 * @param y
+	 * @return new value
+	 */
+	double reduce(double value, double x, double y);
+}
@@ -16,6 +16,8 @@
 
 package org.xmlcml.euclid;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 import org.xmlcml.euclid.Axis.Axis2;
@@ -201,12 +203,10 @@ public class Real2Vector implements EuclidConstants {
      * @return range
      */
     public Real2Range getRange2() {
-        Axis2 axes[] = Axis2.values();
         Real2Range range2 = new Real2Range();
-        for (Axis2 ax : axes) {
-            RealRange range = getRange(ax);
-            range2.add(ax, range);
-        }
+        double[] bounds = getBounds(null);
+        range2.add(Axis2.X, (bounds == null) ? new RealRange() : new RealRange(bounds[0], bounds[1]));
+        range2.add(Axis2.Y, (bounds == null) ? new RealRange() : new RealRange(bounds[2], bounds[3]));
         return range2;
     }
     /**
@@ -265,6 +265,26 @@ public class Real2Vector implements EuclidConstants {
         }
         return ipoint;
     }
+    /**
+     * create spatial index over the current points.
+     * 
+     * use for repeated neighbour queries; indexes are the serials of this
+     * vector so the tree's getNearestPoint(), getPointsInBox(),
+     * getFirstPointInBox() give the same results as getClosestPoint(),
+     * subSet() and getPoint() without a linear scan. The tree is a snapshot
+     * and is not updated if this is altered.
+     * 
+     * @return tree of dimension 2
+     */
+    public KdTree createKdTree() {
+        double[] xy = new double[2 * size()];
+        for (int i = 0; i < size(); i++) {
+            Real2 point = this.get(i);
+            xy[2 * i] = point.x;
+            xy[2 * i + 1] = point.y;
+        }
+        return new KdTree(2, xy);
+    }
     /**
      * get the index of the first point within a box centered on p (that is p+-
      * width/2, height/2) or -1 if none
@@ -514,10 +534,12 @@ public class Real2Vector implements EuclidConstants {
      * @param t
      */
     public void transformBy(Transform2 t) {
+        double[] c = t.getAffineCoefficients();
         for (int i = 0; i < size(); i++) {
             Real2 point = (Real2) vector.get(i);
-            point.transformBy(t);
-            vector.set(i, point);
+            double x = point.x;
+            point.x = c[0] * x + c[1] * point.y + c[2];
+            point.y = c[3] * x + c[4] * point.y + c[5];
         }
     }
     /**
@@ -700,16 +722,8 @@ public class Real2Vector implements EuclidConstants {
      * @return the centroid
      */
     public Real2 getCentroid() {
-        if (vector.size() < 1)
-            return null;
-        Real2 p = new Real2();
-        for (int j = 0; j < vector.size(); j++) {
-            Real2 pp = (Real2) vector.get(j);
-            p = p.plus(pp);
-        }
-        double scale = 1.0 / (new Double(vector.size()).doubleValue());
-        p = p.multiplyBy(scale);
-        return p;
+        double[] xy = getCentroid(null);
+        return (xy == null) ? null : new Real2(xy[0], xy[1]);
     }
     /**
      * get serialNumber of nearest point.
@@ -754,6 +768,31 @@ public class Real2Vector implements EuclidConstants {
         return distMatrix;
     }
 
+    /**
+     * get sparse distance matrix of pairs within a cutoff.
+     * 
+     * O(n + number of pairs) alternative to getDistanceMatrix(coords2); d(ij)
+     * is distance between coord(i) and coords2(j).
+     * 
+     * @param coords2
+     * @param cutoff maximum distance stored
+     * @return sparse distance matrix
+     */
+    public SparseDistanceMatrix getDistanceMatrix(List<Real2> coords2, double cutoff) {
+        return new SparseDistanceMatrix(2, getXY().getArray(),
+                new Real2Vector(coords2).getXY().getArray(), cutoff);
+    }
+
+    /**
+     * get sparse distance matrix of pairs of this within a cutoff.
+     * 
+     * @param cutoff maximum distance stored
+     * @return symmetric sparse distance matrix
+     */
+    public SparseDistanceMatrix getDistanceMatrix(double cutoff) {
+        return new SparseDistanceMatrix(2, getXY().getArray(), cutoff);
+    }
+
     /**
      * if real2Vector is treated as a polygon, determines whether point
      * is inside it
@@ -800,4 +839,189 @@ public class Real2Vector implements EuclidConstants {
         sb.append(S_RBRAK);
         return sb.toString();
     }
+    /**
+     * visit every point. no Real2s are created
+     * 
+     * @param visitor
+     */
+    public void forEach(Real2Visitor visitor) {
+        forEach(0, size() - 1, visitor);
+    }
+    /**
+     * visit points in range.
+     * 
+     * @param start inclusive
+     * @param end inclusive
+     * @param visitor
+     */
+    public void forEach(int start, int end, Real2Visitor visitor) {
+        checkRange(start, end);
+        for (int i = start; i <= end; i++) {
+            Real2 p = vector.get(i);
+            visitor.visit(p.x, p.y);
+        }
+    }
+    /**
+     * fold all points into a single value.
+     * 
+     * @param value initial value
+     * @param reducer
+     * @return value after last point (initial value if empty)
+     */
+    public double reduce(double value, Real2Reducer reducer) {
+        return reduce(0, size() - 1, value, reducer);
+    }
+    /**
+     * fold points in range into a single value.
+     * 
+     * @param start inclusive
+     * @param end inclusive
+     * @param value initial value
+     * @param reducer
+     * @return value after last point
+     */
+    public double reduce(int start, int end, double value, Real2Reducer reducer) {
+        checkRange(start, end);
+        for (int i = start; i <= end; i++) {
+            Real2 p = vector.get(i);
+            value = reducer.reduce(value, p.x, p.y);
+        }
+        return value;
+    }
+    /**
+     * bounding box in one pass.
+     * 
+     * @param bounds xmin, xmax, ymin, ymax (allocated if null)
+     * @return bounds or null if empty
+     */
+    public double[] getBounds(double[] bounds) {
+        return getBounds(0, size() - 1, bounds);
+    }
+    /**
+     * bounding box of points in range.
+     * 
+     * @param start inclusive
+     * @param end inclusive
+     * @param bounds xmin, xmax, ymin, ymax (allocated if null)
+     * @return bounds or null if range is empty
+     */
+    public double[] getBounds(int start, int end, double[] bounds) {
+        checkRange(start, end);
+        if (end < start) {
+            return null;
+        }
+        Real2 p = vector.get(start);
+        double xmin = p.x;
+        double xmax = xmin;
+        double ymin = p.y;
+        double ymax = ymin;
+        for (int i = start + 1; i <= end; i++) {
+            p = vector.get(i);
+            if (p.x < xmin) {
+                xmin = p.x;
+            } else if (p.x > xmax) {
+                xmax = p.x;
+            }
+            if (p.y < ymin) {
+                ymin = p.y;
+            } else if (p.y > ymax) {
+                ymax = p.y;
+            }
+        }
+        if (bounds == null) {
+            bounds = new double[4];
+        }
+        bounds[0] = xmin;
+        bounds[1] = xmax;
+        bounds[2] = ymin;
+        bounds[3] = ymax;
+        return bounds;
+    }
+    /**
+     * unweighted centroid in one pass.
+     * 
+     * @param xy x and y (allocated if null)
+     * @return xy or null if empty
+     */
+    public double[] getCentroid(double[] xy) {
+        return getCentroid(0, size() - 1, xy);
+    }
+    /**
+     * unweighted centroid of points in range.
+     * 
+     * @param start inclusive
+     * @param end inclusive
+     * @param xy x and y (allocated if null)
+     * @return xy or null if range is empty
+     */
+    public double[] getCentroid(int start, int end, double[] xy) {
+        checkRange(start, end);
+        if (end < start) {
+            return null;
+        }
+        double sumx = 0.0;
+        double sumy = 0.0;
+        for (int i = start; i <= end; i++) {
+            Real2 p = vector.get(i);
+            sumx += p.x;
+            sumy += p.y;
+        }
+        if (xy == null) {
+            xy = new double[2];
+        }
+        double scale = 1.0 / (end - start + 1);
+        xy[0] = sumx * scale;
+        xy[1] = sumy * scale;
+        return xy;
+    }
+    /**
+     * sort points in place on X or Y coordinate. MODIFIES this; unlike
+     * sortAscending() no new vector or index set is created and the sort is
+     * stable
+     * 
+     * @param ax
+     * @param ascending
+     */
+    public void sortByAxis(Axis2 ax, boolean ascending) {
+        sortByAxis(0, size() - 1, ax, ascending);
+    }
+    /**
+     * sort points in range in place on X or Y coordinate.
+     * 
+     * @param start inclusive
+     * @param end inclusive
+     * @param ax
+     * @param ascending
+     */
+    public void sortByAxis(int start, int end, Axis2 ax, boolean ascending) {
+        checkRange(start, end);
+        Comparator<Real2> comparator = (ax.equals(Axis2.X)) ?
+            (ascending ? X_ASCENDING : X_DESCENDING) : (ascending ? Y_ASCENDING : Y_DESCENDING);
+        Collections.sort(vector.subList(start, end + 1), comparator);
+    }
+    private void checkRange(int start, int end) {
+        if (start < 0 || end >= size() || end < start - 1) {
+            throw new EuclidRuntimeException("bad range " + start + " - " + end + " for " + size() + " points");
+        }
+    }
+    private final static Comparator<Real2> X_ASCENDING = new Comparator<Real2>() {
+        public int compare(Real2 p1, Real2 p2) {
+            return Double.compare(p1.x, p2.x);
+        }
+    };
+    private final static Comparator<Real2> X_DESCENDING = new Comparator<Real2>() {
+        public int compare(Real2 p1, Real2 p2) {
+            return Double.compare(p2.x, p1.x);
+        }
+    };
+    private final static Comparator<Real2> Y_ASCENDING = new Comparator<Real2>() {
+        public int compare(Real2 p1, Real2 p2) {
+            return Double.compare(p1.y, p2.y);
+        }
+    };
+    private final static Comparator<Real2> Y_DESCENDING = new Comparator<Real2>() {
+        public int compare(Real2 p1, Real2 p2) {
+            return Double.compare(p2.y, p1.y);
+        }
+    };
 }
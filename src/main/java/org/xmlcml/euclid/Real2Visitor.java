@@ -0,0 +1,16 @@
+package org.xmlcml.euclid;
+
+/** receives the coordinates of each point in a Real2Array or Real2Vector.
+ *
+ * used by forEach() so that points can be visited without creating Real2s.
+ *
+ */
+public interface Real2Visitor {
+
+	/** visit one point.
+	 *
+	 * @param x
+	 * @param y
+	 */
+	void visit(double x, double y);
+}
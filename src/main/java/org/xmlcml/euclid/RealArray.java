@@ -386,15 +386,20 @@ public class RealArray extends ArrayBase implements Iterable<Double> {
     }
     
     /**
-     * create from a space-separated string of doubles.
+     * create from a whitespace-separated string of doubles.
+     * 
+     * parsed in a single pass by NumberScanner (also accepts INF, -INF, NaN);
+     * leading and trailing whitespace is ignored.
      * 
      * @param string
      *            of form "1.1 -3.2 0.56E-04 2..."
-     * @exception NumberFormatException
+     * @exception EuclidRuntimeException
      *                a substring could not be interpreted as double
      */
-    public RealArray(String string) throws NumberFormatException {
-        this(string.split(S_WHITEREGEX));
+    public RealArray(String string) throws EuclidRuntimeException {
+        array = NumberScanner.parseDoubles(string);
+        nelem = array.length;
+        bufsize = nelem;
     }
     /**
      * set output format. doesn't yet do anything!
@@ -554,13 +559,52 @@ public class RealArray extends ArrayBase implements Iterable<Double> {
      */
     public double getRandomVariate(
             RealArray distribution, RealArray cumulativeDistribution) {
+        return interpolateVariate(distribution, cumulativeDistribution, Math.random());
+    }
+
+    /** gets a variate from a distribution using a given stream.
+     * 
+     * as getRandomVariate(distribution, cumulativeDistribution) but
+     * reproducible and without contention between threads if each thread
+     * has its own stream (e.g. from RandomStream.createStreams())
+     * 
+     * @param distribution 
+     * @param cumulativeDistribution initially clear, then used as cache
+     * @param stream
+     * @return a random variate
+     */
+    public double getRandomVariate(RealArray distribution,
+            RealArray cumulativeDistribution, RandomStream stream) {
+        return interpolateVariate(distribution, cumulativeDistribution, stream.nextUniform());
+    }
+
+    /** gets n variates from a distribution.
+     * 
+     * @param distribution 
+     * @param cumulativeDistribution initially clear, then used as cache
+     * @param stream
+     * @param n number of variates
+     * @return variates
+     */
+    public RealArray getRandomVariates(RealArray distribution,
+            RealArray cumulativeDistribution, RandomStream stream, int n) {
+        double[] values = new double[n];
+        stream.fillUniform(values);
+        for (int i = 0; i < n; i++) {
+            values[i] = interpolateVariate(distribution, cumulativeDistribution, values[i]);
+        }
+        return new RealArray(values);
+    }
+
+    private double interpolateVariate(RealArray distribution,
+            RealArray cumulativeDistribution, double uniform) {
         if (cumulativeDistribution.size() == 0) {
             RealArray cumul = distribution.cumulativeSum();
             cumulativeDistribution.setElements(cumul.getArray());
         }
         double[] cArray = cumulativeDistribution.getArray();
         double range = cArray[cArray.length-1] - cArray[0];
-        double probe = cArray[0] + Math.random()* range;
+        double probe = cArray[0] + uniform * range;
         return lineSearch(probe, cumulativeDistribution);
     }
     /** binary search on monotonic increasing distribution.
@@ -713,12 +757,26 @@ public class RealArray extends ArrayBase implements Iterable<Double> {
      * @return new array as this + f
      */
     public RealArray plus(RealArray f) throws EuclidRuntimeException {
+        return plus(f, null);
+    }
+    /**
+     * adds arrays into destination. dest = this + f
+     * 
+     * dest may be this or f (or null to create a new array)
+     * 
+     * @param f
+     *            array to add
+     * @param dest
+     *            same size as this, or null
+     * @exception EuclidRuntimeException
+     *                f or dest is different size from <TT>this</TT>
+     * @return dest
+     */
+    public RealArray plus(RealArray f, RealArray dest) throws EuclidRuntimeException {
         checkConformable(f);
-        RealArray m = (RealArray) this.clone();
-        for (int i = 0; i < nelem; i++) {
-            m.array[i] = f.array[i] + array[i];
-        }
-        return m;
+        dest = checkDestination(dest);
+        add(array, f.array, dest.array, nelem);
+        return dest;
     }
     /**
      * adds arrays. modifies this += f
@@ -729,10 +787,7 @@ public class RealArray extends ArrayBase implements Iterable<Double> {
      *                f is different size from <TT>this</TT>
      */
     public void plusEquals(RealArray f) throws EuclidRuntimeException {
-        checkConformable(f);
-        for (int i = nelem - 1; i >= 0; --i) {
-            array[i] += f.array[i];
-        }
+        plus(f, this);
     }
     /**
      * subtracts arrays. does not modify this
@@ -744,12 +799,31 @@ public class RealArray extends ArrayBase implements Iterable<Double> {
      * @return new array as this - f
      */
     public RealArray subtract(RealArray f) throws EuclidRuntimeException {
+        return subtract(f, null);
+    }
+    /**
+     * subtracts arrays into destination. dest = this - f
+     * 
+     * dest may be this or f (or null to create a new array)
+     * 
+     * @param f
+     *            array to subtract
+     * @param dest
+     *            same size as this, or null
+     * @exception EuclidRuntimeException
+     *                f or dest is different size from <TT>this</TT>
+     * @return dest
+     */
+    public RealArray subtract(RealArray f, RealArray dest) throws EuclidRuntimeException {
         checkConformable(f);
-        RealArray m = (RealArray) this.clone();
+        dest = checkDestination(dest);
+        double[] a = array;
+        double[] b = f.array;
+        double[] c = dest.array;
         for (int i = 0; i < nelem; i++) {
-            m.array[i] = array[i] - f.array[i];
+            c[i] = a[i] - b[i];
         }
-        return m;
+        return dest;
     }
     /**
      * array subtraction. modifies this -= f
@@ -760,10 +834,7 @@ public class RealArray extends ArrayBase implements Iterable<Double> {
      *                f is different size from <TT>this</TT>
      */
     public void subtractEquals(RealArray f) throws EuclidRuntimeException {
-        checkConformable(f);
-        for (int i = nelem - 1; i >= 0; --i) {
-            array[i] -= f.array[i];
-        }
+        subtract(f, this);
     }
     /**
      * change the sign of all elements. MODIFIES this
@@ -782,11 +853,7 @@ public class RealArray extends ArrayBase implements Iterable<Double> {
      * @return new array
      */
     public RealArray addScalar(double f) {
-        RealArray m = (RealArray) this.clone();
-        for (int i = 0; i < nelem; i++) {
-            m.array[i] += f;
-        }
-        return m;
+        return scaleAndShift(1.0, f, null);
     }
     /**
      * array multiplication by a scalar. creates new array; does NOT modify
@@ -797,11 +864,36 @@ public class RealArray extends ArrayBase implements Iterable<Double> {
      * @return the new array
      */
     public RealArray multiplyBy(double f) {
-        RealArray m = (RealArray) this.clone();
+        return multiplyBy(f, null);
+    }
+    /**
+     * array multiplication by a scalar into destination. dest = this * f
+     * 
+     * @param f
+     *            multiplier
+     * @param dest
+     *            same size as this (may be this), or null
+     * @exception EuclidRuntimeException
+     *                dest is different size from <TT>this</TT>
+     * @return dest
+     */
+    public RealArray multiplyBy(double f, RealArray dest) throws EuclidRuntimeException {
+        dest = checkDestination(dest);
+        double[] a = array;
+        double[] c = dest.array;
         for (int i = 0; i < nelem; i++) {
-            m.array[i] *= f;
+            c[i] = a[i] * f;
         }
-        return m;
+        return dest;
+    }
+    /**
+     * array multiplication by a scalar. MODIFIES this *= f
+     * 
+     * @param f
+     *            multiplier
+     */
+    public void multiplyByEquals(double f) {
+        multiplyBy(f, this);
     }
     /**
      * add a scalar to each element. creates new array; does NOT modify
@@ -811,11 +903,93 @@ public class RealArray extends ArrayBase implements Iterable<Double> {
      * @return the new array
      */
     public RealArray plus(double f) {
-        RealArray m = (RealArray) this.clone();
+        return scaleAndShift(1.0, f, null);
+    }
+    /**
+     * add a scalar to each element. MODIFIES this += f
+     * 
+     * @param f
+     *            to add
+     */
+    public void plusEquals(double f) {
+        scaleAndShift(1.0, f, this);
+    }
+    /**
+     * scale and shift into destination. dest = this * scale + shift
+     * 
+     * single pass; typically used to rescale a spectrum or normalise to a range
+     * 
+     * @param scale
+     * @param shift
+     * @param dest
+     *            same size as this (may be this), or null
+     * @exception EuclidRuntimeException
+     *                dest is different size from <TT>this</TT>
+     * @return dest
+     */
+    public RealArray scaleAndShift(double scale, double shift, RealArray dest)
+            throws EuclidRuntimeException {
+        dest = checkDestination(dest);
+        double[] a = array;
+        double[] c = dest.array;
+        if (scale == 1.0) {
+            for (int i = 0; i < nelem; i++) {
+                c[i] = a[i] + shift;
+            }
+        } else {
+            for (int i = 0; i < nelem; i++) {
+                c[i] = a[i] * scale + shift;
+            }
+        }
+        return dest;
+    }
+    /**
+     * scale and shift. MODIFIES this = this * scale + shift
+     * 
+     * @param scale
+     * @param shift
+     */
+    public void scaleAndShiftEquals(double scale, double shift) {
+        scaleAndShift(scale, shift, this);
+    }
+    /**
+     * fused multiply-add. MODIFIES this += a * x
+     * 
+     * (the BLAS daxpy operation) avoids the temporary of
+     * plusEquals(x.multiplyBy(a))
+     * 
+     * @param a
+     *            multiplier of x
+     * @param x
+     *            array to add
+     * @exception EuclidRuntimeException
+     *                x is different size from <TT>this</TT>
+     */
+    public void axpy(double a, RealArray x) throws EuclidRuntimeException {
+        checkConformable(x);
+        double[] b = x.array;
+        double[] c = array;
         for (int i = 0; i < nelem; i++) {
-            m.array[i] += f;
+            c[i] += a * b[i];
+        }
+    }
+    // element-wise add; c may alias a or b
+    private static void add(double[] a, double[] b, double[] c, int n) {
+        for (int i = 0; i < n; i++) {
+            c[i] = a[i] + b[i];
+        }
+    }
+    // dest if conformable, or a new array if null
+    private RealArray checkDestination(RealArray dest) throws EuclidRuntimeException {
+        if (dest == null) {
+            dest = new RealArray();
+            dest.array = new double[nelem];
+            dest.checkSize(nelem);
+        } else if (dest.nelem != nelem) {
+            throw new EuclidRuntimeException("destination size (" + dest.nelem
+                    + ") != " + nelem);
         }
-        return m;
+        return dest;
     }
     
     /**
@@ -901,11 +1075,23 @@ public class RealArray extends ArrayBase implements Iterable<Double> {
      * @return sigma(this(i))
      */
     public double sumAllElements() {
-        double sum = 0.0;
-        for (int i = 0; i < nelem; i++) {
-            sum += array[i];
-        }
-        return sum;
+        // four independent partial sums let the JIT pipeline the additions
+        double[] a = array;
+        double s0 = 0.0;
+        double s1 = 0.0;
+        double s2 = 0.0;
+        double s3 = 0.0;
+        int i = 0;
+        for (; i < nelem - 3; i += 4) {
+            s0 += a[i];
+            s1 += a[i + 1];
+            s2 += a[i + 2];
+            s3 += a[i + 3];
+        }
+        for (; i < nelem; i++) {
+            s0 += a[i];
+        }
+        return (s0 + s1) + (s2 + s3);
     }
     
     /**
@@ -930,11 +1116,18 @@ public class RealArray extends ArrayBase implements Iterable<Double> {
      * @return sigma(abs(this(i)))
      */
     public double absSumAllElements() {
-        double sum = 0.0;
-        for (int i = 0; i < nelem; i++) {
-            sum += Math.abs(array[i]);
+        double[] a = array;
+        double s0 = 0.0;
+        double s1 = 0.0;
+        int i = 0;
+        for (; i < nelem - 1; i += 2) {
+            s0 += Math.abs(a[i]);
+            s1 += Math.abs(a[i + 1]);
         }
-        return sum;
+        if (i < nelem) {
+            s0 += Math.abs(a[i]);
+        }
+        return s0 + s1;
     }
     /**
      * inner product. dotProduct(this)
@@ -955,11 +1148,23 @@ public class RealArray extends ArrayBase implements Iterable<Double> {
      */
     public double dotProduct(RealArray f) throws EuclidRuntimeException {
         checkConformable(f);
-        double sum = 0.0;
-        for (int i = 0; i < nelem; i++) {
-            sum += array[i] * f.array[i];
+        double[] a = array;
+        double[] b = f.array;
+        double s0 = 0.0;
+        double s1 = 0.0;
+        double s2 = 0.0;
+        double s3 = 0.0;
+        int i = 0;
+        for (; i < nelem - 3; i += 4) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
         }
-        return sum;
+        for (; i < nelem; i++) {
+            s0 += a[i] * b[i];
+        }
+        return (s0 + s1) + (s2 + s3);
     }
     /**
      * Euclidean length of vector
@@ -1006,13 +1211,27 @@ public class RealArray extends ArrayBase implements Iterable<Double> {
      * @return each element is cumulative sum to that point
      */
     public RealArray cumulativeSum() {
-        RealArray temp = new RealArray(nelem);
+        return cumulativeSum(null);
+    }
+    /**
+     * cumulative sum of array into destination.
+     * 
+     * @param dest
+     *            same size as this (may be this), or null
+     * @exception EuclidRuntimeException
+     *                dest is different size from <TT>this</TT>
+     * @return dest with each element cumulative sum to that point
+     */
+    public RealArray cumulativeSum(RealArray dest) throws EuclidRuntimeException {
+        dest = checkDestination(dest);
+        double[] a = array;
+        double[] c = dest.array;
         double sum = 0.0;
         for (int i = 0; i < nelem; i++) {
-            sum += array[i];
-            temp.array[i] = sum;
+            sum += a[i];
+            c[i] = sum;
         }
-        return temp;
+        return dest;
     }
     /**
      * apply filter. convolute array with another array. This is 1-D image
@@ -1021,6 +1240,12 @@ public class RealArray extends ArrayBase implements Iterable<Double> {
      * filter can be created with a IntArray constructor filter is moved along
      * stepwise
      * </P>
+     * <P>
+     * near the ends only the overlapping part of the filter is used and
+     * renormalised. Long arrays are filtered in parallel and wide filters
+     * (at least 64 elements) by FFT, which agrees with the direct sum to
+     * rounding. For data arriving in blocks use StreamingFilter.
+     * </P>
      * 
      * @param filter
      *            to apply normally smaller than this
@@ -1030,44 +1255,76 @@ public class RealArray extends ArrayBase implements Iterable<Double> {
         if (nelem == 0 || filter == null || filter.nelem <= 1) {
             return this;
         }
-        int nfilter = filter.size();
-        int midfilter = (nfilter - 1) / 2;
         RealArray temp = new RealArray(nelem);
-        double wt = 0;
-        double sum = 0;
-        for (int j = 0; j < midfilter; j++) {
-            // get weight
-            wt = 0.0;
-            sum = 0.0;
-            int l = 0;
-            for (int k = midfilter - j; k < nfilter; k++) {
-                wt += Math.abs(filter.array[k]);
-                sum += filter.array[k] * this.array[l++];
-            }
-            temp.array[j] = sum / wt;
-        }
-        wt = filter.absSumAllElements();
-        for (int j = midfilter; j < nelem - midfilter; j++) {
-            sum = 0.0;
-            int l = j - midfilter;
-            for (int k = 0; k < nfilter; k++) {
-                sum += filter.array[k] * this.array[l++];
-            }
-            temp.array[j] = sum / wt;
-        }
-        for (int j = nelem - midfilter; j < nelem; j++) {
-            // get weight
-            wt = 0.0;
-            sum = 0.0;
-            int l = j - midfilter;
-            for (int k = 0; k < midfilter + nelem - j; k++) {
-                wt += Math.abs(filter.array[k]);
-                sum += filter.array[k] * this.array[l++];
-            }
-            temp.array[j] = sum / wt;
-        }
+        Convolution.filter(array, nelem, filter.getArray(), filter.absSumAllElements(), temp.array, 0, nelem);
         return temp;
     }
+    /**
+     * discrete Fourier transform.
+     * 
+     * any length is allowed; powers of 2 are fastest. See ComplexArray.fft()
+     * 
+     * @return transform of this (as complex array with zero imaginary parts)
+     */
+    public ComplexArray fft() {
+        return new ComplexArray(this).fft();
+    }
+    /**
+     * power spectrum. squared moduli of fft(), without normalisation.
+     * 
+     * @return power spectrum, same length as this
+     */
+    public RealArray powerSpectrum() {
+        return fft().getPowerSpectrum();
+    }
+    /**
+     * cross-correlation with another array. computed by FFT with zero
+     * padding, so it is not circular.
+     * 
+     * r(k) = sum(i) this(i + k) * other(i) for lags k from -(m - 1) to n - 1
+     * (n = size(), m = other.size()); r(k) is element k + m - 1 of the result.
+     * 
+     * @param other
+     * @return correlation of length n + m - 1; empty if either array is empty
+     */
+    public RealArray crossCorrelation(RealArray other) {
+        int m = other.nelem;
+        if (nelem == 0 || m == 0) {
+            return new RealArray();
+        }
+        int length = nelem + m - 1;
+        int size = FFT.nextPowerOf2(length);
+        // pack this and other into one complex transform
+        double[] z = new double[2 * size];
+        for (int i = 0; i < nelem; i++) {
+            z[2 * i] = array[i];
+        }
+        for (int i = 0; i < m; i++) {
+            z[2 * i + 1] = other.array[i];
+        }
+        FFT.transform(z, 0, size, false);
+        // A(k) = (Z(k) + conj(Z(-k))) / 2, B(k) = (Z(k) - conj(Z(-k))) / 2i; C = A conj(B)
+        double[] c = new double[2 * size];
+        for (int k = 0; k < size; k++) {
+            int nk = (size - k) % size;
+            double zr = z[2 * k];
+            double zi = z[2 * k + 1];
+            double wr = z[2 * nk];
+            double wi = -z[2 * nk + 1];
+            double ar = (zr + wr) / 2.0;
+            double ai = (zi + wi) / 2.0;
+            double br = (zi - wi) / 2.0;
+            double bi = -(zr - wr) / 2.0;
+            c[2 * k] = ar * br + ai * bi;
+            c[2 * k + 1] = ai * br - ar * bi;
+        }
+        FFT.transform(c, 0, size, true);
+        RealArray result = new RealArray(length);
+        for (int k = -(m - 1); k < nelem; k++) {
+            result.array[k + m - 1] = c[2 * ((k + size) % size)];
+        }
+        return result;
+    }
     /**
      * trims array to lie within limit.
      * 
@@ -1203,10 +1460,16 @@ public class RealArray extends ArrayBase implements Iterable<Double> {
         if (nelem == 0) {
             throw new ArrayIndexOutOfBoundsException();
         }
-        RealRange r = new RealRange();
-        for (int i = 0; i < nelem; i++) {
-            r.add(array[i]);
+        double[] a = array;
+        double min = a[0];
+        double max = a[0];
+        for (int i = 1; i < nelem; i++) {
+            min = Math.min(min, a[i]);
+            max = Math.max(max, a[i]);
         }
+        RealRange r = new RealRange();
+        r.add(min);
+        r.add(max);
         return r;
     }
     /**
@@ -1577,7 +1840,7 @@ public class RealArray extends ArrayBase implements Iterable<Double> {
      }
      --*/
     /**
-     * quick sort - modified from p96 - 97 (Hansen - C++ answer book)
+     * sorting - kernels are in ParallelSort
      * 
      * Scalar sort refers to sorting IntArray and RealArray (and similar
      * classes) where the objects themeselves are sorted.
@@ -1591,64 +1854,13 @@ public class RealArray extends ArrayBase implements Iterable<Double> {
         x[a] = x[b];
         x[b] = tmp;
     }
-    // scalar sort routines (internal)
-    private static final int CUTOFF = 16;
-    private void inssort(int left, int right) {
-        int k;
-        for (int i = left + 1; i <= right; i++) {
-            double v = array[i];
-            int j;
-            for (j = i, k = j - 1; j > 0 && array[k] > v; j--, k--) {
-                array[j] = array[k];
-            }
-            array[j] = v;
-        }
-    }
-    private int partition(int left, int right) {
-        int mid = (left + right) / 2;
-        if (array[left] > array[mid])
-            xfswap(array, left, mid);
-        if (array[left] > array[right])
-            xfswap(array, left, right);
-        if (array[mid] > array[right])
-            xfswap(array, mid, right);
-        int j = right - 1;
-        xfswap(array, mid, j);
-        int i = left;
-        double v = array[j];
-        do {
-            do {
-                i++;
-            } while (array[i] < v);
-            do {
-                j--;
-            } while (array[j] > v);
-            xfswap(array, i, j);
-        } while (i < j);
-        xfswap(array, j, i);
-        xfswap(array, i, right - 1);
-        return i;
-    }
-    private void iqsort(int left, int right) {
-        while (right - left > CUTOFF) {
-            int i = partition(left, right);
-            if (i - left > right - i) {
-                iqsort(i + 1, right);
-                right = i - 1;
-            } else {
-                iqsort(left, i - 1);
-                left = i + 1;
-            }
-        }
-    }
     /**
      * sorts array into ascending order. MODIFIES this
      */
     public void sortAscending() {
         if (nelem <= 0)
             return;
-        iqsort(0, nelem - 1);
-        inssort(0, nelem - 1);
+        ParallelSort.sort(array, 0, nelem);
     }
     /**
      * sorts array into descending order. MODIFIES this
@@ -1685,94 +1897,46 @@ public class RealArray extends ArrayBase implements Iterable<Double> {
     	return ra;
     }
     
-    private static final int XXCUTOFF = 16;
     /**
      * get indexes of ascending sorted array. this array NOT MODIFIED
      * 
+     * the sort is stable (equal elements keep their order) and large arrays
+     * are sorted in parallel
+     * 
      * @return indexes idx so that element(idx(0)) is lowest
      */
     public IntSet indexSortAscending() {
-        if (nelem <= 0) {
-            return new IntSet();
-        }
-        IntSet idx = new IntSet(nelem);
-        IntArray iarray = new IntArray(idx.getElements());
-        xxiqsort(iarray, array, 0, nelem - 1);
-        xxinssort(iarray, array, 0, nelem - 1);
-        try {
-            idx = new IntSet(iarray.getArray());
-        } catch (Exception e) {
-            throw new EuclidRuntimeException(e.toString());
-        }
-        return idx;
+        return IntSet.createPermutation(ParallelSort.argsort(array, nelem, false));
     }
     /**
      * get indexes of descending sorted array. this array NOT MODIFIED
      * 
+     * the sort is stable (equal elements keep their order)
+     * 
      * @return indexes idx so that element(idx(0)) is highest
      */
     public IntSet indexSortDescending() {
-        IntSet idx;
-        idx = indexSortAscending();
-        int[] temp = new IntArray(idx.getElements()).getReverseArray();
-        try {
-            idx = new IntSet(temp);
-        } catch (Exception e) {
-            throw new EuclidRuntimeException(e.toString());
-        }
-        return idx;
+        return IntSet.createPermutation(ParallelSort.argsort(array, nelem, true));
     }
-    private void xxinssort(IntArray iarr, double[] pfl, int left, int right) {
-        int j, k;
-        for (int i = left + 1; i <= right; i++) {
-            int v = iarr.elementAt(i);
-            for (j = i, k = j - 1; j > 0 && pfl[iarr.elementAt(k)] > pfl[v]; j--, k--) {
-                iarr.setElementAt(j, iarr.elementAt(k));
-            }
-            iarr.setElementAt(j, v);
-        }
-    }
-    private int xxpartition(IntArray iarr, double[] pfl, int left, int right) {
-        int mid = (left + right) / 2;
-        if (pfl[iarr.elementAt(left)] > pfl[iarr.elementAt(mid)])
-            xxfswap(iarr, left, mid);
-        if (pfl[iarr.elementAt(left)] > pfl[iarr.elementAt(right)])
-            xxfswap(iarr, left, right);
-        if (pfl[iarr.elementAt(mid)] > pfl[iarr.elementAt(right)])
-            xxfswap(iarr, mid, right);
-        int j = right - 1;
-        xxfswap(iarr, mid, j);
-        int i = left;
-        double v = pfl[iarr.elementAt(j)];
-        do {
-            do {
-                i++;
-            } while (pfl[iarr.elementAt(i)] < v);
-            do {
-                j--;
-            } while (pfl[iarr.elementAt(j)] > v);
-            xxfswap(iarr, i, j);
-        } while (i < j);
-        xxfswap(iarr, j, i);
-        xxfswap(iarr, i, right - 1);
-        return i;
-    }
-    private void xxiqsort(IntArray iarr, double[] pfl, int left, int right) {
-        while (right - left > XXCUTOFF) {
-            int i = xxpartition(iarr, pfl, left, right);
-            if (i - left > right - i) {
-                xxiqsort(iarr, pfl, i + 1, right);
-                right = i - 1;
-            } else {
-                xxiqsort(iarr, pfl, left, i - 1);
-                left = i + 1;
-            }
-        }
+    /**
+     * get indexes of the k smallest elements without sorting the whole array.
+     * this array NOT MODIFIED
+     * 
+     * @param k number of indexes (truncated to size())
+     * @return indexes in ascending order of element; ties in index order
+     */
+    public IntSet indexesOfSmallestElements(int k) {
+        return IntSet.createPermutation(ParallelSort.select(array, nelem, k, false));
     }
-    private void xxfswap(IntArray iarr, int a, int b) {
-        int t = iarr.elementAt(a);
-        iarr.setElementAt(a, iarr.elementAt(b));
-        iarr.setElementAt(b, t);
+    /**
+     * get indexes of the k largest elements without sorting the whole array.
+     * this array NOT MODIFIED
+     * 
+     * @param k number of indexes (truncated to size())
+     * @return indexes in descending order of element; ties in index order
+     */
+    public IntSet indexesOfLargestElements(int k) {
+        return IntSet.createPermutation(ParallelSort.select(array, nelem, k, true));
     }
     
     /**
@@ -0,0 +1,414 @@
+package org.xmlcml.euclid;
+
+/** rectangular real matrix held in a single contiguous double[].
+ *
+ * Alternative to RealMatrix (which holds one double[] per row). Element (i, j) is
+ * at data[offset + i * rowStride + j * colStride], so row, column, sub-matrix and
+ * transposed views share storage with the matrix they came from; altering a view
+ * alters the original and vice versa. Use copy() to detach.
+ *
+ * A freshly created matrix is contiguous in C order (rowStride = cols, colStride = 1)
+ * and getMatrixAsArray() then returns the backing array without copying.
+ *
+ */
+public class RealFlatMatrix implements EuclidConstants {
+
+	private double[] data;
+	private int offset;
+	private int rows;
+	private int cols;
+	private int rowStride;
+	private int colStride;
+
+	/** create zeroed matrix.
+	 *
+	 * @param rows
+	 * @param cols
+	 */
+	public RealFlatMatrix(int rows, int cols) {
+		this(new double[Math.max(rows, 0) * Math.max(cols, 0)], 0,
+				Math.max(rows, 0), Math.max(cols, 0), Math.max(cols, 0), 1);
+	}
+
+	/** wrap existing array in C order (column fastest).
+	 *
+	 * the array is NOT copied.
+	 *
+	 * @param rows
+	 * @param cols
+	 * @param array of length rows * cols
+	 * @throws EuclidRuntimeException if array is wrong size
+	 */
+	public RealFlatMatrix(int rows, int cols, double[] array) throws EuclidRuntimeException {
+		this(array, 0, rows, cols, cols, 1);
+		if (array == null || array.length != rows * cols) {
+			throw new EuclidRuntimeException("rows * cols (" + rows + S_STAR + cols
+					+ ") != array (" + (array == null ? null : array.length) + S_RBRAK);
+		}
+	}
+
+	/** copy of RealMatrix.
+	 *
+	 * @param m
+	 */
+	public RealFlatMatrix(RealMatrix m) {
+		this(m.getRows(), m.getCols());
+		double[][] flmat = m.getMatrix();
+		for (int i = 0; i < rows; i++) {
+			System.arraycopy(flmat[i], 0, data, i * cols, cols);
+		}
+	}
+
+	/** copy of IntMatrix.
+	 *
+	 * @param m
+	 */
+	public RealFlatMatrix(IntMatrix m) {
+		this(m.getRows(), m.getCols());
+		int[][] mat = m.getMatrix();
+		int k = 0;
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < cols; j++) {
+				data[k++] = mat[i][j];
+			}
+		}
+	}
+
+	private RealFlatMatrix(double[] data, int offset, int rows, int cols, int rowStride, int colStride) {
+		this.data = data;
+		this.offset = offset;
+		this.rows = rows;
+		this.cols = cols;
+		this.rowStride = rowStride;
+		this.colStride = colStride;
+	}
+
+	/**
+	 * @return number of rows
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * @return number of columns
+	 */
+	public int getCols() {
+		return cols;
+	}
+
+	/** backing array (shared with all views).
+	 *
+	 * @return array
+	 */
+	public double[] getData() {
+		return data;
+	}
+
+	/**
+	 * @return index in getData() of element (0, 0)
+	 */
+	public int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * @return increment in getData() between rows
+	 */
+	public int getRowStride() {
+		return rowStride;
+	}
+
+	/**
+	 * @return increment in getData() between columns
+	 */
+	public int getColStride() {
+		return colStride;
+	}
+
+	/** is the matrix the whole of its backing array in C order.
+	 *
+	 * @return true if getMatrixAsArray() needs no copy
+	 */
+	public boolean isContiguous() {
+		return offset == 0 && colStride == 1 && (rowStride == cols || rows <= 1)
+				&& data.length == rows * cols;
+	}
+
+	/** extracts a given element.
+	 *
+	 * @param row
+	 * @param col
+	 * @return element
+	 * @throws EuclidRuntimeException bad row or col
+	 */
+	public double elementAt(int row, int col) throws EuclidRuntimeException {
+		checkRow(row);
+		checkColumn(col);
+		return data[offset + row * rowStride + col * colStride];
+	}
+
+	/** sets a given element.
+	 *
+	 * MODIFIES matrix (and any views sharing the element)
+	 * @param row
+	 * @param col
+	 * @param f
+	 * @throws EuclidRuntimeException bad row or col
+	 */
+	public void setElementAt(int row, int col, double f) throws EuclidRuntimeException {
+		checkRow(row);
+		checkColumn(col);
+		data[offset + row * rowStride + col * colStride] = f;
+	}
+
+	private void checkRow(int row) throws EuclidRuntimeException {
+		if (row < 0 || row >= rows)
+			throw new EuclidRuntimeException("Bad value of row: " + row + S_SLASH + rows);
+	}
+
+	private void checkColumn(int col) throws EuclidRuntimeException {
+		if (col < 0 || col >= cols)
+			throw new EuclidRuntimeException("Bad value of col: " + col + S_SLASH + cols);
+	}
+
+	/** matrix as 1-D array in C order: (m(0,0), m(0,1) ...).
+	 *
+	 * if isContiguous() this is the backing array itself (NOT a copy), so
+	 * alterations to it alter the matrix. Otherwise a copy.
+	 *
+	 * @return array
+	 */
+	public double[] getMatrixAsArray() {
+		if (isContiguous()) {
+			return data;
+		}
+		double[] temp = new double[rows * cols];
+		copyTo(temp);
+		return temp;
+	}
+
+	private void copyTo(double[] temp) {
+		int k = 0;
+		for (int i = 0; i < rows; i++) {
+			int ii = offset + i * rowStride;
+			if (colStride == 1) {
+				System.arraycopy(data, ii, temp, k, cols);
+				k += cols;
+			} else {
+				for (int j = 0; j < cols; j++) {
+					temp[k++] = data[ii];
+					ii += colStride;
+				}
+			}
+		}
+	}
+
+	/** deep copy, contiguous in C order.
+	 *
+	 * @return new matrix not sharing storage
+	 */
+	public RealFlatMatrix copy() {
+		RealFlatMatrix m = new RealFlatMatrix(rows, cols);
+		copyTo(m.data);
+		return m;
+	}
+
+	/** convert to RealMatrix (copy).
+	 *
+	 * @return new matrix
+	 */
+	public RealMatrix getRealMatrix() {
+		return new RealMatrix(getMatrix());
+	}
+
+	/** copy as java 2-D array.
+	 *
+	 * @return new array
+	 */
+	public double[][] getMatrix() {
+		double[][] m = new double[rows][cols];
+		for (int i = 0; i < rows; i++) {
+			int ii = offset + i * rowStride;
+			if (colStride == 1) {
+				System.arraycopy(data, ii, m[i], 0, cols);
+			} else {
+				double[] mi = m[i];
+				for (int j = 0; j < cols; j++) {
+					mi[j] = data[ii];
+					ii += colStride;
+				}
+			}
+		}
+		return m;
+	}
+
+	/** transpose as view.
+	 *
+	 * no data are copied; the view shares storage with this.
+	 *
+	 * @return transposed view
+	 */
+	public RealFlatMatrix getTranspose() {
+		return new RealFlatMatrix(data, offset, cols, rows, colStride, rowStride);
+	}
+
+	/** row as 1 * cols view.
+	 *
+	 * @param row
+	 * @return view sharing storage
+	 * @throws EuclidRuntimeException bad row
+	 */
+	public RealFlatMatrix getRowView(int row) throws EuclidRuntimeException {
+		checkRow(row);
+		return new RealFlatMatrix(data, offset + row * rowStride, 1, cols, rowStride, colStride);
+	}
+
+	/** column as rows * 1 view.
+	 *
+	 * @param col
+	 * @return view sharing storage
+	 * @throws EuclidRuntimeException bad col
+	 */
+	public RealFlatMatrix getColumnView(int col) throws EuclidRuntimeException {
+		checkColumn(col);
+		return new RealFlatMatrix(data, offset + col * colStride, rows, 1, rowStride, colStride);
+	}
+
+	/** sub-matrix as view.
+	 *
+	 * @param lowrow inclusive
+	 * @param hirow inclusive
+	 * @param lowcol inclusive
+	 * @param hicol inclusive
+	 * @return view sharing storage
+	 * @throws EuclidRuntimeException impossible values of indexes
+	 */
+	public RealFlatMatrix getSubMatrixView(int lowrow, int hirow, int lowcol, int hicol)
+			throws EuclidRuntimeException {
+		if (hirow >= rows || lowrow < 0 || hirow < lowrow) {
+			throw new EuclidRuntimeException("bad row index: " + lowrow + S_SLASH + hirow
+					+ " outside 0/" + rows);
+		}
+		if (hicol >= cols || lowcol < 0 || hicol < lowcol) {
+			throw new EuclidRuntimeException("bad col index: " + lowcol + S_SLASH + hicol
+					+ " outside 0/" + cols);
+		}
+		return new RealFlatMatrix(data, offset + lowrow * rowStride + lowcol * colStride,
+				hirow - lowrow + 1, hicol - lowcol + 1, rowStride, colStride);
+	}
+
+	/** row data (copy).
+	 *
+	 * @param row
+	 * @return array of length cols
+	 * @throws EuclidRuntimeException bad row
+	 */
+	public RealArray extractRowData(int row) throws EuclidRuntimeException {
+		return new RealArray(getRowView(row).getMatrixAsArray());
+	}
+
+	/** column data (copy).
+	 *
+	 * @param col
+	 * @return array of length rows
+	 * @throws EuclidRuntimeException bad col
+	 */
+	public RealArray extractColumnData(int col) throws EuclidRuntimeException {
+		checkColumn(col);
+		double[] temp = new double[rows];
+		int ii = offset + col * colStride;
+		for (int i = 0; i < rows; i++) {
+			temp[i] = data[ii];
+			ii += rowStride;
+		}
+		return new RealArray(temp);
+	}
+
+	/** set all elements (of this view).
+	 *
+	 * @param f
+	 */
+	public void setAllElements(double f) {
+		for (int i = 0; i < rows; i++) {
+			int ii = offset + i * rowStride;
+			for (int j = 0; j < cols; j++) {
+				data[ii] = f;
+				ii += colStride;
+			}
+		}
+	}
+
+	/** multiply all elements by scalar.
+	 *
+	 * MODIFIES matrix
+	 * @param f
+	 */
+	public void multiplyBy(double f) {
+		for (int i = 0; i < rows; i++) {
+			int ii = offset + i * rowStride;
+			for (int j = 0; j < cols; j++) {
+				data[ii] *= f;
+				ii += colStride;
+			}
+		}
+	}
+
+	/** matrix multiplication.
+	 *
+	 * result = this * m as new contiguous matrix; works on views of any stride
+	 *
+	 * @param m
+	 * @return new matrix
+	 * @throws EuclidRuntimeException m.rows != this.cols
+	 */
+	public RealFlatMatrix multiply(RealFlatMatrix m) throws EuclidRuntimeException {
+		if (m.rows != this.cols) {
+			throw new EuclidRuntimeException("unequal matrices (" + this.cols + ", "
+					+ m.rows + S_RBRAK);
+		}
+		RealFlatMatrix result = new RealFlatMatrix(rows, m.cols);
+		double[] c = result.data;
+		int ncols = m.cols;
+		for (int i = 0; i < rows; i++) {
+			int ci = i * ncols;
+			int aik = offset + i * rowStride;
+			for (int k = 0; k < cols; k++) {
+				double a = data[aik];
+				aik += colStride;
+				int bkj = m.offset + k * m.rowStride;
+				for (int j = 0; j < ncols; j++) {
+					c[ci + j] += a * m.data[bkj];
+					bkj += m.colStride;
+				}
+			}
+		}
+		return result;
+	}
+
+	/** are all elements equal (within Real.isEqual()).
+	 *
+	 * @param m
+	 * @return true if same shape and elements
+	 */
+	public boolean isEqualTo(RealFlatMatrix m) {
+		if (m == null || m.rows != rows || m.cols != cols) {
+			return false;
+		}
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < cols; j++) {
+				if (!Real.isEqual(data[offset + i * rowStride + j * colStride],
+						m.data[m.offset + i * m.rowStride + j * m.colStride])) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/** same format as RealMatrix.toString().
+	 */
+	public String toString() {
+		return getRealMatrix().toString();
+	}
+}
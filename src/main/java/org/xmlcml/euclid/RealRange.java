@@ -324,6 +324,15 @@ public class RealRange implements EuclidConstants, Comparable<RealRange>  {
         return minval + Math.random() * range;
     }
 
+    /** return a number uniformly distributed within the range.
+     * 
+     * @param stream source of random numbers (not shared between threads)
+     * @return number.
+     */
+    public double getRandomVariate(RandomStream stream) {
+        return stream.nextUniform(minval, maxval);
+    }
+
     /** get scale to convert this range to same extent as other.
      * 
      * @param range to scale to
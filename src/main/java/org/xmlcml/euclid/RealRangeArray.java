@@ -10,7 +10,10 @@ import org.xmlcml.euclid.RealRange.Direction;
 
 /** holds an array of RealRanges
  * may or may not overlap or be sorted
- * perhaps replace by Google rangeSet of IntervalTree later
+ * 
+ * setIndexed(true) answers includes() and the getRanges...() queries from a
+ * RealRangeIndex (interval tree) rebuilt after changes made through this class;
+ * ranges changed directly (e.g. get(i).plusEquals()) need setIndexed(true) again.
  * @author pm286
  *
  */
@@ -19,6 +22,8 @@ public class RealRangeArray implements Iterable<RealRange> {
 	private static final PrintStream SYSOUT = System.out;
 	private List<RealRange> rangeList;
 	private Direction direction;
+	private boolean indexed;
+	private RealRangeIndex index;
 
 	public RealRangeArray() {
 		init();
@@ -62,11 +67,13 @@ public class RealRangeArray implements Iterable<RealRange> {
 	public void add(RealRange range) {
 		if (range != null && rangeList != null) {
 			rangeList.add(range);
+			index = null;
 		}
 	}
 	
 	public void sort() {
 		Collections.sort(rangeList);
+		index = null;
 	}
 	
 	/** sort ranges into order and merge overlapping ones
@@ -95,6 +102,7 @@ public class RealRangeArray implements Iterable<RealRange> {
 			}
 		}
 		rangeList = newList;
+		index = null;
 	}
 
 	@Override
@@ -212,27 +220,99 @@ public class RealRangeArray implements Iterable<RealRange> {
 	 * @param rangeMin
 	 */
 	public void removeLessThan(double rangeMin) {
-		List<RealRange> copyList = new ArrayList<RealRange>(rangeList);
-		for (int i = 0; i < copyList.size(); i++) {
-			RealRange range = copyList.get(i);
-			if (range.getRange() < rangeMin) {
-				rangeList.remove(range);
+		int j = 0;
+		for (int i = 0; i < rangeList.size(); i++) {
+			RealRange range = rangeList.get(i);
+			if (!(range.getRange() < rangeMin)) {
+				rangeList.set(j++, range);
 			}
 		}
+		rangeList.subList(j, rangeList.size()).clear();
+		index = null;
 	}
 
 	/** is the range completely contained within any subrange?
 	 * 
+	 * O(log n) if indexed
 	 * @param lowXRange
 	 * @return
 	 */
 	public boolean includes(RealRange rr) {
+		if (indexed) {
+			return getIndex().includes(rr);
+		}
 		for (RealRange range : rangeList) {
 			if (range.includes(rr)) return true;
 		}
 		return false;
 	}
 
+	/** ranges which include x
+	 * 
+	 * O(log n + k) if indexed
+	 * @param x
+	 * @return ranges in order of this array
+	 */
+	public List<RealRange> getRangesContaining(double x) {
+		if (indexed) {
+			return getIndex().getRangesContaining(x);
+		}
+		List<RealRange> result = new ArrayList<RealRange>();
+		for (RealRange range : rangeList) {
+			if (range.isValid() && range.includes(x)) {
+				result.add(range);
+			}
+		}
+		return result;
+	}
+
+	/** ranges which intersect rr (including touching ends)
+	 * 
+	 * O(log n + k) if indexed
+	 * @param rr
+	 * @return ranges in order of this array
+	 */
+	public List<RealRange> getRangesOverlapping(RealRange rr) {
+		if (indexed) {
+			return getIndex().getRangesOverlapping(rr);
+		}
+		List<RealRange> result = new ArrayList<RealRange>();
+		if (rr != null) {
+			for (RealRange range : rangeList) {
+				if (range.intersectsWith(rr)) {
+					result.add(range);
+				}
+			}
+		}
+		return result;
+	}
+
+	/** answer queries from an interval tree
+	 * 
+	 * setIndexed(true) also rebuilds the index
+	 * @param indexed
+	 */
+	public void setIndexed(boolean indexed) {
+		this.indexed = indexed;
+		index = null;
+	}
+
+	public boolean isIndexed() {
+		return indexed;
+	}
+
+	/** interval index of the current ranges
+	 * 
+	 * built on demand and kept until this array is changed
+	 * @return index
+	 */
+	public RealRangeIndex getIndex() {
+		if (index == null) {
+			index = new RealRangeIndex(rangeList);
+		}
+		return index;
+	}
+
 	public void setDirection(Direction direction) {
 		this.direction = direction;
 	}
@@ -254,6 +334,7 @@ public class RealRangeArray implements Iterable<RealRange> {
 		for (RealRange range : rangeList) {
 			range.format(decimalPlaces);
 		}
+		index = null;
 	}
 
 	public RealArray getGaps() {
@@ -289,6 +370,7 @@ public class RealRangeArray implements Iterable<RealRange> {
 				}
 			}
 			rangeList.get(rangeList.size()-1).extendUpperEndBy(tolerance);
+			index = null;
 		}
 	}
 
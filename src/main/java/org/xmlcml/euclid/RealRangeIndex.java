@@ -0,0 +1,139 @@
+package org.xmlcml.euclid;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import blogspot.software_and_algorithms.stern_library.data_structure.StaticIntervalTree;
+
+/** static interval index over a list of RealRanges.
+ *
+ * stabbing (containing a point), overlap and inclusion queries take
+ * O(log n + k) for k results, using a StaticIntervalTree of
+ * RealRangeIntervals. Ranges are closed as in RealRange.includes().
+ *
+ * the index is a snapshot: it holds the ranges but not their endpoints, so
+ * it must be rebuilt if ranges are added, removed or changed. Invalid ranges
+ * are skipped. Results are in the order of the original list.
+ *
+ */
+public class RealRangeIndex {
+
+	private final static Comparator<RealRangeInterval> SERIAL_COMPARATOR = new Comparator<RealRangeInterval>() {
+		public int compare(RealRangeInterval o1, RealRangeInterval o2) {
+			return (o1.getSerial() < o2.getSerial()) ? -1 : ((o1.getSerial() == o2.getSerial()) ? 0 : 1);
+		}
+	};
+
+	private StaticIntervalTree<Double, RealRangeInterval> tree;
+	private int size;
+
+	/** index ranges.
+	 *
+	 * @param ranges null entries and invalid ranges are skipped
+	 */
+	public RealRangeIndex(List<RealRange> ranges) {
+		Set<RealRangeInterval> intervals = new HashSet<RealRangeInterval>();
+		for (int i = 0; i < ranges.size(); i++) {
+			RealRange range = ranges.get(i);
+			if (range != null && range.isValid()) {
+				intervals.add(new RealRangeInterval(range, i));
+			}
+		}
+		size = intervals.size();
+		if (size > 0) {
+			tree = new StaticIntervalTree<Double, RealRangeInterval>();
+			tree.buildTree(intervals);
+			for (RealRangeInterval interval : intervals) {
+				tree.insert(interval);
+			}
+		}
+	}
+
+	/** @return number of indexed ranges */
+	public int size() {
+		return size;
+	}
+
+	/** ranges which include x.
+	 *
+	 * @param x
+	 * @return ranges in list order; empty if none or x is NaN
+	 */
+	public List<RealRange> getRangesContaining(double x) {
+		if (tree == null || Double.isNaN(x)) {
+			return new ArrayList<RealRange>();
+		}
+		return toRanges(fetchContaining(x));
+	}
+
+	/** ranges which intersect range (including touching ends).
+	 *
+	 * @param range
+	 * @return ranges in list order; empty if none or range is invalid
+	 */
+	public List<RealRange> getRangesOverlapping(RealRange range) {
+		if (tree == null || range == null || !range.isValid()) {
+			return new ArrayList<RealRange>();
+		}
+		RealRangeInterval query = new RealRangeInterval(range, -1);
+		return toRanges(tree.fetchOverlappingIntervals(new ArrayList<RealRangeInterval>(), query));
+	}
+
+	/** ranges which include the whole of range.
+	 *
+	 * @param range
+	 * @return ranges in list order; empty if none or range is invalid
+	 */
+	public List<RealRange> getRangesIncluding(RealRange range) {
+		List<RealRange> result = new ArrayList<RealRange>();
+		if (tree == null || range == null || !range.isValid()) {
+			return result;
+		}
+		double max = RealRangeInterval.normalize(range.getMax());
+		for (RealRangeInterval interval : sorted(fetchContaining(range.getMin()))) {
+			if (interval.getHigh() >= max) {
+				result.add(interval.getRange());
+			}
+		}
+		return result;
+	}
+
+	/** is range completely within any indexed range?
+	 *
+	 * @param range
+	 * @return true if included
+	 */
+	public boolean includes(RealRange range) {
+		if (tree == null || range == null || !range.isValid()) {
+			return false;
+		}
+		double max = RealRangeInterval.normalize(range.getMax());
+		for (RealRangeInterval interval : fetchContaining(range.getMin())) {
+			if (interval.getHigh() >= max) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private List<RealRangeInterval> fetchContaining(double x) {
+		return tree.fetchContainingIntervals(new ArrayList<RealRangeInterval>(), RealRangeInterval.normalize(x));
+	}
+
+	private static List<RealRangeInterval> sorted(List<RealRangeInterval> intervals) {
+		Collections.sort(intervals, SERIAL_COMPARATOR);
+		return intervals;
+	}
+
+	private static List<RealRange> toRanges(List<RealRangeInterval> intervals) {
+		List<RealRange> ranges = new ArrayList<RealRange>(intervals.size());
+		for (RealRangeInterval interval : sorted(intervals)) {
+			ranges.add(interval.getRange());
+		}
+		return ranges;
+	}
+}
@@ -0,0 +1,72 @@
+package org.xmlcml.euclid;
+
+import blogspot.software_and_algorithms.stern_library.data_structure.Interval;
+
+/** closed Interval over a RealRange for the stern_library interval trees.
+ *
+ * endpoints are copied when created, so later changes to the range are not
+ * seen. -0.0 is stored as 0.0 so that containment agrees with
+ * RealRange.includes(). Intervals are ordered by endpoints then serial, so
+ * equal ranges with different serials are distinct in the trees.
+ *
+ */
+public class RealRangeInterval extends Interval<Double> {
+
+	private RealRange range;
+	private int serial;
+
+	/** interval for a valid range.
+	 *
+	 * @param range
+	 * @param serial position of range in its collection
+	 * @throws EuclidRuntimeException if range is null or invalid
+	 */
+	public RealRangeInterval(RealRange range, int serial) {
+		super(checkedMin(range), true, normalize(range.getMax()), true);
+		this.range = range;
+		this.serial = serial;
+	}
+
+	private static Double checkedMin(RealRange range) {
+		if (range == null || !range.isValid()) {
+			throw new EuclidRuntimeException("cannot index invalid range: " + range);
+		}
+		return normalize(range.getMin());
+	}
+
+	/** @param x
+	 * @return x, with -0.0 as 0.0 */
+	static Double normalize(double x) {
+		return (x == 0.0) ? 0.0 : x;
+	}
+
+	/** @return range (not copied) */
+	public RealRange getRange() {
+		return range;
+	}
+
+	/** @return serial */
+	public int getSerial() {
+		return serial;
+	}
+
+	@Override
+	public int compareTo(Interval<Double> o) {
+		int result = super.compareTo(o);
+		if (result == 0 && o instanceof RealRangeInterval) {
+			int s = ((RealRangeInterval) o).serial;
+			result = (serial < s) ? -1 : ((serial == s) ? 0 : 1);
+		}
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return super.equals(obj) && ((RealRangeInterval) obj).serial == serial;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * super.hashCode() + serial;
+	}
+}
@@ -1,7 +1,6 @@
 package org.xmlcml.euclid;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import org.apache.log4j.Logger;
@@ -16,10 +15,12 @@ import org.xmlcml.euclid.RealRange;
  * it does not overlap it is inserted in the free space. If it overlaps with
  * either or both they merge.
  * 
- * Currently buublesort-like and assumes "not too many" and may suffer from
- * quadratic performance.
+ * the insertion point is found by binary search on the (disjoint, sorted)
+ * ranges and overlapping neighbours are removed as one block, so adding is
+ * O(log n) comparisons plus the merged ranges.
  * 
- * // TODO add binary chop or other sort
+ * for stabbing and overlap queries over ranges that may overlap, see
+ * RealRangeArray.setIndexed() and RealRangeIndex.
  * 
  * @author pm286
  * 
@@ -30,10 +31,8 @@ public class RealRangeList {
 	private final static Logger LOG = Logger.getLogger(RealRangeList.class);
 
 	private List<RealRange> rangeList;
-	private int pointer;
 	private boolean merged;
 	private RealRange newRange;
-	private RealRange oldRange;
 
 	public RealRangeList() {
 		rangeList = new ArrayList<RealRange>();
@@ -115,45 +114,39 @@ public class RealRangeList {
 //	}
 	
 	private int insertRange1() {
-		pointer = findFirstLargerOrOverlappingExistingRange();
-		int firstHigher = pointer;
-		List<Integer> overlappingRanges = findAllOverlappingRanges();
-		subsumeAndDeleteAllOverlappingRanges(overlappingRanges);
+		int firstHigher = findFirstLargerOrOverlappingExistingRange();
+		int end = findEndOfOverlappingRanges(firstHigher);
+		subsumeAndDeleteAllOverlappingRanges(firstHigher, end);
 		rangeList.add(firstHigher, newRange);
 		return firstHigher;
 	}
 
+	// ranges are disjoint and sorted so their maxima increase
 	private int findFirstLargerOrOverlappingExistingRange() {
-		pointer = 0;
-		for (; pointer < rangeList.size(); pointer++) {
-			oldRange = rangeList.get(pointer);
-			if (oldRange.getMax() >= newRange.getMin()) {
-				break;
+		int low = 0;
+		int high = rangeList.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (rangeList.get(mid).getMax() >= newRange.getMin()) {
+				high = mid;
+			} else {
+				low = mid + 1;
 			}
 		}
-		return pointer;
+		return low;
 	}
 
-	private List<Integer> findAllOverlappingRanges() {
-		List<Integer> overlappingRanges = new ArrayList<Integer>();
-		for (; pointer < rangeList.size(); pointer++) {
-			oldRange = rangeList.get(pointer);
-			if (oldRange.getMin() > newRange.getMax()) {
-				break;
-			}
-			newRange.plusEquals(oldRange);
-			overlappingRanges.add(pointer);
+	private int findEndOfOverlappingRanges(int start) {
+		int end = start;
+		while (end < rangeList.size() && rangeList.get(end).getMin() <= newRange.getMax()) {
+			newRange.plusEquals(rangeList.get(end));
+			end++;
 		}
-		return overlappingRanges;
+		return end;
 	}
 
-	private void subsumeAndDeleteAllOverlappingRanges(List<Integer> overlappingRanges) {
-		Collections.reverse(overlappingRanges);
-		int noverlap = overlappingRanges.size();
-		for (int i = 0; i < noverlap; i++) {
-			int toRemove = overlappingRanges.get(i);
-			rangeList.remove(toRemove);
-		}
+	private void subsumeAndDeleteAllOverlappingRanges(int start, int end) {
+		rangeList.subList(start, end).clear();
 	}
 
 //	private void removeOverlappedRangesAndReplaceByOverallRange(
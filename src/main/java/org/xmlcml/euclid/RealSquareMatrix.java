@@ -60,10 +60,10 @@ public class RealSquareMatrix extends RealMatrix {
             this.i = i;
         }
     }
-	private EigenDecompositionImpl eigenDecompositionImpl;
-	private RealSquareMatrix inverse;
-	private RealArray eigenvalues;
+	private SymmetricEigenDecomposition eigenDecomposition;
 	private RealSquareMatrix eigenvectors;
+	private double[] eigenvectorsOf;
+	private LUDecomposition luDecomposition;
     /**
      * Constructor. This gives a default matrix with cols = rows = 0.
      */
@@ -324,8 +324,8 @@ public class RealSquareMatrix extends RealMatrix {
         return sqm;
     }
     /**
-     * determinant. hardcoded up to order 3 at present; rest is VERY slow :-(
-     * calls determinant recursively for order > 3
+     * determinant. hardcoded up to order 3; larger matrices use the
+     * (cached) LU decomposition
      * 
      * @return the determinant
      */
@@ -342,34 +342,48 @@ public class RealSquareMatrix extends RealMatrix {
                     * (flmat[1][2] * flmat[2][0] - flmat[1][0] * flmat[2][2])
                     + flmat[0][2]
                     * (flmat[1][0] * flmat[2][1] - flmat[1][1] * flmat[2][0]);
-        } else {
-            int sign = 1;
-            for (int j = 0; j < cols; j++) {
-                det += sign * flmat[0][j] * minorDet(j);
-                sign = -sign;
-            }
+        } else if (rows > 3) {
+            det = getLUDecomposition().getDeterminant();
         }
         return det;
     }
-    private double minorDet(int ii) {
-        int r = rows - 1;
-        double array[] = new double[r * r];
-        int countN = 0;
-        for (int i = 1; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                if (j != ii) {
-                    array[countN++] = flmat[i][j];
-                }
-            }
+    /**
+     * LU decomposition (partial pivoting) of this.
+     * 
+     * cached; recalculated if the matrix elements have changed since the last call
+     * 
+     * @return decomposition
+     */
+    public LUDecomposition getLUDecomposition() {
+        if (luDecomposition == null || !luDecomposition.isDecompositionOf(flmat)) {
+            luDecomposition = new LUDecomposition(flmat);
         }
-        RealSquareMatrix mm = null;
-        try {
-            mm = new RealSquareMatrix(r, array);
-        } catch (Exception e) {
-            throw new EuclidRuntimeException(e.toString());
+        return luDecomposition;
+    }
+    /**
+     * discard cached LU decomposition.
+     */
+    public void resetLUDecomposition() {
+        luDecomposition = null;
+    }
+    /**
+     * solve linear equations this * x = b.
+     * 
+     * uses cached LU decomposition
+     * 
+     * @param b
+     *            right hand side (length rows)
+     * @exception EuclidRuntimeException
+     *                singular matrix or b of wrong length
+     * @return x
+     */
+    public RealArray solve(RealArray b) throws EuclidRuntimeException {
+        if (b.size() != rows) {
+            throw new EuclidRuntimeException("array size ("+b.size()+") != rows ("+rows+")");
         }
-        double d = mm.determinant();
-        return d;
+        double[] bb = new double[rows];
+        System.arraycopy(b.getArray(), 0, bb, 0, rows);
+        return new RealArray(getLUDecomposition().solve(bb));
     }
     /**
      * trace.
@@ -679,45 +693,92 @@ public class RealSquareMatrix extends RealMatrix {
         }
     }
 
+    /**
+     * eigenvalues of symmetric matrix.
+     * 
+     * only the eigenvalues are calculated (vectors are not accumulated)
+     * 
+     * @return eigenvalues in decreasing order; null if not symmetric
+     */
     public RealArray calculateEigenvalues() {
-    	solveDecomposition();
-    	return eigenvalues;
+    	SymmetricEigenDecomposition decomposition = getSymmetricEigenDecomposition(false);
+    	return decomposition == null ? null : new RealArray(decomposition.getEigenvalues());
     }
     
+    /**
+     * inverse by LU decomposition.
+     * 
+     * @return inverse or null if singular
+     */
     public RealSquareMatrix calculateInverse() {
-    	solveDecomposition();
-    	return inverse;
+    	LUDecomposition lu = getLUDecomposition();
+    	return lu.isSingular() ? null : new RealSquareMatrix(lu.getInverse());
     }
-	private void solveDecomposition() {
-		if (eigenDecompositionImpl == null) {
-	    	Array2DRowRealMatrix realMatrix = new Array2DRowRealMatrix(this.getMatrix());
-	    	try {
-		    	eigenDecompositionImpl = new EigenDecompositionImpl(realMatrix, 0.0);
-		    	inverse = new RealSquareMatrix(eigenDecompositionImpl.getSolver().getInverse().getData());
-		    	eigenvalues = new RealArray(eigenDecompositionImpl.getRealEigenvalues());
-	    		eigenvectors = new RealSquareMatrix(eigenDecompositionImpl.getV().getData());
-	    	} catch (InvalidMatrixException ime) {
-		    	inverse = null;
-		    	eigenvalues = null;
-	    		eigenvectors = null;
-	    	}
-		}
-	}
     
 	/**
     	V is an orthogonal matrix, i.e. its transpose is also its inverse.
-    	The columns of V are the eigenvectors of the original matrix.    	
-    	uses apachae.commons.math
-	 * @return
+    	The columns of V are the eigenvectors of the original matrix,
+    	in the same order as calculateEigenvalues().
+    	uses apache.commons.math, whose choice of eigenvector signs callers
+    	such as Point3Vector.calculateRotationToInertialAxes() rely on;
+    	getSymmetricEigenDecomposition(true) is faster but may differ in sign.
+    	cached; recalculated if the matrix elements have changed since the last call
+	 * @return V or null if not symmetric
 	 */
     public RealSquareMatrix calculateEigenvectors() {
-    	solveDecomposition();
+    	if (eigenvectorsOf == null || !hasElements(eigenvectorsOf)) {
+    		eigenvectorsOf = getMatrixAsArray();
+	    	try {
+	    		EigenDecompositionImpl eigenDecompositionImpl = new EigenDecompositionImpl(
+	    				new Array2DRowRealMatrix(flmat, false), 0.0);
+	    		eigenvectors = new RealSquareMatrix(eigenDecompositionImpl.getV().getData());
+	    	} catch (InvalidMatrixException ime) {
+	    		eigenvectors = null;
+	    	}
+    	}
     	return eigenvectors;
     }
     
+    private boolean hasElements(double[] snapshot) {
+    	if (snapshot.length != rows * cols) {
+    		return false;
+    	}
+    	for (int i = 0; i < rows; i++) {
+    		for (int j = 0; j < cols; j++) {
+    			if (Double.doubleToLongBits(flmat[i][j]) != Double.doubleToLongBits(snapshot[i * cols + j])) {
+    				return false;
+    			}
+    		}
+    	}
+    	return true;
+    }
+    
+    /**
+     * eigen decomposition of symmetric matrix.
+     * 
+     * cached; recalculated if the matrix elements have changed since the last call
+     * or if vectors are wanted and were not calculated
+     * 
+     * @param computeVectors
+     * @return decomposition or null if matrix is not symmetric
+     */
+    public SymmetricEigenDecomposition getSymmetricEigenDecomposition(boolean computeVectors) {
+    	if (eigenDecomposition == null || !eigenDecomposition.isDecompositionOf(flmat)
+    			|| (computeVectors && !eigenDecomposition.hasEigenvectors())) {
+    		eigenDecomposition = isSymmetric()
+    				? new SymmetricEigenDecomposition(flmat, computeVectors) : null;
+    	}
+    	return eigenDecomposition;
+    }
+    
+    /**
+     * discard cached eigen and LU decompositions.
+     */
     public void resetEigenDecomposition() {
-    	eigenDecompositionImpl = null;
-    	inverse = null;
+    	eigenDecomposition = null;
+    	eigenvectors = null;
+    	eigenvectorsOf = null;
+    	luDecomposition = null;
     }
     
     /**
@@ -755,13 +816,20 @@ public class RealSquareMatrix extends RealMatrix {
     }
     /**
      * inversion of matrix. creates NEW matrix
-     * Hard-coded up to 3x3, if matrix is larger uses JAMA
+     * Hard-coded up to 3x3, if matrix is larger uses LU decomposition
      * 
      * @exception EuclidRuntimeException
      *                singular matrix (or worse!)
      * @return inverse matrix
      */
     public RealSquareMatrix getInverse() throws EuclidRuntimeException {
+    	if (this.rows > 3) {
+    		LUDecomposition lu = getLUDecomposition();
+    		if (lu.isSingular()) {
+        		throw new EuclidRuntimeException("Cannot invert matrix: determinant=0");
+    		}
+    		return new RealSquareMatrix(lu.getInverse());
+    	}
     	double[][] inv = new double[rows][rows];
     	double[][] temp = getMatrix();
     	
@@ -788,8 +856,6 @@ public class RealSquareMatrix extends RealMatrix {
 			inv[2][0] = detr * (temp[1][0] * temp[2][1] - temp[1][1] * temp[2][0]);
 			inv[2][1] = detr * (temp[0][1] * temp[2][0] - temp[0][0] * temp[2][1]);
 			inv[2][2] = detr * (temp[0][0] * temp[1][1] - temp[0][1] * temp[1][0]);
-        } else {
-            throw new EuclidRuntimeException("Inverse of larger than 3x3 matricies: NYI");
         }
     	
     	RealSquareMatrix imat = new RealSquareMatrix(inv);
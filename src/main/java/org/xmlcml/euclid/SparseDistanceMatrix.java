@@ -0,0 +1,504 @@
+package org.xmlcml.euclid;
+
+import java.util.Arrays;
+
+/** distances between points that lie within a cutoff, in compressed sparse row (CSR) form.
+ *
+ * Alternative to the dense getDistanceMatrix() of Point3Vector, Point3Array and
+ * Real2Vector when only near pairs are needed. Pairs are found with cell lists
+ * (cells of edge cutoff, so only neighbouring cells are searched) and the cost is
+ * O(n + number of pairs) rather than O(n^2) in both time and memory.
+ *
+ * Row i holds the columns j with distance(i, j) &lt;= cutoff in ascending order.
+ * For a matrix of a single point set every pair is stored in both rows (the
+ * diagonal is not stored); getPairCursor(true) visits each pair once.
+ *
+ * The coordinates are retained, so elementAt() returns the exact distance for
+ * any (i, j), stored or not, and getRealMatrix() gives the same result as the
+ * dense methods.
+ *
+ */
+public class SparseDistanceMatrix {
+
+	/** maximum number of cells per point (cells are enlarged beyond this) */
+	private final static int MAX_CELLS_PER_POINT = 4;
+
+	private int dim;
+	private int rows;
+	private int cols;
+	private double cutoff;
+	private boolean symmetric;
+	private double[] coords1;
+	private double[] coords2;
+	private int[] rowStart;
+	private int[] colIndex;
+	private double[] distance;
+
+	/** distances within one set of points.
+	 *
+	 * @param dimension number of coordinates per point
+	 * @param packedCoords point i at [i * dimension ...]; COPIED
+	 * @param cutoff maximum distance stored (Double.POSITIVE_INFINITY for all pairs)
+	 * @throws EuclidRuntimeException bad dimension, length or negative cutoff
+	 */
+	public SparseDistanceMatrix(int dimension, double[] packedCoords, double cutoff) {
+		this(dimension, packedCoords, packedCoords, cutoff, true);
+	}
+
+	/** distances from one set of points to another.
+	 *
+	 * element (i, j) is distance from point i of coords1 to point j of coords2
+	 *
+	 * @param dimension number of coordinates per point
+	 * @param packedCoords1 rows; COPIED
+	 * @param packedCoords2 columns; COPIED
+	 * @param cutoff maximum distance stored (Double.POSITIVE_INFINITY for all pairs)
+	 * @throws EuclidRuntimeException bad dimension, length or negative cutoff
+	 */
+	public SparseDistanceMatrix(int dimension, double[] packedCoords1, double[] packedCoords2, double cutoff) {
+		this(dimension, packedCoords1, packedCoords2, cutoff, false);
+	}
+
+	private SparseDistanceMatrix(int dimension, double[] packedCoords1, double[] packedCoords2,
+			double cutoff, boolean symmetric) {
+		if (dimension < 1) {
+			throw new EuclidRuntimeException("bad dimension: " + dimension);
+		}
+		if (Double.isNaN(cutoff) || cutoff < 0.0) {
+			throw new EuclidRuntimeException("bad cutoff: " + cutoff);
+		}
+		checkLength(packedCoords1, dimension);
+		checkLength(packedCoords2, dimension);
+		this.dim = dimension;
+		this.cutoff = cutoff;
+		this.symmetric = symmetric;
+		this.coords1 = copy(packedCoords1);
+		this.coords2 = (symmetric) ? coords1 : copy(packedCoords2);
+		this.rows = coords1.length / dim;
+		this.cols = coords2.length / dim;
+		build();
+	}
+
+	private static void checkLength(double[] coords, int dimension) {
+		if (coords.length % dimension != 0) {
+			throw new EuclidRuntimeException("array length (" + coords.length
+					+ ") not multiple of dimension " + dimension);
+		}
+	}
+
+	private static double[] copy(double[] a) {
+		double[] b = new double[a.length];
+		System.arraycopy(a, 0, b, 0, a.length);
+		return b;
+	}
+
+	// ---------------- cell list construction ----------------
+
+	private void build() {
+		rowStart = new int[rows + 1];
+		IntArray columns = new IntArray();
+		RealArray dists = new RealArray();
+		if (rows == 0 || cols == 0) {
+			colIndex = new int[0];
+			distance = new double[0];
+			return;
+		}
+		// bounding box of both sets
+		double[] min = new double[dim];
+		double[] max = new double[dim];
+		Arrays.fill(min, Double.POSITIVE_INFINITY);
+		Arrays.fill(max, Double.NEGATIVE_INFINITY);
+		includeInBox(coords1, min, max);
+		includeInBox(coords2, min, max);
+		// cell grid over coords2
+		double cellSize = getCellSize(min, max);
+		int[] ncell = new int[dim];
+		int ncells = 1;
+		for (int d = 0; d < dim; d++) {
+			ncell[d] = (cellSize == Double.POSITIVE_INFINITY) ? 1
+					: (int) Math.floor((max[d] - min[d]) / cellSize) + 1;
+			ncells *= ncell[d];
+		}
+		int[] cellStart = new int[ncells + 1];
+		int[] cellOf = new int[cols];
+		for (int j = 0; j < cols; j++) {
+			cellOf[j] = cellIndex(coords2, j, min, cellSize, ncell);
+			cellStart[cellOf[j] + 1]++;
+		}
+		for (int c = 0; c < ncells; c++) {
+			cellStart[c + 1] += cellStart[c];
+		}
+		int[] cellPoints = new int[cols];
+		int[] fill = new int[ncells];
+		System.arraycopy(cellStart, 0, fill, 0, ncells);
+		for (int j = 0; j < cols; j++) {
+			cellPoints[fill[cellOf[j]]++] = j;
+		}
+		// search neighbouring cells of each row point
+		double cutoff2 = cutoff * cutoff;
+		int[] cellCoord = new int[dim];
+		int[] offset = new int[dim];
+		int[] rowBuffer = new int[16];
+		for (int i = 0; i < rows; i++) {
+			int nrow = 0;
+			int ii = i * dim;
+			for (int d = 0; d < dim; d++) {
+				cellCoord[d] = cellCoordinate(coords1[ii + d], min[d], cellSize, ncell[d]);
+				offset[d] = -1;
+			}
+			while (true) {
+				int cell = 0;
+				boolean inGrid = true;
+				for (int d = 0; d < dim; d++) {
+					int c = cellCoord[d] + offset[d];
+					if (c < 0 || c >= ncell[d]) {
+						inGrid = false;
+						break;
+					}
+					cell = cell * ncell[d] + c;
+				}
+				if (inGrid) {
+					for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+						int j = cellPoints[k];
+						if (symmetric && j == i) {
+							continue;
+						}
+						if (distance2(coords1, i, coords2, j) <= cutoff2) {
+							if (nrow == rowBuffer.length) {
+								int[] b = new int[2 * nrow];
+								System.arraycopy(rowBuffer, 0, b, 0, nrow);
+								rowBuffer = b;
+							}
+							rowBuffer[nrow++] = j;
+						}
+					}
+				}
+				if (!nextOffset(offset)) {
+					break;
+				}
+			}
+			Arrays.sort(rowBuffer, 0, nrow);
+			for (int k = 0; k < nrow; k++) {
+				int j = rowBuffer[k];
+				columns.addElement(j);
+				dists.addElement(Math.sqrt(distance2(coords1, i, coords2, j)));
+			}
+			rowStart[i + 1] = rowStart[i] + nrow;
+		}
+		colIndex = columns.getArray();
+		distance = dists.getArray();
+	}
+
+	/** cutoff, enlarged if needed to keep the number of cells proportional to points.
+	 */
+	private double getCellSize(double[] min, double[] max) {
+		if (cutoff == Double.POSITIVE_INFINITY) {
+			return cutoff;
+		}
+		double maxCells = (double) MAX_CELLS_PER_POINT * Math.max(rows, cols);
+		double cellSize = cutoff;
+		while (true) {
+			double ncells = 1.0;
+			for (int d = 0; d < dim; d++) {
+				ncells *= (cellSize == 0.0) ? Double.POSITIVE_INFINITY
+						: Math.floor((max[d] - min[d]) / cellSize) + 1;
+			}
+			if (ncells <= maxCells) {
+				return cellSize;
+			}
+			double range = 0.0;
+			for (int d = 0; d < dim; d++) {
+				range = Math.max(range, max[d] - min[d]);
+			}
+			cellSize = (cellSize == 0.0) ? range / maxCells : cellSize * 2.0;
+			if (cellSize == 0.0) {
+				return Double.POSITIVE_INFINITY;
+			}
+		}
+	}
+
+	private void includeInBox(double[] coords, double[] min, double[] max) {
+		for (int i = 0; i < coords.length; i += dim) {
+			for (int d = 0; d < dim; d++) {
+				double c = coords[i + d];
+				if (c < min[d]) min[d] = c;
+				if (c > max[d]) max[d] = c;
+			}
+		}
+	}
+
+	private static int cellCoordinate(double c, double min, double cellSize, int ncell) {
+		if (cellSize == Double.POSITIVE_INFINITY) {
+			return 0;
+		}
+		int ic = (int) Math.floor((c - min) / cellSize);
+		return Math.max(0, Math.min(ncell - 1, ic));
+	}
+
+	private int cellIndex(double[] coords, int i, double[] min, double cellSize, int[] ncell) {
+		int cell = 0;
+		for (int d = 0; d < dim; d++) {
+			cell = cell * ncell[d] + cellCoordinate(coords[i * dim + d], min[d], cellSize, ncell[d]);
+		}
+		return cell;
+	}
+
+	/** step through all offsets in {-1, 0, 1}^dim; false when exhausted. */
+	private boolean nextOffset(int[] offset) {
+		for (int d = dim - 1; d >= 0; d--) {
+			if (offset[d] < 1) {
+				offset[d]++;
+				return true;
+			}
+			offset[d] = -1;
+		}
+		return false;
+	}
+
+	private double distance2(double[] a, int i, double[] b, int j) {
+		int ii = i * dim;
+		int jj = j * dim;
+		double sum = 0.0;
+		for (int d = 0; d < dim; d++) {
+			double delta = a[ii + d] - b[jj + d];
+			sum += delta * delta;
+		}
+		return sum;
+	}
+
+	// ---------------- access ----------------
+
+	/**
+	 * @return number of rows
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * @return number of columns
+	 */
+	public int getCols() {
+		return cols;
+	}
+
+	/**
+	 * @return cutoff used to select stored pairs
+	 */
+	public double getCutoff() {
+		return cutoff;
+	}
+
+	/** is this a matrix of one point set with itself.
+	 *
+	 * @return true if square and symmetric
+	 */
+	public boolean isSymmetric() {
+		return symmetric;
+	}
+
+	/** number of stored (i, j) entries.
+	 *
+	 * for a symmetric matrix each pair is counted twice
+	 * @return count
+	 */
+	public int getEntryCount() {
+		return colIndex.length;
+	}
+
+	/** CSR row pointers (NOT a copy).
+	 *
+	 * entries of row i are at [getRowStart()[i], getRowStart()[i+1])
+	 * @return array of length rows + 1
+	 */
+	public int[] getRowStart() {
+		return rowStart;
+	}
+
+	/** CSR column indexes (NOT a copy).
+	 *
+	 * @return array of length getEntryCount()
+	 */
+	public int[] getColumnIndexes() {
+		return colIndex;
+	}
+
+	/** CSR distances (NOT a copy).
+	 *
+	 * @return array of length getEntryCount()
+	 */
+	public double[] getDistances() {
+		return distance;
+	}
+
+	/** distance between points.
+	 *
+	 * the stored value if (i, j) is within cutoff, else computed from the coordinates;
+	 * so this is always the true distance, as in the dense matrix.
+	 *
+	 * @param i row
+	 * @param j column
+	 * @return distance
+	 * @throws EuclidRuntimeException bad i or j
+	 */
+	public double elementAt(int i, int j) {
+		checkRow(i);
+		checkColumn(j);
+		int k = find(i, j);
+		return (k >= 0) ? distance[k] : Math.sqrt(distance2(coords1, i, coords2, j));
+	}
+
+	/** is (i, j) stored (distance within cutoff, i != j for symmetric).
+	 *
+	 * @param i row
+	 * @param j column
+	 * @return true if stored
+	 * @throws EuclidRuntimeException bad i or j
+	 */
+	public boolean isWithinCutoff(int i, int j) {
+		checkRow(i);
+		checkColumn(j);
+		return find(i, j) >= 0;
+	}
+
+	private int find(int i, int j) {
+		int k = Arrays.binarySearch(colIndex, rowStart[i], rowStart[i + 1], j);
+		return (k >= 0) ? k : -1;
+	}
+
+	/** columns within cutoff of row point.
+	 *
+	 * @param i row
+	 * @return indexes in ascending order
+	 * @throws EuclidRuntimeException bad i
+	 */
+	public IntSet getNeighbours(int i) {
+		checkRow(i);
+		int n = rowStart[i + 1] - rowStart[i];
+		int[] js = new int[n];
+		System.arraycopy(colIndex, rowStart[i], js, 0, n);
+		return new IntSet(js);
+	}
+
+	/** distances to columns within cutoff of row point.
+	 *
+	 * same order as getNeighbours(i)
+	 * @param i row
+	 * @return distances
+	 * @throws EuclidRuntimeException bad i
+	 */
+	public RealArray getNeighbourDistances(int i) {
+		checkRow(i);
+		int n = rowStart[i + 1] - rowStart[i];
+		double[] ds = new double[n];
+		System.arraycopy(distance, rowStart[i], ds, 0, n);
+		return new RealArray(ds);
+	}
+
+	private void checkRow(int i) {
+		if (i < 0 || i >= rows) {
+			throw new EuclidRuntimeException("Bad value of row: " + i + "/" + rows);
+		}
+	}
+
+	private void checkColumn(int j) {
+		if (j < 0 || j >= cols) {
+			throw new EuclidRuntimeException("Bad value of col: " + j + "/" + cols);
+		}
+	}
+
+	/** dense matrix of all distances.
+	 *
+	 * O(rows * cols); identical to the dense getDistanceMatrix() methods
+	 * @return matrix
+	 */
+	public RealMatrix getRealMatrix() {
+		RealMatrix m = (symmetric) ? new RealSquareMatrix(rows) : new RealMatrix(rows, cols);
+		double[][] mat = m.getMatrix();
+		for (int i = 0; i < rows; i++) {
+			double[] mi = mat[i];
+			for (int j = 0; j < cols; j++) {
+				if (!(symmetric && i == j)) {
+					mi[j] = Math.sqrt(distance2(coords1, i, coords2, j));
+				}
+			}
+		}
+		return m;
+	}
+
+	/** cursor over stored entries.
+	 *
+	 * @return cursor visiting all entries in row order
+	 */
+	public PairCursor getPairCursor() {
+		return new PairCursor(false);
+	}
+
+	/** cursor over stored entries.
+	 *
+	 * @param upperOnly if true and matrix is symmetric visit only j &gt; i, i.e. each pair once
+	 * @return cursor in row order
+	 */
+	public PairCursor getPairCursor(boolean upperOnly) {
+		return new PairCursor(upperOnly && symmetric);
+	}
+
+	/** streaming, allocation-free iteration over (i, j, distance) triples.
+	 *
+	 * <pre>
+	 * PairCursor c = sdm.getPairCursor(true);
+	 * while (c.next()) {
+	 *     use(c.getI(), c.getJ(), c.getDistance());
+	 * }
+	 * </pre>
+	 */
+	public class PairCursor {
+		private boolean upperOnly;
+		private int row = 0;
+		private int entry = -1;
+
+		private PairCursor(boolean upperOnly) {
+			this.upperOnly = upperOnly;
+		}
+
+		/** advance to next entry.
+		 *
+		 * @return false if no more entries
+		 */
+		public boolean next() {
+			while (true) {
+				entry++;
+				if (entry >= colIndex.length) {
+					return false;
+				}
+				while (entry >= rowStart[row + 1]) {
+					row++;
+				}
+				if (!upperOnly || colIndex[entry] > row) {
+					return true;
+				}
+			}
+		}
+
+		/**
+		 * @return row of current entry
+		 */
+		public int getI() {
+			return row;
+		}
+
+		/**
+		 * @return column of current entry
+		 */
+		public int getJ() {
+			return colIndex[entry];
+		}
+
+		/**
+		 * @return distance of current entry
+		 */
+		public double getDistance() {
+			return distance[entry];
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package org.xmlcml.euclid;
+
+/** RealArray.applyFilter for data arriving in blocks.
+ *
+ * the outputs of add() followed by flush() are the elements of
+ * applyFilter() on all the blocks joined together, so the ends are
+ * renormalised in the same way. Each output needs the following
+ * (nfilter - 1) / 2 inputs, so add() returns only the outputs whose window
+ * is complete and flush() returns the rest.
+ *
+ * only the last nfilter - 1 inputs are kept between blocks (overlap-save);
+ * large blocks use the same parallel and FFT paths as applyFilter.
+ *
+ */
+public class StreamingFilter {
+
+	private double[] filter;
+	private double weight;
+	private int mid;
+	private int right;
+	private double[] buffer;
+	private int bufferLength;
+	// index in buffer of next output
+	private int next;
+	private long count;
+
+	/** filter for blocks of data.
+	 *
+	 * @param filter as for RealArray.applyFilter (copied); if it has <= 1
+	 * element the data are passed through unchanged
+	 * @throws EuclidRuntimeException if filter is null
+	 */
+	public StreamingFilter(RealArray filter) {
+		if (filter == null) {
+			throw new EuclidRuntimeException("null filter");
+		}
+		this.filter = new RealArray(filter).getArray();
+		this.weight = filter.absSumAllElements();
+		int nfilter = this.filter.length;
+		mid = Math.max(0, (nfilter - 1) / 2);
+		right = Math.max(0, nfilter - 1 - mid);
+		buffer = new double[Math.max(16, 2 * nfilter)];
+	}
+
+	/** add a block and return the outputs it completes.
+	 *
+	 * @param block
+	 * @return outputs, possibly empty
+	 */
+	public RealArray add(RealArray block) {
+		return add(block.getArray(), 0, block.size());
+	}
+
+	/** add values[offset..offset+length) and return the outputs they complete.
+	 *
+	 * @param values
+	 * @param offset
+	 * @param length
+	 * @return outputs, possibly empty
+	 */
+	public RealArray add(double[] values, int offset, int length) {
+		if (offset < 0 || length < 0 || offset + length > values.length) {
+			throw new EuclidRuntimeException("bad range " + offset + "/" + length + " for " + values.length);
+		}
+		if (bufferLength + length > buffer.length) {
+			double[] b = new double[Math.max(2 * buffer.length, bufferLength + length)];
+			System.arraycopy(buffer, 0, b, 0, bufferLength);
+			buffer = b;
+		}
+		System.arraycopy(values, offset, buffer, bufferLength, length);
+		bufferLength += length;
+		RealArray out = emit(bufferLength - right);
+		// keep the inputs still needed by later outputs
+		int keep = next - mid;
+		if (keep > 0) {
+			System.arraycopy(buffer, keep, buffer, 0, bufferLength - keep);
+			bufferLength -= keep;
+			next -= keep;
+		}
+		return out;
+	}
+
+	/** end the data and return the remaining outputs.
+	 *
+	 * the filter is then reset and can be used for new data.
+	 *
+	 * @return outputs, possibly empty
+	 */
+	public RealArray flush() {
+		RealArray out = emit(bufferLength);
+		bufferLength = 0;
+		next = 0;
+		return out;
+	}
+
+	/** @return number of outputs returned since construction */
+	public long getCount() {
+		return count;
+	}
+
+	private RealArray emit(int to) {
+		if (to <= next) {
+			return new RealArray();
+		}
+		double[] out = new double[to - next];
+		if (filter.length <= 1) {
+			System.arraycopy(buffer, next, out, 0, out.length);
+		} else {
+			Convolution.filter(buffer, bufferLength, filter, weight, out, next, to);
+		}
+		next = to;
+		count += out.length;
+		return new RealArray(out);
+	}
+}
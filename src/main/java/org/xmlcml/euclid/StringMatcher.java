@@ -0,0 +1,443 @@
+package org.xmlcml.euclid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/** fuzzy lookup of a query string in a list of candidates.
+ *
+ * the distance is the restricted Damerau-Levenshtein (optimal string
+ * alignment) distance with unit costs: the least number of insertions,
+ * deletions, replacements and swaps of adjacent characters, no substring
+ * being edited after a swap. It is never less than the unrestricted distance
+ * of DamerauLevenshteinAlgorithm (e.g. "ca" to "abc" is 3 here and 2 there)
+ * and is the same for most pairs of names.
+ *
+ * queries of up to 64 characters use the bit-parallel algorithm of Hyyro
+ * (one long per text character, O(n) per candidate); longer queries use the
+ * dynamic programming table in three rows, banded about the diagonal by
+ * maxDistance. Both stop as soon as the distance must exceed maxDistance.
+ *
+ * getBestMatches() scans the candidates in chunks on the shared ForkJoinPool
+ * once there are PARALLEL_THRESHOLD of them; each chunk tightens its cutoff
+ * to the worst of its k best so far.
+ *
+ * <pre>
+ * StringMatcher matcher = new StringMatcher(names);
+ * List&lt;StringMatcher.Match&gt; best = matcher.getBestMatches("benzne", 5, 2);
+ * </pre>
+ *
+ * the candidate list is held, not copied. Thread-safe if it is not changed.
+ *
+ */
+public class StringMatcher {
+
+	/** minimum number of candidates before they are scanned in parallel */
+	public final static int PARALLEL_THRESHOLD = 1 << 12;
+	/** candidates per parallel task */
+	public final static int CHUNK = 1 << 10;
+	/** longest query handled by the bit-parallel algorithm */
+	public final static int MAX_BIT_PARALLEL = 64;
+
+	private List<String> candidates;
+
+	/** a candidate and its distance from the query. */
+	public static class Match {
+		private int index;
+		private String candidate;
+		private int distance;
+
+		Match(int index, String candidate, int distance) {
+			this.index = index;
+			this.candidate = candidate;
+			this.distance = distance;
+		}
+
+		/** @return position in the candidate list */
+		public int getIndex() {
+			return index;
+		}
+
+		/** @return candidate */
+		public String getCandidate() {
+			return candidate;
+		}
+
+		/** @return distance from the query */
+		public int getDistance() {
+			return distance;
+		}
+
+		@Override
+		public String toString() {
+			return candidate + " (" + index + "): " + distance;
+		}
+	}
+
+	/** matcher over candidates.
+	 *
+	 * @param candidates null entries are skipped
+	 */
+	public StringMatcher(List<String> candidates) {
+		if (candidates == null) {
+			throw new EuclidRuntimeException("null candidates");
+		}
+		this.candidates = candidates;
+	}
+
+	/** @return number of candidates */
+	public int size() {
+		return candidates.size();
+	}
+
+	/** distance of query from every candidate.
+	 *
+	 * @param query
+	 * @param maxDistance largest distance of interest (>= 0)
+	 * @param result filled with the distances, maxDistance + 1 for those
+	 * greater and for null candidates
+	 */
+	public void getDistances(String query, int maxDistance, int[] result) {
+		checkMaxDistance(maxDistance);
+		if (result.length < candidates.size()) {
+			throw new EuclidRuntimeException("result too short: " + result.length + " < " + candidates.size());
+		}
+		Pattern pattern = new Pattern(query);
+		for (int i = 0; i < candidates.size(); i++) {
+			String candidate = candidates.get(i);
+			result[i] = (candidate == null) ? maxDistance + 1 : pattern.distance(candidate, maxDistance);
+		}
+	}
+
+	/** candidates closest to query.
+	 *
+	 * @param query
+	 * @param k maximum number of matches
+	 * @param maxDistance largest distance of interest (>= 0)
+	 * @return up to k matches of distance no more than maxDistance, by
+	 * increasing distance then index
+	 */
+	public List<Match> getBestMatches(String query, int k, int maxDistance) {
+		checkMaxDistance(maxDistance);
+		if (k < 0) {
+			throw new EuclidRuntimeException("negative k: " + k);
+		}
+		Pattern pattern = new Pattern(query);
+		int n = candidates.size();
+		Best best;
+		if (k == 0) {
+			best = new Best(0);
+		} else if (n < PARALLEL_THRESHOLD) {
+			best = scan(pattern, k, maxDistance, 0, n);
+		} else {
+			best = MatrixMultiplier.getPool().invoke(new MatchTask(pattern, k, maxDistance, 0, n));
+		}
+		List<Match> matches = new ArrayList<Match>(best.size);
+		for (int i = 0; i < best.size; i++) {
+			matches.add(new Match(best.index[i], candidates.get(best.index[i]), best.distance[i]));
+		}
+		return matches;
+	}
+
+	/** closest candidate to query.
+	 *
+	 * @param query
+	 * @param maxDistance largest distance of interest (>= 0)
+	 * @return first candidate of least distance; null if none is within maxDistance
+	 */
+	public Match getBestMatch(String query, int maxDistance) {
+		List<Match> matches = getBestMatches(query, 1, maxDistance);
+		return matches.isEmpty() ? null : matches.get(0);
+	}
+
+	/** restricted Damerau-Levenshtein distance with unit costs.
+	 *
+	 * @param s
+	 * @param t
+	 * @return distance
+	 */
+	public static int distance(String s, String t) {
+		return distance(s, t, Math.max(s.length(), t.length()));
+	}
+
+	/** restricted Damerau-Levenshtein distance with unit costs if small.
+	 *
+	 * @param s
+	 * @param t
+	 * @param maxDistance largest distance of interest (>= 0)
+	 * @return distance, or maxDistance + 1 if greater
+	 */
+	public static int distance(String s, String t, int maxDistance) {
+		checkMaxDistance(maxDistance);
+		return new Pattern(s).distance(t, maxDistance);
+	}
+
+	private static void checkMaxDistance(int maxDistance) {
+		if (maxDistance < 0 || maxDistance == Integer.MAX_VALUE) {
+			throw new EuclidRuntimeException("bad maxDistance: " + maxDistance);
+		}
+	}
+
+	private Best scan(Pattern pattern, int k, int maxDistance, int from, int to) {
+		Best best = new Best(k);
+		for (int i = from; i < to; i++) {
+			String candidate = candidates.get(i);
+			if (candidate == null) {
+				continue;
+			}
+			// later candidates lose ties
+			int limit = best.isFull() ? Math.min(maxDistance, best.worst() - 1) : maxDistance;
+			if (limit < 0) {
+				break;
+			}
+			int d = pattern.distance(candidate, limit);
+			if (d <= limit) {
+				best.add(i, d);
+			}
+		}
+		return best;
+	}
+
+	/** the query with its character masks. */
+	private static class Pattern {
+		private String query;
+		private int m;
+		// bit i of the mask of c is set if query.charAt(i) == c
+		private long[] asciiMask;
+		private char[] otherChars;
+		private long[] otherMask;
+
+		Pattern(String query) {
+			if (query == null) {
+				throw new EuclidRuntimeException("null query");
+			}
+			this.query = query;
+			this.m = query.length();
+			if (m <= MAX_BIT_PARALLEL) {
+				makeMasks();
+			}
+		}
+
+		private void makeMasks() {
+			asciiMask = new long[128];
+			char[] other = new char[m];
+			int nOther = 0;
+			for (int i = 0; i < m; i++) {
+				char c = query.charAt(i);
+				if (c < 128) {
+					asciiMask[c] |= 1L << i;
+				} else {
+					other[nOther++] = c;
+				}
+			}
+			Arrays.sort(other, 0, nOther);
+			int size = 0;
+			for (int i = 0; i < nOther; i++) {
+				if (size == 0 || other[i] != other[size - 1]) {
+					other[size++] = other[i];
+				}
+			}
+			otherChars = Arrays.copyOf(other, size);
+			otherMask = new long[size];
+			for (int i = 0; i < m; i++) {
+				char c = query.charAt(i);
+				if (c >= 128) {
+					otherMask[Arrays.binarySearch(otherChars, c)] |= 1L << i;
+				}
+			}
+		}
+
+		private long mask(char c) {
+			if (c < 128) {
+				return asciiMask[c];
+			}
+			int i = Arrays.binarySearch(otherChars, c);
+			return (i < 0) ? 0L : otherMask[i];
+		}
+
+		int distance(String text, int maxDistance) {
+			int n = text.length();
+			if (Math.abs(n - m) > maxDistance) {
+				return maxDistance + 1;
+			}
+			if (m == 0) {
+				return n;
+			}
+			if (n == 0) {
+				return m;
+			}
+			return (m <= MAX_BIT_PARALLEL) ? bitParallel(text, maxDistance) : banded(text, maxDistance);
+		}
+
+		/** Hyyro (2003): columns of the table as vertical delta bit vectors,
+		 * with the transposition term from the previous column. */
+		private int bitParallel(String text, int maxDistance) {
+			int n = text.length();
+			long vp = (m == 64) ? -1L : (1L << m) - 1;
+			long vn = 0L;
+			long last = 1L << (m - 1);
+			long previousMask = 0L;
+			long previousD0 = 0L;
+			int score = m;
+			for (int j = 0; j < n; j++) {
+				long pm = mask(text.charAt(j));
+				long tr = (((~previousD0) & pm) << 1) & previousMask;
+				long d0 = (((pm & vp) + vp) ^ vp) | pm | vn | tr;
+				long hp = vn | ~(d0 | vp);
+				long hn = d0 & vp;
+				if ((hp & last) != 0) {
+					score++;
+				} else if ((hn & last) != 0) {
+					score--;
+				}
+				// each remaining column lowers the score by at most 1
+				if (score - (n - 1 - j) > maxDistance) {
+					return maxDistance + 1;
+				}
+				hp = (hp << 1) | 1L;
+				hn = hn << 1;
+				vp = hn | ~(d0 | hp);
+				vn = d0 & hp;
+				previousMask = pm;
+				previousD0 = d0;
+			}
+			return (score > maxDistance) ? maxDistance + 1 : score;
+		}
+
+		/** table in three rows over query positions, only cells (i, j) with
+		 * |i - j| + |(m - i) - (n - j)| <= maxDistance. */
+		private int banded(String text, int maxDistance) {
+			int n = text.length();
+			int cap = maxDistance + 1;
+			// band in d = i - j: outside [0, m - n] each step costs 2 more
+			int slack = (maxDistance - Math.abs(m - n)) / 2;
+			int dLo = Math.max(-n, Math.min(0, m - n) - slack);
+			int dHi = Math.min(m, Math.max(0, m - n) + slack);
+			int[] previous2 = new int[n + 1];
+			int[] previous = new int[n + 1];
+			int[] current = new int[n + 1];
+			int hi0 = Math.min(n, -dLo);
+			for (int j = 0; j <= hi0; j++) {
+				previous[j] = j;
+			}
+			if (hi0 < n) {
+				previous[hi0 + 1] = cap;
+			}
+			int previousMin = 0;
+			for (int i = 1; i <= m; i++) {
+				int lo = Math.max(0, i - dHi);
+				int hi = Math.min(n, i - dLo);
+				char qi = query.charAt(i - 1);
+				int rowMin = cap;
+				if (lo > 0) {
+					current[lo - 1] = cap;
+				}
+				for (int j = lo; j <= hi; j++) {
+					int value;
+					if (j == 0) {
+						value = i;
+					} else {
+						char tj = text.charAt(j - 1);
+						value = previous[j - 1] + ((qi == tj) ? 0 : 1);
+						value = Math.min(value, previous[j] + 1);
+						value = Math.min(value, current[j - 1] + 1);
+						if (i > 1 && j > 1 && qi == text.charAt(j - 2) && query.charAt(i - 2) == tj) {
+							value = Math.min(value, previous2[j - 2] + 1);
+						}
+						value = Math.min(value, cap);
+					}
+					current[j] = value;
+					rowMin = Math.min(rowMin, value);
+				}
+				if (hi < n) {
+					current[hi + 1] = cap;
+				}
+				// a swap reaches back only one row
+				if (rowMin > maxDistance && previousMin > maxDistance) {
+					return cap;
+				}
+				previousMin = rowMin;
+				int[] swap = previous2;
+				previous2 = previous;
+				previous = current;
+				current = swap;
+			}
+			return Math.min(previous[n], cap);
+		}
+	}
+
+	/** up to k (index, distance) by increasing distance then index. */
+	private static class Best {
+		private int[] index;
+		private int[] distance;
+		private int size;
+
+		Best(int k) {
+			index = new int[k];
+			distance = new int[k];
+		}
+
+		boolean isFull() {
+			return size == index.length;
+		}
+
+		int worst() {
+			return distance[size - 1];
+		}
+
+		void add(int i, int d) {
+			int pos = size;
+			while (pos > 0 && (distance[pos - 1] > d || (distance[pos - 1] == d && index[pos - 1] > i))) {
+				pos--;
+			}
+			if (pos == index.length) {
+				return;
+			}
+			int end = Math.min(size, index.length - 1);
+			System.arraycopy(index, pos, index, pos + 1, end - pos);
+			System.arraycopy(distance, pos, distance, pos + 1, end - pos);
+			index[pos] = i;
+			distance[pos] = d;
+			if (size < index.length) {
+				size++;
+			}
+		}
+
+		Best merge(Best other) {
+			for (int i = 0; i < other.size; i++) {
+				add(other.index[i], other.distance[i]);
+			}
+			return this;
+		}
+	}
+
+	private class MatchTask extends RecursiveTask<Best> {
+		private static final long serialVersionUID = 1L;
+		private Pattern pattern;
+		private int k;
+		private int maxDistance;
+		private int from;
+		private int to;
+
+		MatchTask(Pattern pattern, int k, int maxDistance, int from, int to) {
+			this.pattern = pattern;
+			this.k = k;
+			this.maxDistance = maxDistance;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Best compute() {
+			if (to - from <= CHUNK) {
+				return scan(pattern, k, maxDistance, from, to);
+			}
+			int mid = (from + to) >>> 1;
+			MatchTask right = new MatchTask(pattern, k, maxDistance, mid, to);
+			right.fork();
+			Best left = new MatchTask(pattern, k, maxDistance, from, mid).compute();
+			return left.merge(right.join());
+		}
+	}
+}
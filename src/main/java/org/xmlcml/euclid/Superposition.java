@@ -0,0 +1,445 @@
+package org.xmlcml.euclid;
+
+import java.util.concurrent.RecursiveAction;
+
+/** least-squares superposition of two sets of 3-D points.
+ *
+ * Horn's quaternion method: the rotation that best superposes moving onto
+ * reference is the eigenvector of the largest eigenvalue of a 4x4 key matrix
+ * built from the cross-covariance of the centred coordinates. The largest
+ * eigenvalue is found by Newton iteration on the characteristic quartic and its
+ * eigenvector from the adjugate (Theobald's QCP method), so a fit is O(n) with
+ * a fixed, small amount of extra work. When only the RMSD is wanted no
+ * eigenvector is calculated.
+ *
+ * Coordinates are packed xyz arrays (x0, y0, z0, x1 ...) as from
+ * Point3Vector.getArray(), addressed by offset so that many conformers can be
+ * held in one array.
+ *
+ * An instance holds its results and scratch space and is NOT thread-safe; use one
+ * per thread. After setReference() the reference is centred once and can be fitted
+ * against any number of conformers without allocation.
+ *
+ */
+public class Superposition {
+
+	/** conformers per task in calculateRMSDs() when parallel */
+	public final static int PARALLEL_CHUNK = 1024;
+	private final static int MAX_NEWTON = 50;
+	private final static double NEWTON_EPS = 1.0E-11;
+
+	private double[] reference;
+	private int count;
+	private double referenceInner;
+	private double[] referenceCentroid = new double[3];
+
+	private double[] movingCentroid = new double[3];
+	private double[] rotation = new double[9];
+	private double rmsd;
+	// cross-covariance S[i][j] = sum moving_i * reference_j (centred)
+	private double[] s = new double[9];
+	private double movingInner;
+	// key matrix and eigen workspace for degenerate cases
+	private double[] key = new double[16];
+	private double[] d = new double[4];
+	private double[] e = new double[4];
+
+	/** empty superposition; use setReference() or fit(moving, ref).
+	 */
+	public Superposition() {
+	}
+
+	/** reference to which subsequent conformers are fitted.
+	 *
+	 * the coordinates are copied and centred.
+	 *
+	 * @param xyz packed coordinates
+	 * @param offset index of x of first point
+	 * @param count number of points
+	 * @throws EuclidRuntimeException if count < 1 or array too short
+	 */
+	public void setReference(double[] xyz, int offset, int count) {
+		checkArray(xyz, offset, count);
+		if (reference == null || reference.length < 3 * count) {
+			reference = new double[3 * count];
+		}
+		this.count = count;
+		centroid(xyz, offset, count, referenceCentroid);
+		double cx = referenceCentroid[0];
+		double cy = referenceCentroid[1];
+		double cz = referenceCentroid[2];
+		double inner = 0.0;
+		for (int i = 0, j = offset; i < 3 * count; i += 3, j += 3) {
+			double x = xyz[j] - cx;
+			double y = xyz[j + 1] - cy;
+			double z = xyz[j + 2] - cz;
+			reference[i] = x;
+			reference[i + 1] = y;
+			reference[i + 2] = z;
+			inner += x * x + y * y + z * z;
+		}
+		referenceInner = inner;
+	}
+
+	/**
+	 * @return number of points in reference (0 if not set)
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/** fit conformer onto reference.
+	 *
+	 * the rotation, centroids and RMSD are retained for getTransform3(), transform()
+	 * and getRMSD().
+	 *
+	 * @param xyz packed coordinates of same number of points as reference
+	 * @param offset index of x of first point
+	 * @return RMSD after superposition
+	 * @throws EuclidRuntimeException if no reference or array too short
+	 */
+	public double fit(double[] xyz, int offset) {
+		double lambda = solve(xyz, offset);
+		calculateRotation(lambda);
+		return rmsd;
+	}
+
+	/** RMSD of conformer after optimal superposition onto reference.
+	 *
+	 * does not calculate the rotation so is cheaper than fit().
+	 *
+	 * @param xyz packed coordinates of same number of points as reference
+	 * @param offset index of x of first point
+	 * @return RMSD
+	 * @throws EuclidRuntimeException if no reference or array too short
+	 */
+	public double calculateRMSD(double[] xyz, int offset) {
+		solve(xyz, offset);
+		return rmsd;
+	}
+
+	/** fit moving onto ref.
+	 *
+	 * convenience for setReference(ref, refOffset, count) then fit(moving, movingOffset)
+	 *
+	 * @param moving packed coordinates
+	 * @param movingOffset
+	 * @param ref packed coordinates
+	 * @param refOffset
+	 * @param count number of points in each
+	 * @return RMSD after superposition
+	 */
+	public double fit(double[] moving, int movingOffset, double[] ref, int refOffset, int count) {
+		setReference(ref, refOffset, count);
+		return fit(moving, movingOffset);
+	}
+
+	/**
+	 * @return RMSD from last fit() or calculateRMSD()
+	 */
+	public double getRMSD() {
+		return rmsd;
+	}
+
+	/** rotation from last fit().
+	 *
+	 * @param r receives 3x3 row-major rotation (moving centred onto reference centred)
+	 */
+	public void getRotation(double[] r) {
+		System.arraycopy(rotation, 0, r, 0, 9);
+	}
+
+	/** transformation from last fit().
+	 *
+	 * moves the conformer's centroid to the origin, rotates, then moves to the
+	 * reference centroid.
+	 *
+	 * @return new transform
+	 */
+	public Transform3 getTransform3() {
+		double[] t = new double[16];
+		for (int i = 0; i < 3; i++) {
+			double shift = referenceCentroid[i];
+			for (int j = 0; j < 3; j++) {
+				t[4 * i + j] = rotation[3 * i + j];
+				shift -= rotation[3 * i + j] * movingCentroid[j];
+			}
+			t[4 * i + 3] = shift;
+		}
+		t[15] = 1.0;
+		return new Transform3(t);
+	}
+
+	/** apply transformation from last fit() in place.
+	 *
+	 * @param xyz packed coordinates
+	 * @param offset index of x of first point
+	 * @param n number of points
+	 */
+	public void transform(double[] xyz, int offset, int n) {
+		double[] r = rotation;
+		double mx = movingCentroid[0];
+		double my = movingCentroid[1];
+		double mz = movingCentroid[2];
+		double rx = referenceCentroid[0];
+		double ry = referenceCentroid[1];
+		double rz = referenceCentroid[2];
+		for (int j = offset; j < offset + 3 * n; j += 3) {
+			double x = xyz[j] - mx;
+			double y = xyz[j + 1] - my;
+			double z = xyz[j + 2] - mz;
+			xyz[j] = r[0] * x + r[1] * y + r[2] * z + rx;
+			xyz[j + 1] = r[3] * x + r[4] * y + r[5] * z + ry;
+			xyz[j + 2] = r[6] * x + r[7] * y + r[8] * z + rz;
+		}
+	}
+
+	/** RMSD of many conformers against one reference.
+	 *
+	 * conformer k occupies conformers[3 * count * k ..]. With parallel the
+	 * conformers are split into chunks of PARALLEL_CHUNK, each with its own
+	 * Superposition, on the shared ForkJoinPool.
+	 *
+	 * @param ref packed reference coordinates (count points from 0)
+	 * @param conformers packed coordinates of nconf * count points
+	 * @param count points per conformer
+	 * @param parallel
+	 * @return RMSD of each conformer
+	 */
+	public static double[] calculateRMSDs(double[] ref, double[] conformers, int count, boolean parallel) {
+		if (count < 1 || conformers.length % (3 * count) != 0) {
+			throw new EuclidRuntimeException("conformer array ("+conformers.length
+					+") is not a multiple of 3 * "+count);
+		}
+		int nconf = conformers.length / (3 * count);
+		double[] rmsds = new double[nconf];
+		RMSDTask task = new RMSDTask(ref, conformers, count, rmsds, 0, nconf);
+		if (parallel && nconf > PARALLEL_CHUNK) {
+			MatrixMultiplier.getPool().invoke(task);
+		} else {
+			task.calculate();
+		}
+		return rmsds;
+	}
+
+	/** centres conformer, accumulates cross-covariance and returns largest eigenvalue of key matrix.
+	 */
+	private double solve(double[] xyz, int offset) {
+		if (reference == null) {
+			throw new EuclidRuntimeException("reference not set");
+		}
+		checkArray(xyz, offset, count);
+		centroid(xyz, offset, count, movingCentroid);
+		double cx = movingCentroid[0];
+		double cy = movingCentroid[1];
+		double cz = movingCentroid[2];
+		double sxx = 0.0, sxy = 0.0, sxz = 0.0;
+		double syx = 0.0, syy = 0.0, syz = 0.0;
+		double szx = 0.0, szy = 0.0, szz = 0.0;
+		double inner = 0.0;
+		double[] r = reference;
+		for (int i = 0, j = offset; i < 3 * count; i += 3, j += 3) {
+			double x = xyz[j] - cx;
+			double y = xyz[j + 1] - cy;
+			double z = xyz[j + 2] - cz;
+			double rx = r[i];
+			double ry = r[i + 1];
+			double rz = r[i + 2];
+			sxx += x * rx;
+			sxy += x * ry;
+			sxz += x * rz;
+			syx += y * rx;
+			syy += y * ry;
+			syz += y * rz;
+			szx += z * rx;
+			szy += z * ry;
+			szz += z * rz;
+			inner += x * x + y * y + z * z;
+		}
+		movingInner = inner;
+		s[0] = sxx; s[1] = sxy; s[2] = sxz;
+		s[3] = syx; s[4] = syy; s[5] = syz;
+		s[6] = szx; s[7] = szy; s[8] = szz;
+		// characteristic polynomial of key matrix: x^4 + c2 x^2 + c1 x + c0
+		double c2 = -2.0 * (sxx * sxx + sxy * sxy + sxz * sxz
+				+ syx * syx + syy * syy + syz * syz
+				+ szx * szx + szy * szy + szz * szz);
+		double c1 = -8.0 * (sxx * (syy * szz - syz * szy)
+				- sxy * (syx * szz - syz * szx)
+				+ sxz * (syx * szy - syy * szx));
+		fillKey();
+		double c0 = determinant4(key);
+		// Newton from upper bound converges to largest root
+		double e0 = 0.5 * (referenceInner + movingInner);
+		double lambda = e0;
+		for (int iter = 0; iter < MAX_NEWTON; iter++) {
+			double l2 = lambda * lambda;
+			double p = (l2 + c2) * l2 + c1 * lambda + c0;
+			double dp = 4.0 * l2 * lambda + 2.0 * c2 * lambda + c1;
+			if (dp == 0.0) {
+				break;
+			}
+			double delta = p / dp;
+			lambda -= delta;
+			if (Math.abs(delta) <= NEWTON_EPS * Math.abs(lambda)) {
+				break;
+			}
+		}
+		double msd = (referenceInner + movingInner - 2.0 * lambda) / count;
+		rmsd = msd > 0.0 ? Math.sqrt(msd) : 0.0;
+		return lambda;
+	}
+
+	private void fillKey() {
+		double sxx = s[0], sxy = s[1], sxz = s[2];
+		double syx = s[3], syy = s[4], syz = s[5];
+		double szx = s[6], szy = s[7], szz = s[8];
+		double[] k = key;
+		k[0] = sxx + syy + szz;
+		k[1] = syz - szy;
+		k[2] = szx - sxz;
+		k[3] = sxy - syx;
+		k[5] = sxx - syy - szz;
+		k[6] = sxy + syx;
+		k[7] = szx + sxz;
+		k[10] = -sxx + syy - szz;
+		k[11] = syz + szy;
+		k[15] = -sxx - syy + szz;
+		k[4] = k[1];
+		k[8] = k[2];
+		k[9] = k[6];
+		k[12] = k[3];
+		k[13] = k[7];
+		k[14] = k[11];
+	}
+
+	/** quaternion from adjugate of (K - lambda I); eigen decomposition if that is degenerate.
+	 */
+	private void calculateRotation(double lambda) {
+		fillKey();
+		double[] k = key;
+		for (int i = 0; i < 4; i++) {
+			k[5 * i] -= lambda;
+		}
+		// rows of the adjugate are eigenvectors; take the largest
+		double best = 0.0;
+		double q0 = 1.0, q1 = 0.0, q2 = 0.0, q3 = 0.0;
+		for (int row = 0; row < 4; row++) {
+			double a0 = cofactor(k, row, 0);
+			double a1 = cofactor(k, row, 1);
+			double a2 = cofactor(k, row, 2);
+			double a3 = cofactor(k, row, 3);
+			double norm = a0 * a0 + a1 * a1 + a2 * a2 + a3 * a3;
+			if (norm > best) {
+				best = norm;
+				q0 = a0; q1 = a1; q2 = a2; q3 = a3;
+			}
+		}
+		double scale = Math.max(Math.abs(lambda), (referenceInner + movingInner) * 0.5);
+		if (best <= 1.0E-12 * scale * scale * scale * scale * scale * scale || Double.isNaN(best)) {
+			// repeated largest eigenvalue (or zero coordinates); any vector in its space will do
+			fillKey();
+			SymmetricEigenDecomposition.decompose(key, 4, d, e, true);
+			q0 = key[0]; q1 = key[4]; q2 = key[8]; q3 = key[12];
+			if (scale == 0.0) {
+				q0 = 1.0; q1 = 0.0; q2 = 0.0; q3 = 0.0;
+			}
+		}
+		double norm = Math.sqrt(q0 * q0 + q1 * q1 + q2 * q2 + q3 * q3);
+		q0 /= norm; q1 /= norm; q2 /= norm; q3 /= norm;
+		double[] r = rotation;
+		r[0] = q0 * q0 + q1 * q1 - q2 * q2 - q3 * q3;
+		r[1] = 2.0 * (q1 * q2 - q0 * q3);
+		r[2] = 2.0 * (q1 * q3 + q0 * q2);
+		r[3] = 2.0 * (q1 * q2 + q0 * q3);
+		r[4] = q0 * q0 - q1 * q1 + q2 * q2 - q3 * q3;
+		r[5] = 2.0 * (q2 * q3 - q0 * q1);
+		r[6] = 2.0 * (q1 * q3 - q0 * q2);
+		r[7] = 2.0 * (q2 * q3 + q0 * q1);
+		r[8] = q0 * q0 - q1 * q1 - q2 * q2 + q3 * q3;
+	}
+
+	/** signed cofactor of element (row, col) of symmetric 4x4.
+	 */
+	private static double cofactor(double[] a, int row, int col) {
+		int r0 = row == 0 ? 1 : 0;
+		int r1 = row <= 1 ? 2 : 1;
+		int r2 = row <= 2 ? 3 : 2;
+		int c0 = col == 0 ? 1 : 0;
+		int c1 = col <= 1 ? 2 : 1;
+		int c2 = col <= 2 ? 3 : 2;
+		r0 *= 4; r1 *= 4; r2 *= 4;
+		double det = a[r0 + c0] * (a[r1 + c1] * a[r2 + c2] - a[r1 + c2] * a[r2 + c1])
+				- a[r0 + c1] * (a[r1 + c0] * a[r2 + c2] - a[r1 + c2] * a[r2 + c0])
+				+ a[r0 + c2] * (a[r1 + c0] * a[r2 + c1] - a[r1 + c1] * a[r2 + c0]);
+		return ((row + col) % 2 == 0) ? det : -det;
+	}
+
+	private static double determinant4(double[] a) {
+		return a[0] * cofactor(a, 0, 0) + a[1] * cofactor(a, 0, 1)
+				+ a[2] * cofactor(a, 0, 2) + a[3] * cofactor(a, 0, 3);
+	}
+
+	private static void centroid(double[] xyz, int offset, int count, double[] c) {
+		double x = 0.0;
+		double y = 0.0;
+		double z = 0.0;
+		for (int j = offset; j < offset + 3 * count; j += 3) {
+			x += xyz[j];
+			y += xyz[j + 1];
+			z += xyz[j + 2];
+		}
+		c[0] = x / count;
+		c[1] = y / count;
+		c[2] = z / count;
+	}
+
+	private static void checkArray(double[] xyz, int offset, int count) {
+		if (count < 1) {
+			throw new EuclidRuntimeException("need at least one point");
+		}
+		if (offset < 0 || offset + 3 * count > xyz.length) {
+			throw new EuclidRuntimeException("coordinates " + offset + "+3*" + count
+					+ " outside array of " + xyz.length);
+		}
+	}
+
+	private static class RMSDTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private double[] ref;
+		private double[] conformers;
+		private int count;
+		private double[] rmsds;
+		private int conf0;
+		private int conf1;
+
+		RMSDTask(double[] ref, double[] conformers, int count, double[] rmsds, int conf0, int conf1) {
+			this.ref = ref;
+			this.conformers = conformers;
+			this.count = count;
+			this.rmsds = rmsds;
+			this.conf0 = conf0;
+			this.conf1 = conf1;
+		}
+
+		@Override
+		protected void compute() {
+			if (conf1 - conf0 <= PARALLEL_CHUNK) {
+				calculate();
+			} else {
+				int mid = (conf0 + conf1) >>> 1;
+				invokeAll(new RMSDTask(ref, conformers, count, rmsds, conf0, mid),
+						new RMSDTask(ref, conformers, count, rmsds, mid, conf1));
+			}
+		}
+
+		void calculate() {
+			Superposition superposition = new Superposition();
+			superposition.setReference(ref, 0, count);
+			int stride = 3 * count;
+			for (int k = conf0; k < conf1; k++) {
+				rmsds[k] = superposition.calculateRMSD(conformers, k * stride);
+			}
+		}
+	}
+}
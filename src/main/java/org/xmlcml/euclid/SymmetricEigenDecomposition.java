@@ -0,0 +1,551 @@
+package org.xmlcml.euclid;
+
+/** eigenvalues and eigenvectors of a real symmetric matrix.
+ *
+ * A = V D V' where D is diagonal (the eigenvalues) and V orthogonal (columns are the
+ * eigenvectors). Eigenvalues are sorted in decreasing order, as from
+ * RealSquareMatrix.calculateEigenvalues().
+ *
+ * Householder reduction to tridiagonal form followed by the implicit QL algorithm
+ * (after EISPACK tred2/tql2), on a single row-major n*n array. If only eigenvalues
+ * are wanted the transformations are not accumulated, which roughly halves the cost.
+ *
+ * decompose() works in place on caller storage; decompose3x3() diagonalises a packed
+ * batch of 3x3 matrices (e.g. inertial tensors) by Jacobi rotations without allocating
+ * per matrix.
+ *
+ * Only the lower triangle of the matrix is read.
+ *
+ */
+public class SymmetricEigenDecomposition {
+
+	private final static double EPS = Math.ulp(1.0);
+	private final static int MAX_ITERATIONS = 30;
+	private final static int MAX_JACOBI_SWEEPS = 50;
+	/** eigenvalues smaller than this (relative to the largest) make the matrix singular */
+	public final static double SINGULARITY_EPS = 1.0E-12;
+
+	private int n;
+	private double[] values;
+	private double[] vectors;
+	private double[] original;
+
+	/** decompose a symmetric matrix.
+	 *
+	 * the matrix is not altered.
+	 *
+	 * @param matrix
+	 * @param computeVectors if false only eigenvalues are calculated
+	 * @throws EuclidRuntimeException if matrix is not square or QL fails to converge
+	 */
+	public SymmetricEigenDecomposition(double[][] matrix, boolean computeVectors) {
+		n = matrix.length;
+		double[] a = new double[n * n];
+		for (int i = 0; i < n; i++) {
+			if (matrix[i].length != n) {
+				throw new EuclidRuntimeException("non square matrix");
+			}
+			System.arraycopy(matrix[i], 0, a, i * n, n);
+		}
+		original = new double[n * n];
+		System.arraycopy(a, 0, original, 0, n * n);
+		values = new double[n];
+		decompose(a, n, values, new double[n], computeVectors);
+		vectors = computeVectors ? a : null;
+	}
+
+	/** order of matrix.
+	 *
+	 * @return number of rows (= cols)
+	 */
+	public int getOrder() {
+		return n;
+	}
+
+	/** eigenvalues.
+	 *
+	 * @return copy, in decreasing order
+	 */
+	public double[] getEigenvalues() {
+		double[] d = new double[n];
+		System.arraycopy(values, 0, d, 0, n);
+		return d;
+	}
+
+	/** were eigenvectors calculated.
+	 *
+	 * @return true if constructed with computeVectors
+	 */
+	public boolean hasEigenvectors() {
+		return vectors != null;
+	}
+
+	/** eigenvectors.
+	 *
+	 * @return new n*n array with eigenvector j in column j
+	 * @throws EuclidRuntimeException if constructed without vectors
+	 */
+	public double[][] getEigenvectors() {
+		checkVectors();
+		double[][] v = new double[n][n];
+		for (int i = 0; i < n; i++) {
+			System.arraycopy(vectors, i * n, v[i], 0, n);
+		}
+		return v;
+	}
+
+	/** is any eigenvalue zero (within SINGULARITY_EPS of the largest).
+	 *
+	 * @return true if singular
+	 */
+	public boolean isSingular() {
+		double max = 0.0;
+		double min = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < n; i++) {
+			double abs = Math.abs(values[i]);
+			max = Math.max(max, abs);
+			min = Math.min(min, abs);
+		}
+		return n == 0 || min <= SINGULARITY_EPS * max;
+	}
+
+	/** inverse as V inv(D) V'.
+	 *
+	 * @return new n*n array
+	 * @throws EuclidRuntimeException if singular or constructed without vectors
+	 */
+	public double[][] getInverse() {
+		checkVectors();
+		if (isSingular()) {
+			throw new EuclidRuntimeException("singular matrix");
+		}
+		double[][] inv = new double[n][n];
+		for (int i = 0; i < n; i++) {
+			int in = i * n;
+			for (int j = 0; j <= i; j++) {
+				int jn = j * n;
+				double sum = 0.0;
+				for (int k = 0; k < n; k++) {
+					sum += vectors[in + k] * vectors[jn + k] / values[k];
+				}
+				inv[i][j] = sum;
+				inv[j][i] = sum;
+			}
+		}
+		return inv;
+	}
+
+	/** has the matrix changed since it was decomposed.
+	 *
+	 * @param matrix
+	 * @return true if same dimensions and identical element values
+	 */
+	public boolean isDecompositionOf(double[][] matrix) {
+		if (matrix.length != n) {
+			return false;
+		}
+		for (int i = 0; i < n; i++) {
+			double[] row = matrix[i];
+			if (row.length != n) {
+				return false;
+			}
+			int in = i * n;
+			for (int j = 0; j < n; j++) {
+				if (Double.doubleToLongBits(row[j]) != Double.doubleToLongBits(original[in + j])) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private void checkVectors() {
+		if (vectors == null) {
+			throw new EuclidRuntimeException("eigenvectors were not calculated");
+		}
+	}
+
+	/** diagonalise in place.
+	 *
+	 * on return d holds the eigenvalues in decreasing order and, if computeVectors,
+	 * a holds the eigenvectors by column; otherwise a is left as scratch.
+	 *
+	 * @param a row-major n*n symmetric matrix (lower triangle read); overwritten
+	 * @param n order
+	 * @param d length n; receives eigenvalues
+	 * @param e length n; workspace
+	 * @param computeVectors
+	 * @throws EuclidRuntimeException if QL fails to converge
+	 */
+	public static void decompose(double[] a, int n, double[] d, double[] e, boolean computeVectors) {
+		if (n == 0) {
+			return;
+		}
+		tridiagonalise(a, n, d, e, computeVectors);
+		diagonaliseTridiagonal(a, n, d, e, computeVectors);
+		sortDescending(a, n, d, computeVectors);
+	}
+
+	/** Householder reduction to symmetric tridiagonal form (tred2).
+	 *
+	 * d receives the diagonal, e[1..n-1] the subdiagonal
+	 */
+	private static void tridiagonalise(double[] v, int n, double[] d, double[] e, boolean accumulate) {
+		int last = (n - 1) * n;
+		for (int j = 0; j < n; j++) {
+			d[j] = v[last + j];
+		}
+		for (int i = n - 1; i > 0; i--) {
+			int in = i * n;
+			double scale = 0.0;
+			double h = 0.0;
+			for (int k = 0; k < i; k++) {
+				scale += Math.abs(d[k]);
+			}
+			if (scale == 0.0) {
+				e[i] = d[i - 1];
+				for (int j = 0; j < i; j++) {
+					d[j] = v[in - n + j];
+					v[in + j] = 0.0;
+					v[j * n + i] = 0.0;
+				}
+			} else {
+				for (int k = 0; k < i; k++) {
+					d[k] /= scale;
+					h += d[k] * d[k];
+				}
+				double f = d[i - 1];
+				double g = Math.sqrt(h);
+				if (f > 0) {
+					g = -g;
+				}
+				e[i] = scale * g;
+				h -= f * g;
+				d[i - 1] = f - g;
+				for (int j = 0; j < i; j++) {
+					e[j] = 0.0;
+				}
+				for (int j = 0; j < i; j++) {
+					f = d[j];
+					v[j * n + i] = f;
+					g = e[j] + v[j * n + j] * f;
+					for (int k = j + 1; k <= i - 1; k++) {
+						g += v[k * n + j] * d[k];
+						e[k] += v[k * n + j] * f;
+					}
+					e[j] = g;
+				}
+				f = 0.0;
+				for (int j = 0; j < i; j++) {
+					e[j] /= h;
+					f += e[j] * d[j];
+				}
+				double hh = f / (h + h);
+				for (int j = 0; j < i; j++) {
+					e[j] -= hh * d[j];
+				}
+				for (int j = 0; j < i; j++) {
+					f = d[j];
+					g = e[j];
+					for (int k = j; k <= i - 1; k++) {
+						v[k * n + j] -= (f * e[k] + g * d[k]);
+					}
+					d[j] = v[in - n + j];
+					v[in + j] = 0.0;
+				}
+			}
+			d[i] = h;
+		}
+		if (!accumulate) {
+			// diagonal of the tridiagonal matrix is left on the diagonal of v
+			for (int j = 0; j < n; j++) {
+				d[j] = v[j * n + j];
+			}
+			e[0] = 0.0;
+			return;
+		}
+		for (int i = 0; i < n - 1; i++) {
+			v[last + i] = v[i * n + i];
+			v[i * n + i] = 1.0;
+			double h = d[i + 1];
+			if (h != 0.0) {
+				for (int k = 0; k <= i; k++) {
+					d[k] = v[k * n + i + 1] / h;
+				}
+				for (int j = 0; j <= i; j++) {
+					double g = 0.0;
+					for (int k = 0; k <= i; k++) {
+						g += v[k * n + i + 1] * v[k * n + j];
+					}
+					for (int k = 0; k <= i; k++) {
+						v[k * n + j] -= g * d[k];
+					}
+				}
+			}
+			for (int k = 0; k <= i; k++) {
+				v[k * n + i + 1] = 0.0;
+			}
+		}
+		for (int j = 0; j < n; j++) {
+			d[j] = v[last + j];
+			v[last + j] = 0.0;
+		}
+		v[last + n - 1] = 1.0;
+		e[0] = 0.0;
+	}
+
+	/** implicit QL on symmetric tridiagonal matrix (tql2).
+	 */
+	private static void diagonaliseTridiagonal(double[] v, int n, double[] d, double[] e, boolean accumulate) {
+		for (int i = 1; i < n; i++) {
+			e[i - 1] = e[i];
+		}
+		e[n - 1] = 0.0;
+		double f = 0.0;
+		double tst1 = 0.0;
+		for (int l = 0; l < n; l++) {
+			tst1 = Math.max(tst1, Math.abs(d[l]) + Math.abs(e[l]));
+			int m = l;
+			while (m < n - 1 && Math.abs(e[m]) > EPS * tst1) {
+				m++;
+			}
+			if (m > l) {
+				int iter = 0;
+				do {
+					if (++iter > MAX_ITERATIONS) {
+						throw new EuclidRuntimeException("eigenvalues failed to converge");
+					}
+					double g = d[l];
+					double p = (d[l + 1] - g) / (2.0 * e[l]);
+					double r = hypot(p, 1.0);
+					if (p < 0) {
+						r = -r;
+					}
+					d[l] = e[l] / (p + r);
+					d[l + 1] = e[l] * (p + r);
+					double dl1 = d[l + 1];
+					double h = g - d[l];
+					for (int i = l + 2; i < n; i++) {
+						d[i] -= h;
+					}
+					f += h;
+					p = d[m];
+					double c = 1.0;
+					double c2 = c;
+					double c3 = c;
+					double el1 = e[l + 1];
+					double s = 0.0;
+					double s2 = 0.0;
+					for (int i = m - 1; i >= l; i--) {
+						c3 = c2;
+						c2 = c;
+						s2 = s;
+						g = c * e[i];
+						h = c * p;
+						r = hypot(p, e[i]);
+						e[i + 1] = s * r;
+						s = e[i] / r;
+						c = p / r;
+						p = c * d[i] - s * g;
+						d[i + 1] = h + s * (c * g + s * d[i]);
+						if (accumulate) {
+							for (int k = 0; k < n; k++) {
+								int kn = k * n;
+								h = v[kn + i + 1];
+								v[kn + i + 1] = s * v[kn + i] + c * h;
+								v[kn + i] = c * v[kn + i] - s * h;
+							}
+						}
+					}
+					p = -s * s2 * c3 * el1 * e[l] / dl1;
+					e[l] = s * p;
+					d[l] = c * p;
+				} while (Math.abs(e[l]) > EPS * tst1);
+			}
+			d[l] = d[l] + f;
+			e[l] = 0.0;
+		}
+	}
+
+	/** selection sort of eigenvalues (and vector columns); n is small relative to the O(n^3) above.
+	 */
+	private static void sortDescending(double[] v, int n, double[] d, boolean vectors) {
+		for (int i = 0; i < n - 1; i++) {
+			int k = i;
+			double p = d[i];
+			for (int j = i + 1; j < n; j++) {
+				if (d[j] > p) {
+					k = j;
+					p = d[j];
+				}
+			}
+			if (k != i) {
+				d[k] = d[i];
+				d[i] = p;
+				if (vectors) {
+					for (int j = 0; j < n; j++) {
+						int jn = j * n;
+						double t = v[jn + i];
+						v[jn + i] = v[jn + k];
+						v[jn + k] = t;
+					}
+				}
+			}
+		}
+	}
+
+	/** sqrt(a^2 + b^2) without overflow; cheaper than Math.hypot.
+	 */
+	private static double hypot(double a, double b) {
+		a = Math.abs(a);
+		b = Math.abs(b);
+		if (a > b) {
+			double r = b / a;
+			return a * Math.sqrt(1.0 + r * r);
+		} else if (b != 0.0) {
+			double r = a / b;
+			return b * Math.sqrt(1.0 + r * r);
+		}
+		return 0.0;
+	}
+
+	/** diagonalise a packed batch of symmetric 3x3 matrices.
+	 *
+	 * matrix m occupies tensors[9 * m .. 9 * m + 8] in row-major order (as
+	 * RealSquareMatrix.getMatrixAsArray()); only its lower triangle is read.
+	 * Eigenvalues of matrix m go to values[3 * m .. 3 * m + 2] in decreasing order
+	 * and, if vectors is not null, its eigenvectors to vectors[9 * m ..] by column.
+	 * vectors may be the same array as tensors.
+	 *
+	 * Cyclic Jacobi rotations; no objects are created per matrix.
+	 *
+	 * @param tensors 9 * count values
+	 * @param count number of matrices
+	 * @param values 3 * count; receives eigenvalues
+	 * @param vectors 9 * count or null; receives eigenvectors
+	 * @throws EuclidRuntimeException if arrays are too short
+	 */
+	public static void decompose3x3(double[] tensors, int count, double[] values, double[] vectors) {
+		if (tensors.length < 9 * count || values.length < 3 * count
+				|| (vectors != null && vectors.length < 9 * count)) {
+			throw new EuclidRuntimeException("arrays too short for " + count + " matrices");
+		}
+		for (int m = 0; m < count; m++) {
+			int t = 9 * m;
+			// lower triangle
+			double a00 = tensors[t];
+			double a10 = tensors[t + 3];
+			double a11 = tensors[t + 4];
+			double a20 = tensors[t + 6];
+			double a21 = tensors[t + 7];
+			double a22 = tensors[t + 8];
+			// eigenvectors (columns) accumulated as v[row][col]
+			double v00 = 1.0, v01 = 0.0, v02 = 0.0;
+			double v10 = 0.0, v11 = 1.0, v12 = 0.0;
+			double v20 = 0.0, v21 = 0.0, v22 = 1.0;
+			double scale = Math.abs(a00) + Math.abs(a11) + Math.abs(a22)
+					+ Math.abs(a10) + Math.abs(a20) + Math.abs(a21);
+			double tiny = EPS * EPS * scale * scale;
+			for (int sweep = 0; sweep < MAX_JACOBI_SWEEPS; sweep++) {
+				if (a10 * a10 + a20 * a20 + a21 * a21 <= tiny) {
+					break;
+				}
+				// rotation in (0, 1) plane
+				if (a10 != 0.0) {
+					double theta = (a11 - a00) / (2.0 * a10);
+					double tn = Math.signum(theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1.0));
+					if (theta == 0.0) {
+						tn = 1.0;
+					}
+					double c = 1.0 / Math.sqrt(tn * tn + 1.0);
+					double s = tn * c;
+					a00 -= tn * a10;
+					a11 += tn * a10;
+					a10 = 0.0;
+					double x = a20;
+					double y = a21;
+					a20 = c * x - s * y;
+					a21 = s * x + c * y;
+					x = v00; y = v01; v00 = c * x - s * y; v01 = s * x + c * y;
+					x = v10; y = v11; v10 = c * x - s * y; v11 = s * x + c * y;
+					x = v20; y = v21; v20 = c * x - s * y; v21 = s * x + c * y;
+				}
+				// rotation in (0, 2) plane
+				if (a20 != 0.0) {
+					double theta = (a22 - a00) / (2.0 * a20);
+					double tn = Math.signum(theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1.0));
+					if (theta == 0.0) {
+						tn = 1.0;
+					}
+					double c = 1.0 / Math.sqrt(tn * tn + 1.0);
+					double s = tn * c;
+					a00 -= tn * a20;
+					a22 += tn * a20;
+					a20 = 0.0;
+					double x = a10;
+					double y = a21;
+					a10 = c * x - s * y;
+					a21 = s * x + c * y;
+					x = v00; y = v02; v00 = c * x - s * y; v02 = s * x + c * y;
+					x = v10; y = v12; v10 = c * x - s * y; v12 = s * x + c * y;
+					x = v20; y = v22; v20 = c * x - s * y; v22 = s * x + c * y;
+				}
+				// rotation in (1, 2) plane
+				if (a21 != 0.0) {
+					double theta = (a22 - a11) / (2.0 * a21);
+					double tn = Math.signum(theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1.0));
+					if (theta == 0.0) {
+						tn = 1.0;
+					}
+					double c = 1.0 / Math.sqrt(tn * tn + 1.0);
+					double s = tn * c;
+					a11 -= tn * a21;
+					a22 += tn * a21;
+					a21 = 0.0;
+					double x = a10;
+					double y = a20;
+					a10 = c * x - s * y;
+					a20 = s * x + c * y;
+					x = v01; y = v02; v01 = c * x - s * y; v02 = s * x + c * y;
+					x = v11; y = v12; v11 = c * x - s * y; v12 = s * x + c * y;
+					x = v21; y = v22; v21 = c * x - s * y; v22 = s * x + c * y;
+				}
+			}
+			// sort columns by decreasing eigenvalue (three compare-and-swaps)
+			double tmp;
+			if (a00 < a11) {
+				tmp = a00; a00 = a11; a11 = tmp;
+				tmp = v00; v00 = v01; v01 = tmp;
+				tmp = v10; v10 = v11; v11 = tmp;
+				tmp = v20; v20 = v21; v21 = tmp;
+			}
+			if (a00 < a22) {
+				tmp = a00; a00 = a22; a22 = tmp;
+				tmp = v00; v00 = v02; v02 = tmp;
+				tmp = v10; v10 = v12; v12 = tmp;
+				tmp = v20; v20 = v22; v22 = tmp;
+			}
+			if (a11 < a22) {
+				tmp = a11; a11 = a22; a22 = tmp;
+				tmp = v01; v01 = v02; v02 = tmp;
+				tmp = v11; v11 = v12; v12 = tmp;
+				tmp = v21; v21 = v22; v22 = tmp;
+			}
+			int d = 3 * m;
+			values[d] = a00;
+			values[d + 1] = a11;
+			values[d + 2] = a22;
+			if (vectors != null) {
+				vectors[t] = v00;
+				vectors[t + 1] = v01;
+				vectors[t + 2] = v02;
+				vectors[t + 3] = v10;
+				vectors[t + 4] = v11;
+				vectors[t + 5] = v12;
+				vectors[t + 6] = v20;
+				vectors[t + 7] = v21;
+				vectors[t + 8] = v22;
+			}
+		}
+	}
+}
@@ -701,6 +701,86 @@ public class Transform2 extends RealSquareMatrix {
 		return finalTransform;
 	}
 	
+    /**
+     * get the affine coefficients. the top 2 rows of the matrix in row-major
+     * order (m00, m01, m02, m10, m11, m12); the last row is assumed to be 0 0 1
+     * 
+     * @return 6 coefficients
+     */
+    public double[] getAffineCoefficients() {
+        double[] c = new double[6];
+        System.arraycopy(flmat[0], 0, c, 0, 3);
+        System.arraycopy(flmat[1], 0, c, 3, 3);
+        return c;
+    }
+    /**
+     * transform packed coordinates in place. points are stored as x0, y0, x1,
+     * y1... starting at offset. Coefficients are extracted once and large
+     * buffers are transformed in parallel.
+     * 
+     * @param xy buffer (MODIFIED)
+     * @param offset index of x0
+     * @param count number of points
+     * @throws EuclidRuntimeException if buffer is too short
+     */
+    public void transform(double[] xy, int offset, int count) {
+        transform(getAffineCoefficients(), xy, offset, count, null);
+    }
+    /**
+     * transform subset of packed coordinates in place. indexes outside
+     * 0..count-1 are ignored
+     * 
+     * @param xy buffer (MODIFIED)
+     * @param offset index of x0
+     * @param count number of points
+     * @param is indexes of points to transform
+     * @throws EuclidRuntimeException if buffer is too short
+     */
+    public void transform(double[] xy, int offset, int count, IntSet is) {
+        transform(getAffineCoefficients(), xy, offset, count, is.getElements());
+    }
+    /**
+     * transform coordinates held in separate arrays in place.
+     * 
+     * @param x (MODIFIED)
+     * @param y (MODIFIED)
+     * @param count number of points
+     * @throws EuclidRuntimeException if arrays are too short
+     */
+    public void transform(double[] x, double[] y, int count) {
+        if (x.length < count || y.length < count) {
+            throw new EuclidRuntimeException("arrays too short for " + count + " points");
+        }
+        BulkTransform.apply(getAffineCoefficients(), x, y, null, 0, 0, 0, 1, count, null);
+    }
+    /**
+     * apply a chain of transforms to packed coordinates in one pass.
+     * chain[0] is applied first; the product is formed from the 2x3
+     * coefficients only.
+     * 
+     * @param chain transforms in order of application
+     * @param xy buffer (MODIFIED)
+     * @param offset index of x0
+     * @param count number of points
+     * @throws EuclidRuntimeException if chain is empty or buffer is too short
+     */
+    public static void transform(Transform2[] chain, double[] xy, int offset, int count) {
+        if (chain == null || chain.length == 0) {
+            throw new EuclidRuntimeException("empty transform chain");
+        }
+        double[] c = chain[0].getAffineCoefficients();
+        for (int i = 1; i < chain.length; i++) {
+            c = BulkTransform.concatenate2(chain[i].getAffineCoefficients(), c);
+        }
+        transform(c, xy, offset, count, null);
+    }
+    private static void transform(double[] c, double[] xy, int offset, int count, int[] index) {
+        if (offset < 0 || count < 0 || offset + 2 * count > xy.length) {
+            throw new EuclidRuntimeException("buffer too short for " + count + " points at " + offset);
+        }
+        BulkTransform.apply(c, xy, xy, null, offset, offset + 1, 0, 2, count, index);
+    }
+    
     /**
      * Description of the Method
      * 
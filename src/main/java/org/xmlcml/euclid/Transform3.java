@@ -851,6 +851,90 @@ public class Transform3 extends RealSquareMatrix {
         return s;
     }
     
+    /**
+     * get the affine coefficients. the top 3 rows of the matrix in row-major
+     * order (m00, m01, m02, m03, m10, ... m23); the last row is assumed to be
+     * 0 0 0 1
+     * 
+     * @return 12 coefficients
+     */
+    public double[] getAffineCoefficients() {
+        double[] c = new double[12];
+        for (int i = 0; i < 3; i++) {
+            System.arraycopy(flmat[i], 0, c, 4 * i, 4);
+        }
+        return c;
+    }
+    /**
+     * transform packed coordinates in place. points are stored as x0, y0, z0,
+     * x1, y1... starting at offset. Coefficients are extracted once and large
+     * buffers are transformed in parallel.
+     * 
+     * @param xyz buffer (MODIFIED)
+     * @param offset index of x0
+     * @param count number of points
+     * @throws EuclidRuntimeException if buffer is too short
+     */
+    public void transform(double[] xyz, int offset, int count) {
+        transform(getAffineCoefficients(), xyz, offset, count, null);
+    }
+    /**
+     * transform subset of packed coordinates in place. indexes outside
+     * 0..count-1 are ignored (as Point3Vector.transform(t, is))
+     * 
+     * @param xyz buffer (MODIFIED)
+     * @param offset index of x0
+     * @param count number of points
+     * @param is indexes of points to transform
+     * @throws EuclidRuntimeException if buffer is too short
+     */
+    public void transform(double[] xyz, int offset, int count, IntSet is) {
+        transform(getAffineCoefficients(), xyz, offset, count, is.getElements());
+    }
+    /**
+     * transform coordinates held in separate arrays in place.
+     * 
+     * @param x (MODIFIED)
+     * @param y (MODIFIED)
+     * @param z (MODIFIED)
+     * @param count number of points
+     * @throws EuclidRuntimeException if arrays are too short
+     */
+    public void transform(double[] x, double[] y, double[] z, int count) {
+        if (x.length < count || y.length < count || z.length < count) {
+            throw new EuclidRuntimeException("arrays too short for " + count + " points");
+        }
+        BulkTransform.apply(getAffineCoefficients(), x, y, z, 0, 0, 0, 1, count, null);
+    }
+    /**
+     * apply a chain of transforms to packed coordinates in one pass.
+     * chain[0] is applied first, then chain[1] ... i.e. the result is the same as
+     * transforming by chain[n-1].concatenate(...chain[1].concatenate(chain[0]))
+     * but the product is formed from the 3x4 coefficients only.
+     * 
+     * @param chain transforms in order of application
+     * @param xyz buffer (MODIFIED)
+     * @param offset index of x0
+     * @param count number of points
+     * @throws EuclidRuntimeException if chain is empty or buffer is too short
+     */
+    public static void transform(Transform3[] chain, double[] xyz, int offset, int count) {
+        if (chain == null || chain.length == 0) {
+            throw new EuclidRuntimeException("empty transform chain");
+        }
+        double[] c = chain[0].getAffineCoefficients();
+        for (int i = 1; i < chain.length; i++) {
+            c = BulkTransform.concatenate3(chain[i].getAffineCoefficients(), c);
+        }
+        transform(c, xyz, offset, count, null);
+    }
+    private static void transform(double[] c, double[] xyz, int offset, int count, int[] index) {
+        if (offset < 0 || count < 0 || offset + 3 * count > xyz.length) {
+            throw new EuclidRuntimeException("buffer too short for " + count + " points at " + offset);
+        }
+        BulkTransform.apply(c, xyz, xyz, xyz, offset, offset + 1, offset + 2, 3, count, index);
+    }
+    
     /**
      * check not null
      * 
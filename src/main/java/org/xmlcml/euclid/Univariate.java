@@ -17,7 +17,9 @@
 package org.xmlcml.euclid;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.RecursiveAction;
 
 import org.apache.log4j.Logger;
 
@@ -25,6 +27,12 @@ import org.apache.log4j.Logger;
  * 
  Univariate stats.
  * 
+ * the distribution functions (qnorm, pnorm, qt, pt, pchisq, betainv, pf,
+ * lnfgamma) also have bulk versions which fill a caller-supplied array;
+ * parameters which depend only on the degrees of freedom are computed once
+ * and large arrays are split across the shared ForkJoinPool. Log-gamma of
+ * integers and half-integers up to GAMMA_TABLE_SIZE / 2 is read from tables.
+ * 
  * @author (C) P. Murray-Rust, 2001, 2004
  */
 
@@ -32,6 +40,29 @@ public class Univariate {
 
 	private static Logger LOG = Logger.getLogger(Univariate.class);
 
+	/** bulk distribution functions are parallel for at least this many values */
+	public final static int PARALLEL_THRESHOLD = 1 << 14;
+	private final static int CHUNK = 1 << 12;
+	/** lnfgamma(k / 2) is tabulated for 0 < k < GAMMA_TABLE_SIZE */
+	public final static int GAMMA_TABLE_SIZE = 2048;
+	private final static int FACTORIAL_TABLE_SIZE = 171;
+
+	// LN_GAMMA_HALF[k] = ln(gamma(k / 2)); FACTORIAL[n] = n!
+	private final static double[] LN_GAMMA_HALF = new double[GAMMA_TABLE_SIZE];
+	private final static double[] FACTORIAL = new double[FACTORIAL_TABLE_SIZE];
+	static {
+		LN_GAMMA_HALF[1] = 0.5 * Math.log(Math.PI);
+		LN_GAMMA_HALF[2] = 0.0;
+		// gamma(x + 1) = x * gamma(x)
+		for (int k = 3; k < GAMMA_TABLE_SIZE; k++) {
+			LN_GAMMA_HALF[k] = LN_GAMMA_HALF[k - 2] + Math.log(0.5 * (k - 2));
+		}
+		FACTORIAL[0] = 1.0;
+		for (int n = 1; n < FACTORIAL_TABLE_SIZE; n++) {
+			FACTORIAL[n] = FACTORIAL[n - 1] * n;
+		}
+	}
+
 	RealArray realArray;
 	double[] array;
 	int count;
@@ -59,6 +90,7 @@ public class Univariate {
 	private List<UnivariateBin> binList;
 
 	private List<Real2> valueFrequencyList;
+	private UnivariateAccumulator accumulator;
 
 	/** default constructor. */
 	public Univariate() {
@@ -77,9 +109,40 @@ public class Univariate {
 		setArray(realArray);
 	}
 
+	/**
+	 * creates a summary from streamed data. the values are not held, so
+	 * methods needing the data array (sorting, deviates, bins) throw
+	 * EuclidRuntimeException; quantiles and median are approximate.
+	 * 
+	 * @param accumulator
+	 *            the statistics (not copied)
+	 */
+	public Univariate(UnivariateAccumulator accumulator) {
+		init();
+		this.accumulator = accumulator;
+		getCount();
+	}
+
 	void init() {
 		setBinCount(10);
 	}
+
+	/**
+	 * get streaming accumulator for these data. if this was created from an
+	 * accumulator that is returned, else a new one is filled from the array.
+	 * can be merged with accumulators from other data
+	 * 
+	 * @return accumulator
+	 */
+	public UnivariateAccumulator getAccumulator() {
+		return (accumulator != null) ? accumulator : new UnivariateAccumulator().add(realArray);
+	}
+
+	private void checkArray() {
+		if (realArray == null) {
+			throw new EuclidRuntimeException("no data array (summary created from accumulator)");
+		}
+	}
 	
 	/**
 	 * sets data copies realArray
@@ -89,6 +152,7 @@ public class Univariate {
 	 */
 	public void setArray(RealArray realArray) {
 		this.realArray = new RealArray(realArray);
+		accumulator = null;
 		getCount();
 	}
 
@@ -117,7 +181,7 @@ public class Univariate {
 	 * @return count
 	 */
 	public int getCount() {
-		count = realArray.size();
+		count = (accumulator != null) ? (int) Math.min(accumulator.getCount(), Integer.MAX_VALUE) : realArray.size();
 		return count;
 	}
 
@@ -127,7 +191,7 @@ public class Univariate {
 	 * @return minimum value
 	 */
 	public double getMin() {
-		xMin = realArray.smallestElement();
+		xMin = (accumulator != null) ? accumulator.getMin() : realArray.smallestElement();
 		return xMin;
 	}
 
@@ -137,7 +201,7 @@ public class Univariate {
 	 * @return maximum value
 	 */
 	public double getMax() {
-		xMax = realArray.largestElement();
+		xMax = (accumulator != null) ? accumulator.getMax() : realArray.largestElement();
 		return xMax;
 	}
 
@@ -147,7 +211,10 @@ public class Univariate {
 	 * @return mean value; Double NaN if no points
 	 */
 	public double getMean() {
-		if (!gotMean || mean == Double.NaN) {
+		if (accumulator != null) {
+			mean = accumulator.getMean();
+			sum = accumulator.getSum();
+		} else if (!gotMean || mean == Double.NaN) {
 			count = realArray.size();
 			if (count == 0) {
 				mean = Double.NaN;
@@ -166,17 +233,20 @@ public class Univariate {
 	 * @return variance
 	 */
 	public double getVariance() {
-		if (!gotVariance) {
+		if (accumulator != null) {
+			variance = accumulator.getVariance();
+		} else if (!gotVariance) {
 			getCount();
 			if (count < 2) {
 				throw new RuntimeException("Only one point");
 			}
 			getMean();
 			double sumx2 = 0.0;
-			getDeviateValues();
-			double x[] = deviateArray.getArray();
+			// deviates are not stored
+			double x[] = realArray.getArray();
 			for (int i = 0; i < count; i++) {
-				sumx2 += x[i] * x[i];
+				double dx = x[i] - mean;
+				sumx2 += dx * dx;
 			}
 			// variance = (sumx2 - count * mean * mean) / (double) (count - 1);
 			variance = (sumx2) / (double) (count - 1);
@@ -203,7 +273,7 @@ public class Univariate {
 	 */
 	public double getStandardError() {
 		getVariance();
-		return (Math.sqrt(variance / (double) count));
+		return (accumulator != null) ? accumulator.getStandardError() : (Math.sqrt(variance / (double) count));
 	}
 
 	/**
@@ -212,6 +282,7 @@ public class Univariate {
 	 * @return the points
 	 */
 	public double[] getArray() {
+		checkArray();
 		array = realArray.getArray();
 		return array;
 	}
@@ -222,6 +293,7 @@ public class Univariate {
 	 * @return the points
 	 */
 	public double[] getSortedArray() {
+		checkArray();
 		if (!isSorted) {
 			realArray.sortAscending();
 			getArray();
@@ -240,6 +312,7 @@ public class Univariate {
 	 * @return the normalized values
 	 */
 	public RealArray getNormalizedValues() {
+		checkArray();
 		double[] array = realArray.getArray();
 		getMean();
 		getDeviateValues();
@@ -262,6 +335,7 @@ public class Univariate {
 	 * @return the deviate values
 	 */
 	public RealArray getDeviateValues() {
+		checkArray();
 		double[] array = realArray.getArray();
 		getMean();
 		double[] dvArray = new double[array.length];
@@ -284,6 +358,9 @@ public class Univariate {
 		if (q > 1.0 || q < 0.0) {
 			throw new RuntimeException("Quantile value out of range: " + q);
 		}
+		if (accumulator != null) {
+			return accumulator.getQuantile(q);
+		}
 		getSortedArray();
 		// count of quantile element
 		double dindex = (count + 1) * q;
@@ -355,6 +432,7 @@ public class Univariate {
 	}
 
 	private void getLowXRangeAndDeltaX() {
+		checkArray();
 		lowXRange = realArray.getRange().getRange() + Real.getEpsilon();
 		deltaX = lowXRange / binCount;
 		getMin();
@@ -454,17 +532,33 @@ public class Univariate {
 	/**
 	 * return bins for Histogram. @ not enough points
 	 * 
+	 * counts in one pass without sorting or keeping bin contents
+	 * 
 	 * @return the counts in each bin
 	 */
 	public int[] getHistogramCounts() {
-		getBins();
+		long[] counts = createHistogram().getCounts();
 		binCounts = new int[binCount];
 		for (int i = 0; i < binCount; i++) {
-			binCounts[i] = binList.get(i).getCount();
+			binCounts[i] = (int) counts[i];
 		}
 		return binCounts;
 	}
 
+	/**
+	 * create and fill histogram with binCount bins (as getXValues()).
+	 * values outside the range are clamped into the end bins
+	 * 
+	 * @return histogram
+	 */
+	public Histogram createHistogram() {
+		getLowXRangeAndDeltaX();
+		Histogram histogram = Histogram.createFixedWidth(xMin, deltaX, binCount);
+		histogram.setClamp(true);
+		histogram.add(realArray);
+		return histogram;
+	}
+
 	private List<UnivariateBin> getBins() {
 		calculateSummaryStats();
 
@@ -771,14 +865,20 @@ public class Univariate {
 	 *            degrees of freedom
 	 * @return chisq (?)
 	 */
-	public double pchisq(double q, double df) {
+	public static double pchisq(double q, double df) {
+		double df2 = df * .5;
+		return pchisq(q, df, lnfgamma(df2 + 1), lnfgamma(df2));
+	}
+
+	// lnGamma1 = lnfgamma(df / 2 + 1), lnGamma0 = lnfgamma(df / 2)
+	private static double pchisq(double q, double df, double lnGamma1, double lnGamma0) {
 		double df2 = df * .5;
 		double q2 = q * .5;
 		int n = 5, k;
 		double tk, CFL, CFU, prob;
 		if (q <= 0 || df <= 0) {
 			throw new IllegalArgumentException("Illegal argument " + q + " or "
-					+ df + " for qnorm(p).");
+					+ df + " for pchisq(q, df).");
 		}
 		if (q < df) {
 			tk = q2 * (1 - n - df2)
@@ -788,7 +888,7 @@ public class Univariate {
 						/ (df2 + 2 * k - 1 + k * q2 / (df2 + 2 * k + tk));
 			}
 			CFL = 1 - q2 / (df2 + 1 + q2 / (df2 + 2 + tk));
-			prob = Math.exp(df2 * Math.log(q2) - q2 - lnfgamma(df2 + 1)
+			prob = Math.exp(df2 * Math.log(q2) - q2 - lnGamma1
 					- Math.log(CFL));
 		} else {
 			tk = (n - df2) / (q2 + n);
@@ -796,7 +896,7 @@ public class Univariate {
 				tk = (k - df2) / (q2 + k / (1 + tk));
 			}
 			CFU = 1 + (1 - df2) / (q2 + 1 / (1 + tk));
-			prob = 1 - Math.exp((df2 - 1) * Math.log(q2) - q2 - lnfgamma(df2)
+			prob = 1 - Math.exp((df2 - 1) * Math.log(q2) - q2 - lnGamma0
 					- Math.log(CFU));
 		}
 		return prob;
@@ -811,12 +911,17 @@ public class Univariate {
 	 * @return betainv (?)
 	 */
 	public static double betainv(double x, double p, double q) {
-		double beta = lnfbeta(p, q), acu = 1E-14;
-		double cx, psq, pp, qq, x2, term, ai, betain, ns, rx, temp;
-		boolean indx;
 		if (p <= 0 || q <= 0) {
 			return (-1.0);
 		}
+		return betainv(x, p, q, lnfbeta(p, q));
+	}
+
+	// p, q > 0 and beta = lnfbeta(p, q)
+	private static double betainv(double x, double p, double q, double beta) {
+		double acu = 1E-14;
+		double cx, psq, pp, qq, x2, term, ai, betain, ns, rx, temp;
+		boolean indx;
 		if (x <= 0 || x >= 1) {
 			return (-1.0);
 		}
@@ -881,7 +986,7 @@ public class Univariate {
 
 	public static void test() {
 		Util.println("--------------Testing Univariate--------------\n");
-		RandomNumberGenerator rng = new RandomNumberGenerator();
+		RandomStream rng = new RandomStream();
 		int npoints1 = 1000;
 		double[] data1 = new double[npoints1];
 		for (int i = 0; i < npoints1; i++) {
@@ -929,7 +1034,23 @@ public class Univariate {
 
 	}
 
+	/**
+	 * log of the gamma function. Values at integers and half-integers below
+	 * GAMMA_TABLE_SIZE / 2 are from a table, others by Lanczos approximation.
+	 * 
+	 * @param c
+	 *            (c > 0)
+	 * @return ln(gamma(c))
+	 */
 	public static double lnfgamma(double c) {
+		double twoC = 2.0 * c;
+		if (twoC > 0 && twoC < GAMMA_TABLE_SIZE && twoC == (int) twoC) {
+			return LN_GAMMA_HALF[(int) twoC];
+		}
+		return lanczosLnGamma(c);
+	}
+
+	private static double lanczosLnGamma(double c) {
 		int j;
 		double x, y, tmp, ser;
 		double[] cof = { 76.18009172947146, -86.50532032941677,
@@ -957,6 +1078,9 @@ public class Univariate {
 	}
 
 	public static double fact(int n) {
+		if (n >= 0 && n < FACTORIAL_TABLE_SIZE) {
+			return FACTORIAL[n];
+		}
 		return Math.exp(lnfgamma(n + 1));
 	}
 
@@ -972,6 +1096,254 @@ public class Univariate {
 		return Math.exp(lnfact(n) - lnfact(r));
 	}
 
+	/**
+	 * bulk qnorm(p, upper).
+	 * 
+	 * @param p
+	 *            (0 <= p <= 1)
+	 * @param upper
+	 * @param result
+	 *            filled with qnorm(p[i], upper); at least as long as p (may
+	 *            be p)
+	 */
+	public static void qnorm(double[] p, final boolean upper, double[] result) {
+		apply(new Function() {
+			double value(double x) {
+				return qnorm(x, upper);
+			}
+		}, p, result);
+	}
+
+	/**
+	 * bulk pnorm(z, upper).
+	 * 
+	 * @param z
+	 * @param upper
+	 * @param result
+	 *            filled with pnorm(z[i], upper); at least as long as z (may
+	 *            be z)
+	 */
+	public static void pnorm(double[] z, final boolean upper, double[] result) {
+		apply(new Function() {
+			double value(double x) {
+				return pnorm(x, upper);
+			}
+		}, z, result);
+	}
+
+	/**
+	 * bulk qt(p, ndf, lower_tail).
+	 * 
+	 * @param p
+	 *            (0 < p < 1)
+	 * @param ndf
+	 *            degrees of freedom >= 1
+	 * @param lower_tail
+	 * @param result
+	 *            filled with qt(p[i], ndf, lower_tail); at least as long as p
+	 *            (may be p)
+	 */
+	public static void qt(double[] p, final double ndf, final boolean lower_tail, double[] result) {
+		apply(new Function() {
+			double value(double x) {
+				return qt(x, ndf, lower_tail);
+			}
+		}, p, result);
+	}
+
+	/**
+	 * bulk pt(t, df).
+	 * 
+	 * @param t
+	 * @param df
+	 *            degrees of freedom >= 1
+	 * @param result
+	 *            filled with pt(t[i], df); at least as long as t (may be t)
+	 */
+	public static void pt(double[] t, final double df, double[] result) {
+		if (df < 1) {
+			throw new IllegalArgumentException(
+					"Illegal argument df for pt(t,df).");
+		}
+		apply(new Function() {
+			double value(double x) {
+				return pt(x, df);
+			}
+		}, t, result);
+	}
+
+	/**
+	 * bulk pchisq(q, df).
+	 * 
+	 * @param q
+	 *            (q > 0)
+	 * @param df
+	 *            degrees of freedom > 0
+	 * @param result
+	 *            filled with pchisq(q[i], df); at least as long as q (may be
+	 *            q)
+	 */
+	public static void pchisq(double[] q, final double df, double[] result) {
+		final double lnGamma1 = lnfgamma(df * .5 + 1);
+		final double lnGamma0 = lnfgamma(df * .5);
+		apply(new Function() {
+			double value(double x) {
+				return pchisq(x, df, lnGamma1, lnGamma0);
+			}
+		}, q, result);
+	}
+
+	/**
+	 * bulk betainv(x, p, q).
+	 * 
+	 * @param x
+	 * @param p
+	 * @param q
+	 * @param result
+	 *            filled with betainv(x[i], p, q); at least as long as x (may
+	 *            be x)
+	 */
+	public static void betainv(double[] x, final double p, final double q, double[] result) {
+		if (p <= 0 || q <= 0) {
+			checkLengths(x, result);
+			Arrays.fill(result, 0, x.length, -1.0);
+			return;
+		}
+		final double beta = lnfbeta(p, q);
+		apply(new Function() {
+			double value(double xx) {
+				return betainv(xx, p, q, beta);
+			}
+		}, x, result);
+	}
+
+	/**
+	 * bulk pf(x, df1, df2).
+	 * 
+	 * @param x
+	 * @param df1
+	 * @param df2
+	 * @param result
+	 *            filled with pf(x[i], df1, df2); at least as long as x (may be
+	 *            x)
+	 */
+	public static void pf(double[] x, final double df1, final double df2, double[] result) {
+		if (df1 <= 0 || df2 <= 0) {
+			checkLengths(x, result);
+			Arrays.fill(result, 0, x.length, -1.0);
+			return;
+		}
+		final double p = 0.5 * df1;
+		final double q = 0.5 * df2;
+		final double beta = lnfbeta(p, q);
+		apply(new Function() {
+			double value(double xx) {
+				return betainv(df1 * xx / (df1 * xx + df2), p, q, beta);
+			}
+		}, x, result);
+	}
+
+	/**
+	 * bulk lnfgamma(c).
+	 * 
+	 * @param c
+	 * @param result
+	 *            filled with lnfgamma(c[i]); at least as long as c (may be c)
+	 */
+	public static void lnfgamma(double[] c, double[] result) {
+		apply(new Function() {
+			double value(double x) {
+				return lnfgamma(x);
+			}
+		}, c, result);
+	}
+
+	/**
+	 * bulk lnfact(n).
+	 * 
+	 * @param n
+	 * @param result
+	 *            filled with lnfact(n[i]); at least as long as n
+	 */
+	public static void lnfact(int[] n, double[] result) {
+		if (result.length < n.length) {
+			throw new EuclidRuntimeException("result too short: " + result.length + " < " + n.length);
+		}
+		for (int i = 0; i < n.length; i++) {
+			result[i] = lnfact(n[i]);
+		}
+	}
+
+	/**
+	 * bulk fact(n).
+	 * 
+	 * @param n
+	 * @param result
+	 *            filled with fact(n[i]); at least as long as n
+	 */
+	public static void fact(int[] n, double[] result) {
+		if (result.length < n.length) {
+			throw new EuclidRuntimeException("result too short: " + result.length + " < " + n.length);
+		}
+		for (int i = 0; i < n.length; i++) {
+			result[i] = fact(n[i]);
+		}
+	}
+
+	private static void checkLengths(double[] values, double[] result) {
+		if (result.length < values.length) {
+			throw new EuclidRuntimeException("result too short: " + result.length + " < " + values.length);
+		}
+	}
+
+	// result[i] = function.value(values[i]), split across the pool if large
+	private static void apply(Function function, double[] values, double[] result) {
+		checkLengths(values, result);
+		if (values.length >= PARALLEL_THRESHOLD) {
+			MatrixMultiplier.getPool().invoke(new FunctionTask(function, values, result, 0, values.length));
+		} else {
+			function.apply(values, result, 0, values.length);
+		}
+	}
+
+	private static abstract class Function {
+		abstract double value(double x);
+
+		void apply(double[] values, double[] result, int lo, int hi) {
+			for (int i = lo; i < hi; i++) {
+				result[i] = value(values[i]);
+			}
+		}
+	}
+
+	private static class FunctionTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private Function function;
+		private double[] values;
+		private double[] result;
+		private int lo;
+		private int hi;
+
+		FunctionTask(Function function, double[] values, double[] result, int lo, int hi) {
+			this.function = function;
+			this.values = values;
+			this.result = result;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo <= CHUNK) {
+				function.apply(values, result, lo, hi);
+			} else {
+				int m = (lo + hi) >>> 1;
+				invokeAll(new FunctionTask(function, values, result, lo, m),
+						new FunctionTask(function, values, result, m, hi));
+			}
+		}
+	}
+
 	public static void main(String[] args) {
 		test();
 	}
@@ -0,0 +1,362 @@
+package org.xmlcml.euclid;
+
+import java.util.concurrent.RecursiveTask;
+
+/** streaming univariate statistics in constant memory.
+ *
+ * values are seen once and not stored. count, sum, min and max are exact;
+ * mean and variance use Welford's update (Chan et al. when merging) and
+ * quantiles come from a merging t-digest, whose memory is set by the
+ * compression (about 2 * compression centroids at most).
+ *
+ * accumulators built on different threads or partitions can be combined with
+ * merge(); new Univariate(accumulator) gives the Univariate summary methods.
+ * NaN values are counted (and make mean and variance NaN) but are not used in
+ * min, max or quantiles.
+ *
+ * not thread-safe; use one accumulator per thread and merge.
+ *
+ */
+public class UnivariateAccumulator {
+
+	/** default t-digest compression. quantile errors are roughly 1/compression
+	 * in the middle of the distribution and much smaller in the tails */
+	public final static double DEFAULT_COMPRESSION = 100.0;
+	/** minimum number of values before accumulate() partitions across threads */
+	final static int PARALLEL_THRESHOLD = 1 << 16;
+
+	private long count;
+	private double mean;
+	private double m2;
+	private double sum;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+
+	private double compression;
+	private double digestWeight;
+	private int nCentroid;
+	private double[] centroidMean;
+	private double[] centroidWeight;
+	private int nBuffer;
+	private double[] bufferMean;
+	private double[] bufferWeight;
+	private double[] scratchMean;
+	private double[] scratchWeight;
+
+	/** accumulator with DEFAULT_COMPRESSION.
+	 */
+	public UnivariateAccumulator() {
+		this(DEFAULT_COMPRESSION);
+	}
+
+	/** accumulator with given quantile compression.
+	 *
+	 * @param compression at least 10; larger is more accurate and uses more memory
+	 * @throws EuclidRuntimeException if compression is too small
+	 */
+	public UnivariateAccumulator(double compression) {
+		if (!(compression >= 10.0)) {
+			throw new EuclidRuntimeException("compression must be at least 10: " + compression);
+		}
+		this.compression = compression;
+		int capacity = 2 * (int) Math.ceil(compression) + 10;
+		int bufferSize = 5 * capacity;
+		centroidMean = new double[capacity];
+		centroidWeight = new double[capacity];
+		bufferMean = new double[bufferSize];
+		bufferWeight = new double[bufferSize];
+		scratchMean = new double[capacity + bufferSize];
+		scratchWeight = new double[capacity + bufferSize];
+	}
+
+	/** accumulate values[offset..offset+length), partitioned across threads if large.
+	 *
+	 * @param values
+	 * @param offset
+	 * @param length
+	 * @return new accumulator with DEFAULT_COMPRESSION
+	 */
+	public static UnivariateAccumulator accumulate(double[] values, int offset, int length) {
+		checkRange(values, offset, length);
+		if (length < PARALLEL_THRESHOLD) {
+			return new UnivariateAccumulator().add(values, offset, length);
+		}
+		return MatrixMultiplier.getPool().invoke(new AccumulateTask(values, offset, offset + length));
+	}
+
+	/** add one value.
+	 *
+	 * @param x
+	 * @return this
+	 */
+	public UnivariateAccumulator add(double x) {
+		count++;
+		double d = x - mean;
+		mean += d / count;
+		m2 += d * (x - mean);
+		sum += x;
+		if (x < min) {
+			min = x;
+		}
+		if (x > max) {
+			max = x;
+		}
+		if (x == x) {
+			addToDigest(x, 1.0);
+		}
+		return this;
+	}
+
+	/** add values[offset..offset+length).
+	 *
+	 * @param values
+	 * @param offset
+	 * @param length
+	 * @return this
+	 */
+	public UnivariateAccumulator add(double[] values, int offset, int length) {
+		checkRange(values, offset, length);
+		for (int i = offset; i < offset + length; i++) {
+			add(values[i]);
+		}
+		return this;
+	}
+
+	/** add all elements.
+	 *
+	 * @param realArray
+	 * @return this
+	 */
+	public UnivariateAccumulator add(RealArray realArray) {
+		return add(realArray.getArray(), 0, realArray.size());
+	}
+
+	/** combine another accumulator into this.
+	 *
+	 * the result is as if all values of acc had been added to this (up to
+	 * rounding and quantile approximation). acc is not modified
+	 *
+	 * @param acc
+	 * @return this
+	 */
+	public UnivariateAccumulator merge(UnivariateAccumulator acc) {
+		if (acc == this) {
+			throw new EuclidRuntimeException("cannot merge accumulator with itself");
+		}
+		if (acc.count == 0) {
+			return this;
+		}
+		if (count == 0) {
+			mean = acc.mean;
+			m2 = acc.m2;
+		} else {
+			long n = count + acc.count;
+			double d = acc.mean - mean;
+			mean += d * ((double) acc.count / n);
+			m2 += acc.m2 + d * d * ((double) count * acc.count / n);
+		}
+		count += acc.count;
+		sum += acc.sum;
+		min = Math.min(min, acc.min);
+		max = Math.max(max, acc.max);
+		for (int i = 0; i < acc.nCentroid; i++) {
+			addToDigest(acc.centroidMean[i], acc.centroidWeight[i]);
+		}
+		for (int i = 0; i < acc.nBuffer; i++) {
+			addToDigest(acc.bufferMean[i], acc.bufferWeight[i]);
+		}
+		return this;
+	}
+
+	/** @return number of values added */
+	public long getCount() {
+		return count;
+	}
+
+	/** @return sum of values */
+	public double getSum() {
+		return sum;
+	}
+
+	/** @return smallest value; NaN if none */
+	public double getMin() {
+		return (digestWeight == 0) ? Double.NaN : min;
+	}
+
+	/** @return largest value; NaN if none */
+	public double getMax() {
+		return (digestWeight == 0) ? Double.NaN : max;
+	}
+
+	/** @return mean; NaN if no values */
+	public double getMean() {
+		return (count == 0) ? Double.NaN : mean;
+	}
+
+	/** sample variance (divisor count - 1).
+	 *
+	 * @return variance
+	 * @throws EuclidRuntimeException if fewer than 2 values
+	 */
+	public double getVariance() {
+		if (count < 2) {
+			throw new EuclidRuntimeException("Only one point");
+		}
+		return m2 / (count - 1);
+	}
+
+	/** @return standard deviation (see getVariance) */
+	public double getStandardDeviation() {
+		return Math.sqrt(getVariance());
+	}
+
+	/** @return standard error of the mean (see getVariance) */
+	public double getStandardError() {
+		return Math.sqrt(getVariance() / count);
+	}
+
+	/** approximate quantile.
+	 *
+	 * exact for the smallest and largest values and, while fewer values than
+	 * about the compression have been added, interpolates between the sorted values.
+	 *
+	 * @param q 0 =< q =< 1
+	 * @return quantile; NaN if no values
+	 * @throws EuclidRuntimeException if q out of range
+	 */
+	public double getQuantile(double q) {
+		if (q > 1.0 || q < 0.0) {
+			throw new EuclidRuntimeException("Quantile value out of range: " + q);
+		}
+		compress();
+		if (nCentroid == 0) {
+			return Double.NaN;
+		}
+		if (nCentroid == 1) {
+			return centroidMean[0];
+		}
+		double index = q * digestWeight;
+		double half = centroidWeight[0] / 2.0;
+		if (index < half) {
+			return min + (centroidMean[0] - min) * (index / half);
+		}
+		int last = nCentroid - 1;
+		double lastHalf = centroidWeight[last] / 2.0;
+		if (index > digestWeight - lastHalf) {
+			return max - (max - centroidMean[last]) * ((digestWeight - index) / lastHalf);
+		}
+		double weightSoFar = half;
+		for (int i = 0; i < last; i++) {
+			double dw = (centroidWeight[i] + centroidWeight[i + 1]) / 2.0;
+			if (weightSoFar + dw >= index) {
+				double f = (index - weightSoFar) / dw;
+				return centroidMean[i] + f * (centroidMean[i + 1] - centroidMean[i]);
+			}
+			weightSoFar += dw;
+		}
+		return centroidMean[last];
+	}
+
+	/** @return approximate median (see getQuantile) */
+	public double getMedian() {
+		return getQuantile(0.5);
+	}
+
+	private void addToDigest(double x, double w) {
+		if (nBuffer == bufferMean.length) {
+			compress();
+		}
+		bufferMean[nBuffer] = x;
+		bufferWeight[nBuffer] = w;
+		nBuffer++;
+		digestWeight += w;
+	}
+
+	// merge sorted centroids with sorted buffer, then regroup under the k1 size limit
+	private void compress() {
+		if (nBuffer == 0) {
+			return;
+		}
+		ParallelSort.sortPairs(bufferMean, bufferWeight, 0, nBuffer - 1);
+		int n = 0;
+		int i = 0;
+		int j = 0;
+		while (i < nCentroid || j < nBuffer) {
+			if (j == nBuffer || (i < nCentroid && centroidMean[i] <= bufferMean[j])) {
+				scratchMean[n] = centroidMean[i];
+				scratchWeight[n++] = centroidWeight[i++];
+			} else {
+				scratchMean[n] = bufferMean[j];
+				scratchWeight[n++] = bufferWeight[j++];
+			}
+		}
+		nBuffer = 0;
+		nCentroid = 0;
+		double total = digestWeight;
+		double weightSoFar = 0.0;
+		double limit = total * kInverse(k(0.0) + 1.0);
+		double currentMean = scratchMean[0];
+		double currentWeight = scratchWeight[0];
+		for (int k = 1; k < n; k++) {
+			double w = scratchWeight[k];
+			if (weightSoFar + currentWeight + w <= limit) {
+				currentWeight += w;
+				currentMean += (scratchMean[k] - currentMean) * w / currentWeight;
+			} else {
+				centroidMean[nCentroid] = currentMean;
+				centroidWeight[nCentroid++] = currentWeight;
+				weightSoFar += currentWeight;
+				limit = total * kInverse(k(weightSoFar / total) + 1.0);
+				currentMean = scratchMean[k];
+				currentWeight = w;
+			}
+		}
+		centroidMean[nCentroid] = currentMean;
+		centroidWeight[nCentroid++] = currentWeight;
+	}
+
+	// k1 scale function: centroids are small near q = 0 and q = 1
+	private double k(double q) {
+		double x = Math.max(-1.0, Math.min(1.0, 2.0 * q - 1.0));
+		return compression / (2.0 * Math.PI) * Math.asin(x);
+	}
+
+	private double kInverse(double k) {
+		if (k >= compression / 4.0) {
+			return 1.0;
+		}
+		return (Math.sin(k * 2.0 * Math.PI / compression) + 1.0) / 2.0;
+	}
+
+	private static void checkRange(double[] values, int offset, int length) {
+		if (offset < 0 || length < 0 || offset + length > values.length) {
+			throw new EuclidRuntimeException("bad range " + offset + "/" + length + " for " + values.length);
+		}
+	}
+
+	private static class AccumulateTask extends RecursiveTask<UnivariateAccumulator> {
+		private static final long serialVersionUID = 1L;
+		private final static int CHUNK = 1 << 15;
+		private double[] values;
+		private int from;
+		private int to;
+
+		AccumulateTask(double[] values, int from, int to) {
+			this.values = values;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected UnivariateAccumulator compute() {
+			if (to - from <= CHUNK) {
+				return new UnivariateAccumulator().add(values, from, to - from);
+			}
+			int mid = (from + to) >>> 1;
+			AccumulateTask right = new AccumulateTask(values, mid, to);
+			right.fork();
+			UnivariateAccumulator left = new AccumulateTask(values, from, mid).compute();
+			return left.merge(right.join());
+		}
+	}
+}
@@ -2491,6 +2491,10 @@ public class Util implements EuclidConstants {
 	 */
 	public final static int[] splitToIntArray(String s, String delim)
 			throws EuclidRuntimeException {
+		String literal = getLiteralDelimiter(delim);
+		if (literal != null) {
+			return NumberScanner.parseInts(s, literal);
+		}
 		String[] ss = s.split(delim);
 		int[] ii = new int[ss.length];
 		for (int i = 0; i < ss.length; i++) {
@@ -2503,6 +2507,32 @@ public class Util implements EuclidConstants {
 		return ii;
 	}
 
+	/**
+	 * converts a split() regex to a literal delimiter for NumberScanner.
+	 * 
+	 * @param regex
+	 * @return S_SPACE for whitespace (" ", " +", "\\s", "\\s+"), the delimiter
+	 *         for a literal or single escaped character, else null (a real regex)
+	 */
+	private static String getLiteralDelimiter(String regex) {
+		if (regex == null || regex.equals(S_SPACE) || regex.equals(" +")
+				|| regex.equals(S_WHITEREGEX) || regex.equals("\\s")) {
+			return S_SPACE;
+		}
+		if (regex.length() == 2 && regex.charAt(0) == '\\'
+				&& REGEX_METACHARACTERS.indexOf(regex.charAt(1)) != -1) {
+			return regex.substring(1);
+		}
+		for (int i = 0; i < regex.length(); i++) {
+			if (REGEX_METACHARACTERS.indexOf(regex.charAt(i)) != -1) {
+				return null;
+			}
+		}
+		return (regex.length() == 0) ? null : regex;
+	}
+
+	private final static String REGEX_METACHARACTERS = "\\^$.|?*+()[]{}";
+
 	/**
 	 * splits string into doubles. assumes single space delimiters
 	 * 
@@ -2539,7 +2569,7 @@ public class Util implements EuclidConstants {
 				return Double.NaN;
 			} else {
 				try {
-					return Double.valueOf(value);
+					return NumberScanner.parseDouble(value);
 				} catch (NumberFormatException e) {
 					throw new ParseException(e.toString(), 0);
 				}
@@ -2564,6 +2594,10 @@ public class Util implements EuclidConstants {
 		if (s == null) {
 			throw new RuntimeException("null argument");
 		}
+		String literal = getLiteralDelimiter(delim);
+		if (literal != null) {
+			return NumberScanner.parseDoubles(s, literal);
+		}
 		String[] ss = s.trim().split(delim);
 		double[] dd = new double[ss.length];
 		for (int i = 0; i < ss.length; i++) {
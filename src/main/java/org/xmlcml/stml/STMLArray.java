@@ -16,21 +16,21 @@
 
 package org.xmlcml.stml;
 
-import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
 
 import nu.xom.Attribute;
 import nu.xom.Element;
 import nu.xom.Node;
+import nu.xom.Text;
 
 import org.apache.log4j.Logger;
 import org.joda.time.DateTime;
 import org.xmlcml.euclid.EuclidRuntimeException;
 import org.xmlcml.euclid.IntArray;
 import org.xmlcml.euclid.JodaDate;
+import org.xmlcml.euclid.NumberScanner;
 import org.xmlcml.euclid.RealArray;
-import org.xmlcml.euclid.Util;
 import org.xmlcml.stml.attribute.DelimiterAttribute;
 import org.xmlcml.stml.attribute.DelimiterAttribute.Action;
 import org.xmlcml.stml.attribute.NamespaceRefAttribute;
@@ -387,6 +387,24 @@ public class STMLArray extends STMLElement implements HasUnits, HasArraySize,
 		return ss;
 	}
 
+	/**
+	 * streaming reader over numeric content.
+	 * 
+	 * tokens are parsed one at a time with nextDouble() or nextInt() so no
+	 * String[] or full primitive array is created; getDoubles() and getInts()
+	 * use this.
+	 * 
+	 * @return the scanner
+	 */
+	public NumberScanner getNumberScanner() {
+		String content = this.getXMLContent();
+		ensureDelimiterAttribute(Action.PRESERVE);
+		NumberScanner scanner = delimiterAttribute.getNumberScanner(
+				(content == null) ? S_EMPTY : content);
+		this.removeWhitespaceDelimiterAttribute();
+		return scanner;
+	}
+
 	/**
 	 * get doubles.
 	 * 
@@ -418,19 +436,7 @@ public class STMLArray extends STMLElement implements HasUnits, HasArraySize,
 		String dataType = this.getDataType();
 		if (dataType != null
 				&& XSD_DOUBLE.equals(STMLType.getNormalizedValue(dataType))) {
-			String[] ss = getSplitContent();
-			dd = new double[ss.length];
-			for (int i = 0; i < dd.length; i++) {
-				try {
-					dd[i] = Util.parseFlexibleDouble(ss[i]);
-				} catch (NumberFormatException nfe) {
-					throw new RuntimeException("Bad double :" + ss[i]
-							+ " at position: " + i, nfe);
-				} catch (ParseException e) {
-					throw new RuntimeException("Bad double : " + ss[i]
-							+ "at position " + i, e);
-				}
-			}
+			dd = getNumberScanner().nextDoubles();
 		}
 		return dd;
 	}
@@ -482,16 +488,7 @@ public class STMLArray extends STMLElement implements HasUnits, HasArraySize,
 		int[] ii = null;
 		String dataType = this.getDataType();
 		if (XSD_INTEGER.equals(dataType)) {
-			String[] ss = getSplitContent();
-			ii = new int[ss.length];
-			for (int i = 0; i < ii.length; i++) {
-				try {
-					ii[i] = new Integer(ss[i]).intValue();
-				} catch (NumberFormatException nfe) {
-					throw new RuntimeException("Bad int (" + ss[i]
-							+ ") at position: " + i);
-				}
-			}
+			ii = getNumberScanner().nextInts();
 		}
 		return ii;
 	}
@@ -667,7 +664,7 @@ public class STMLArray extends STMLElement implements HasUnits, HasArraySize,
 	public int getSize() {
 		int size = -1;
 		if (this.getSizeAttribute() != null) {
-			size = this.getSize();
+			size = super.getSize();
 		} else {
 			String[] array = this.getSplitContent();
 			size = array.length;
@@ -698,7 +695,7 @@ public class STMLArray extends STMLElement implements HasUnits, HasArraySize,
 	public void setDelimiter(String value) {
 		String[] old = this.getSplitContent();
 		ensureDelimiterAttribute(Action.RESET);
-		this.setDelimiter(value);
+		super.setDelimiter(value);
 		delimiterAttribute = (DelimiterAttribute) this.getDelimiterAttribute();
 		if (old.length>0) {
 			for (String s : old) {
@@ -715,7 +712,7 @@ public class STMLArray extends STMLElement implements HasUnits, HasArraySize,
 	 * @return dataType (default XSD_STRING)
 	 */
 	public String getDataType() {
-		String dataType = this.getDataType();
+		String dataType = super.getDataType();
 		if (dataType == null) {
 			dataType = XSD_STRING;
 			super.setDataType(dataType);
@@ -959,6 +956,43 @@ public class STMLArray extends STMLElement implements HasUnits, HasArraySize,
 		this.removeWhitespaceDelimiterAttribute();
 	}
 
+	/**
+	 * append buffer for adding many numbers in linear time.
+	 * 
+	 * datatype must be XSD_DOUBLE or XSD_INTEGER; remember to flush() the appender.
+	 * 
+	 * @return appender with default chunk size
+	 */
+	public STMLArrayAppender createAppender() {
+		return createAppender(STMLArrayAppender.DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * append buffer for adding many numbers in linear time.
+	 * 
+	 * @param chunkSize number of characters buffered before each flush
+	 * @return appender
+	 */
+	public STMLArrayAppender createAppender(int chunkSize) {
+		ensureDelimiterAttribute(Action.PRESERVE);
+		STMLArrayAppender appender = new STMLArrayAppender(this, delimiterAttribute, chunkSize);
+		this.removeWhitespaceDelimiterAttribute();
+		return appender;
+	}
+
+	/**
+	 * adds already delimited content as a new text node (existing content is not copied).
+	 * 
+	 * @param chunk delimited values
+	 * @param toAdd number of values in chunk
+	 */
+	void appendContent(String chunk, int toAdd) {
+		int size = this.getSize();
+		this.appendChild(new Text(chunk));
+		resetSize(size + toAdd);
+		this.removeWhitespaceDelimiterAttribute();
+	}
+
 	public void append(STMLScalar scalar) {
 		if (scalar != null) {
 			String dataType = this.getDataType();
@@ -1081,16 +1115,6 @@ public class STMLArray extends STMLElement implements HasUnits, HasArraySize,
 		
 	}
 
-	public String getXMLContent() {
-		// TODO Auto-generated method stub
-		return null;
-	}
-
-	public void setXMLContent(String content) {
-		// TODO Auto-generated method stub
-		
-	}
-
 	public String getUnits() {
 		// TODO Auto-generated method stub
 		return null;
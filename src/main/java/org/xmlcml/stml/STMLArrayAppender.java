@@ -0,0 +1,187 @@
+/**
+ *    Copyright 2011 Peter Murray-Rust et. al.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.xmlcml.stml;
+
+import org.xmlcml.stml.attribute.DelimiterAttribute;
+
+/**
+ * append buffer for building large numeric arrays.
+ * 
+ * STMLArray.append(double) re-reads and rewrites the whole content on every
+ * call, so building an array value by value is quadratic. An appender formats
+ * values into a chunk buffer and adds each full chunk to the array as a
+ * separate text node (so earlier content is never copied) and updates the size
+ * once per chunk. Time is linear and the buffer is bounded by the chunk size.
+ * 
+ * <pre>
+ * STMLArrayAppender appender = array.createAppender();
+ * for (double d : values) {
+ *     appender.append(d);
+ * }
+ * appender.flush();
+ * </pre>
+ * 
+ * Existing content is delimited once when the appender is created (as
+ * appendXMLContent(String, String) does on every append), so "1,2" becomes
+ * ",1,2," before values are added.
+ * 
+ * Values are not visible in the array until flushed. The array should not be
+ * altered by other means while an appender holds unflushed values.
+ * 
+ */
+public class STMLArrayAppender implements STMLConstants {
+
+	/** default number of characters buffered before a flush */
+	public final static int DEFAULT_CHUNK_SIZE = 65536;
+
+	private STMLArray array;
+	private DelimiterAttribute delimiterAttribute;
+	private String dataType;
+	private String concat;
+	private boolean empty;
+	private int chunkSize;
+	private StringBuilder chunk;
+	private int pending;
+	private int count;
+
+	/**
+	 * created by STMLArray.createAppender().
+	 * 
+	 * @param array
+	 * @param delimiterAttribute
+	 * @param chunkSize
+	 */
+	STMLArrayAppender(STMLArray array, DelimiterAttribute delimiterAttribute, int chunkSize) {
+		this.array = array;
+		this.delimiterAttribute = delimiterAttribute;
+		this.dataType = array.getDataType();
+		this.concat = delimiterAttribute.getConcat().trim();
+		String content = array.getXMLContent();
+		this.empty = (content == null || content.trim().length() == 0);
+		if (!empty) {
+			// valid content may lack the trailing delimiter (e.g. "1,2")
+			String delimited = delimiterAttribute.getDelimitedXMLContent(content.trim());
+			if (!delimited.equals(content)) {
+				array.setXMLContent(delimited);
+			}
+		}
+		this.chunkSize = Math.max(chunkSize, 1);
+		this.chunk = new StringBuilder(Math.min(this.chunkSize, DEFAULT_CHUNK_SIZE) + 32);
+	}
+
+	/**
+	 * add a double. datatype must be XSD_DOUBLE
+	 * 
+	 * @param d
+	 *            double to add (INF, -INF and NaN written in XSD form)
+	 * @throws RuntimeException
+	 *             dataType not XSD_DOUBLE
+	 */
+	public void append(double d) throws RuntimeException {
+		if (!XSD_DOUBLE.equals(dataType)) {
+			throw new RuntimeException("Cannot add double to array of: " + dataType);
+		}
+		String s;
+		if (Double.isNaN(d)) {
+			s = "NaN";
+		} else if (Double.isInfinite(d)) {
+			s = (d < 0) ? "-INF" : "INF";
+		} else {
+			s = Double.toString(d);
+		}
+		appendValue(s);
+	}
+
+	/**
+	 * add doubles. datatype must be XSD_DOUBLE
+	 * 
+	 * @param dd
+	 * @throws RuntimeException
+	 *             dataType not XSD_DOUBLE
+	 */
+	public void append(double[] dd) throws RuntimeException {
+		for (double d : dd) {
+			append(d);
+		}
+	}
+
+	/**
+	 * add an integer. datatype must be XSD_INTEGER
+	 * 
+	 * @param i
+	 *            integer to add
+	 * @throws RuntimeException
+	 *             dataType not XSD_INTEGER
+	 */
+	public void append(int i) throws RuntimeException {
+		if (!XSD_INTEGER.equals(dataType)) {
+			throw new RuntimeException("Cannot add int to array of: " + dataType);
+		}
+		appendValue(Integer.toString(i));
+	}
+
+	/**
+	 * add integers. datatype must be XSD_INTEGER
+	 * 
+	 * @param ii
+	 * @throws RuntimeException
+	 *             dataType not XSD_INTEGER
+	 */
+	public void append(int[] ii) throws RuntimeException {
+		for (int i : ii) {
+			append(i);
+		}
+	}
+
+	private void appendValue(String s) {
+		if (concat.length() > 0 && s.indexOf(concat) != -1) {
+			throw new RuntimeException("cannot delimit {" + s + "} with {" + concat + S_RCURLY);
+		}
+		delimiterAttribute.appendXMLContent(chunk, s, empty);
+		empty = false;
+		pending++;
+		count++;
+		if (chunk.length() >= chunkSize) {
+			flush();
+		}
+	}
+
+	/**
+	 * write buffered values to the array.
+	 */
+	public void flush() {
+		if (pending > 0) {
+			array.appendContent(chunk.toString(), pending);
+			chunk.setLength(0);
+			pending = 0;
+		}
+	}
+
+	/**
+	 * @return number of values appended (flushed or not)
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * @return number of values not yet flushed
+	 */
+	public int getPendingCount() {
+		return pending;
+	}
+}
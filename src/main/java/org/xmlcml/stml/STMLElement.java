@@ -551,9 +551,21 @@ public class STMLElement extends Element implements XMLConstants {
 		this.tool = tool;
 	}
 
-	public void setDataType(String type) {
-		// TODO Auto-generated method stub
-		
+	/** The data type of the object.
+	* Normally applied to scalar/array 
+	*                 objects but may extend to more complex one.
+	* @param value title value
+	* @throws RuntimeException attribute wrong value/type
+	*/
+	public void setDataType(String value) throws RuntimeException {
+	    if (_att_datatype == null) {
+	        _att_datatype = (StringSTAttribute) attributeFactory.getAttribute("dataType", "array");
+	        if (_att_datatype == null) {
+	            throw new RuntimeException("BUG: cannot process attributeGroupName : dataType probably incompatible attributeGroupName and attributeName");
+	        }
+	    }
+	    StringSTAttribute att = new StringSTAttribute(_att_datatype);
+	    this.addRemove(att, value);
 	}
 
 	/**
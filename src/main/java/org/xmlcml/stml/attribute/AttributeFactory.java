@@ -29,6 +29,7 @@ import org.xmlcml.stml.STMLConstants;
  */
 public class AttributeFactory implements STMLConstants {
 
+    private static final String DATATYPE = "dataType";
     private static final String DELIMITER = "delimiter";
     private static final String SIZE = "size";
     
@@ -44,9 +45,11 @@ public class AttributeFactory implements STMLConstants {
 	
 	public STMLAttribute getAttribute(String name, String extent) {
 		if (DELIMITER.equals(name) && ARRAY.equals(extent)) {
-			return new DelimiterAttribute(name);
-//		} else if (SIZE.equals(name) && ARRAY.equals(extent)) {
-//			return new SizeAttribute(name);
+			return new DelimiterAttribute();
+		} else if (SIZE.equals(name) && ARRAY.equals(extent)) {
+			return new IntSTAttribute(name);
+		} else if (DATATYPE.equals(name) && (ARRAY.equals(extent) || SCALAR.equals(extent))) {
+			return new StringSTAttribute(name);
 		}
 		return null;
 	}
@@ -18,6 +18,7 @@ package org.xmlcml.stml.attribute;
 
 import nu.xom.Attribute;
 
+import org.xmlcml.euclid.NumberScanner;
 import org.xmlcml.euclid.Util;
 
 /**
@@ -153,21 +154,43 @@ public class DelimiterAttribute extends StringSTAttribute {
      */
     public String[] getSplitContent(String content) {
         String[] ss = new String[0];
-	    content = content.trim();
+	    content = getUndelimitedContent(content);
 	    if (content.length() > 0) {
-	    	if (!isWhitespace()) {
-	            if (content.startsWith(concat)) {
-	                content = content.substring(1);
-	            }
-	            if (content.endsWith(concat)) {
-	                content = content.substring(0, content.length() - concat.length());
-	            }
-	    	}
 	        ss = content.split(splitter);
 	    }
 	    return ss;
     }
 
+    /**
+     * trims content and removes any leading and trailing non-whitespace delimiter.
+     * 
+     * @param content
+     * @return content ready for splitting at delimiter
+     */
+    public String getUndelimitedContent(String content) {
+	    content = content.trim();
+	    if (content.length() > 0 && !isWhitespace()) {
+            if (content.startsWith(concat)) {
+                content = content.substring(1);
+            }
+            if (content.endsWith(concat)) {
+                content = content.substring(0, content.length() - concat.length());
+            }
+	    }
+	    return content;
+    }
+
+    /**
+     * scanner for numeric content (avoids split()).
+     * 
+     * @param content
+     * @return scanner over the delimited tokens of content
+     */
+    public NumberScanner getNumberScanner(String content) {
+    	return new NumberScanner(getUndelimitedContent(content),
+    			isWhitespace() ? null : concat);
+    }
+
     /**
      * checks that components does not clash with delimiter.
      *
@@ -225,6 +248,29 @@ public class DelimiterAttribute extends StringSTAttribute {
         return s;
     }
     
+    /**
+     * append one value to a content buffer without rebuilding the content.
+     *
+     * same layout as appendXMLContent(String, String): with whitespace each
+     * value is preceded by a space; otherwise the delimiter is written before
+     * the first value of empty content and after every value.
+     *
+     * @param sb buffer receiving content
+     * @param snew to append
+     * @param empty true if there is no content before sb; otherwise that
+     * content must already be delimited by getDelimitedXMLContent(String)
+     */
+    public void appendXMLContent(StringBuilder sb, String snew, boolean empty) {
+        if (!isWhitespace()) {
+            if (empty) {
+                sb.append(concat);
+            }
+            sb.append(snew).append(concat);
+        } else {
+            sb.append(concat).append(snew);
+        }
+    }
+
     private boolean isWhitespace() {
     	return S_WHITEREGEX.equals(splitter);
     }
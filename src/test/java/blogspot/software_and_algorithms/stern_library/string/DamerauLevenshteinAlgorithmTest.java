@@ -1,5 +1,7 @@
 package blogspot.software_and_algorithms.stern_library.string;
 
+import java.util.Random;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -93,6 +95,61 @@ public class DamerauLevenshteinAlgorithmTest {
 						"aa"));
 	}
 
+	@Test
+	public void testSwapAtStart() {
+		/*
+		 * A swap after deleting or inserting only at the start.
+		 */
+		Assert.assertEquals(3, new DamerauLevenshteinAlgorithm(3, 1, 2, 2)
+				.execute("aaaaaa", "aaaaa"));
+		Assert.assertEquals(2, new DamerauLevenshteinAlgorithm(1, 1, 1, 1)
+				.execute("xab", "ba"));
+		Assert.assertEquals(2, new DamerauLevenshteinAlgorithm(1, 1, 1, 1)
+				.execute("ab", "xba"));
+	}
+
+	@Test
+	public void testMaxDistance() {
+		DamerauLevenshteinAlgorithm algorithm = new DamerauLevenshteinAlgorithm(
+				1, 1, 1, 1);
+		Assert.assertEquals(6, algorithm.execute("NawKtYu", "tKNwYua", 6));
+		Assert.assertEquals(6, algorithm.execute("NawKtYu", "tKNwYua", 5));
+		Assert.assertEquals(1, algorithm.execute("Jdc", "dJc", 0));
+		Assert.assertEquals(3, algorithm.execute("NawKtYu", "", 2));
+		Assert.assertEquals(0, algorithm.execute("", "", 0));
+	}
+
+	@Test
+	public void testMaxDistanceRandom() {
+		int[][] costs = { { 1, 1, 1, 1 }, { 1, 1, 1, 2 }, { 2, 3, 4, 3 },
+				{ 3, 1, 2, 2 }, { 5, 5, 1, 5 } };
+		Random random = new Random(17);
+		for (int test = 0; test < 2000; test++) {
+			int[] cost = costs[test % costs.length];
+			DamerauLevenshteinAlgorithm algorithm = new DamerauLevenshteinAlgorithm(
+					cost[0], cost[1], cost[2], cost[3]);
+			int alphabet = 1 + random.nextInt(6);
+			// also much longer sources or targets, so the band meets the edges
+			int sourceLength = random.nextInt(test % 3 == 1 ? 50 : 20);
+			int targetLength = random.nextInt(test % 3 == 2 ? 50 : 20);
+			String source = randomString(random, sourceLength, alphabet);
+			String target = randomString(random, targetLength, alphabet);
+			int distance = algorithm.execute(source, target);
+			int maxDistance = random.nextInt(60);
+			Assert.assertEquals(source + " " + target,
+					Math.min(distance, maxDistance + 1),
+					algorithm.execute(source, target, maxDistance));
+		}
+	}
+
+	private static String randomString(Random random, int length, int alphabet) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			builder.append((char) ('a' + random.nextInt(alphabet)));
+		}
+		return builder.toString();
+	}
+
 	@Test
 	public void testInvalidCosts() {
 		try {
@@ -102,4 +159,14 @@ public class DamerauLevenshteinAlgorithmTest {
 
 		}
 	}
+
+	@Test
+	public void testInvalidMaxDistance() {
+		try {
+			new DamerauLevenshteinAlgorithm(1, 1, 1, 1).execute("a", "b", -1);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+
+		}
+	}
 }
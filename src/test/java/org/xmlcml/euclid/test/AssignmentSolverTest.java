@@ -0,0 +1,237 @@
+/**
+ *    Copyright 2011 Peter Murray-Rust
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.xmlcml.euclid.test;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlcml.euclid.AssignmentSolver;
+import org.xmlcml.euclid.EuclidRuntimeException;
+import org.xmlcml.euclid.RealMatrix;
+import org.xmlcml.euclid.SparseDistanceMatrix;
+
+import blogspot.software_and_algorithms.stern_library.optimization.HungarianAlgorithm;
+
+/**
+ * test AssignmentSolver.
+ * 
+ */
+public class AssignmentSolverTest {
+
+	private static final double INF = Double.POSITIVE_INFINITY;
+
+	private static double[][] randomCosts(int rows, int cols, double forbidden, Random random) {
+		double[][] costs = new double[rows][cols];
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < cols; j++) {
+				costs[i][j] = (random.nextDouble() < forbidden) ? INF : Math.floor(100 * random.nextDouble()) - 20;
+			}
+		}
+		return costs;
+	}
+
+	// checks columns are distinct and returns {count, cost}
+	private static double[] countAndCost(double[][] costs, int[] assignment) {
+		int cols = (costs.length == 0) ? 0 : costs[0].length;
+		boolean[] used = new boolean[cols];
+		int count = 0;
+		double cost = 0.0;
+		for (int i = 0; i < assignment.length; i++) {
+			int j = assignment[i];
+			if (j != -1) {
+				Assert.assertFalse("column used twice " + j, used[j]);
+				used[j] = true;
+				Assert.assertTrue("allowed pair", costs[i][j] != INF);
+				count++;
+				cost += costs[i][j];
+			}
+		}
+		return new double[] {count, cost};
+	}
+
+	// exhaustive {maximum count, minimum cost at that count}
+	private static double[] bruteForce(double[][] costs) {
+		double[] best = {0, 0};
+		search(costs, 0, new boolean[costs[0].length], 0, 0.0, best);
+		return best;
+	}
+
+	private static void search(double[][] costs, int i, boolean[] used, int count, double cost, double[] best) {
+		if (i == costs.length) {
+			if (count > best[0] || (count == best[0] && cost < best[1])) {
+				best[0] = count;
+				best[1] = cost;
+			}
+			return;
+		}
+		search(costs, i + 1, used, count, cost, best);
+		for (int j = 0; j < used.length; j++) {
+			if (!used[j] && costs[i][j] != INF) {
+				used[j] = true;
+				search(costs, i + 1, used, count + 1, cost + costs[i][j], best);
+				used[j] = false;
+			}
+		}
+	}
+
+	@Test
+	public void testSimple() {
+		double[][] matrix = new double[][] {
+				new double[] {4.0, 1.5, 4.0},
+				new double[] {4.0, 4.5, 6.0},
+				new double[] {3.0, 2.25, 3.0}};
+		AssignmentSolver solver = new AssignmentSolver();
+		int[] match = solver.solve(matrix);
+		Assert.assertArrayEquals(new int[] {1, 0, 2}, match);
+		Assert.assertEquals("cost", 8.5, solver.getCost(), 1.0E-10);
+		Assert.assertEquals("count", 3, solver.getAssignedCount());
+		Assert.assertArrayEquals(match, solver.solve(new RealMatrix(matrix)));
+	}
+
+	@Test
+	public void testEmpty() {
+		AssignmentSolver solver = new AssignmentSolver();
+		Assert.assertEquals("no rows", 0, solver.solve(new double[0][0]).length);
+		Assert.assertArrayEquals(new int[] {-1, -1}, solver.solve(new double[2][0]));
+		Assert.assertArrayEquals(new int[] {-1, -1}, solver.solve(new double[][] {{INF, INF}, {INF, INF}}));
+		Assert.assertEquals("count", 0, solver.getAssignedCount());
+	}
+
+	@Test
+	public void testAgainstHungarian() {
+		Random random = new Random(11L);
+		AssignmentSolver solver = new AssignmentSolver();
+		int[][] shapes = {{1, 1}, {5, 5}, {20, 20}, {7, 12}, {12, 7}, {40, 25}, {60, 60}};
+		for (int[] shape : shapes) {
+			double[][] costs = randomCosts(shape[0], shape[1], 0.0, random);
+			int[] expected = new HungarianAlgorithm(costs).execute();
+			int[] match = solver.solve(costs);
+			Assert.assertEquals("size", shape[0], match.length);
+			double[] result = countAndCost(costs, match);
+			Assert.assertEquals("count", Math.min(shape[0], shape[1]), (int) result[0]);
+			Assert.assertEquals("cost " + shape[0] + "x" + shape[1], countAndCost(costs, expected)[1], result[1], 1.0E-9);
+			Assert.assertEquals("getCost", result[1], solver.getCost(), 1.0E-9);
+		}
+	}
+
+	@Test
+	public void testForbiddenPairs() {
+		Random random = new Random(12L);
+		AssignmentSolver solver = new AssignmentSolver();
+		for (int trial = 0; trial < 200; trial++) {
+			int rows = 1 + random.nextInt(6);
+			int cols = 1 + random.nextInt(6);
+			double[][] costs = randomCosts(rows, cols, 0.6, random);
+			double[] expected = bruteForce(costs);
+			double[] result = countAndCost(costs, solver.solve(costs));
+			Assert.assertEquals("count " + trial, expected[0], result[0], 0.0);
+			Assert.assertEquals("cost " + trial, expected[1], result[1], 1.0E-9);
+		}
+	}
+
+	@Test
+	public void testSparse() {
+		// row 0: col 1 (2.0), col 2 (1.0); row 1: col 2 (1.5); row 2: none
+		int[] rowStart = {0, 2, 3, 3};
+		int[] colIndex = {1, 2, 2};
+		double[] costs = {2.0, 1.0, 1.5};
+		AssignmentSolver solver = new AssignmentSolver();
+		Assert.assertArrayEquals(new int[] {1, 2, -1}, solver.solve(3, 4, rowStart, colIndex, costs));
+		Assert.assertEquals("cost", 3.5, solver.getCost(), 0.0);
+		try {
+			solver.solve(3, 2, rowStart, colIndex, costs);
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+			// expected: column 2 out of range
+		}
+	}
+
+	@Test
+	public void testSparseDistanceMatrix() {
+		Random random = new Random(13L);
+		int n = 200;
+		double[] atoms = new double[3 * n];
+		double[] peaks = new double[3 * n];
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+		}
+		for (int i = n - 1; i > 0; i--) {
+			int k = random.nextInt(i + 1);
+			int t = order[i];
+			order[i] = order[k];
+			order[k] = t;
+		}
+		// atoms on a grid, peaks are shuffled and displaced atoms
+		for (int i = 0; i < n; i++) {
+			atoms[3 * i] = i % 10;
+			atoms[3 * i + 1] = (i / 10) % 10;
+			atoms[3 * i + 2] = i / 100;
+			for (int d = 0; d < 3; d++) {
+				peaks[3 * order[i] + d] = atoms[3 * i + d] + 0.1 * (random.nextDouble() - 0.5);
+			}
+		}
+		SparseDistanceMatrix distances = new SparseDistanceMatrix(3, atoms, peaks, 1.5);
+		AssignmentSolver solver = new AssignmentSolver();
+		int[] match = solver.solve(distances);
+		for (int i = 0; i < n; i++) {
+			Assert.assertEquals("atom " + i, order[i], match[i]);
+		}
+		Assert.assertArrayEquals(match, solver.solve(distances.getRealMatrix()));
+	}
+
+	@Test
+	public void testWarmStart() {
+		Random random = new Random(14L);
+		AssignmentSolver warm = new AssignmentSolver();
+		warm.setWarmStart(true);
+		Assert.assertTrue("warm", warm.isWarmStart());
+		AssignmentSolver cold = new AssignmentSolver();
+		double[][] costs = randomCosts(30, 40, 0.3, random);
+		for (int frame = 0; frame < 10; frame++) {
+			// small changes between frames
+			for (int k = 0; k < 20; k++) {
+				int i = random.nextInt(30);
+				int j = random.nextInt(40);
+				costs[i][j] = (costs[i][j] == INF) ? INF : costs[i][j] + random.nextInt(11) - 5;
+			}
+			double[] expected = countAndCost(costs, cold.solve(costs));
+			double[] result = countAndCost(costs, warm.solve(costs));
+			Assert.assertEquals("count " + frame, expected[0], result[0], 0.0);
+			Assert.assertEquals("cost " + frame, expected[1], result[1], 1.0E-9);
+		}
+		// unchanged costs keep the same solution
+		int[] match = warm.solve(costs);
+		Assert.assertArrayEquals(match, warm.solve(costs));
+		// a different shape starts cold
+		double[][] other = randomCosts(5, 3, 0.0, random);
+		Assert.assertEquals("shape", countAndCost(other, new HungarianAlgorithm(other).execute())[1],
+				countAndCost(other, warm.solve(other))[1], 1.0E-9);
+	}
+
+	@Test
+	public void testIrregular() {
+		try {
+			new AssignmentSolver().solve(new double[][] {{1.0, 2.0}, {3.0}});
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+			// expected
+		}
+	}
+}
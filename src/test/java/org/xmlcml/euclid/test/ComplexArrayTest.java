@@ -0,0 +1,185 @@
+/**
+ *    Copyright 2011 Peter Murray-Rust
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+
+package org.xmlcml.euclid.test;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlcml.euclid.Complex;
+import org.xmlcml.euclid.ComplexArray;
+import org.xmlcml.euclid.EuclidRuntimeException;
+import org.xmlcml.euclid.Polar;
+import org.xmlcml.euclid.RealArray;
+
+/**
+ * test ComplexArray.
+ * 
+ */
+public class ComplexArrayTest {
+
+	private static ComplexArray random(int n, long seed) {
+		Random random = new Random(seed);
+		ComplexArray c = new ComplexArray(n);
+		for (int i = 0; i < n; i++) {
+			c.setElementAt(i, random.nextGaussian(), random.nextGaussian());
+		}
+		return c;
+	}
+
+	// O(n^2) transform
+	private static ComplexArray dft(ComplexArray x) {
+		int n = x.size();
+		ComplexArray y = new ComplexArray(n);
+		for (int k = 0; k < n; k++) {
+			double re = 0.0;
+			double im = 0.0;
+			for (int j = 0; j < n; j++) {
+				double angle = -2.0 * Math.PI * (((long) j * k) % n) / n;
+				double c = Math.cos(angle);
+				double s = Math.sin(angle);
+				re += x.getReal(j) * c - x.getImaginary(j) * s;
+				im += x.getReal(j) * s + x.getImaginary(j) * c;
+			}
+			y.setElementAt(k, re, im);
+		}
+		return y;
+	}
+
+	private static void assertEquals(String msg, ComplexArray expected, ComplexArray found, double eps) {
+		Assert.assertEquals(msg + " size", expected.size(), found.size());
+		for (int i = 0; i < expected.size(); i++) {
+			Assert.assertEquals(msg + " re " + i, expected.getReal(i), found.getReal(i), eps);
+			Assert.assertEquals(msg + " im " + i, expected.getImaginary(i), found.getImaginary(i), eps);
+		}
+	}
+
+	@Test
+	public void testConstructors() {
+		ComplexArray c = new ComplexArray(new double[] { 1., 2. }, new double[] { 3., 4. });
+		Assert.assertEquals("size", 2, c.size());
+		Assert.assertArrayEquals("interleaved", new double[] { 1., 3., 2., 4. }, c.getArray(), 0.0);
+		Assert.assertEquals("im", 4., c.getImaginary(1), 0.0);
+		Complex z = c.elementAt(0);
+		Assert.assertEquals("complex", 3., z.getImaginary(), 0.0);
+		ComplexArray d = new ComplexArray(new Complex[] { new Complex(1., 3.), new Complex(2., 4.) });
+		assertEquals("from complex", c, d, 0.0);
+		assertEquals("interleaved", c, ComplexArray.createFromInterleaved(new double[] { 1., 3., 2., 4. }), 0.0);
+		ComplexArray r = new ComplexArray(new RealArray(new double[] { 5., 6. }));
+		RealArrayTest.assertEquals("real", new double[] { 5., 6. }, r.getRealArray(), 1.0E-15);
+		RealArrayTest.assertEquals("imaginary", new double[] { 0., 0. }, r.getImaginaryArray(), 1.0E-15);
+		Polar p = new ComplexArray(new double[] { 0. }, new double[] { 2. }).getPolar(0);
+		Assert.assertEquals("r", 2., p.getR(), 1.0E-15);
+		Assert.assertEquals("modulus", 5., new ComplexArray(new double[] { 3. }, new double[] { 4. })
+				.getAbsArray().elementAt(0), 1.0E-15);
+	}
+
+	@Test(expected = EuclidRuntimeException.class)
+	public void testUnequalLengths() {
+		new ComplexArray(new double[2], new double[3]);
+	}
+
+	@Test
+	public void testFFT() {
+		for (int n : new int[] { 1, 2, 3, 5, 8, 12, 64, 97, 100, 1000 }) {
+			ComplexArray x = random(n, n);
+			ComplexArray y = new ComplexArray(x).fft();
+			assertEquals("fft " + n, dft(x), y, 1.0E-9 * n);
+			// repeated transform uses cached factors
+			assertEquals("repeat " + n, y, new ComplexArray(x).fft(), 0.0);
+			assertEquals("inverse " + n, x, y.inverseFFT(), 1.0E-12 * n);
+		}
+	}
+
+	@Test
+	public void testFFTManySizes() {
+		// more sizes than the Bluestein cache holds, then the first again
+		int[] sizes = new int[20];
+		for (int i = 0; i < sizes.length; i++) {
+			sizes[i] = 3 + 2 * i;
+		}
+		for (int pass = 0; pass < 2; pass++) {
+			for (int n : sizes) {
+				ComplexArray x = random(n, n + pass);
+				ComplexArray y = new ComplexArray(x).fft();
+				assertEquals("fft " + n, dft(x), y, 1.0E-9 * n);
+				assertEquals("inverse " + n, x, y.inverseFFT(), 1.0E-12 * n);
+			}
+		}
+	}
+
+	@Test
+	public void testPowerSpectrum() {
+		int n = 60;
+		double[] x = new double[n];
+		for (int i = 0; i < n; i++) {
+			x[i] = Math.cos(2.0 * Math.PI * 7 * i / n);
+		}
+		RealArray power = new RealArray(x).powerSpectrum();
+		Assert.assertEquals("size", n, power.size());
+		Assert.assertEquals("peak", 7, power.indexOfLargestElement());
+		Assert.assertEquals("peak", n * n / 4.0, power.elementAt(7), 1.0E-9);
+		Assert.assertEquals("mirror", n * n / 4.0, power.elementAt(n - 7), 1.0E-9);
+		Assert.assertEquals("off peak", 0.0, power.elementAt(8), 1.0E-9);
+		// Parseval
+		ComplexArray c = random(50, 3);
+		double sum = 0.0;
+		for (int i = 0; i < 50; i++) {
+			sum += c.getReal(i) * c.getReal(i) + c.getImaginary(i) * c.getImaginary(i);
+		}
+		Assert.assertEquals("parseval", sum * 50, c.fft().getPowerSpectrum().sumAllElements(), 1.0E-9);
+	}
+
+	@Test
+	public void testArithmetic() {
+		ComplexArray a = new ComplexArray(new double[] { 1., 2. }, new double[] { 1., -1. });
+		ComplexArray b = new ComplexArray(new double[] { 0., 3. }, new double[] { 1., 1. });
+		assertEquals("multiply", ComplexArray.createFromInterleaved(new double[] { -1., 1., 7., -1. }),
+				new ComplexArray(a).multiplyBy(b), 1.0E-15);
+		assertEquals("multiply conj", ComplexArray.createFromInterleaved(new double[] { 1., -1., 5., -5. }),
+				new ComplexArray(a).multiplyByConjugate(b), 1.0E-15);
+		assertEquals("conjugate", ComplexArray.createFromInterleaved(new double[] { 1., -1., 2., 1. }),
+				new ComplexArray(a).conjugate(), 0.0);
+		assertEquals("scale", ComplexArray.createFromInterleaved(new double[] { 2., 2., 4., -2. }),
+				new ComplexArray(a).multiplyBy(2.0), 0.0);
+		ComplexArray padded = a.resize(3);
+		Assert.assertEquals("pad", 3, padded.size());
+		Assert.assertEquals("pad", 0., padded.getReal(2), 0.0);
+		Assert.assertEquals("truncate", 1, a.resize(1).size());
+	}
+
+	@Test
+	public void testCrossCorrelation() {
+		int n = 30;
+		ComplexArray a = random(n, 5);
+		ComplexArray b = random(n, 6);
+		ComplexArray r = a.crossCorrelation(b);
+		for (int k = 0; k < n; k++) {
+			double re = 0.0;
+			double im = 0.0;
+			for (int j = 0; j < n; j++) {
+				int l = (j + k) % n;
+				re += a.getReal(l) * b.getReal(j) + a.getImaginary(l) * b.getImaginary(j);
+				im += a.getImaginary(l) * b.getReal(j) - a.getReal(l) * b.getImaginary(j);
+			}
+			Assert.assertEquals("re " + k, re, r.getReal(k), 1.0E-10);
+			Assert.assertEquals("im " + k, im, r.getImaginary(k), 1.0E-10);
+		}
+	}
+}
@@ -0,0 +1,175 @@
+/**
+ *    Copyright 2011 Peter Murray-Rust
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.xmlcml.euclid.test;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlcml.euclid.EuclidRuntimeException;
+import org.xmlcml.euclid.Histogram;
+import org.xmlcml.euclid.RealArray;
+import org.xmlcml.euclid.Univariate;
+import org.xmlcml.euclid.UnivariateAccumulator;
+
+/**
+ * test Histogram.
+ * 
+ */
+public class HistogramTest {
+
+	@Test
+	public void testFixed() {
+		Histogram histogram = Histogram.createFixed(0., 10., 5);
+		Assert.assertEquals("bins", 5, histogram.getBinCount());
+		Assert.assertEquals("edge", 4., histogram.getEdges()[2], 1.0E-14);
+		for (double d : new double[] { 0., 1.9, 2., 5., 9.99, 10., -1., 11., Double.NaN }) {
+			histogram.add(d);
+		}
+		Assert.assertArrayEquals("counts", new long[] { 2, 1, 1, 0, 2 }, histogram.getCounts());
+		Assert.assertEquals("under", 1, histogram.getUnderflow());
+		Assert.assertEquals("over", 1, histogram.getOverflow());
+		Assert.assertEquals("nan", 1, histogram.getNaNCount());
+		Assert.assertEquals("total", 9, histogram.getTotal());
+		Assert.assertEquals("bin", -1, histogram.getBin(-0.5));
+		Assert.assertEquals("bin", 5, histogram.getBin(10.5));
+		Histogram clamped = Histogram.createFixed(0., 10., 5);
+		clamped.setClamp(true);
+		clamped.add(new RealArray(new double[] { -1., 11., 3. }));
+		Assert.assertArrayEquals("clamped", new long[] { 1, 1, 0, 0, 1 }, clamped.getCounts());
+		Assert.assertEquals("under", 0, clamped.getUnderflow());
+	}
+
+	@Test
+	public void testLogAndEdges() {
+		Histogram log = Histogram.createLog(1., 1000., 3);
+		Assert.assertEquals("edge", 10., log.getEdges()[1], 1.0E-12);
+		for (double d : new double[] { 1., 9.99, 10., 99., 100., 1000., 0., -5. }) {
+			log.add(d);
+		}
+		Assert.assertArrayEquals("log", new long[] { 2, 2, 2 }, log.getCounts());
+		Assert.assertEquals("under", 2, log.getUnderflow());
+		Histogram edges = new Histogram(new double[] { 0., 1., 1., 5., 6. });
+		for (double d : new double[] { 0.5, 1., 2., 5., 5.5, 6. }) {
+			edges.add(d);
+		}
+		Assert.assertArrayEquals("edges", new long[] { 1, 0, 2, 3 }, edges.getCounts());
+		try {
+			new Histogram(new double[] { 1., 0.5, 2. });
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+		}
+		try {
+			Histogram.createLog(0., 10., 3);
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+		}
+	}
+
+	@Test
+	public void testQuantileBins() {
+		Random random = new Random(7L);
+		double[] dd = new double[20000];
+		for (int i = 0; i < dd.length; i++) {
+			dd[i] = random.nextGaussian();
+		}
+		UnivariateAccumulator acc = new UnivariateAccumulator().add(dd, 0, dd.length);
+		Histogram histogram = Histogram.createQuantile(acc, 10);
+		histogram.add(dd, 0, dd.length);
+		Assert.assertEquals("total", dd.length, histogram.getTotal());
+		Assert.assertEquals("under", 0, histogram.getUnderflow());
+		Assert.assertEquals("over", 0, histogram.getOverflow());
+		for (long count : histogram.getCounts()) {
+			Assert.assertEquals("equal counts", 2000., count, 60.);
+		}
+	}
+
+	@Test
+	public void testParallelAndMerge() {
+		Random random = new Random(8L);
+		int n = 300000;
+		double[] dd = new double[n];
+		for (int i = 0; i < n; i++) {
+			dd[i] = random.nextDouble() * 12. - 1.;
+		}
+		dd[17] = Double.NaN;
+		Histogram parallel = Histogram.createFixed(0., 10., 20);
+		parallel.add(dd, 0, n);
+		Histogram serial = Histogram.createFixed(0., 10., 20);
+		for (double d : dd) {
+			serial.add(d);
+		}
+		Assert.assertArrayEquals("parallel", serial.getCounts(), parallel.getCounts());
+		Assert.assertEquals("under", serial.getUnderflow(), parallel.getUnderflow());
+		Assert.assertEquals("over", serial.getOverflow(), parallel.getOverflow());
+		Assert.assertEquals("nan", 1, parallel.getNaNCount());
+		Histogram a = Histogram.createFixed(0., 10., 20);
+		a.add(dd, 0, n / 3);
+		Histogram b = Histogram.createFixed(0., 10., 20);
+		b.add(dd, n / 3, n - n / 3);
+		a.merge(b);
+		Assert.assertArrayEquals("merge", serial.getCounts(), a.getCounts());
+		Assert.assertEquals("merge", n, a.getTotal());
+		try {
+			a.merge(Histogram.createFixed(0., 10., 10));
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+		}
+	}
+
+	@Test
+	public void testRetainValues() {
+		Histogram histogram = Histogram.createFixed(0., 4., 2);
+		try {
+			histogram.getValues(0);
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+		}
+		histogram.setRetainValues(true);
+		histogram.add(new RealArray(new double[] { 3., 1., 2.5, 0.5 }));
+		RealArrayTest.assertEquals("bin 0", new double[] { 1., 0.5 }, histogram.getValues(0), 1.0E-14);
+		RealArrayTest.assertEquals("bin 1", new double[] { 3., 2.5 }, histogram.getValues(1), 1.0E-14);
+		try {
+			histogram.setRetainValues(false);
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+		}
+	}
+
+	@Test
+	public void testUnivariateCounts() {
+		Random random = new Random(9L);
+		double[] dd = new double[5000];
+		for (int i = 0; i < dd.length; i++) {
+			dd[i] = random.nextGaussian() * 3.;
+		}
+		Univariate univariate = new Univariate(new RealArray(dd));
+		univariate.setBinCount(25);
+		int[] counts = univariate.getHistogramCounts();
+		// reference: the previous sort-and-bin definition
+		double min = univariate.getMin();
+		double deltaX = univariate.getBinWidth();
+		int[] expected = new int[25];
+		for (double d : dd) {
+			int bin = (int) ((d - min) / deltaX);
+			expected[Math.max(0, Math.min(24, bin))]++;
+		}
+		Assert.assertArrayEquals("univariate", expected, counts);
+		Assert.assertEquals("unsorted", dd[0], univariate.getArray()[0], 0.0);
+	}
+}
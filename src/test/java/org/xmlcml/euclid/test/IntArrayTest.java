@@ -717,6 +717,36 @@ public class IntArrayTest {
 				5 }, intSet.getIntArray());
 	}
 
+	/**
+	 * stable index sorts, top-k and parallel sort of large arrays
+	 */
+	@Test
+	public void testIndexSortStableAndLarge() {
+		IntArray ia = new IntArray(new int[] { 2, 1, 2, 0, 1, 2 });
+		IntArrayTest.assertEquals("ascending", new int[] { 3, 1, 4, 0, 2, 5 },
+				ia.indexSortAscending().getIntArray());
+		IntArrayTest.assertEquals("descending", new int[] { 0, 2, 5, 1, 4, 3 },
+				ia.indexSortDescending().getIntArray());
+		IntArrayTest.assertEquals("largest", new int[] { 0, 2 },
+				ia.indexesOfLargestElements(2).getIntArray());
+		IntArrayTest.assertEquals("smallest", new int[] { 3, 1, 4 },
+				ia.indexesOfSmallestElements(3).getIntArray());
+		java.util.Random random = new java.util.Random(19L);
+		int n = 150000;
+		int[] ii = new int[n];
+		for (int i = 0; i < n; i++) {
+			ii[i] = random.nextInt();
+		}
+		int[] sorted = ii.clone();
+		java.util.Arrays.sort(sorted);
+		ia = new IntArray(ii.clone());
+		ia.sortAscending();
+		IntArrayTest.assertEquals("large", sorted, ia);
+		IntSet is = new IntSet(new int[] { 5, -3, 12, 0 });
+		is.sortAscending();
+		IntArrayTest.assertEquals("intSet", new int[] { -3, 0, 5, 12 }, is.getIntArray());
+	}
+
 	@Test
 	public void testIterator() {
 		IntArray intArray = new IntArray(new int[]{0,1,2});
@@ -0,0 +1,62 @@
+/**
+ *    Copyright 2011 Peter Murray-Rust
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.xmlcml.euclid.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlcml.euclid.IntArray;
+import org.xmlcml.euclid.IntFlatMatrix;
+import org.xmlcml.euclid.IntMatrix;
+
+/**
+ * test IntFlatMatrix
+ * 
+ */
+public class IntFlatMatrixTest {
+
+	private IntFlatMatrix make34() {
+		return new IntFlatMatrix(3, 4, new int[] { 
+				11, 12, 13, 14,
+				21, 22, 23, 24,
+				31, 32, 33, 34 });
+	}
+
+	@Test
+	public void testViews() {
+		IntFlatMatrix m = make34();
+		Assert.assertTrue(m.isContiguous());
+		IntFlatMatrix t = m.getTranspose();
+		Assert.assertEquals(23, t.elementAt(2, 1));
+		IntFlatMatrix sub = t.getSubMatrixView(1, 3, 1, 2);
+		IntMatrixTest.assertEquals("sub", 3, 2, new int[] {22, 32, 23, 33, 24, 34}, sub.getIntMatrix());
+		IntArray col = m.extractColumnData(1);
+		IntArrayTest.assertEquals("col", new int[] {12, 22, 32}, col);
+		m.getRowView(0).setAllElements(0);
+		Assert.assertEquals(0, m.elementAt(0, 3));
+	}
+
+	@Test
+	public void testIntMatrixRoundTrip() {
+		IntMatrix im = new IntMatrix(3, 4, make34().getMatrixAsArray());
+		IntFlatMatrix m = new IntFlatMatrix(im);
+		IntMatrixTest.assertEquals("round trip", 3, 4, im.getMatrixAsArray(), m.getIntMatrix());
+		IntFlatMatrix mmt = m.multiply(m.getTranspose());
+		IntMatrixTest.assertEquals("multiply", 3, 3, 
+				im.multiply(im.getTranspose()).getMatrixAsArray(), mmt.getIntMatrix());
+	}
+}
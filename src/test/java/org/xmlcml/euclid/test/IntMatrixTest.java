@@ -318,6 +318,39 @@ public class IntMatrixTest {
 				1520, 1580, 1640, 3350, 3500, 3650, 3800, }, mm);
 	}
 
+	/**
+	 * Test method for 'org.xmlcml.euclid.IntMatrix.multiply(IntMatrix)'
+	 * large enough to be blocked and run in parallel
+	 */
+	@Test
+	public void testMultiplyIntMatrixLarge() {
+		int rows = 150;
+		int inner = 130;
+		int cols = 170;
+		IntMatrix a = new IntMatrix(rows, inner);
+		IntMatrix b = new IntMatrix(inner, cols);
+		for (int i = 0; i < rows; i++) {
+			for (int k = 0; k < inner; k++) {
+				a.setElementAt(i, k, (i * 7 + k * 3) % 11 - 5);
+			}
+		}
+		for (int k = 0; k < inner; k++) {
+			for (int j = 0; j < cols; j++) {
+				b.setElementAt(k, j, (k * 5 + j * 2) % 13);
+			}
+		}
+		IntMatrix c = a.multiply(b);
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < cols; j++) {
+				int sum = 0;
+				for (int k = 0; k < inner; k++) {
+					sum += a.elementAt(i, k) * b.elementAt(k, j);
+				}
+				Assert.assertEquals("element " + i + "," + j, sum, c.elementAt(i, j));
+			}
+		}
+	}
+
 	/**
 	 * Test method for 'org.xmlcml.euclid.IntMatrix.multiplyBy(int)'
 	 */
@@ -1,5 +1,7 @@
 package org.xmlcml.euclid.test;
 
+import java.util.Random;
+
 import org.junit.Assert;
 import org.junit.Test;
 import org.xmlcml.euclid.IntRange;
@@ -178,4 +180,32 @@ public class IntRangeArrayTest {
 		ref.add(new IntRange(0,100));
 		Assert.assertTrue("inverse", ref.equals(inverse));
 	}
+
+	@Test
+	public void testIndexedQueries() {
+		Random random = new Random(23);
+		IntRangeArray linear = new IntRangeArray();
+		IntRangeArray indexed = new IntRangeArray();
+		for (int i = 0; i < 400; i++) {
+			int min = random.nextInt(1000);
+			IntRange range = new IntRange(min, min + random.nextInt(30));
+			linear.add(range);
+			indexed.add(range);
+		}
+		indexed.add(linear.get(3));
+		linear.add(linear.get(3));
+		indexed.setIndexed(true);
+		for (int i = 0; i < 300; i++) {
+			int x = random.nextInt(1100);
+			Assert.assertEquals("containing " + x, linear.getRangesContaining(x), indexed.getRangesContaining(x));
+			IntRange query = new IntRange(x, x + random.nextInt(10));
+			Assert.assertEquals("overlapping " + query, linear.getRangesOverlapping(query),
+					indexed.getRangesOverlapping(query));
+			Assert.assertEquals("includes " + query, linear.includes(query), indexed.includes(query));
+		}
+		indexed.set(0, new IntRange(2000, 2001));
+		Assert.assertTrue(indexed.includes(new IntRange(2000, 2000)));
+		Assert.assertEquals(1, indexed.getRangesContaining(2001).size());
+	}
+
 }
@@ -18,7 +18,11 @@ package org.xmlcml.euclid.test;
 
 import static org.xmlcml.euclid.EC.S_EMPTY;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -28,6 +32,7 @@ import org.xmlcml.euclid.EuclidRuntimeException;
 import org.xmlcml.euclid.Int;
 import org.xmlcml.euclid.IntRange;
 import org.xmlcml.euclid.IntSet;
+import org.xmlcml.euclid.IntSetGenerator;
 
 /**
  * test IntSet.
@@ -424,4 +429,146 @@ public class IntSetTest {
 		}
 	}
 
+	// the original recursive construction
+	private static List<List<Integer>> referencePermutations(int number) {
+		List<List<Integer>> listList = new ArrayList<List<Integer>>();
+		if (number == 0) {
+			listList.add(new ArrayList<Integer>());
+		} else {
+			for (List<Integer> listMinus : referencePermutations(number - 1)) {
+				for (int ii = 0; ii < number; ii++) {
+					List<Integer> copyList = new ArrayList<Integer>(listMinus);
+					copyList.add(ii, number);
+					listList.add(copyList);
+				}
+			}
+		}
+		return listList;
+	}
+
+	@Test
+	public final void testGetPermutationsOrder() {
+		for (int n = 0; n <= 5; n++) {
+			List<int[]> perms = IntSet.getPermutations(n);
+			List<List<Integer>> reference = referencePermutations(n);
+			Assert.assertEquals("count " + n, reference.size(), perms.size());
+			for (int i = 0; i < perms.size(); i++) {
+				int[] expected = new int[n];
+				for (int j = 0; j < n; j++) {
+					expected[j] = reference.get(i).get(j);
+				}
+				Assert.assertArrayEquals("perm " + n + "/" + i, expected, perms.get(i));
+			}
+		}
+	}
+
+	private static List<String> enumerate(IntSetGenerator generator) {
+		List<String> items = new ArrayList<String>();
+		while (generator.next()) {
+			items.add(Arrays.toString(generator.copyCurrent()));
+		}
+		return items;
+	}
+
+	// split into many pieces and enumerate them in rank order
+	private static List<String> enumerateSplit(IntSetGenerator generator) {
+		List<IntSetGenerator> pieces = new ArrayList<IntSetGenerator>();
+		pieces.add(generator);
+		for (int pass = 0; pass < 4; pass++) {
+			List<IntSetGenerator> next = new ArrayList<IntSetGenerator>();
+			for (IntSetGenerator piece : pieces) {
+				next.add(piece);
+				IntSetGenerator upper = piece.trySplit();
+				if (upper != null) {
+					next.add(upper);
+				}
+			}
+			pieces = next;
+		}
+		List<String> items = new ArrayList<String>();
+		for (IntSetGenerator piece : pieces) {
+			items.addAll(enumerate(piece));
+		}
+		return items;
+	}
+
+	@Test
+	public final void testPermutationGenerator() {
+		IntSetGenerator perm = IntSet.permutations(4);
+		Assert.assertEquals("remaining", 24, perm.getRemaining());
+		Assert.assertEquals("rank", -1, perm.getRank());
+		int[] cursor = perm.getCurrent();
+		Set<String> seen = new HashSet<String>();
+		String last = null;
+		while (perm.next()) {
+			Assert.assertSame("reused", cursor, perm.getCurrent());
+			String s = Arrays.toString(perm.getCurrent());
+			if (last != null) {
+				Assert.assertTrue("lexical " + s, compare(last, s) < 0);
+			}
+			Assert.assertTrue("new", seen.add(s));
+			last = s;
+		}
+		Assert.assertEquals("count", 24, seen.size());
+		Assert.assertEquals("last", "[3, 2, 1, 0]", last);
+		Assert.assertEquals("split", enumerate(IntSet.permutations(6)), enumerateSplit(IntSet.permutations(6)));
+		Assert.assertEquals("empty", 1, enumerate(IntSet.permutations(0)).size());
+	}
+
+	private static int compare(String a, String b) {
+		String[] aa = a.replaceAll("[\\[\\] ]", "").split(",");
+		String[] bb = b.replaceAll("[\\[\\] ]", "").split(",");
+		for (int i = 0; i < aa.length; i++) {
+			int c = Integer.valueOf(aa[i]).compareTo(Integer.valueOf(bb[i]));
+			if (c != 0) {
+				return c;
+			}
+		}
+		return 0;
+	}
+
+	@Test
+	public final void testCombinationGenerator() {
+		List<String> items = enumerate(IntSet.combinations(6, 3));
+		Assert.assertEquals("count", 20, items.size());
+		Assert.assertEquals("first", "[0, 1, 2]", items.get(0));
+		Assert.assertEquals("second", "[0, 1, 3]", items.get(1));
+		Assert.assertEquals("last", "[3, 4, 5]", items.get(19));
+		Assert.assertEquals("distinct", 20, new HashSet<String>(items).size());
+		Assert.assertEquals("split", enumerate(IntSet.combinations(12, 5)), enumerateSplit(IntSet.combinations(12, 5)));
+		Assert.assertEquals("k = 0", Arrays.asList("[]"), enumerate(IntSet.combinations(5, 0)));
+		Assert.assertEquals("k = n", Arrays.asList("[0, 1, 2]"), enumerate(IntSet.combinations(3, 3)));
+		Assert.assertEquals("large", 3921225, IntSet.combinations(100, 4).getRemaining());
+	}
+
+	@Test(expected = EuclidRuntimeException.class)
+	public final void testBadCombination() {
+		IntSet.combinations(3, 4);
+	}
+
+	@Test
+	public final void testSubsetGenerator() {
+		IntSetGenerator subsets = IntSet.subsets(5);
+		Set<Integer> masks = new HashSet<Integer>();
+		int lastMask = -1;
+		while (subsets.next()) {
+			int mask = 0;
+			for (int i = 0; i < subsets.getSize(); i++) {
+				if (i > 0) {
+					Assert.assertTrue("ascending", subsets.getCurrent()[i - 1] < subsets.getCurrent()[i]);
+				}
+				mask |= 1 << subsets.getCurrent()[i];
+			}
+			if (lastMask < 0) {
+				Assert.assertEquals("empty first", 0, mask);
+			} else {
+				Assert.assertEquals("one change", 1, Integer.bitCount(mask ^ lastMask));
+			}
+			Assert.assertTrue("new", masks.add(mask));
+			lastMask = mask;
+		}
+		Assert.assertEquals("count", 32, masks.size());
+		Assert.assertEquals("split", enumerate(IntSet.subsets(7)), enumerateSplit(IntSet.subsets(7)));
+	}
+
 }
@@ -0,0 +1,190 @@
+/**
+ *    Copyright 2011 Peter Murray-Rust
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+
+package org.xmlcml.euclid.test;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlcml.euclid.EuclidRuntimeException;
+import org.xmlcml.euclid.IntSet;
+import org.xmlcml.euclid.KdTree;
+import org.xmlcml.euclid.Point3;
+import org.xmlcml.euclid.Point3Vector;
+import org.xmlcml.euclid.Real2;
+import org.xmlcml.euclid.Real2Range;
+import org.xmlcml.euclid.Real2Vector;
+import org.xmlcml.euclid.RealRange;
+
+/**
+ * test KdTree.
+ * 
+ */
+public class KdTreeTest {
+
+	/** points on a coarse grid so that there are ties and duplicates */
+	private static Real2Vector makeReal2Vector(int n, long seed) {
+		Random random = new Random(seed);
+		Real2Vector r2v = new Real2Vector();
+		for (int i = 0; i < n; i++) {
+			r2v.add(new Real2(random.nextInt(50) * 0.5, random.nextInt(50) * 0.5));
+		}
+		return r2v;
+	}
+
+	@Test
+	public void testEmpty() {
+		KdTree tree = new KdTree(2);
+		Assert.assertEquals(0, tree.size());
+		Assert.assertEquals(-1, tree.getNearestPoint(new double[] {1., 2.}));
+		Assert.assertEquals(-1, tree.getFurthestPoint(new double[] {1., 2.}));
+		Assert.assertEquals(0, tree.getNearestPoints(new double[] {1., 2.}, 3).size());
+		Assert.assertEquals(0, tree.getPointsWithinRadius(new double[] {1., 2.}, 3.).size());
+	}
+
+	@Test
+	public void testBadInput() {
+		try {
+			new KdTree(2, new double[] {1., 2., 3.});
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+		}
+		KdTree tree = new KdTree(2, new double[] {1., 2., 3., 4.});
+		try {
+			tree.getNearestPoint(new double[] {1., 2., 3.});
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+		}
+	}
+
+	@Test
+	public void testSmall() {
+		KdTree tree = new KdTree(2, new double[] {
+				0., 0.,
+				1., 0.,
+				0., 1.,
+				5., 5.,
+				1., 1.,
+		});
+		Assert.assertEquals(5, tree.size());
+		Assert.assertEquals(2, tree.getDimension());
+		Assert.assertEquals(5., tree.getCoordinate(3, 1), 0.0);
+		Assert.assertEquals(4, tree.getNearestPoint(new double[] {0.9, 0.9}));
+		Assert.assertEquals(3, tree.getFurthestPoint(new double[] {0., 0.}));
+		IntSet near = tree.getNearestPoints(new double[] {0.1, 0.}, 3);
+		Assert.assertEquals(3, near.size());
+		Assert.assertEquals(0, near.elementAt(0));
+		Assert.assertEquals(1, near.elementAt(1));
+		Assert.assertEquals(2, near.elementAt(2));
+		IntSet inRadius = tree.getPointsWithinRadius(new double[] {0., 0.}, 1.0);
+		IntArrayTest.assertEquals("radius", new int[] {0, 1, 2}, inRadius.getIntArray());
+		IntSet inBox = tree.getPointsInBox(new double[] {0.5, 0.5}, new double[] {5., 5.});
+		IntArrayTest.assertEquals("box", new int[] {3, 4}, inBox.getIntArray());
+		Assert.assertEquals(3, tree.getFirstPointInBox(new double[] {2., 2.}, new double[] {6., 6.}));
+		Assert.assertEquals(-1, tree.getFirstPointInBox(new double[] {2., 2.}, new double[] {3., 3.}));
+	}
+
+	@Test
+	public void testReal2VectorAgainstScan() {
+		Real2Vector r2v = makeReal2Vector(2000, 17L);
+		KdTree tree = r2v.createKdTree();
+		Assert.assertEquals(r2v.size(), tree.size());
+		Random random = new Random(3L);
+		for (int i = 0; i < 200; i++) {
+			Real2 p = new Real2(random.nextDouble() * 30. - 3., random.nextDouble() * 30. - 3.);
+			double[] q = new double[] {p.x, p.y};
+			Assert.assertEquals("nearest", r2v.getClosestPoint(p), tree.getNearestPoint(q));
+			Assert.assertEquals("serial", r2v.getSerialOfNearestPoint(p), tree.getNearestPoint(q));
+			double w = random.nextDouble() * 4.;
+			double h = random.nextDouble() * 4.;
+			double[] min = new double[] {p.x - w / 2., p.y - h / 2.};
+			double[] max = new double[] {p.x + w / 2., p.y + h / 2.};
+			Assert.assertEquals("point", r2v.getPoint(p, w, h), tree.getFirstPointInBox(min, max));
+			Real2Range range = new Real2Range(new RealRange(min[0], max[0]), new RealRange(min[1], max[1]));
+			IntArrayTest.assertEquals("subset", r2v.subSet(range).getIntArray().getArray(),
+					tree.getPointsInBox(min, max).getIntArray());
+			double radius = random.nextDouble() * 3.;
+			IntSet within = tree.getPointsWithinRadius(q, radius);
+			IntSet expected = new IntSet();
+			for (int j = 0; j < r2v.size(); j++) {
+				if (r2v.get(j).getDistance(p) <= radius) {
+					expected.addElement(j);
+				}
+			}
+			IntArrayTest.assertEquals("radius", expected.getIntArray().getArray(), within.getIntArray());
+		}
+	}
+
+	@Test
+	public void testNearestPoints() {
+		Real2Vector r2v = makeReal2Vector(500, 5L);
+		KdTree tree = r2v.createKdTree();
+		Real2 p = new Real2(12.3, 7.1);
+		IntSet near = tree.getNearestPoints(new double[] {p.x, p.y}, 20);
+		Assert.assertEquals(20, near.size());
+		// non-decreasing distance and nothing outside closer than the last
+		double last = 0.0;
+		for (int i = 0; i < near.size(); i++) {
+			double d = r2v.get(near.elementAt(i)).getDistance(p);
+			Assert.assertTrue("order", d >= last);
+			last = d;
+		}
+		for (int j = 0; j < r2v.size(); j++) {
+			if (!near.contains(j)) {
+				Assert.assertTrue("outside", r2v.get(j).getDistance(p) >= last);
+			}
+		}
+		Assert.assertEquals(r2v.getClosestPoint(p), near.elementAt(0));
+	}
+
+	@Test
+	public void testAdd() {
+		Real2Vector r2v = makeReal2Vector(300, 11L);
+		KdTree tree = new KdTree(2);
+		for (int i = 0; i < r2v.size(); i++) {
+			Real2 p = r2v.get(i);
+			Assert.assertEquals(i, tree.add(new double[] {p.x, p.y}));
+		}
+		Random random = new Random(7L);
+		for (int pass = 0; pass < 2; pass++) {
+			for (int i = 0; i < 100; i++) {
+				Real2 p = new Real2(random.nextDouble() * 25., random.nextDouble() * 25.);
+				Assert.assertEquals(r2v.getClosestPoint(p), tree.getNearestPoint(new double[] {p.x, p.y}));
+			}
+			tree.rebuild();
+		}
+	}
+
+	@Test
+	public void testPoint3Vector() {
+		Random random = new Random(23L);
+		Point3Vector p3v = new Point3Vector();
+		for (int i = 0; i < 1000; i++) {
+			p3v.add(new Point3(random.nextDouble(), random.nextDouble(), random.nextDouble()));
+		}
+		KdTree tree = p3v.createKdTree();
+		Assert.assertEquals(3, tree.getDimension());
+		for (int i = 0; i < 50; i++) {
+			Point3 p = new Point3(random.nextDouble() * 2., random.nextDouble() * 2., random.nextDouble() * 2.);
+			Assert.assertEquals(p3v.getFurthestPointFrom(p),
+					tree.getFurthestPoint(p.getArray()));
+		}
+		Assert.assertEquals(tree.size(), p3v.createKdTree().size());
+	}
+}
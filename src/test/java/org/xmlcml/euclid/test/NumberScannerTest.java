@@ -0,0 +1,160 @@
+/**
+ *    Copyright 2011 Peter Murray-Rust
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+
+package org.xmlcml.euclid.test;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlcml.euclid.EuclidRuntimeException;
+import org.xmlcml.euclid.EuclidTestUtils;
+import org.xmlcml.euclid.IntArray;
+import org.xmlcml.euclid.NumberScanner;
+import org.xmlcml.euclid.RealArray;
+import org.xmlcml.euclid.Util;
+
+/**
+ * test NumberScanner.
+ * 
+ */
+public class NumberScannerTest {
+
+	private static void assertSameDouble(String s) {
+		Assert.assertEquals(s, Double.doubleToLongBits(Double.parseDouble(s)),
+				Double.doubleToLongBits(NumberScanner.parseDouble(s)));
+	}
+
+	@Test
+	public void testParseDouble() {
+		String[] ss = {"0", "-0", "+0.0", "1", "-1", "1.", ".5", "-.5", "3.14159", "1e3",
+				"1E-3", "-2.5e+10", "0.000123", "123456789012345", "1234567890123456789",
+				"0.1", "0.3", "9007199254740993", "1e22", "1e23", "1e-22", "1e-23", "4.9e-324",
+				"1.7976931348623157E308", "2.2250738585072014E-308", "00012.50", "1.0d", "1e400",
+				"123.456e-5", "0.30000000000000004", "Infinity", "-Infinity"};
+		for (String s : ss) {
+			assertSameDouble(s);
+		}
+		Random random = new Random(31L);
+		for (int i = 0; i < 20000; i++) {
+			double d = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(40) - 20);
+			assertSameDouble(Double.toString(d));
+			assertSameDouble(String.format("%.6f", d));
+			assertSameDouble(String.format("%.9e", d));
+		}
+	}
+
+	@Test
+	public void testSpecialValues() {
+		Assert.assertEquals(Double.POSITIVE_INFINITY, NumberScanner.parseDouble("INF"), 0.0);
+		Assert.assertEquals(Double.NEGATIVE_INFINITY, NumberScanner.parseDouble("-INF"), 0.0);
+		Assert.assertTrue(Double.isNaN(NumberScanner.parseDouble("NaN")));
+		Assert.assertEquals(1000., NumberScanner.parseDouble("1.0D3"), 0.0);
+		Assert.assertEquals(2.5, NumberScanner.parseDouble("  2.5 "), 0.0);
+		double[] dd = NumberScanner.parseDoubles("1 INF -INF NaN 2");
+		Assert.assertEquals(5, dd.length);
+		Assert.assertEquals(Double.NEGATIVE_INFINITY, dd[2], 0.0);
+		Assert.assertTrue(Double.isNaN(dd[3]));
+		for (String bad : new String[] {"", "-", ".", "1e", "1.2.3", "abc", "1e+", "--1"}) {
+			try {
+				NumberScanner.parseDouble(bad);
+				Assert.fail("should throw: " + bad);
+			} catch (NumberFormatException e) {
+			}
+		}
+	}
+
+	@Test
+	public void testParseInt() {
+		String[] ss = {"0", "-0", "+7", "123", "-2147483648", "2147483647", " 42 "};
+		for (String s : ss) {
+			Assert.assertEquals(s, Integer.parseInt(s.trim()), NumberScanner.parseInt(s, 0, s.length()));
+		}
+		for (String bad : new String[] {"", "-", "2147483648", "-2147483649", "1.0", "1e3", "x"}) {
+			try {
+				NumberScanner.parseInt(bad, 0, bad.length());
+				Assert.fail("should throw: " + bad);
+			} catch (NumberFormatException e) {
+			}
+		}
+	}
+
+	@Test
+	public void testWhitespaceDelimited() {
+		Assert.assertNull(EuclidTestUtils.testEquals("ws", new double[] {1.1, -2., 3.5E-4},
+				NumberScanner.parseDoubles("  1.1\t-2.\n\n 3.5E-4  "), 1.0E-14));
+		Assert.assertEquals(0, NumberScanner.parseDoubles("").length);
+		Assert.assertEquals(0, NumberScanner.parseDoubles(" \n ").length);
+		IntArrayTest.assertEquals("ints", new int[] {1, -3, 56, 2},
+				new IntArray(NumberScanner.parseInts(" 1 -3\t56 2 ")));
+		NumberScanner scanner = new NumberScanner("3 1.5 7");
+		Assert.assertEquals(3, scanner.nextInt());
+		Assert.assertEquals(1.5, scanner.nextDouble(), 0.0);
+		Assert.assertTrue(scanner.hasNext());
+		Assert.assertEquals(7, scanner.nextInt());
+		Assert.assertFalse(scanner.hasNext());
+		Assert.assertEquals(3, scanner.getCount());
+		try {
+			scanner.nextDouble();
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+		}
+	}
+
+	@Test
+	public void testLiteralDelimiter() {
+		Assert.assertNull(EuclidTestUtils.testEquals("comma", new double[] {1., 2., 3.},
+				NumberScanner.parseDoubles("1,2, 3", ","), 1.0E-14));
+		Assert.assertNull(EuclidTestUtils.testEquals("trailing", new double[] {1., 2.},
+				NumberScanner.parseDoubles("1|2||", "|"), 1.0E-14));
+		Assert.assertNull(EuclidTestUtils.testEquals("multi", new double[] {1., 2.},
+				NumberScanner.parseDoubles("1::2", "::"), 1.0E-14));
+		Assert.assertEquals(0, NumberScanner.parseInts(",,", ",").length);
+		for (String bad : new String[] {"1,,2", ",1", "1,x"}) {
+			try {
+				NumberScanner.parseDoubles(bad, ",");
+				Assert.fail("should throw: " + bad);
+			} catch (EuclidRuntimeException e) {
+			}
+		}
+	}
+
+	@Test
+	public void testCallers() {
+		RealArray ra = new RealArray(" 1.0 2.0\t4.0  6.0 ");
+		RealArrayTest.assertEquals("realArray", new double[] {1., 2., 4., 6.}, ra, 1.0E-14);
+		ra.addElement(8.);
+		Assert.assertEquals(5, ra.size());
+		IntArray ia = new IntArray("1 2  4 6");
+		IntArrayTest.assertEquals("intArray", new int[] {1, 2, 4, 6}, ia);
+		ia.addElement(8);
+		Assert.assertEquals(5, ia.size());
+		try {
+			new IntArray("1 2.5");
+			Assert.fail("should throw");
+		} catch (NumberFormatException e) {
+		}
+		double[] split = Util.splitToDoubleArray("1.5|INF", "\\|");
+		Assert.assertEquals("util", 2, split.length);
+		Assert.assertEquals("util", 1.5, split[0], 1.0E-14);
+		Assert.assertEquals("util", Double.POSITIVE_INFINITY, split[1], 0.0);
+		Assert.assertNull(EuclidTestUtils.testEquals("util regex", new double[] {1.5, 2.},
+				Util.splitToDoubleArray("1.5;2", "[,;]"), 1.0E-14));
+		IntArrayTest.assertEquals("util", new int[] {1, 2}, new IntArray(Util.splitToIntArray("1 2", "\\s+")));
+	}
+}
@@ -0,0 +1,114 @@
+/**
+ *    Copyright 2011 Peter Murray-Rust
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.xmlcml.euclid.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlcml.euclid.Angle;
+import org.xmlcml.euclid.Axis.Axis3;
+import org.xmlcml.euclid.EuclidTestUtils;
+import org.xmlcml.euclid.IntSet;
+import org.xmlcml.euclid.Point3;
+import org.xmlcml.euclid.Point3Array;
+import org.xmlcml.euclid.Point3Vector;
+import org.xmlcml.euclid.RealSquareMatrix;
+import org.xmlcml.euclid.Transform3;
+import org.xmlcml.euclid.Vector3;
+
+/**
+ * test Point3Array.
+ * 
+ */
+public class Point3ArrayTest {
+
+	private final static double[] XYZ = new double[] {
+		1., 2., 3.,
+		-1., 0.5, 2.,
+		4., -2., 0.,
+		0., 0., 7.,
+		2.5, 1., -3.,
+	};
+
+	@Test
+	public void testConstructors() {
+		Point3Array pa = new Point3Array(XYZ);
+		Assert.assertEquals(5, pa.size());
+		Assert.assertEquals(-2., pa.getY(2), 0.0);
+		Assert.assertNull(EuclidTestUtils.testEquals("xyz", XYZ, pa.getArray(), 1.0E-14));
+		Point3Array pb = new Point3Array(new Point3Vector(XYZ));
+		Assert.assertNull(EuclidTestUtils.testEquals("xyz", XYZ, pb.getArray(), 1.0E-14));
+		Assert.assertNull(EuclidTestUtils.testEquals("xyz", XYZ, pb.getPoint3Vector().getArray(), 1.0E-14));
+		Assert.assertNull(EuclidTestUtils.testEquals("x", new double[] {1., -1., 4., 0., 2.5}, 
+				pa.getXYZ(Axis3.X).getArray(), 1.0E-14));
+		Point3Array pc = new Point3Array();
+		for (int i = 0; i < 100; i++) {
+			pc.add(i, 2 * i, 3 * i);
+		}
+		Assert.assertEquals(100, pc.size());
+		Assert.assertEquals(297., pc.getZ(99), 0.0);
+		// get() returns a copy
+		Point3 p = pc.get(1);
+		p.plusEquals(new Vector3(1., 1., 1.));
+		Assert.assertEquals(1., pc.getX(1), 0.0);
+	}
+
+	@Test
+	public void testCentroidAndDistances() {
+		Point3Array pa = new Point3Array(XYZ);
+		Point3Vector pv = new Point3Vector(XYZ);
+		Assert.assertNull(EuclidTestUtils.testEquals("centroid", pv.getCentroid().getArray(), pa.getCentroid().getArray(), 1.0E-14));
+		Assert.assertNull(EuclidTestUtils.testEquals("distance", pv.getDistanceMatrix().getMatrix(), pa.getDistanceMatrix().getMatrix(), 1.0E-14));
+		Assert.assertEquals(pv.distance(1, 3), pa.distance(1, 3), 1.0E-14);
+		Point3 p = new Point3(1., 1., 1.);
+		Assert.assertEquals(pv.getFurthestPointFrom(p), pa.getFurthestPointFrom(p));
+		pa.moveToCentroid();
+		Assert.assertNull(EuclidTestUtils.testEquals("centroid", new double[] {0., 0., 0.}, pa.getCentroid().getArray(), 1.0E-14));
+		RealSquareMatrix tensor = new Point3Array(XYZ).calculateNonMassWeightedInertialTensor();
+		Assert.assertNull(EuclidTestUtils.testEquals("tensor", pv.calculateNonMassWeightedInertialTensor().getMatrix(), tensor.getMatrix(), 1.0E-12));
+	}
+
+	@Test
+	public void testTransform() {
+		Transform3 t = new Transform3(new Angle(0.3), new Angle(-0.2), new Angle(1.1));
+		t = new Transform3(new Transform3(new Vector3(1., -2., 0.5)).concatenate(t));
+		Point3Array pa = new Point3Array(XYZ);
+		Point3Vector pv = new Point3Vector(XYZ);
+		pa.transform(t);
+		pv.transform(t);
+		Assert.assertNull(EuclidTestUtils.testEquals("transform", pv.getArray(), pa.getArray(), 1.0E-12));
+		pa = new Point3Array(XYZ);
+		pv = new Point3Vector(XYZ);
+		IntSet is = new IntSet(new int[] {0, 3});
+		pa.transform(t, is);
+		pv.transform(t, is);
+		Assert.assertNull(EuclidTestUtils.testEquals("transform", pv.getArray(), pa.getArray(), 1.0E-12));
+	}
+
+	@Test
+	public void testFitTo() {
+		Point3Array pa = new Point3Array(new double[] { 1., 0., 0., 0., 1., 0., 0., 0., 1. });
+		Point3Array pb = new Point3Array(new double[] { 10., 1.1, 0., 10., 0., 0.9, 11.1, 0., 0. });
+		Transform3 t = pa.fitTo(pb);
+		pa.transform(t);
+		Assert.assertEquals("rms", 0.03470386605101721, pa.rms(pb), 0.0001);
+		Point3Vector pva = new Point3Vector(new double[] { 1., 0., 0., 0., 1., 0., 0., 0., 1. });
+		Point3Vector pvb = new Point3Vector(new double[] { 10., 1.1, 0., 10., 0., 0.9, 11.1, 0., 0. });
+		Transform3 tv = pva.fitTo(pvb);
+		Assert.assertNull(EuclidTestUtils.testEquals("same as Point3Vector", tv.getMatrix(), t.getMatrix(), 1.0E-10));
+	}
+}
@@ -539,6 +539,27 @@ public class Point3VectorTest {
 				-0.5, -0.5 }, ra, EPS);
 	}
 
+	/**
+	 * Test method for 'org.xmlcml.euclid.Point3Vector.bestPlane()'
+	 */
+	@Test
+	public void testBestPlane() {
+		Point3Vector pv = new Point3Vector(new double[] { 0., 0., 2., 3., 0.,
+				2., 0., 1., 2., 3., 1., 2., 1.5, 0.5, 2.});
+		Plane3 pl = pv.bestPlane();
+		Assert.assertEquals("normal", 1.0, Math.abs(pl.getVector().getArray()[2]), 1.0E-12);
+		Assert.assertEquals("distance", 2.0, Math.abs(pl.getDistance()), 1.0E-12);
+		RealArray ra = pv.deviationsFromPlane(pl);
+		Assert.assertEquals("deviations", 0.0, ra.absSumAllElements(), 1.0E-12);
+		RealArray eigval = new RealArray();
+		RealSquareMatrix eigvect = new RealSquareMatrix();
+		pv.inertialAxes(eigval, eigvect, null);
+		// largest inertia about the normal, smallest about the long (x) axis
+		RealArrayTest.assertEquals("eigenvalues", new double[] { 10.0, 9.0, 1.0 },
+				eigval, 1.0E-12);
+		Assert.assertEquals("long axis", 1.0, Math.abs(eigvect.elementAt(2, 0)), 1.0E-12);
+	}
+
 	/**
 	 * Test method for 'org.xmlcml.euclid.Point3Vector.getPoint3(int)'
 	 */
@@ -0,0 +1,210 @@
+/**
+ *    Copyright 2011 Peter Murray-Rust
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.xmlcml.euclid.test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlcml.euclid.RandomStream;
+import org.xmlcml.euclid.RealArray;
+import org.xmlcml.euclid.RealRange;
+import org.xmlcml.euclid.Univariate;
+
+/**
+ * test RandomStream.
+ * 
+ */
+public class RandomStreamTest {
+
+	private static final int N = 100000;
+
+	@Test
+	public void testReproducible() {
+		RandomStream a = new RandomStream(42L);
+		RandomStream b = new RandomStream(42L);
+		for (int i = 0; i < 100; i++) {
+			Assert.assertEquals("same seed", a.nextLong(), b.nextLong());
+		}
+		RandomStream c = new RandomStream(a);
+		Assert.assertEquals("copy", a.nextGaussian(), c.nextGaussian(), 0.0);
+		Assert.assertEquals("copy", a.nextGaussian(), c.nextGaussian(), 0.0);
+		Assert.assertTrue("different seed", new RandomStream(43L).nextLong() != new RandomStream(42L).nextLong());
+	}
+
+	@Test
+	public void testSplit() {
+		RandomStream master = new RandomStream(7L);
+		RandomStream copy = new RandomStream(master);
+		RandomStream jumped = new RandomStream(master);
+		jumped.jump();
+		RandomStream split = master.split();
+		// the split stream continues the original sequence
+		Assert.assertEquals("split", copy.nextLong(), split.nextLong());
+		// the master has jumped
+		Assert.assertEquals("jumped", jumped.nextLong(), master.nextLong());
+
+		RandomStream[] streams = RandomStream.createStreams(7L, 4);
+		RandomStream[] streams1 = RandomStream.createStreams(7L, 4);
+		Set<Long> firsts = new HashSet<Long>();
+		for (int i = 0; i < streams.length; i++) {
+			long first = streams[i].nextLong();
+			Assert.assertEquals("reproducible " + i, first, streams1[i].nextLong());
+			firsts.add(first);
+		}
+		Assert.assertEquals("distinct", 4, firsts.size());
+	}
+
+	@Test
+	public void testCurrent() throws Exception {
+		RandomStream stream = RandomStream.current();
+		Assert.assertSame("same thread", stream, RandomStream.current());
+		final RandomStream[] other = new RandomStream[1];
+		Thread thread = new Thread() {
+			public void run() {
+				other[0] = RandomStream.current();
+			}
+		};
+		thread.start();
+		thread.join();
+		Assert.assertNotNull("other thread", other[0]);
+		Assert.assertNotSame("other thread", stream, other[0]);
+	}
+
+	@Test
+	public void testNextInt() {
+		RandomStream stream = new RandomStream(1L);
+		int[] counts = new int[7];
+		for (int i = 0; i < 70000; i++) {
+			counts[stream.nextInt(7)]++;
+		}
+		for (int i = 0; i < counts.length; i++) {
+			Assert.assertEquals("count " + i, 10000, counts[i], 500);
+		}
+		try {
+			stream.nextInt(0);
+			Assert.fail("should throw");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testFillUniform() {
+		double[] values = new double[N];
+		new RandomStream(2L).fillUniform(values);
+		RandomStream stream = new RandomStream(2L);
+		for (int i = 0; i < 10; i++) {
+			Assert.assertEquals("same as next", stream.nextUniform(), values[i], 0.0);
+		}
+		assertMoments("uniform", values, 0.5, 1.0 / 12.0);
+		RealArray array = new RealArray(values);
+		Assert.assertTrue("min", array.getMin() >= 0.0);
+		Assert.assertTrue("max", array.getMax() < 1.0);
+		new RandomStream(2L).fillUniform(values, 10., 20.);
+		assertMoments("uniform(10,20)", values, 15., 100. / 12.);
+	}
+
+	@Test
+	public void testFillGaussian() {
+		double[] values = new double[N];
+		RandomStream stream = new RandomStream(3L);
+		stream.fillGaussian(values);
+		assertMoments("gaussian", values, 0.0, 1.0);
+		stream.fillGaussian(values, 5.0, 4.0);
+		assertMoments("gaussian(5,4)", values, 5.0, 4.0);
+		// fill and next give the same values, including a cached second value
+		double[] odd = new double[5];
+		RandomStream a = new RandomStream(4L);
+		RandomStream b = new RandomStream(4L);
+		a.fillGaussian(odd);
+		for (int i = 0; i < odd.length; i++) {
+			Assert.assertEquals("gaussian " + i, b.nextGaussian(), odd[i], 1.0E-15);
+		}
+		a.fillGaussian(odd);
+		Assert.assertEquals("cached", b.nextGaussian(), odd[0], 1.0E-15);
+	}
+
+	@Test
+	public void testFillGamma() {
+		double[] values = new double[N];
+		RandomStream stream = new RandomStream(5L);
+		stream.fillGamma(values, 0.5, 2.0, 0.0);
+		assertMoments("gamma(0.5,2)", values, 1.0, 2.0);
+		stream.fillGamma(values, 3.0, 0.5, 1.0);
+		assertMoments("gamma(3,0.5)+1", values, 2.5, 0.75);
+		stream.fillExp(values, 2.0);
+		assertMoments("exp(2)", values, 2.0, 4.0);
+		stream.fillChiSq(values, 4);
+		assertMoments("chisq(4)", values, 4.0, 8.0);
+		try {
+			stream.fillGamma(values, 0.0, 1.0, 0.0);
+			Assert.fail("should throw");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testFillBeta() {
+		double[] values = new double[N];
+		RandomStream stream = new RandomStream(6L);
+		stream.fillBeta(values, 2.0, 3.0);
+		assertMoments("beta(2,3)", values, 0.4, 6.0 / (6.0 * 25.0));
+		stream.fillBeta(values, 0.5, 0.5);
+		assertMoments("beta(0.5,0.5)", values, 0.5, 0.25 / 2.0);
+	}
+
+	@Test
+	public void testFillPoisson() {
+		int[] counts = new int[N];
+		new RandomStream(8L).fillPoisson(counts, 3.0);
+		double[] values = new double[N];
+		for (int i = 0; i < N; i++) {
+			values[i] = counts[i];
+		}
+		assertMoments("poisson(3)", values, 3.0, 3.0);
+	}
+
+	@Test
+	public void testRandomVariate() {
+		RealArray x = new RealArray(11, 0., 1.);
+		RealArray freq = new RealArray(new double[] {0., 1., 1., 1., 1., 1., 1., 1., 1., 1., 1.});
+		RealArray cumulative = new RealArray();
+		RealArray variates = x.getRandomVariates(freq, cumulative, new RandomStream(9L), N);
+		Assert.assertEquals("size", N, variates.size());
+		assertMoments("variates", variates.getArray(), 5.0, 100. / 12.);
+		RandomStream a = new RandomStream(9L);
+		Assert.assertEquals("single", variates.elementAt(0), x.getRandomVariate(freq, cumulative, a), 1.0E-15);
+
+		RealRange range = new RealRange(-1., 3.);
+		RandomStream stream = new RandomStream(10L);
+		for (int i = 0; i < 100; i++) {
+			Assert.assertTrue("in range", range.includes(range.getRandomVariate(stream)));
+		}
+	}
+
+	private static void assertMoments(String msg, double[] values, double mean, double variance) {
+		Univariate univariate = new Univariate(new RealArray(values));
+		double sigma = Math.sqrt(variance / values.length);
+		Assert.assertEquals(msg + " mean", mean, univariate.getMean(), 5 * sigma);
+		Assert.assertEquals(msg + " variance", variance,
+				univariate.getStandardDeviation() * univariate.getStandardDeviation(), 0.05 * variance);
+	}
+}
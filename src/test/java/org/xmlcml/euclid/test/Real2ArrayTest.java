@@ -26,9 +26,13 @@ import org.junit.Before;
 import org.junit.Test;
 import org.xmlcml.euclid.ArrayBase;
 import org.xmlcml.euclid.EC;
+import org.xmlcml.euclid.EuclidRuntimeException;
+import org.xmlcml.euclid.EuclidTestUtils;
 import org.xmlcml.euclid.Real2;
 import org.xmlcml.euclid.Real2Array;
 import org.xmlcml.euclid.Real2Range;
+import org.xmlcml.euclid.Real2Reducer;
+import org.xmlcml.euclid.Real2Visitor;
 import org.xmlcml.euclid.RealArray;
 import org.xmlcml.euclid.RealRange;
 
@@ -220,4 +224,97 @@ public class Real2ArrayTest {
 		r2a.sortDescending(1);
 		Assert.assertEquals("xa", "((1.0,9.0)(2.0,8.0)(4.0,7.0)(8.0,6.0)(7.0,3.0)(5.0,1.0))", r2a.toString());
 	}
+
+	@Test
+	public void testVisitorAndReduce() {
+		Real2Array r2a = new Real2Array(new RealArray(new double[] { 1., 4., -2., 3. }),
+				new RealArray(new double[] { 5., -1., 2., 0. }));
+		final double[] sum = new double[2];
+		r2a.forEach(new Real2Visitor() {
+			public void visit(double x, double y) {
+				sum[0] += x;
+				sum[1] += y;
+			}
+		});
+		Assert.assertEquals("forEach", 6., sum[0], EPS);
+		Assert.assertEquals("forEach", 6., sum[1], EPS);
+		Real2Reducer dot = new Real2Reducer() {
+			public double reduce(double value, double x, double y) {
+				return value + x * y;
+			}
+		};
+		Assert.assertEquals("reduce", 5. - 4. - 4., r2a.reduce(0., dot), EPS);
+		Assert.assertEquals("reduce range", -4. - 4., r2a.reduce(1, 2, 0., dot), EPS);
+		Assert.assertEquals("reduce empty", 7., new Real2Array().reduce(7., dot), EPS);
+		Real2Array.Cursor cursor = r2a.cursor(1, 2);
+		int count = 0;
+		while (cursor.next()) {
+			cursor.set(cursor.getY(), cursor.getX());
+			count++;
+		}
+		Assert.assertEquals("cursor", 2, count);
+		Assert.assertEquals("cursor", "((1.0,5.0)(-1.0,4.0)(2.0,-2.0)(3.0,0.0))", r2a.toString());
+		Assert.assertFalse("empty cursor", new Real2Array().cursor().next());
+		try {
+			r2a.forEach(2, 4, null);
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+		}
+	}
+
+	@Test
+	public void testBoundsAndCentroid() {
+		Real2Array r2a = new Real2Array(new RealArray(new double[] { 1., 4., -2., 3. }),
+				new RealArray(new double[] { 5., -1., 2., 0. }));
+		double[] bounds = new double[4];
+		Assert.assertSame("bounds", bounds, r2a.getBounds(bounds));
+		Assert.assertNull(EuclidTestUtils.testEquals("bounds",
+				new double[] { -2., 4., -1., 5. }, bounds, EPS));
+		Assert.assertNull(EuclidTestUtils.testEquals("bounds range",
+				new double[] { -2., 4., -1., 2. }, r2a.getBounds(1, 2, null), EPS));
+		Assert.assertNull(EuclidTestUtils.testEquals("centroid",
+				new double[] { 1.5, 1.5 }, r2a.getCentroid(null), EPS));
+		Assert.assertNull(EuclidTestUtils.testEquals("centroid range",
+				new double[] { 0.5, 1. }, r2a.getCentroid(2, 3, null), EPS));
+		Assert.assertNull("empty", new Real2Array().getBounds(null));
+		Assert.assertNull("empty", new Real2Array().getCentroid(null));
+		Real2Range range = r2a.getRange2();
+		Assert.assertEquals("range", -2., range.getXRange().getMin(), EPS);
+		Assert.assertEquals("range", 5., range.getYRange().getMax(), EPS);
+	}
+
+	@Test
+	public void testSortByAxis() {
+		Real2Array r2a = new Real2Array();
+		r2a.add(new Real2(1.0, 9.0));
+		r2a.add(new Real2(7.0, 3.0));
+		r2a.add(new Real2(2.0, 8.0));
+		r2a.add(new Real2(5.0, 1.0));
+		r2a.add(new Real2(4.0, 7.0));
+		r2a.add(new Real2(8.0, 6.0));
+		r2a.sortByAxis(0, true);
+		Assert.assertEquals("xa", "((1.0,9.0)(2.0,8.0)(4.0,7.0)(5.0,1.0)(7.0,3.0)(8.0,6.0))", r2a.toString());
+		r2a.sortByAxis(1, true);
+		Assert.assertEquals("ya", "((5.0,1.0)(7.0,3.0)(8.0,6.0)(4.0,7.0)(2.0,8.0)(1.0,9.0))", r2a.toString());
+		r2a.sortByAxis(0, false);
+		Assert.assertEquals("xd", "((8.0,6.0)(7.0,3.0)(5.0,1.0)(4.0,7.0)(2.0,8.0)(1.0,9.0))", r2a.toString());
+		r2a.sortByAxis(1, 3, 1, true);
+		Assert.assertEquals("range", "((8.0,6.0)(5.0,1.0)(7.0,3.0)(4.0,7.0)(2.0,8.0)(1.0,9.0))", r2a.toString());
+		java.util.Random random = new java.util.Random(3L);
+		int n = 5000;
+		RealArray x = new RealArray(n);
+		RealArray y = new RealArray(n);
+		for (int i = 0; i < n; i++) {
+			x.setElementAt(i, random.nextInt(100));
+			y.setElementAt(i, 2. * x.elementAt(i) + 1.);
+		}
+		r2a = new Real2Array(x, y);
+		r2a.sortByAxis(0, true);
+		for (int i = 0; i < n; i++) {
+			Assert.assertEquals("pair", 2. * r2a.getXArray().elementAt(i) + 1., r2a.getYArray().elementAt(i), EPS);
+			if (i > 0) {
+				Assert.assertTrue("sorted", r2a.getXArray().elementAt(i - 1) <= r2a.getXArray().elementAt(i));
+			}
+		}
+	}
 }
@@ -27,10 +27,13 @@ import org.junit.Test;
 import org.xmlcml.euclid.Angle;
 import org.xmlcml.euclid.EC;
 import org.xmlcml.euclid.EuclidRuntimeException;
+import org.xmlcml.euclid.EuclidTestUtils;
 import org.xmlcml.euclid.IntSet;
 import org.xmlcml.euclid.Real2;
 import org.xmlcml.euclid.Real2Range;
+import org.xmlcml.euclid.Real2Reducer;
 import org.xmlcml.euclid.Real2Vector;
+import org.xmlcml.euclid.Real2Visitor;
 import org.xmlcml.euclid.RealArray;
 import org.xmlcml.euclid.RealMatrix;
 import org.xmlcml.euclid.RealRange;
@@ -706,4 +709,43 @@ public class Real2VectorTest {
 		Assert.assertTrue("inside", r2v.encloses(point));
 	}
 
+	@Test
+	public void testVisitorAndBounds() {
+		Real2Vector r2v = new Real2Vector(new double[] { 1., 5., 4., -1., -2., 2., 3., 0. });
+		final double[] sum = new double[2];
+		r2v.forEach(1, 3, new Real2Visitor() {
+			public void visit(double x, double y) {
+				sum[0] += x;
+				sum[1] += y;
+			}
+		});
+		Assert.assertEquals("forEach", 5., sum[0], EPS);
+		Assert.assertEquals("forEach", 1., sum[1], EPS);
+		Assert.assertEquals("reduce", 4., r2v.reduce(Double.NEGATIVE_INFINITY, new Real2Reducer() {
+			public double reduce(double value, double x, double y) {
+				return Math.max(value, x);
+			}
+		}), EPS);
+		Assert.assertNull(EuclidTestUtils.testEquals("bounds",
+				new double[] { -2., 4., -1., 5. }, r2v.getBounds(null), EPS));
+		Assert.assertNull(EuclidTestUtils.testEquals("centroid",
+				new double[] { 1.5, 1.5 }, r2v.getCentroid(null), EPS));
+		Assert.assertNull("empty", new Real2Vector().getBounds(null));
+		Assert.assertNull("empty", new Real2Vector().getCentroid());
+		Real2Range range = r2v.getRange2();
+		Assert.assertEquals("range", 4., range.getXRange().getMax(), EPS);
+		Assert.assertEquals("range", -1., range.getYRange().getMin(), EPS);
+		r2v.sortByAxis(Axis2.Y, false);
+		Assert.assertEquals("sort", 5., r2v.get(0).getY(), EPS);
+		Assert.assertEquals("sort", -1., r2v.get(3).getY(), EPS);
+		r2v.sortByAxis(0, 1, Axis2.X, true);
+		Assert.assertEquals("sort range", -2., r2v.get(0).getX(), EPS);
+		Assert.assertEquals("sort range", 4., r2v.get(3).getX(), EPS);
+		try {
+			r2v.getBounds(-1, 2, null);
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+		}
+	}
+
 }
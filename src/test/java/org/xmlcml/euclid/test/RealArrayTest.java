@@ -19,12 +19,14 @@ package org.xmlcml.euclid.test;
 import static org.xmlcml.euclid.EuclidConstants.EPS;
 
 import java.util.Iterator;
+import java.util.Random;
 
 import org.apache.log4j.Logger;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.xmlcml.euclid.ArrayBase.Trim;
+import org.xmlcml.euclid.ComplexArray;
 import org.xmlcml.euclid.EuclidConstants;
 import org.xmlcml.euclid.EuclidRuntimeException;
 import org.xmlcml.euclid.IntArray;
@@ -626,6 +628,109 @@ public class RealArrayTest {
 				46.0 }, a1, EPS);
 	}
 
+	/**
+	 * Test method for 'org.xmlcml.euclid.RealArray.plus(RealArray, RealArray)'
+	 */
+	@Test
+	public void testPlusDestination() {
+		RealArray b = new RealArray("10 20 30 40");
+		RealArray dest = new RealArray(4);
+		Assert.assertSame("dest", dest, a1.plus(b, dest));
+		RealArrayTest.assertEquals("plus", new double[] { 11.0, 22.0, 34.0,
+				46.0 }, dest, EPS);
+		RealArrayTest.assertEquals("unchanged", new double[] { 1.0, 2.0, 4.0,
+				6.0 }, a1, EPS);
+		a1.plus(b, b);
+		RealArrayTest.assertEquals("alias", new double[] { 11.0, 22.0, 34.0,
+				46.0 }, b, EPS);
+		RealArrayTest.assertEquals("null", new double[] { 2.0, 4.0, 8.0,
+				12.0 }, a1.plus(a1, null), EPS);
+		try {
+			a1.plus(b, new RealArray(3));
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * Test method for 'org.xmlcml.euclid.RealArray.subtract(RealArray, RealArray)'
+	 */
+	@Test
+	public void testSubtractDestination() {
+		RealArray b = new RealArray("10 20 30 40");
+		b.subtract(a1, b);
+		RealArrayTest.assertEquals("subtract", new double[] { 9.0, 18.0, 26.0,
+				34.0 }, b, EPS);
+	}
+
+	/**
+	 * Test method for 'org.xmlcml.euclid.RealArray.multiplyByEquals(double)'
+	 */
+	@Test
+	public void testMultiplyByEquals() {
+		RealArray dest = a1.multiplyBy(2.0, new RealArray(4));
+		RealArrayTest.assertEquals("dest", new double[] { 2.0, 4.0, 8.0,
+				12.0 }, dest, EPS);
+		a1.multiplyByEquals(0.5);
+		RealArrayTest.assertEquals("equals", new double[] { 0.5, 1.0, 2.0,
+				3.0 }, a1, EPS);
+	}
+
+	/**
+	 * Test method for 'org.xmlcml.euclid.RealArray.scaleAndShift(double, double, RealArray)'
+	 */
+	@Test
+	public void testScaleAndShift() {
+		RealArray a2 = a1.scaleAndShift(2.0, -1.0, null);
+		RealArrayTest.assertEquals("scaleAndShift", new double[] { 1.0, 3.0,
+				7.0, 11.0 }, a2, EPS);
+		a1.scaleAndShiftEquals(-1.0, 10.0);
+		RealArrayTest.assertEquals("equals", new double[] { 9.0, 8.0, 6.0,
+				4.0 }, a1, EPS);
+		a1.plusEquals(1.0);
+		RealArrayTest.assertEquals("plusEquals", new double[] { 10.0, 9.0,
+				7.0, 5.0 }, a1, EPS);
+	}
+
+	/**
+	 * Test method for 'org.xmlcml.euclid.RealArray.axpy(double, RealArray)'
+	 */
+	@Test
+	public void testAxpy() {
+		a1.axpy(3.0, new RealArray("10 20 30 40"));
+		RealArrayTest.assertEquals("axpy", new double[] { 31.0, 62.0, 94.0,
+				126.0 }, a1, EPS);
+		try {
+			a1.axpy(1.0, new RealArray(3));
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * unrolled reductions must handle lengths that are not multiples of 4
+	 */
+	@Test
+	public void testUnrolledReductions() {
+		for (int n = 0; n < 11; n++) {
+			RealArray a = new RealArray(n, 1.0, 1.0);
+			RealArray b = new RealArray(n, -1.0);
+			double sum = n * (n + 1) / 2.0;
+			Assert.assertEquals("sum " + n, sum, a.sumAllElements(), EPS);
+			Assert.assertEquals("abs " + n, n, b.absSumAllElements(), EPS);
+			Assert.assertEquals("dot " + n, -sum, a.dotProduct(b), EPS);
+			RealArray cum = a.cumulativeSum(new RealArray(n));
+			if (n > 0) {
+				Assert.assertEquals("cum " + n, sum, cum.elementAt(n - 1), EPS);
+				RealRange range = a.getRange();
+				Assert.assertEquals("min " + n, 1.0, range.getMin(), EPS);
+				Assert.assertEquals("max " + n, (double) n, range.getMax(), EPS);
+			}
+		}
+	}
+
 	/**
 	 * calculate differences via filter
 	 */
@@ -855,6 +960,96 @@ public class RealArrayTest {
 		RealArrayTest.assertEquals("filtered", d, filtered, EPS);
 	}
 
+	// direct sum with the filter renormalised where it overlaps the ends
+	static double[] referenceFilter(double[] x, double[] f) {
+		int mid = (f.length - 1) / 2;
+		double[] out = new double[x.length];
+		for (int j = 0; j < x.length; j++) {
+			double sum = 0.0;
+			double wt = 0.0;
+			for (int k = 0; k < f.length; k++) {
+				int l = j - mid + k;
+				if (l >= 0 && l < x.length) {
+					sum += f[k] * x[l];
+					wt += Math.abs(f[k]);
+				}
+			}
+			out[j] = sum / wt;
+		}
+		return out;
+	}
+
+	static double[] randomArray(int n, long seed) {
+		Random random = new Random(seed);
+		double[] x = new double[n];
+		for (int i = 0; i < n; i++) {
+			x[i] = random.nextDouble() - 0.3;
+		}
+		return x;
+	}
+
+	/**
+	 * Test method for 'org.xmlcml.euclid.RealArray.applyFilter(RealArray)'
+	 * with wide filters (FFT) and long arrays (parallel).
+	 */
+	@Test
+	public void testApplyFilterLarge() {
+		int[][] sizes = { { 1000, 201 }, { 5000, 65 }, { 300000, 7 },
+				{ 70000, 129 }, { 150, 257 }, { 40, 8 } };
+		for (int[] size : sizes) {
+			double[] x = randomArray(size[0], size[1]);
+			double[] f = randomArray(size[1], size[0]);
+			RealArray filtered = new RealArray(x).applyFilter(new RealArray(f));
+			RealArrayTest.assertEquals("filter " + size[0] + "/" + size[1],
+					referenceFilter(x, f), filtered, 1.0E-9);
+		}
+		RealArray gaussian = RealArray.getFilter(50, Filter.GAUSSIAN);
+		RealArray raw = new RealArray(randomArray(10000, 3));
+		RealArray filtered = raw.applyFilter(gaussian);
+		RealArrayTest.assertEquals("gaussian",
+				referenceFilter(raw.getArray(), gaussian.getArray()), filtered, 1.0E-12);
+	}
+
+	/**
+	 * Test method for 'org.xmlcml.euclid.RealArray.fft()'
+	 */
+	@Test
+	public void testFFT() {
+		RealArray a = new RealArray(new double[] { 1., 2., 3., 4. });
+		ComplexArray c = a.fft();
+		Assert.assertArrayEquals("fft", new double[] { 10., 0., -2., 2., -2., 0., -2., -2. },
+				c.getArray(), 1.0E-14);
+		RealArrayTest.assertEquals("power", new double[] { 100., 8., 4., 8. },
+				a.powerSpectrum(), 1.0E-13);
+		RealArrayTest.assertEquals("inverse", a.getArray(), c.inverseFFT().getRealArray(), 1.0E-15);
+	}
+
+	/**
+	 * Test method for 'org.xmlcml.euclid.RealArray.crossCorrelation(RealArray)'
+	 */
+	@Test
+	public void testCrossCorrelation() {
+		RealArray a = new RealArray(new double[] { 1., 2., 3. });
+		RealArray b = new RealArray(new double[] { 0., 1. });
+		// lags -1, 0, 1, 2
+		RealArrayTest.assertEquals("small", new double[] { 1., 2., 3., 0. },
+				a.crossCorrelation(b), 1.0E-14);
+		double[] x = randomArray(300, 1);
+		double[] y = randomArray(41, 2);
+		RealArray r = new RealArray(x).crossCorrelation(new RealArray(y));
+		Assert.assertEquals("size", 340, r.size());
+		for (int k = -40; k < 300; k++) {
+			double sum = 0.0;
+			for (int i = 0; i < 41; i++) {
+				if (i + k >= 0 && i + k < 300) {
+					sum += x[i + k] * y[i];
+				}
+			}
+			Assert.assertEquals("lag " + k, sum, r.elementAt(k + 40), 1.0E-11);
+		}
+		Assert.assertEquals("empty", 0, a.crossCorrelation(new RealArray()).size());
+	}
+
 	/**
 	 * Test method for 'org.xmlcml.euclid.RealArray.trim(int, double)'
 	 */
@@ -1122,6 +1317,77 @@ public class RealArrayTest {
 				5 }, intSet.getIntArray());
 	}
 
+	/**
+	 * equal elements keep their order in both directions
+	 */
+	@Test
+	public void testIndexSortStable() {
+		RealArray ra = new RealArray(new double[] { 2., 1., 2., 0., 1., 2. });
+		IntArrayTest.assertEquals("ascending", new int[] { 3, 1, 4, 0, 2, 5 },
+				ra.indexSortAscending().getIntArray());
+		IntArrayTest.assertEquals("descending", new int[] { 0, 2, 5, 1, 4, 3 },
+				ra.indexSortDescending().getIntArray());
+		Assert.assertTrue("contains", ra.indexSortAscending().contains(5));
+		Assert.assertEquals("empty", 0, new RealArray().indexSortAscending().size());
+	}
+
+	/**
+	 * large arrays are sorted in parallel
+	 */
+	@Test
+	public void testSortLarge() {
+		java.util.Random random = new java.util.Random(17L);
+		int n = 200000;
+		double[] dd = new double[n];
+		for (int i = 0; i < n; i++) {
+			dd[i] = random.nextInt(1000) * 0.5;
+		}
+		RealArray ra = new RealArray(dd);
+		IntSet idx = ra.indexSortAscending();
+		ra.sortAscending();
+		double[] sorted = dd.clone();
+		java.util.Arrays.sort(sorted);
+		for (int i = 0; i < n; i++) {
+			Assert.assertEquals("sort", sorted[i], ra.elementAt(i), 1.0E-14);
+			Assert.assertEquals("argsort", sorted[i], dd[idx.elementAt(i)], 1.0E-14);
+			if (i > 0 && dd[idx.elementAt(i)] == dd[idx.elementAt(i - 1)]) {
+				Assert.assertTrue("stable", idx.elementAt(i) > idx.elementAt(i - 1));
+			}
+		}
+	}
+
+	/**
+	 * Test method for 'org.xmlcml.euclid.RealArray.indexesOfLargestElements(int)'
+	 */
+	@Test
+	public void testIndexesOfLargestElements() {
+		RealArray ra = new RealArray(new double[] { 3., 7., 1., 7., 5., -2., 9. });
+		IntArrayTest.assertEquals("largest", new int[] { 6, 1, 3 },
+				ra.indexesOfLargestElements(3).getIntArray());
+		IntArrayTest.assertEquals("smallest", new int[] { 5, 2, 0, 4 },
+				ra.indexesOfSmallestElements(4).getIntArray());
+		Assert.assertEquals("all", 7, ra.indexesOfSmallestElements(10).size());
+		Assert.assertEquals("none", 0, ra.indexesOfLargestElements(0).size());
+		java.util.Random random = new java.util.Random(5L);
+		double[] dd = new double[5000];
+		for (int i = 0; i < dd.length; i++) {
+			dd[i] = random.nextInt(200);
+		}
+		ra = new RealArray(dd);
+		IntSet all = ra.indexSortDescending();
+		IntSet top = ra.indexesOfLargestElements(50);
+		for (int i = 0; i < 50; i++) {
+			Assert.assertEquals("top-k", all.elementAt(i), top.elementAt(i));
+		}
+		ra = new RealArray(new double[] { 3., Double.NaN, 1., 2. });
+		IntArrayTest.assertEquals("smallest NaN", new int[] { 2, 3 },
+				ra.indexesOfSmallestElements(2).getIntArray());
+		IntArrayTest.assertEquals("largest NaN", new int[] { 0, 3 },
+				ra.indexesOfLargestElements(2).getIntArray());
+		IntArrayTest.assertEquals("NaN last", new int[] { 0, 3, 2, 1 },
+				ra.indexesOfLargestElements(4).getIntArray());
+	}
+
 	@Test
 	public void testCreateScaledArray() {
 		RealArray ra = new RealArray(new double[]{1., 2., 3.});
@@ -0,0 +1,128 @@
+/**
+ *    Copyright 2011 Peter Murray-Rust
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.xmlcml.euclid.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlcml.euclid.EuclidRuntimeException;
+import org.xmlcml.euclid.EuclidTestUtils;
+import org.xmlcml.euclid.RealArray;
+import org.xmlcml.euclid.RealFlatMatrix;
+import org.xmlcml.euclid.RealMatrix;
+
+/**
+ * test RealFlatMatrix
+ * 
+ */
+public class RealFlatMatrixTest {
+
+	private RealFlatMatrix make34() {
+		return new RealFlatMatrix(3, 4, new double[] { 
+				11., 12., 13., 14.,
+				21., 22., 23., 24.,
+				31., 32., 33., 34. });
+	}
+
+	@Test
+	public void testWrapAndGetMatrixAsArray() {
+		double[] array = new double[] {1., 2., 3., 4., 5., 6.};
+		RealFlatMatrix m = new RealFlatMatrix(2, 3, array);
+		Assert.assertTrue(m.isContiguous());
+		Assert.assertSame("no copy", array, m.getMatrixAsArray());
+		Assert.assertEquals(6., m.elementAt(1, 2), 0.0);
+		try {
+			new RealFlatMatrix(2, 4, array);
+			Assert.fail("wrong size");
+		} catch (EuclidRuntimeException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testRealMatrixRoundTrip() {
+		RealMatrix rm = new RealMatrix(3, 4, make34().getMatrixAsArray());
+		RealFlatMatrix m = new RealFlatMatrix(rm);
+		Assert.assertNull(EuclidTestUtils.testEquals("round trip", rm.getMatrix(), m.getRealMatrix().getMatrix(), 1.0E-14));
+	}
+
+	@Test
+	public void testTransposeView() {
+		RealFlatMatrix m = make34();
+		RealFlatMatrix t = m.getTranspose();
+		Assert.assertEquals(4, t.getRows());
+		Assert.assertEquals(3, t.getCols());
+		Assert.assertEquals(23., t.elementAt(2, 1), 0.0);
+		Assert.assertFalse(t.isContiguous());
+		Assert.assertNull(EuclidTestUtils.testEquals("transpose", new double[] {
+				11., 21., 31., 12., 22., 32., 13., 23., 33., 14., 24., 34.},
+				t.getMatrixAsArray(), 1.0E-14));
+		// shares storage
+		t.setElementAt(2, 1, 99.);
+		Assert.assertEquals(99., m.elementAt(1, 2), 0.0);
+	}
+
+	@Test
+	public void testRowAndColumnViews() {
+		RealFlatMatrix m = make34();
+		RealFlatMatrix row = m.getRowView(1);
+		Assert.assertEquals(1, row.getRows());
+		Assert.assertNull(EuclidTestUtils.testEquals("row", new double[] {21., 22., 23., 24.}, row.getMatrixAsArray(), 1.0E-14));
+		RealFlatMatrix col = m.getColumnView(2);
+		Assert.assertEquals(3, col.getRows());
+		Assert.assertNull(EuclidTestUtils.testEquals("col", new double[] {13., 23., 33.}, col.getMatrixAsArray(), 1.0E-14));
+		col.setElementAt(0, 0, -1.);
+		Assert.assertEquals(-1., m.elementAt(0, 2), 0.0);
+		RealArray colData = m.extractColumnData(3);
+		Assert.assertNull(EuclidTestUtils.testEquals("col", new double[] {14., 24., 34.}, colData.getArray(), 1.0E-14));
+		RealArray rowData = m.extractRowData(2);
+		Assert.assertNull(EuclidTestUtils.testEquals("row", new double[] {31., 32., 33., 34.}, rowData.getArray(), 1.0E-14));
+	}
+
+	@Test
+	public void testSubMatrixView() {
+		RealFlatMatrix m = make34();
+		RealFlatMatrix sub = m.getSubMatrixView(1, 2, 1, 3);
+		Assert.assertEquals(2, sub.getRows());
+		Assert.assertEquals(3, sub.getCols());
+		Assert.assertNull(EuclidTestUtils.testEquals("sub", new double[] {22., 23., 24., 32., 33., 34.}, sub.getMatrixAsArray(), 1.0E-14));
+		RealFlatMatrix subT = sub.getTranspose().getSubMatrixView(1, 2, 0, 0);
+		Assert.assertNull(EuclidTestUtils.testEquals("subT", new double[] {23., 24.}, subT.getMatrixAsArray(), 1.0E-14));
+		sub.multiplyBy(2.);
+		Assert.assertEquals(11., m.elementAt(0, 0), 0.0);
+		Assert.assertEquals(66., m.elementAt(2, 2), 0.0);
+		RealFlatMatrix copy = sub.copy();
+		Assert.assertTrue(copy.isContiguous());
+		Assert.assertTrue(copy.isEqualTo(sub));
+		try {
+			m.getSubMatrixView(1, 3, 0, 0);
+			Assert.fail("bad row");
+		} catch (EuclidRuntimeException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testMultiply() {
+		RealFlatMatrix m = make34();
+		// m * mT through a strided view
+		RealFlatMatrix mmt = m.multiply(m.getTranspose());
+		RealMatrix rm = new RealMatrix(3, 4, make34().getMatrixAsArray());
+		RealMatrix expected = rm.multiply(rm.getTranspose());
+		Assert.assertNull(EuclidTestUtils.testEquals("multiply", expected.getMatrix(), mmt.getMatrix(), 0.000001));
+	}
+}
@@ -347,6 +347,41 @@ public class RealMatrixTest{
 						3650.0, 3800.0, }, mm, EC.EPS);
 	}
 
+	/**
+	 * Test method for 'org.xmlcml.euclid.RealMatrix.multiply(RealMatrix)'
+	 * large enough to be blocked and run in parallel
+	 */
+	@Test
+	public void testMultiplyRealMatrixLarge() {
+		int rows = 150;
+		int inner = 130;
+		int cols = 170;
+		RealMatrix a = new RealMatrix(rows, inner);
+		RealMatrix b = new RealMatrix(inner, cols);
+		for (int i = 0; i < rows; i++) {
+			for (int k = 0; k < inner; k++) {
+				a.setElementAt(i, k, (i * 7 + k * 3) % 11 - 5.5);
+			}
+		}
+		for (int k = 0; k < inner; k++) {
+			for (int j = 0; j < cols; j++) {
+				b.setElementAt(k, j, (k * 5 + j * 2) % 13 * 0.25);
+			}
+		}
+		RealMatrix c = a.multiply(b);
+		Assert.assertEquals("rows", rows, c.getRows());
+		Assert.assertEquals("cols", cols, c.getCols());
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < cols; j++) {
+				double sum = 0.0;
+				for (int k = 0; k < inner; k++) {
+					sum += a.elementAt(i, k) * b.elementAt(k, j);
+				}
+				Assert.assertEquals("element " + i + "," + j, sum, c.elementAt(i, j), 0.0);
+			}
+		}
+	}
+
 	/**
 	 * Test method for 'org.xmlcml.euclid.RealMatrix.multiplyBy(double)'
 	 */
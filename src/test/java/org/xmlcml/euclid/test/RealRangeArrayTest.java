@@ -1,12 +1,15 @@
 package org.xmlcml.euclid.test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Assert;
 import org.junit.Test;
 import org.xmlcml.euclid.RealRange;
 import org.xmlcml.euclid.RealRangeArray;
+import org.xmlcml.euclid.RealRangeIndex;
 
 public class RealRangeArrayTest {
 
@@ -237,5 +240,75 @@ public class RealRangeArrayTest {
 		rangeList.add(new RealRange(280.249,288.219));
 		return rangeList;
 	}
+
+	@Test
+	public void testIndexedQueries() {
+		Random random = new Random(17);
+		RealRangeArray linear = new RealRangeArray();
+		RealRangeArray indexed = new RealRangeArray();
+		indexed.setIndexed(true);
+		for (int i = 0; i < 500; i++) {
+			double min = Math.floor(random.nextDouble() * 1000.) / 4.;
+			RealRange range = new RealRange(min, min + Math.floor(random.nextDouble() * 40.) / 4.);
+			linear.add(range);
+			indexed.add(range);
+		}
+		// duplicate and invalid ranges
+		RealRange first = linear.get(0);
+		RealRange copy = new RealRange(first);
+		linear.add(copy);
+		indexed.add(copy);
+		RealRange invalid = new RealRange();
+		linear.add(invalid);
+		indexed.add(invalid);
+		Assert.assertTrue(indexed.isIndexed());
+		Assert.assertEquals("indexed", 501, indexed.getIndex().size());
+		for (int i = 0; i < 300; i++) {
+			double x = Math.floor(random.nextDouble() * 1100.) / 4.;
+			Assert.assertEquals("containing " + x, linear.getRangesContaining(x), indexed.getRangesContaining(x));
+			RealRange query = new RealRange(x, x + Math.floor(random.nextDouble() * 20.) / 4.);
+			Assert.assertEquals("overlapping " + query, linear.getRangesOverlapping(query),
+					indexed.getRangesOverlapping(query));
+			Assert.assertEquals("includes " + query, linear.includes(query), indexed.includes(query));
+		}
+		int found = 0;
+		for (RealRange range : indexed.getIndex().getRangesIncluding(first)) {
+			if (range == first || range == copy) {
+				found++;
+			}
+		}
+		Assert.assertEquals("duplicate", 2, found);
+	}
+
+	@Test
+	public void testIndexUpdatedAfterChange() {
+		RealRangeArray array = new RealRangeArray();
+		array.setIndexed(true);
+		array.add(rr10_20);
+		Assert.assertFalse(array.includes(rr15_25));
+		array.add(new RealRange(rr15_25));
+		Assert.assertTrue(array.includes(rr15_25));
+		array.sortAndRemoveOverlapping();
+		Assert.assertEquals(1, array.getRangesContaining(12.).size());
+		Assert.assertEquals(new RealRange(10.1, 25.1), array.getRangesContaining(25.1).get(0));
+		Assert.assertEquals(0, array.getRangesContaining(Double.NaN).size());
+		RealRangeIndex index = new RealRangeIndex(new ArrayList<RealRange>());
+		Assert.assertEquals(0, index.getRangesContaining(1.0).size());
+		Assert.assertFalse(index.includes(rr10_20));
+		index = new RealRangeIndex(Arrays.asList(new RealRange[] { new RealRange(-1., -0.0) }));
+		Assert.assertEquals(1, index.getRangesContaining(0.0).size());
+	}
+
+	@Test
+	public void testRemoveLessThan() {
+		RealRangeArray array = new RealRangeArray();
+		array.add(rr10_20);
+		array.add(rr15_17);
+		array.add(rr30_40);
+		array.add(new RealRange(rr15_17));
+		array.removeLessThan(5.);
+		Assert.assertEquals(2, array.size());
+		Assert.assertEquals(rr30_40, array.get(1));
+	}
+
 }
-	
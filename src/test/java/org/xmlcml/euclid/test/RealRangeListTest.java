@@ -1,5 +1,9 @@
 package org.xmlcml.euclid.test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import org.apache.log4j.Logger;
 import org.junit.Assert;
 import org.junit.Test;
@@ -163,4 +167,32 @@ public class RealRangeListTest {
 		Assert.assertEquals("string", "[(68.0,101.0)]", realRangeList.toString());
 	}
 
+	@Test
+	public void testAddManyRanges() {
+		Random random = new Random(5);
+		RealRangeList realRangeList = new RealRangeList();
+		// coverage on a grid of 0.5 so that touching ranges join and others do not
+		boolean[] covered = new boolean[4000];
+		for (int i = 0; i < 300; i++) {
+			int min = random.nextInt(1990);
+			int max = min + random.nextInt(10);
+			int pos = realRangeList.addRange(new RealRange(min, max));
+			Assert.assertTrue("position", realRangeList.get(pos).includes(new RealRange(min, max)));
+			for (int j = 2 * min; j <= 2 * max; j++) {
+				covered[j] = true;
+			}
+		}
+		List<RealRange> expected = new ArrayList<RealRange>();
+		for (int j = 0; j < covered.length; j++) {
+			if (covered[j] && (j == 0 || !covered[j - 1])) {
+				int k = j;
+				while (k + 1 < covered.length && covered[k + 1]) {
+					k++;
+				}
+				expected.add(new RealRange(j / 2., k / 2.));
+			}
+		}
+		Assert.assertEquals("merged", expected.toString(), realRangeList.toString());
+	}
+
 }
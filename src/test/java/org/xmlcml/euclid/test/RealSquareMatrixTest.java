@@ -24,6 +24,7 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.xmlcml.euclid.EC;
+import org.xmlcml.euclid.EuclidRuntimeException;
 import org.xmlcml.euclid.EuclidTestUtils;
 import org.xmlcml.euclid.RealArray;
 import org.xmlcml.euclid.RealMatrix;
@@ -516,6 +517,108 @@ public class RealSquareMatrixTest extends MatrixTest {
 		MatrixTest.assertEquals("inverse", mm, inv, 0.000000000001);
 	}
 	
+	/**
+	 * Test method for 'org.xmlcml.euclid.RealSquareMatrix.determinant()'
+	 * order > 3 (LU decomposition)
+	 */
+	@Test
+	public void testDeterminantLarge() {
+		RealSquareMatrix m = new RealSquareMatrix(4, new double[] { 
+				2., 1., 0., 3.,
+				1., 4., 2., 0.,
+				0., 2., 5., 1.,
+				3., 0., 1., 6.,
+		});
+		Assert.assertEquals("determinant", -1., m.determinant(), 0.000000001);
+		// cached decomposition must be refreshed after alteration
+		m.setElementAt(0, 0, 3.);
+		Assert.assertEquals("determinant", 91., m.determinant(), 0.000000001);
+		// singular
+		m.replaceRowData(3, new double[]{4., 5., 2., 3.});
+		Assert.assertEquals("determinant", 0., m.determinant(), 0.000000001);
+		RealSquareMatrix big = new RealSquareMatrix(20);
+		for (int i = 0; i < 20; i++) {
+			big.setElementAt(i, i, 2.);
+		}
+		Assert.assertEquals("determinant", Math.pow(2., 20), big.determinant(), 0.000001);
+	}
+
+	/**
+	 * Test method for 'org.xmlcml.euclid.RealSquareMatrix.getInverse()'
+	 * order > 3 (LU decomposition)
+	 */
+	@Test
+	public void testGetInverseLarge() {
+		RealSquareMatrix m = new RealSquareMatrix(4, new double[] { 
+				2., 1., 0., 3.,
+				1., 4., 2., 0.,
+				0., 2., 5., 1.,
+				3., 0., 1., 6.,
+		});
+		RealSquareMatrix inv = m.getInverse();
+		RealSquareMatrix unit = m.multiply(inv);
+		Assert.assertTrue("unit", unit.isUnit());
+		// row 3 = row 0 + row 1: rounding leaves a tiny pivot
+		m.replaceRowData(3, new double[]{3., 5., 2., 3.});
+		Assert.assertTrue("nearly singular", m.getLUDecomposition().isNearlySingular());
+		// row 3 = 2 * row 0: exactly singular
+		m.replaceRowData(3, new double[]{4., 2., 0., 6.});
+		Assert.assertTrue("singular", m.getLUDecomposition().isSingular());
+		try {
+			m.getInverse();
+			Assert.fail("should throw singular matrix");
+		} catch (EuclidRuntimeException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * badly scaled or ill-conditioned matrices are not singular
+	 */
+	@Test
+	public void testLUBadlyScaled() {
+		RealSquareMatrix m = new RealSquareMatrix(4);
+		double[] diag = {1.0E6, 1., 1., 1.0E-7};
+		for (int i = 0; i < 4; i++) {
+			m.setElementAt(i, i, diag[i]);
+		}
+		Assert.assertEquals("determinant", 0.1, m.determinant(), 1.0E-15);
+		Assert.assertFalse("not singular", m.getLUDecomposition().isSingular());
+		Assert.assertTrue("unit", m.multiply(m.getInverse()).isUnit());
+
+		int n = 12;
+		RealSquareMatrix hilbert = new RealSquareMatrix(n);
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				hilbert.setElementAt(i, j, 1.0 / (i + j + 1));
+			}
+		}
+		// exact determinant is 2.6377e-78; condition number ~1e16 limits accuracy
+		Assert.assertEquals("determinant", 1.0, hilbert.determinant() / 2.6377e-78, 0.2);
+		RealSquareMatrix inverse = hilbert.getInverse();
+		Assert.assertNotNull(inverse);
+		// elements of the exact inverse are integers; [0][0] = n^2
+		Assert.assertEquals("inverse", 144., inverse.elementAt(0, 0), 144. * 0.05);
+		Assert.assertTrue("nearly singular", hilbert.getLUDecomposition().isNearlySingular());
+	}
+
+	/**
+	 * Test method for 'org.xmlcml.euclid.RealSquareMatrix.solve(RealArray)'
+	 */
+	@Test
+	public void testSolve() {
+		RealSquareMatrix m = new RealSquareMatrix(4, new double[] { 
+				2., 1., 0., 3.,
+				1., 4., 2., 0.,
+				0., 2., 5., 1.,
+				3., 0., 1., 6.,
+		});
+		RealArray x = new RealArray(new double[]{1., -2., 3., 0.5});
+		RealArray b = m.multiply(x);
+		RealArray xx = m.solve(b);
+		Assert.assertNull(EuclidTestUtils.testEquals("solve", x.getArray(), xx.getArray(), 0.000000001));
+	}
+	
 	@Test
 	public void calculateEigenvalues() {
 		RealSquareMatrix m = new RealSquareMatrix(3, new double[] { 
@@ -528,6 +631,31 @@ public class RealSquareMatrixTest extends MatrixTest {
 		EuclidTestUtils.testEquals("inverse", expected, realArray.getArray(), 0.0000001);
 	}
 	
+	@Test
+	public void calculateEigenvectorsAfterChange() {
+		RealSquareMatrix m = new RealSquareMatrix(2, new double[] { 
+				2., 0.,
+				0., 1.
+		});
+		RealSquareMatrix v = m.calculateEigenvectors();
+		Assert.assertTrue("unit", v.isUnit());
+		Assert.assertSame("cached", v, m.calculateEigenvectors());
+		m.setElementAt(0, 0, 1.);
+		m.setElementAt(0, 1, 1.);
+		m.setElementAt(1, 0, 1.);
+		double[] values = m.calculateEigenvalues().getArray();
+		Assert.assertNull(EuclidTestUtils.testEquals("values", new double[]{2., 0.}, values, 0.0000001));
+		v = m.calculateEigenvectors();
+		double r = Math.sqrt(0.5);
+		for (int i = 0; i < 2; i++) {
+			for (int j = 0; j < 2; j++) {
+				Assert.assertEquals("vector", r, Math.abs(v.elementAt(i, j)), 0.0000001);
+			}
+		}
+		// column 0 belongs to eigenvalue 2, i.e. +-(1, 1)
+		Assert.assertEquals("sign", v.elementAt(0, 0), v.elementAt(1, 0), 0.0000001);
+	}
+	
 	@Test
 	public void calculateInverse() {
 		RealSquareMatrix m = new RealSquareMatrix(3, new double[] { 
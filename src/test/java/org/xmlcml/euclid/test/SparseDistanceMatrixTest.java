@@ -0,0 +1,186 @@
+/**
+ *    Copyright 2011 Peter Murray-Rust
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+
+package org.xmlcml.euclid.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlcml.euclid.EuclidRuntimeException;
+import org.xmlcml.euclid.EuclidTestUtils;
+import org.xmlcml.euclid.IntSet;
+import org.xmlcml.euclid.Point3;
+import org.xmlcml.euclid.Point3Array;
+import org.xmlcml.euclid.Point3Vector;
+import org.xmlcml.euclid.Real2;
+import org.xmlcml.euclid.Real2Vector;
+import org.xmlcml.euclid.RealMatrix;
+import org.xmlcml.euclid.RealSquareMatrix;
+import org.xmlcml.euclid.SparseDistanceMatrix;
+
+/**
+ * test SparseDistanceMatrix.
+ * 
+ */
+public class SparseDistanceMatrixTest {
+
+	private static Point3Vector makePoint3Vector(int n, double scale, long seed) {
+		Random random = new Random(seed);
+		Point3Vector p3v = new Point3Vector();
+		for (int i = 0; i < n; i++) {
+			p3v.add(new Point3(random.nextDouble() * scale, random.nextDouble() * scale,
+					random.nextDouble() * scale));
+		}
+		return p3v;
+	}
+
+	/** every stored entry is within cutoff and every pair within cutoff is stored */
+	private static void checkAgainstDense(SparseDistanceMatrix sdm, RealMatrix dense, double cutoff) {
+		Assert.assertEquals(dense.getRows(), sdm.getRows());
+		Assert.assertEquals(dense.getCols(), sdm.getCols());
+		int count = 0;
+		for (int i = 0; i < dense.getRows(); i++) {
+			for (int j = 0; j < dense.getCols(); j++) {
+				double d = dense.elementAt(i, j);
+				boolean expected = d <= cutoff && !(sdm.isSymmetric() && i == j);
+				Assert.assertEquals("stored " + i + "/" + j, expected, sdm.isWithinCutoff(i, j));
+				Assert.assertEquals("element " + i + "/" + j, d, sdm.elementAt(i, j), 1.0E-12);
+				if (expected) {
+					count++;
+				}
+			}
+		}
+		Assert.assertEquals("count", count, sdm.getEntryCount());
+		Assert.assertNull(EuclidTestUtils.testEquals("dense", dense.getMatrix(), sdm.getRealMatrix().getMatrix(), 1.0E-12));
+	}
+
+	@Test
+	public void testPoint3Vector() {
+		Point3Vector p3v = makePoint3Vector(300, 10., 1L);
+		RealSquareMatrix dense = p3v.getDistanceMatrix();
+		for (double cutoff : new double[] {0., 1., 2.5, 6., 100., Double.POSITIVE_INFINITY}) {
+			SparseDistanceMatrix sdm = p3v.getDistanceMatrix(cutoff);
+			Assert.assertTrue(sdm.isSymmetric());
+			Assert.assertEquals(cutoff, sdm.getCutoff(), 0.0);
+			checkAgainstDense(sdm, dense, cutoff);
+		}
+		SparseDistanceMatrix sdm = new Point3Array(p3v).getDistanceMatrix(2.5);
+		checkAgainstDense(sdm, dense, 2.5);
+	}
+
+	@Test
+	public void testClustered() {
+		// widely separated clusters force cells larger than the cutoff
+		Random random = new Random(9L);
+		Point3Vector p3v = new Point3Vector();
+		for (int i = 0; i < 200; i++) {
+			double offset = (i % 2 == 0) ? 0. : 1.0E6;
+			p3v.add(new Point3(offset + random.nextDouble(), random.nextDouble(), offset + random.nextDouble()));
+		}
+		p3v.add(new Point3(0.5, 0.5, 0.5));
+		p3v.add(new Point3(0.5, 0.5, 0.5));
+		checkAgainstDense(p3v.getDistanceMatrix(0.3), p3v.getDistanceMatrix(), 0.3);
+		checkAgainstDense(p3v.getDistanceMatrix(0.0), p3v.getDistanceMatrix(), 0.0);
+	}
+
+	@Test
+	public void testReal2Vector() {
+		Random random = new Random(4L);
+		Real2Vector r2v = new Real2Vector();
+		List<Real2> other = new ArrayList<Real2>();
+		for (int i = 0; i < 250; i++) {
+			r2v.add(new Real2(random.nextDouble() * 20., random.nextDouble() * 20.));
+			other.add(new Real2(random.nextDouble() * 30. - 5., random.nextDouble() * 10.));
+		}
+		other.remove(0);
+		SparseDistanceMatrix sdm = r2v.getDistanceMatrix(other, 1.5);
+		Assert.assertFalse(sdm.isSymmetric());
+		checkAgainstDense(sdm, r2v.getDistanceMatrix(other), 1.5);
+		List<Real2> self = new ArrayList<Real2>();
+		for (int i = 0; i < r2v.size(); i++) {
+			self.add(r2v.get(i));
+		}
+		checkAgainstDense(r2v.getDistanceMatrix(1.5), r2v.getDistanceMatrix(self), 1.5);
+	}
+
+	@Test
+	public void testNeighboursAndCursor() {
+		Point3Vector p3v = makePoint3Vector(200, 5., 2L);
+		SparseDistanceMatrix sdm = p3v.getDistanceMatrix(1.2);
+		int total = 0;
+		for (int i = 0; i < sdm.getRows(); i++) {
+			IntSet neighbours = sdm.getNeighbours(i);
+			double[] dists = sdm.getNeighbourDistances(i).getArray();
+			Assert.assertEquals(neighbours.size(), dists.length);
+			for (int k = 0; k < neighbours.size(); k++) {
+				int j = neighbours.elementAt(k);
+				if (k > 0) {
+					Assert.assertTrue("ascending", j > neighbours.elementAt(k - 1));
+				}
+				Assert.assertEquals(p3v.get(i).getDistanceFromPoint(p3v.get(j)), dists[k], 1.0E-12);
+			}
+			total += neighbours.size();
+		}
+		Assert.assertEquals(sdm.getEntryCount(), total);
+		Assert.assertEquals(total, sdm.getRowStart()[sdm.getRows()]);
+
+		SparseDistanceMatrix.PairCursor cursor = sdm.getPairCursor();
+		int count = 0;
+		int lastI = 0;
+		while (cursor.next()) {
+			Assert.assertTrue(cursor.getI() >= lastI);
+			lastI = cursor.getI();
+			Assert.assertEquals(sdm.elementAt(cursor.getI(), cursor.getJ()), cursor.getDistance(), 0.0);
+			count++;
+		}
+		Assert.assertEquals(total, count);
+		cursor = sdm.getPairCursor(true);
+		int upper = 0;
+		while (cursor.next()) {
+			Assert.assertTrue(cursor.getJ() > cursor.getI());
+			upper++;
+		}
+		Assert.assertEquals(total / 2, upper);
+		Assert.assertFalse(cursor.next());
+	}
+
+	@Test
+	public void testEmptyAndBad() {
+		SparseDistanceMatrix sdm = new SparseDistanceMatrix(3, new double[0], 1.0);
+		Assert.assertEquals(0, sdm.getRows());
+		Assert.assertEquals(0, sdm.getEntryCount());
+		Assert.assertFalse(sdm.getPairCursor().next());
+		sdm = new SparseDistanceMatrix(2, new double[] {0., 0.}, new double[0], 1.0);
+		Assert.assertEquals(1, sdm.getRows());
+		Assert.assertEquals(0, sdm.getCols());
+		Assert.assertEquals(0, sdm.getNeighbours(0).size());
+		try {
+			new SparseDistanceMatrix(3, new double[] {1., 2.}, 1.0);
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+		}
+		try {
+			new SparseDistanceMatrix(3, new double[] {1., 2., 3.}, -1.0);
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+		}
+	}
+}
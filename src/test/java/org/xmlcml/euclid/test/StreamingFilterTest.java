@@ -0,0 +1,122 @@
+/**
+ *    Copyright 2011 Peter Murray-Rust
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+
+package org.xmlcml.euclid.test;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlcml.euclid.EuclidRuntimeException;
+import org.xmlcml.euclid.RealArray;
+import org.xmlcml.euclid.StreamingFilter;
+
+/**
+ * test StreamingFilter.
+ * 
+ */
+public class StreamingFilterTest {
+
+	private static double[] random(int n, long seed) {
+		Random random = new Random(seed);
+		double[] x = new double[n];
+		for (int i = 0; i < n; i++) {
+			x[i] = random.nextGaussian();
+		}
+		return x;
+	}
+
+	// feed x in blocks of the given sizes (cycled) and join the outputs
+	private static RealArray stream(StreamingFilter filter, double[] x, int[] blocks) {
+		RealArray out = new RealArray();
+		int offset = 0;
+		for (int b = 0; offset < x.length; b++) {
+			int length = Math.min(blocks[b % blocks.length], x.length - offset);
+			RealArray part = filter.add(x, offset, length);
+			for (int i = 0; i < part.size(); i++) {
+				out.addElement(part.elementAt(i));
+			}
+			offset += length;
+		}
+		RealArray part = filter.flush();
+		for (int i = 0; i < part.size(); i++) {
+			out.addElement(part.elementAt(i));
+		}
+		return out;
+	}
+
+	@Test
+	public void testMatchesApplyFilter() {
+		RealArray gaussian = RealArray.getFilter(3, RealArray.Filter.GAUSSIAN);
+		double[] x = random(500, 1);
+		RealArray expected = new RealArray(x).applyFilter(gaussian);
+		int[][] blockSizes = { { 1 }, { 2, 7, 1 }, { 100 }, { 500 }, { 3, 250 } };
+		for (int[] blocks : blockSizes) {
+			StreamingFilter filter = new StreamingFilter(gaussian);
+			RealArray out = stream(filter, x, blocks);
+			RealArrayTest.assertEquals("blocks " + blocks[0], expected.getArray(), out, 1.0E-12);
+			Assert.assertEquals("count", 500, filter.getCount());
+		}
+	}
+
+	@Test
+	public void testWideFilter() {
+		RealArray filter = new RealArray(random(201, 2));
+		double[] x = random(20000, 3);
+		RealArray expected = new RealArray(x).applyFilter(filter);
+		RealArray out = stream(new StreamingFilter(filter), x, new int[] { 4096, 37, 1000 });
+		RealArrayTest.assertEquals("wide", expected.getArray(), out, 1.0E-9);
+	}
+
+	@Test
+	public void testDelayAndReuse() {
+		RealArray filter = new RealArray(new double[] { 1., 2., 1. });
+		StreamingFilter stream = new StreamingFilter(filter);
+		Assert.assertEquals("first", 0, stream.add(new RealArray(new double[] { 4. })).size());
+		RealArray out = stream.add(new RealArray(new double[] { 8., 4. }));
+		// first output renormalised at the start: (2*4 + 8) / 3
+		RealArrayTest.assertEquals("out", new double[] { 16. / 3., 6. }, out, 1.0E-14);
+		RealArrayTest.assertEquals("flush", new double[] { 16. / 3. }, stream.flush(), 1.0E-14);
+		Assert.assertEquals("empty", 0, stream.flush().size());
+		// reset after flush
+		out = stream.add(new RealArray(new double[] { 3., 3., 3. }));
+		RealArrayTest.assertEquals("again", new double[] { 3., 3. }, out, 1.0E-14);
+		RealArrayTest.assertEquals("again", new double[] { 3. }, stream.flush(), 1.0E-14);
+	}
+
+	@Test
+	public void testShortData() {
+		RealArray filter = new RealArray(random(9, 4));
+		double[] x = random(3, 5);
+		RealArray out = stream(new StreamingFilter(filter), x, new int[] { 1 });
+		RealArrayTest.assertEquals("short",
+				RealArrayTest.referenceFilter(x, filter.getArray()), out, 1.0E-12);
+	}
+
+	@Test
+	public void testPassThrough() {
+		StreamingFilter stream = new StreamingFilter(new RealArray(new double[] { 2. }));
+		RealArrayTest.assertEquals("pass", new double[] { 1., 2. },
+				stream.add(new RealArray(new double[] { 1., 2. })), 1.0E-14);
+	}
+
+	@Test(expected = EuclidRuntimeException.class)
+	public void testNullFilter() {
+		new StreamingFilter(null);
+	}
+}
@@ -0,0 +1,162 @@
+/**
+ *    Copyright 2011 Peter Murray-Rust
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+
+package org.xmlcml.euclid.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlcml.euclid.EuclidRuntimeException;
+import org.xmlcml.euclid.StringMatcher;
+
+import blogspot.software_and_algorithms.stern_library.string.DamerauLevenshteinAlgorithm;
+
+/**
+ * test StringMatcher.
+ * 
+ */
+public class StringMatcherTest {
+
+	// optimal string alignment distance from the full table
+	private static int osa(String s, String t) {
+		int n = s.length();
+		int m = t.length();
+		int[][] d = new int[n + 1][m + 1];
+		for (int i = 0; i <= n; i++) {
+			d[i][0] = i;
+		}
+		for (int j = 0; j <= m; j++) {
+			d[0][j] = j;
+		}
+		for (int i = 1; i <= n; i++) {
+			for (int j = 1; j <= m; j++) {
+				int cost = (s.charAt(i - 1) == t.charAt(j - 1)) ? 0 : 1;
+				d[i][j] = Math.min(d[i - 1][j - 1] + cost, Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1));
+				if (i > 1 && j > 1 && s.charAt(i - 1) == t.charAt(j - 2) && s.charAt(i - 2) == t.charAt(j - 1)) {
+					d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+				}
+			}
+		}
+		return d[n][m];
+	}
+
+	private static String randomString(Random random, int length, int alphabet) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			char base = (random.nextInt(8) == 0) ? 'α' : 'a';
+			builder.append((char) (base + random.nextInt(alphabet)));
+		}
+		return builder.toString();
+	}
+
+	@Test
+	public void testDistance() {
+		Assert.assertEquals(0, StringMatcher.distance("benzene", "benzene"));
+		Assert.assertEquals(1, StringMatcher.distance("benzene", "bnezene"));
+		Assert.assertEquals(1, StringMatcher.distance("benzene", "benzne"));
+		Assert.assertEquals(3, StringMatcher.distance("benzene", "benzoic"));
+		Assert.assertEquals(7, StringMatcher.distance("benzene", ""));
+		Assert.assertEquals(3, StringMatcher.distance("", "abc"));
+		// restricted: no edit of a swapped pair
+		Assert.assertEquals(3, StringMatcher.distance("ca", "abc"));
+		Assert.assertEquals(2, new DamerauLevenshteinAlgorithm(1, 1, 1, 1).execute("ca", "abc"));
+		Assert.assertEquals(3, StringMatcher.distance("benzene", "benzoic", 3));
+		Assert.assertEquals(3, StringMatcher.distance("benzene", "benzoic", 2));
+		Assert.assertEquals(2, StringMatcher.distance("benzene", "benzoic", 1));
+		Assert.assertEquals(1, StringMatcher.distance("benzene", "", 0));
+	}
+
+	@Test
+	public void testDistanceRandom() {
+		Random random = new Random(11);
+		for (int test = 0; test < 3000; test++) {
+			// both sides of the bit-parallel limit
+			int maxLength = (test % 2 == 0) ? 70 : 150;
+			int alphabet = 1 + random.nextInt(8);
+			String s = randomString(random, random.nextInt(maxLength), alphabet);
+			String t = randomString(random, random.nextInt(maxLength), alphabet);
+			int distance = osa(s, t);
+			Assert.assertEquals(s + " " + t, distance, StringMatcher.distance(s, t));
+			int maxDistance = random.nextInt(maxLength / 2);
+			Assert.assertEquals(s + " " + t, Math.min(distance, maxDistance + 1), StringMatcher.distance(s, t, maxDistance));
+		}
+	}
+
+	@Test
+	public void testBestMatches() {
+		List<String> names = Arrays.asList(new String[] { "methane", "ethane", "propane", "butane", null, "methanol", "ethanol",
+				"benzene" });
+		StringMatcher matcher = new StringMatcher(names);
+		List<StringMatcher.Match> matches = matcher.getBestMatches("ethnae", 3, 2);
+		Assert.assertEquals(2, matches.size());
+		Assert.assertEquals("ethane", matches.get(0).getCandidate());
+		Assert.assertEquals(1, matches.get(0).getIndex());
+		Assert.assertEquals(1, matches.get(0).getDistance());
+		Assert.assertEquals("methane", matches.get(1).getCandidate());
+		Assert.assertEquals(2, matches.get(1).getDistance());
+		matches = matcher.getBestMatches("ethnae", 3, 3);
+		Assert.assertEquals(3, matches.size());
+		Assert.assertEquals("ethanol", matches.get(2).getCandidate());
+		Assert.assertEquals(3, matches.get(2).getDistance());
+		Assert.assertEquals("ethane", matcher.getBestMatch("ethnae", 1).getCandidate());
+		Assert.assertNull(matcher.getBestMatch("ethnae", 0));
+		Assert.assertEquals(0, matcher.getBestMatches("ethane", 0, 2).size());
+		int[] distances = new int[names.size()];
+		matcher.getDistances("ethane", 1, distances);
+		Assert.assertArrayEquals(new int[] { 1, 0, 2, 2, 2, 2, 2, 2 }, distances);
+	}
+
+	@Test
+	public void testBestMatchesParallel() {
+		Random random = new Random(5);
+		List<String> names = new ArrayList<String>();
+		for (int i = 0; i < 3 * StringMatcher.PARALLEL_THRESHOLD; i++) {
+			names.add(randomString(random, 3 + random.nextInt(12), 4));
+		}
+		StringMatcher matcher = new StringMatcher(names);
+		for (int test = 0; test < 5; test++) {
+			String query = randomString(random, 3 + random.nextInt(12), 4);
+			int k = 1 + random.nextInt(20);
+			int maxDistance = 1 + random.nextInt(5);
+			// expected: stable sort by distance of those within maxDistance
+			List<int[]> expected = new ArrayList<int[]>();
+			for (int d = 0; d <= maxDistance; d++) {
+				for (int i = 0; i < names.size() && expected.size() < k; i++) {
+					if (osa(query, names.get(i)) == d) {
+						expected.add(new int[] { i, d });
+					}
+				}
+			}
+			List<StringMatcher.Match> matches = matcher.getBestMatches(query, k, maxDistance);
+			Assert.assertEquals(expected.size(), matches.size());
+			for (int i = 0; i < matches.size(); i++) {
+				Assert.assertEquals(expected.get(i)[0], matches.get(i).getIndex());
+				Assert.assertEquals(expected.get(i)[1], matches.get(i).getDistance());
+			}
+		}
+	}
+
+	@Test(expected = EuclidRuntimeException.class)
+	public void testBadMaxDistance() {
+		StringMatcher.distance("a", "b", -1);
+	}
+}
@@ -0,0 +1,171 @@
+/**
+ *    Copyright 2011 Peter Murray-Rust
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.xmlcml.euclid.test;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlcml.euclid.Angle;
+import org.xmlcml.euclid.EuclidRuntimeException;
+import org.xmlcml.euclid.EuclidTestUtils;
+import org.xmlcml.euclid.Point3Vector;
+import org.xmlcml.euclid.Superposition;
+import org.xmlcml.euclid.Transform3;
+
+/**
+ * test Superposition.
+ * 
+ */
+public class SuperpositionTest {
+
+	private static double[] makeCoordinates(int n, long seed) {
+		Random random = new Random(seed);
+		double[] xyz = new double[3 * n];
+		for (int i = 0; i < xyz.length; i++) {
+			xyz[i] = 10.0 * random.nextDouble();
+		}
+		return xyz;
+	}
+
+	/** rotated, translated and (optionally) perturbed copy */
+	private static double[] move(double[] xyz, long seed, double noise) {
+		Random random = new Random(seed);
+		Point3Vector p3v = new Point3Vector(xyz);
+		Transform3 t = new Transform3(new Angle(random.nextDouble() * 6.0),
+				new Angle(random.nextDouble() * 6.0), new Angle(random.nextDouble() * 6.0));
+		p3v.transform(t);
+		double[] moved = p3v.getArray();
+		for (int i = 0; i < moved.length; i++) {
+			moved[i] += (i % 3 + 1) * 3.0 + noise * (random.nextDouble() - 0.5);
+		}
+		return moved;
+	}
+
+	private static double rms(double[] a, double[] b) {
+		double sum = 0.0;
+		for (int i = 0; i < a.length; i++) {
+			sum += (a[i] - b[i]) * (a[i] - b[i]);
+		}
+		return Math.sqrt(sum / (a.length / 3));
+	}
+
+	@Test
+	public void testExactFit() {
+		double[] ref = makeCoordinates(20, 1);
+		double[] moving = move(ref, 2, 0.0);
+		Superposition superposition = new Superposition();
+		double rmsd = superposition.fit(moving, 0, ref, 0, 20);
+		Assert.assertEquals("rmsd", 0.0, rmsd, 1.0E-6);
+		superposition.transform(moving, 0, 20);
+		Assert.assertNull(EuclidTestUtils.testEquals("fitted", ref, moving, 1.0E-9));
+	}
+
+	@Test
+	public void testNoisyFit() {
+		for (int seed = 0; seed < 20; seed++) {
+			double[] ref = makeCoordinates(30, seed);
+			double[] moving = move(ref, seed + 100, 1.0);
+			Superposition superposition = new Superposition();
+			double rmsd = superposition.fit(moving, 0, ref, 0, 30);
+			double[] r = new double[9];
+			superposition.getRotation(r);
+			double det = r[0] * (r[4] * r[8] - r[5] * r[7]) - r[1] * (r[3] * r[8] - r[5] * r[6])
+					+ r[2] * (r[3] * r[7] - r[4] * r[6]);
+			Assert.assertEquals("proper rotation", 1.0, det, 1.0E-10);
+			double[] fitted = moving.clone();
+			Transform3 t = superposition.getTransform3();
+			superposition.transform(fitted, 0, 30);
+			Assert.assertEquals("rmsd " + seed, rms(fitted, ref), rmsd, 1.0E-8);
+			Point3Vector p3v = new Point3Vector(moving);
+			p3v.transform(t);
+			Assert.assertNull(EuclidTestUtils.testEquals("transform3", fitted, p3v.getArray(), 1.0E-9));
+			// small extra rotations must not improve the fit
+			for (int axis = 0; axis < 3; axis++) {
+				Point3Vector perturbed = new Point3Vector(fitted);
+				perturbed.moveToCentroid();
+				Point3Vector refCentred = new Point3Vector(ref);
+				refCentred.moveToCentroid();
+				Angle a = new Angle(axis == 0 ? 0.01 : 0.0);
+				Angle b = new Angle(axis == 1 ? 0.01 : 0.0);
+				Angle c = new Angle(axis == 2 ? 0.01 : 0.0);
+				perturbed.transform(new Transform3(a, b, c));
+				Assert.assertTrue("optimal", rms(perturbed.getArray(), refCentred.getArray()) > rmsd);
+			}
+			Assert.assertEquals("rmsd only", rmsd, superposition.calculateRMSD(moving, 0), 1.0E-12);
+		}
+	}
+
+	@Test
+	public void testDegenerate() {
+		Superposition superposition = new Superposition();
+		// collinear points: rotation about the line is undetermined
+		double[] ref = new double[] {0., 0., 0., 1., 0., 0., 2., 0., 0.};
+		double[] moving = new double[] {5., 5., 5., 5., 6., 5., 5., 7., 5.};
+		Assert.assertEquals("collinear", 0.0, superposition.fit(moving, 0, ref, 0, 3), 1.0E-6);
+		superposition.transform(moving, 0, 3);
+		Assert.assertNull(EuclidTestUtils.testEquals("collinear", ref, moving, 1.0E-9));
+		// single point
+		Assert.assertEquals("single", 0.0, superposition.fit(new double[] {1., 2., 3.}, 0,
+				new double[] {4., 5., 6.}, 0, 1), 0.0);
+		// identical coincident points
+		double[] same = new double[] {1., 1., 1., 1., 1., 1.};
+		Assert.assertEquals("coincident", 0.0, superposition.fit(same, 0, same, 0, 2), 0.0);
+		try {
+			superposition.fit(same, 0, same, 0, 3);
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testCalculateRMSDs() {
+		int count = 12;
+		int nconf = 3000;
+		double[] ref = makeCoordinates(count, 7);
+		double[] conformers = new double[3 * count * nconf];
+		for (int k = 0; k < nconf; k++) {
+			System.arraycopy(move(ref, k, 0.5), 0, conformers, 3 * count * k, 3 * count);
+		}
+		double[] serial = Superposition.calculateRMSDs(ref, conformers, count, false);
+		double[] parallel = Superposition.calculateRMSDs(ref, conformers, count, true);
+		Assert.assertEquals("count", nconf, serial.length);
+		Assert.assertNull(EuclidTestUtils.testEquals("parallel", serial, parallel, 1.0E-15));
+		Superposition superposition = new Superposition();
+		for (int k = 0; k < nconf; k += 97) {
+			double[] conformer = new double[3 * count];
+			System.arraycopy(conformers, 3 * count * k, conformer, 0, 3 * count);
+			Assert.assertEquals("conformer " + k, superposition.fit(conformer, 0, ref, 0, count),
+					serial[k], 1.0E-12);
+		}
+	}
+
+	@Test
+	public void testFitToAgreesWithSuperposition() {
+		double[] ref = makeCoordinates(10, 3);
+		double[] moving = move(ref, 4, 0.3);
+		Point3Vector pv = new Point3Vector(moving);
+		Point3Vector pref = new Point3Vector(ref);
+		Transform3 t = pv.fitTo(pref);
+		pv.transform(t);
+		Superposition superposition = new Superposition();
+		double rmsd = superposition.fit(moving, 0, ref, 0, 10);
+		// Point3Vector.rms() is sqrt(sum of squares) / n
+		Assert.assertEquals("fitTo", rmsd / Math.sqrt(10.0), pv.rms(pref), 1.0E-10);
+	}
+}
@@ -0,0 +1,215 @@
+/**
+ *    Copyright 2011 Peter Murray-Rust
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.xmlcml.euclid.test;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlcml.euclid.EuclidRuntimeException;
+import org.xmlcml.euclid.Point3Vector;
+import org.xmlcml.euclid.RealArray;
+import org.xmlcml.euclid.RealSquareMatrix;
+import org.xmlcml.euclid.SymmetricEigenDecomposition;
+
+/**
+ * test SymmetricEigenDecomposition.
+ * 
+ */
+public class SymmetricEigenDecompositionTest {
+
+	private final static double EPS = 1.0E-10;
+
+	private static double[][] makeSymmetric(int n, long seed) {
+		Random random = new Random(seed);
+		double[][] m = new double[n][n];
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j <= i; j++) {
+				m[i][j] = random.nextDouble() - 0.5;
+				m[j][i] = m[i][j];
+			}
+		}
+		return m;
+	}
+
+	/** checks A V = V D and V'V = I */
+	private static void assertDecomposition(String msg, double[][] a, double[] d, double[][] v) {
+		int n = a.length;
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				double av = 0.0;
+				double vv = 0.0;
+				for (int k = 0; k < n; k++) {
+					av += a[i][k] * v[k][j];
+					vv += v[k][i] * v[k][j];
+				}
+				Assert.assertEquals(msg + " AV " + i + "," + j, v[i][j] * d[j], av, EPS);
+				Assert.assertEquals(msg + " V'V " + i + "," + j, (i == j) ? 1.0 : 0.0, vv, EPS);
+			}
+		}
+		for (int i = 1; i < n; i++) {
+			Assert.assertTrue(msg + " order", d[i - 1] >= d[i]);
+		}
+	}
+
+	@Test
+	public void testKnownEigenvalues() {
+		double[][] m = new double[][] {
+				new double[] {1., 2., 3.},
+				new double[] {2., 1., 8.},
+				new double[] {3., 8., 7.},
+		};
+		SymmetricEigenDecomposition sed = new SymmetricEigenDecomposition(m, true);
+		DoubleTestBase.assertEquals("values", new double[]{13.57729611363183, -0.03241110263496161,
+				-4.54488501099687}, sed.getEigenvalues(), 0.0000001);
+		assertDecomposition("known", m, sed.getEigenvalues(), sed.getEigenvectors());
+		double[][] inverse = sed.getInverse();
+		DoubleTestBase.assertEquals("inverse", new double[] {-28.5, 5.0, 6.5}, inverse[0], 0.0000001);
+		DoubleTestBase.assertEquals("inverse", new double[] {5.0, -1.0, -1.0}, inverse[1], 0.0000001);
+		DoubleTestBase.assertEquals("inverse", new double[] {6.5, -1.0, -1.5}, inverse[2], 0.0000001);
+	}
+
+	@Test
+	public void testRandom() {
+		for (int n = 1; n <= 12; n++) {
+			double[][] m = makeSymmetric(n, n);
+			SymmetricEigenDecomposition sed = new SymmetricEigenDecomposition(m, true);
+			Assert.assertEquals("order", n, sed.getOrder());
+			assertDecomposition("random " + n, m, sed.getEigenvalues(), sed.getEigenvectors());
+			SymmetricEigenDecomposition values = new SymmetricEigenDecomposition(m, false);
+			Assert.assertFalse("no vectors", values.hasEigenvectors());
+			DoubleTestBase.assertEquals("values only " + n, sed.getEigenvalues(),
+					values.getEigenvalues(), EPS);
+		}
+	}
+
+	@Test
+	public void testDegenerate() {
+		double[][] m = new double[][] {
+				new double[] {2., 0., 0., 0.},
+				new double[] {0., 2., 0., 0.},
+				new double[] {0., 0., 0., 0.},
+				new double[] {0., 0., 0., 5.},
+		};
+		SymmetricEigenDecomposition sed = new SymmetricEigenDecomposition(m, true);
+		DoubleTestBase.assertEquals("values", new double[]{5., 2., 2., 0.},
+				sed.getEigenvalues(), EPS);
+		assertDecomposition("degenerate", m, sed.getEigenvalues(), sed.getEigenvectors());
+		Assert.assertTrue("singular", sed.isSingular());
+		try {
+			sed.getInverse();
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testInPlace() {
+		double[][] m = makeSymmetric(5, 99);
+		double[] a = new double[25];
+		for (int i = 0; i < 5; i++) {
+			System.arraycopy(m[i], 0, a, 5 * i, 5);
+		}
+		double[] d = new double[5];
+		SymmetricEigenDecomposition.decompose(a, 5, d, new double[5], true);
+		double[][] v = new double[5][5];
+		for (int i = 0; i < 5; i++) {
+			System.arraycopy(a, 5 * i, v[i], 0, 5);
+		}
+		assertDecomposition("in place", m, d, v);
+	}
+
+	@Test
+	public void testIsDecompositionOf() {
+		double[][] m = makeSymmetric(4, 7);
+		SymmetricEigenDecomposition sed = new SymmetricEigenDecomposition(m, false);
+		Assert.assertTrue("same", sed.isDecompositionOf(m));
+		m[1][2] += 1.0;
+		Assert.assertFalse("changed", sed.isDecompositionOf(m));
+		try {
+			sed.getEigenvectors();
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testDecompose3x3() {
+		int count = 50;
+		double[] tensors = new double[9 * count];
+		double[][][] matrices = new double[count][][];
+		for (int m = 0; m < count; m++) {
+			matrices[m] = makeSymmetric(3, 1000 + m);
+			for (int i = 0; i < 3; i++) {
+				System.arraycopy(matrices[m][i], 0, tensors, 9 * m + 3 * i, 3);
+			}
+		}
+		double[] values = new double[3 * count];
+		// vectors overwrite tensors
+		SymmetricEigenDecomposition.decompose3x3(tensors, count, values, tensors);
+		for (int m = 0; m < count; m++) {
+			double[] d = new double[3];
+			System.arraycopy(values, 3 * m, d, 0, 3);
+			double[][] v = new double[3][3];
+			for (int i = 0; i < 3; i++) {
+				System.arraycopy(tensors, 9 * m + 3 * i, v[i], 0, 3);
+			}
+			assertDecomposition("batch " + m, matrices[m], d, v);
+			DoubleTestBase.assertEquals("batch values " + m,
+					new SymmetricEigenDecomposition(matrices[m], false).getEigenvalues(), d, EPS);
+		}
+	}
+
+	@Test
+	public void testDecompose3x3InertialTensor() {
+		Point3Vector p3v = new Point3Vector(new double[] {
+				3., 0., 0.,
+				0., 2., 0.,
+				0., 0., 1.,
+				-3., 0., 0.,
+				0., -2., 0.,
+				0., 0., -1.});
+		RealSquareMatrix tensor = p3v.calculateNonMassWeightedInertialTensor();
+		double[] values = new double[3];
+		SymmetricEigenDecomposition.decompose3x3(tensor.getMatrixAsArray(), 1, values, null);
+		DoubleTestBase.assertEquals("inertial", new double[]{26.0, 20.0, 10.0}, values, EPS);
+		try {
+			SymmetricEigenDecomposition.decompose3x3(new double[9], 2, values, null);
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testRealSquareMatrixCache() {
+		RealSquareMatrix rsm = new RealSquareMatrix(makeSymmetric(4, 3));
+		SymmetricEigenDecomposition values = rsm.getSymmetricEigenDecomposition(false);
+		Assert.assertSame("cached", values, rsm.getSymmetricEigenDecomposition(false));
+		SymmetricEigenDecomposition vectors = rsm.getSymmetricEigenDecomposition(true);
+		Assert.assertTrue("vectors", vectors.hasEigenvectors());
+		Assert.assertSame("upgraded", vectors, rsm.getSymmetricEigenDecomposition(false));
+		rsm.setElementAt(0, 0, 10.0);
+		RealArray eigenvalues = rsm.calculateEigenvalues();
+		Assert.assertNotSame("recalculated", vectors, rsm.getSymmetricEigenDecomposition(false));
+		Assert.assertTrue("largest", eigenvalues.elementAt(0) > 9.0);
+		rsm.setElementAt(0, 1, 10.0);
+		Assert.assertNull("not symmetric", rsm.calculateEigenvalues());
+	}
+}
@@ -24,7 +24,9 @@ import org.junit.Test;
 import org.xmlcml.euclid.Angle;
 import org.xmlcml.euclid.EC;
 import org.xmlcml.euclid.EuclidRuntimeException;
+import org.xmlcml.euclid.IntSet;
 import org.xmlcml.euclid.Real2;
+import org.xmlcml.euclid.Real2Array;
 import org.xmlcml.euclid.RealSquareMatrix;
 import org.xmlcml.euclid.Transform2;
 import org.xmlcml.euclid.Vector2;
@@ -385,5 +387,50 @@ public class Transform2Test {
 		Angle a = t.getAngleOfRotation();
 		Assert.assertEquals("getAngle", 0., a.getRadian(), EPS);
 	}
+
+	/**
+	 * Test method for 'org.xmlcml.euclid.Transform2.transform(double[], int, int)'
+	 */
+	@Test
+	public void testTransformBuffer() {
+		Transform2 t1 = new Transform2(new Angle(0.7));
+		Transform2 t2 = new Transform2(new double[] { 2., 0.5, -1., 0.1, 3., 4., 0., 0., 1. });
+		Transform2 product = t2.concatenate(t1);
+		int count = 100;
+		double[] before = new double[2 * count + 2];
+		for (int i = 0; i < before.length; i++) {
+			before[i] = Math.sin(i * 0.37) * 10.;
+		}
+		double[] xy = before.clone();
+		Transform2.transform(new Transform2[] { t1, t2 }, xy, 1, count);
+		double[] xy1 = before.clone();
+		t1.transform(xy1, 1, count);
+		t2.transform(xy1, 1, count);
+		double[] sub = before.clone();
+		t1.transform(sub, 1, count, new IntSet(new int[] { 3, 99, 100 }));
+		Real2Array r2a = new Real2Array();
+		for (int i = 0; i < count; i++) {
+			r2a.add(new Real2(before[1 + 2 * i], before[2 + 2 * i]));
+		}
+		r2a.transformBy(product);
+		for (int i = 0; i < count; i++) {
+			Real2 expected = new Real2(before[1 + 2 * i], before[2 + 2 * i]).getTransformed(product);
+			Assert.assertEquals("chain x", expected.getX(), xy[1 + 2 * i], 1.0E-12);
+			Assert.assertEquals("chain y", expected.getY(), xy[2 + 2 * i], 1.0E-12);
+			Assert.assertEquals("sequential", expected.getY(), xy1[2 + 2 * i], 1.0E-12);
+			Assert.assertEquals("real2Array", expected.getX(), r2a.get(i).getX(), 1.0E-12);
+			Real2 expected1 = (i == 3 || i == 99) ? 
+					new Real2(before[1 + 2 * i], before[2 + 2 * i]).getTransformed(t1) :
+					new Real2(before[1 + 2 * i], before[2 + 2 * i]);
+			Assert.assertEquals("subset", expected1.getY(), sub[2 + 2 * i], 1.0E-12);
+		}
+		Assert.assertEquals("untouched", before[0], xy[0], 0.0);
+		Assert.assertEquals("untouched", before[2 * count + 1], xy[2 * count + 1], 0.0);
+		try {
+			t1.transform(new double[5], 0, 3);
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+		}
+	}
 	
 }
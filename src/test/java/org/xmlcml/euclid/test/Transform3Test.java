@@ -23,6 +23,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.xmlcml.euclid.Angle;
 import org.xmlcml.euclid.EC;
+import org.xmlcml.euclid.EuclidRuntimeException;
+import org.xmlcml.euclid.IntSet;
 import org.xmlcml.euclid.Point3;
 import org.xmlcml.euclid.RealArray;
 import org.xmlcml.euclid.RealSquareMatrix;
@@ -380,4 +382,127 @@ public class Transform3Test extends GeomTest {
 				0., 1., 0., -1., 0., 1., 0., 0. }, t.getRotationMatrix(), EPS);
 	}
 
+	private static double[] randomXYZ(int offset, int count, long seed) {
+		java.util.Random random = new java.util.Random(seed);
+		double[] xyz = new double[offset + 3 * count + 2];
+		for (int i = 0; i < xyz.length; i++) {
+			xyz[i] = 10. * random.nextDouble() - 5.;
+		}
+		return xyz;
+	}
+
+	private static void assertTransformed(String msg, Transform3 t, double[] before,
+			double[] after, int offset, int count, IntSet is) {
+		for (int i = 0; i < count; i++) {
+			Point3 p = new Point3(before[offset + 3 * i], before[offset + 3 * i + 1], before[offset + 3 * i + 2]);
+			Point3 expected = (is == null || is.contains(i)) ? p.transform(t) : p;
+			for (int j = 0; j < 3; j++) {
+				Assert.assertEquals(msg + " " + i, expected.elementAt(j), after[offset + 3 * i + j], 1.0E-12);
+			}
+		}
+		Assert.assertEquals("before buffer", before[offset - 1], after[offset - 1], 0.0);
+		Assert.assertEquals("after buffer", before[offset + 3 * count], after[offset + 3 * count], 0.0);
+	}
+
+	/**
+	 * Test method for 'org.xmlcml.euclid.Transform3.transform(double[], int, int)'
+	 */
+	@Test
+	public void testTransformBuffer() {
+		Transform3 t = new Transform3(new double[] { 0.8, -0.6, 0.1, 1.5, 0.6, 0.8,
+				-0.2, -2., 0.05, 0.3, 1.1, 0.7, 0., 0., 0., 1. });
+		Assert.assertEquals("coefficients", 12, t.getAffineCoefficients().length);
+		Assert.assertEquals("coefficients", -2., t.getAffineCoefficients()[7], 0.0);
+		int offset = 5;
+		int count = 200;
+		double[] before = randomXYZ(offset, count, 11L);
+		double[] xyz = before.clone();
+		t.transform(xyz, offset, count);
+		assertTransformed("all", t, before, xyz, offset, count, null);
+
+		IntSet is = new IntSet(new int[] { 0, 17, 199, 250, -1 });
+		xyz = before.clone();
+		t.transform(xyz, offset, count, is);
+		assertTransformed("subset", t, before, xyz, offset, count, is);
+
+		double[] x = new double[count];
+		double[] y = new double[count];
+		double[] z = new double[count];
+		for (int i = 0; i < count; i++) {
+			x[i] = before[offset + 3 * i];
+			y[i] = before[offset + 3 * i + 1];
+			z[i] = before[offset + 3 * i + 2];
+		}
+		t.transform(x, y, z, count);
+		xyz = before.clone();
+		t.transform(xyz, offset, count);
+		for (int i = 0; i < count; i++) {
+			Assert.assertEquals("separate", xyz[offset + 3 * i + 2], z[i], 0.0);
+		}
+		try {
+			t.transform(new double[10], 0, 4);
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+		}
+	}
+
+	/**
+	 * Test method for 'org.xmlcml.euclid.Transform3.transform(Transform3[], double[], int, int)'
+	 */
+	@Test
+	public void testTransformChain() {
+		Transform3 t1 = new Transform3(new Angle(0.3), new Angle(-0.4), new Angle(1.2));
+		Transform3 t2 = new Transform3(new Vector3(1., -2., 3.));
+		Transform3 t3 = Transform3.applyScales(2., 1., 0.5);
+		Transform3 product = t3.concatenate(t2.concatenate(t1));
+		int offset = 1;
+		int count = 50;
+		double[] before = randomXYZ(offset, count, 12L);
+		double[] xyz = before.clone();
+		Transform3.transform(new Transform3[] { t1, t2, t3 }, xyz, offset, count);
+		assertTransformed("chain", product, before, xyz, offset, count, null);
+		try {
+			Transform3.transform(new Transform3[0], xyz, offset, count);
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+		}
+	}
+
+	/**
+	 * buffers of 65536 points and more are transformed in parallel; results must
+	 * be identical to transforming the same points sequentially in small slices
+	 */
+	@Test
+	public void testTransformLargeBuffer() {
+		Transform3 t = new Transform3(new Angle(0.1), new Angle(0.2), new Angle(0.3));
+		t.setTranslation(new Vector3(1., 2., 3.));
+		int offset = 3;
+		int count = (1 << 16) + 12345;
+		int slice = 1000;
+		double[] before = randomXYZ(offset, count, 13L);
+		double[] parallel = before.clone();
+		t.transform(parallel, offset, count);
+		double[] sequential = before.clone();
+		for (int start = 0; start < count; start += slice) {
+			t.transform(sequential, offset + 3 * start, Math.min(slice, count - start));
+		}
+		Assert.assertTrue("parallel", java.util.Arrays.equals(sequential, parallel));
+		assertTransformed("large", t, before, parallel, offset, count, null);
+
+		double[] x = new double[count];
+		double[] y = new double[count];
+		double[] z = new double[count];
+		for (int i = 0; i < count; i++) {
+			x[i] = before[offset + 3 * i];
+			y[i] = before[offset + 3 * i + 1];
+			z[i] = before[offset + 3 * i + 2];
+		}
+		t.transform(x, y, z, count);
+		for (int i = 0; i < count; i++) {
+			Assert.assertEquals("separate", sequential[offset + 3 * i], x[i], 0.0);
+			Assert.assertEquals("separate", sequential[offset + 3 * i + 1], y[i], 0.0);
+			Assert.assertEquals("separate", sequential[offset + 3 * i + 2], z[i], 0.0);
+		}
+	}
+
 }
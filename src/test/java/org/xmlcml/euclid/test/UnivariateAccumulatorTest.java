@@ -0,0 +1,155 @@
+/**
+ *    Copyright 2011 Peter Murray-Rust
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.xmlcml.euclid.test;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlcml.euclid.EuclidRuntimeException;
+import org.xmlcml.euclid.RealArray;
+import org.xmlcml.euclid.Univariate;
+import org.xmlcml.euclid.UnivariateAccumulator;
+
+/**
+ * test UnivariateAccumulator.
+ * 
+ */
+public class UnivariateAccumulatorTest {
+
+	private static double[] gaussian(int n, long seed) {
+		Random random = new Random(seed);
+		double[] dd = new double[n];
+		for (int i = 0; i < n; i++) {
+			dd[i] = 3.0 + 2.0 * random.nextGaussian();
+		}
+		return dd;
+	}
+
+	@Test
+	public void testMoments() {
+		double[] dd = gaussian(1000, 1L);
+		UnivariateAccumulator acc = new UnivariateAccumulator().add(dd, 0, dd.length);
+		Univariate univariate = new Univariate(new RealArray(dd));
+		Assert.assertEquals("count", 1000L, acc.getCount());
+		Assert.assertEquals("mean", univariate.getMean(), acc.getMean(), 1.0E-12);
+		Assert.assertEquals("sum", univariate.getMean() * 1000, acc.getSum(), 1.0E-9);
+		Assert.assertEquals("variance", univariate.getVariance(), acc.getVariance(), 1.0E-11);
+		Assert.assertEquals("stderr", univariate.getStandardError(), acc.getStandardError(), 1.0E-12);
+		Assert.assertEquals("min", univariate.getMin(), acc.getMin(), 1.0E-15);
+		Assert.assertEquals("max", univariate.getMax(), acc.getMax(), 1.0E-15);
+		UnivariateAccumulator empty = new UnivariateAccumulator();
+		Assert.assertTrue("empty", Double.isNaN(empty.getMean()));
+		Assert.assertTrue("empty", Double.isNaN(empty.getMin()));
+		Assert.assertTrue("empty", Double.isNaN(empty.getMedian()));
+		try {
+			empty.add(1.0).getVariance();
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+		}
+	}
+
+	@Test
+	public void testSmallQuantiles() {
+		UnivariateAccumulator acc = new UnivariateAccumulator();
+		for (double d : new double[] { 5., 1., 4., 2., 3. }) {
+			acc.add(d);
+		}
+		Assert.assertEquals("median", 3., acc.getMedian(), 1.0E-14);
+		Assert.assertEquals("q0", 1., acc.getQuantile(0.0), 1.0E-14);
+		Assert.assertEquals("q1", 5., acc.getQuantile(1.0), 1.0E-14);
+		acc.add(6.);
+		Assert.assertEquals("median", 3.5, acc.getMedian(), 1.0E-14);
+		try {
+			acc.getQuantile(1.5);
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+		}
+	}
+
+	@Test
+	public void testLargeQuantiles() {
+		int n = 200000;
+		double[] dd = gaussian(n, 2L);
+		UnivariateAccumulator acc = new UnivariateAccumulator().add(dd, 0, n);
+		double[] sorted = dd.clone();
+		java.util.Arrays.sort(sorted);
+		for (double q : new double[] { 0.001, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999 }) {
+			double exact = sorted[(int) (q * n)];
+			// compare in rank space: absolute error in q should be under 0.1%
+			int rank = java.util.Arrays.binarySearch(sorted, acc.getQuantile(q));
+			rank = (rank < 0) ? -rank - 1 : rank;
+			Assert.assertEquals("rank " + q, q, rank / (double) n, 0.001);
+			if (q >= 0.01 && q <= 0.99) {
+				Assert.assertEquals("value " + q, exact, acc.getQuantile(q), 0.05);
+			}
+		}
+		Assert.assertEquals("min", sorted[0], acc.getQuantile(0.0), 1.0E-15);
+		Assert.assertEquals("max", sorted[n - 1], acc.getQuantile(1.0), 1.0E-15);
+	}
+
+	@Test
+	public void testMerge() {
+		int n = 100000;
+		double[] dd = gaussian(n, 3L);
+		UnivariateAccumulator all = new UnivariateAccumulator().add(dd, 0, n);
+		UnivariateAccumulator merged = new UnivariateAccumulator();
+		for (int i = 0; i < 10; i++) {
+			UnivariateAccumulator part = new UnivariateAccumulator().add(dd, i * n / 10, n / 10);
+			merged.merge(part);
+		}
+		Assert.assertEquals("count", all.getCount(), merged.getCount());
+		Assert.assertEquals("mean", all.getMean(), merged.getMean(), 1.0E-12);
+		Assert.assertEquals("variance", all.getVariance(), merged.getVariance(), 1.0E-10);
+		Assert.assertEquals("min", all.getMin(), merged.getMin(), 1.0E-15);
+		Assert.assertEquals("median", all.getMedian(), merged.getMedian(), 0.02);
+		Assert.assertEquals("q99", all.getQuantile(0.99), merged.getQuantile(0.99), 0.05);
+		UnivariateAccumulator parallel = UnivariateAccumulator.accumulate(dd, 0, n);
+		Assert.assertEquals("parallel mean", all.getMean(), parallel.getMean(), 1.0E-12);
+		Assert.assertEquals("parallel variance", all.getVariance(), parallel.getVariance(), 1.0E-10);
+		Assert.assertEquals("parallel median", all.getMedian(), parallel.getMedian(), 0.02);
+		try {
+			merged.merge(merged);
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+		}
+	}
+
+	@Test
+	public void testUnivariateSummary() {
+		double[] dd = gaussian(500, 4L);
+		Univariate fromArray = new Univariate(new RealArray(dd));
+		Univariate summary = new Univariate(fromArray.getAccumulator());
+		Assert.assertEquals("count", 500, summary.getCount());
+		Assert.assertEquals("mean", fromArray.getMean(), summary.getMean(), 1.0E-12);
+		Assert.assertEquals("sd", fromArray.getStandardDeviation(), summary.getStandardDeviation(), 1.0E-12);
+		Assert.assertEquals("max", fromArray.getMax(), summary.getMax(), 1.0E-15);
+		Assert.assertEquals("median", fromArray.getMedian(), summary.getMedian(), 0.05);
+		Assert.assertSame("accumulator", summary.getAccumulator(), summary.getAccumulator());
+		try {
+			summary.getSortedArray();
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+		}
+		try {
+			summary.getHistogramCounts();
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+		}
+	}
+}
@@ -0,0 +1,155 @@
+/**
+ *    Copyright 2011 Peter Murray-Rust
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.xmlcml.euclid.test;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlcml.euclid.EuclidRuntimeException;
+import org.xmlcml.euclid.Univariate;
+
+/**
+ * test Univariate distribution functions.
+ * 
+ */
+public class UnivariateTest {
+
+	private static double[] probabilities(int n, long seed) {
+		Random random = new Random(seed);
+		double[] p = new double[n];
+		for (int i = 0; i < n; i++) {
+			p[i] = 0.001 + 0.998 * random.nextDouble();
+		}
+		return p;
+	}
+
+	@Test
+	public void testScalar() {
+		Assert.assertEquals("pnorm", 0.9750021, Univariate.pnorm(1.96, false), 1.0E-6);
+		Assert.assertEquals("qt", 2.228139, Univariate.qt(0.975, 10, true), 1.0E-4);
+		Assert.assertEquals("pt", 0.975, Univariate.pt(2.228139, 10), 1.0E-6);
+		Assert.assertEquals("pchisq", 0.95, Univariate.pchisq(3.841459, 1), 1.0E-5);
+		Assert.assertEquals("pchisq", 0.95, Univariate.pchisq(18.307038, 10), 1.0E-5);
+		Assert.assertEquals("pf", 0.95, Univariate.pf(4.102821, 2, 10), 1.0E-6);
+	}
+
+	@Test
+	public void testTables() {
+		Assert.assertEquals("fact", 120.0, Univariate.fact(5), 0.0);
+		Assert.assertEquals("fact", 2432902008176640000.0, Univariate.fact(20), 0.0);
+		Assert.assertEquals("nCr", 252.0, Univariate.nCr(10, 5), 1.0E-10);
+		Assert.assertEquals("gamma(1/2)", 0.5 * Math.log(Math.PI), Univariate.lnfgamma(0.5), 1.0E-15);
+		Assert.assertEquals("gamma(7/2)", Math.log(15.0 / 8.0 * Math.sqrt(Math.PI)), Univariate.lnfgamma(3.5), 1.0E-14);
+		// tabulated and Lanczos values agree
+		for (int k = 1; k < 200; k++) {
+			double c = 0.5 * k;
+			Assert.assertEquals("lnfgamma " + c, Univariate.lnfgamma(c + 1.0E-12), Univariate.lnfgamma(c),
+					1.0E-9 * Math.max(1.0, Math.abs(Univariate.lnfgamma(c))));
+		}
+		double[] lnfact = new double[4];
+		Univariate.lnfact(new int[] {0, 1, 5, 2000}, lnfact);
+		Assert.assertEquals("lnfact", 0.0, lnfact[0], 1.0E-15);
+		Assert.assertEquals("lnfact", Math.log(120.0), lnfact[2], 1.0E-14);
+		Assert.assertEquals("lnfact", Univariate.lnfact(2000), lnfact[3], 0.0);
+		double[] fact = new double[3];
+		Univariate.fact(new int[] {0, 3, 10}, fact);
+		Assert.assertEquals("fact", 3628800.0, fact[2], 0.0);
+	}
+
+	@Test
+	public void testBulk() {
+		int n = 1000;
+		double[] p = probabilities(n, 1L);
+		double[] z = new double[n];
+		double[] result = new double[n];
+		Univariate.qnorm(p, false, z);
+		for (int i = 0; i < n; i++) {
+			Assert.assertEquals("qnorm " + i, Univariate.qnorm(p[i], false), z[i], 0.0);
+		}
+		Univariate.pnorm(z, true, result);
+		for (int i = 0; i < n; i++) {
+			Assert.assertEquals("pnorm " + i, Univariate.pnorm(z[i], true), result[i], 0.0);
+		}
+		Univariate.qt(p, 7, true, result);
+		for (int i = 0; i < n; i++) {
+			Assert.assertEquals("qt " + i, Univariate.qt(p[i], 7, true), result[i], 0.0);
+		}
+		double[] t = result.clone();
+		Univariate.pt(t, 7, result);
+		for (int i = 0; i < n; i++) {
+			Assert.assertEquals("pt " + i, Univariate.pt(t[i], 7), result[i], 0.0);
+		}
+		double[] q = new double[n];
+		for (int i = 0; i < n; i++) {
+			q[i] = 20 * p[i];
+		}
+		Univariate.pchisq(q, 5, result);
+		for (int i = 0; i < n; i++) {
+			Assert.assertEquals("pchisq " + i, Univariate.pchisq(q[i], 5), result[i], 0.0);
+		}
+		Univariate.betainv(p, 2.5, 4, result);
+		for (int i = 0; i < n; i++) {
+			Assert.assertEquals("betainv " + i, Univariate.betainv(p[i], 2.5, 4), result[i], 0.0);
+		}
+		Univariate.pf(q, 3, 12, result);
+		for (int i = 0; i < n; i++) {
+			Assert.assertEquals("pf " + i, Univariate.pf(q[i], 3, 12), result[i], 0.0);
+		}
+		Univariate.lnfgamma(q, result);
+		for (int i = 0; i < n; i++) {
+			Assert.assertEquals("lnfgamma " + i, Univariate.lnfgamma(q[i]), result[i], 0.0);
+		}
+	}
+
+	@Test
+	public void testBulkParallel() {
+		int n = 3 * Univariate.PARALLEL_THRESHOLD + 17;
+		double[] p = probabilities(n, 2L);
+		double[] result = new double[n];
+		Univariate.qnorm(p, false, result);
+		for (int i = 0; i < n; i++) {
+			Assert.assertEquals("qnorm " + i, Univariate.qnorm(p[i], false), result[i], 0.0);
+		}
+		// in place
+		double[] copy = p.clone();
+		Univariate.pchisq(copy, 3, copy);
+		for (int i = 0; i < n; i++) {
+			Assert.assertEquals("pchisq " + i, Univariate.pchisq(p[i], 3), copy[i], 0.0);
+		}
+	}
+
+	@Test
+	public void testBulkErrors() {
+		try {
+			Univariate.qnorm(new double[3], true, new double[2]);
+			Assert.fail("should throw");
+		} catch (EuclidRuntimeException e) {
+			// expected
+		}
+		try {
+			Univariate.qnorm(new double[] {0.5, 2.0}, true, new double[2]);
+			Assert.fail("should throw");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		double[] result = new double[2];
+		Univariate.betainv(new double[] {0.2, 0.3}, 0.0, 1.0, result);
+		Assert.assertEquals("invalid", -1.0, result[1], 0.0);
+	}
+}
@@ -0,0 +1,130 @@
+/**
+ *    Copyright 2011 Peter Murray-Rust
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+
+package org.xmlcml.stml;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * test STMLArray.
+ * 
+ */
+public class STMLArrayTest implements STMLConstants {
+
+	private static STMLArray makeArray(String dataType, String delimiter, String content) {
+		STMLArray array = new STMLArray();
+		array.setDataType(dataType);
+		if (delimiter != null) {
+			array.setDelimiter(delimiter);
+		}
+		array.setXMLContent(content);
+		return array;
+	}
+
+	@Test
+	public void testAppenderWhitespace() {
+		STMLArray array = makeArray(XSD_DOUBLE, null, "");
+		STMLArrayAppender appender = array.createAppender();
+		appender.append(1.5);
+		appender.append(new double[] {-2.0, Double.POSITIVE_INFINITY, Double.NaN});
+		appender.flush();
+		Assert.assertEquals(" 1.5 -2.0 INF NaN", array.getXMLContent());
+		Assert.assertEquals(4, array.getSize());
+		Assert.assertEquals("4", array.getAttributeValue("size"));
+		double[] dd = array.getDoubles();
+		Assert.assertEquals(4, dd.length);
+		Assert.assertEquals(-2.0, dd[1], 0.0);
+		Assert.assertTrue(Double.isNaN(dd[3]));
+	}
+
+	@Test
+	public void testAppenderDelimiter() {
+		STMLArray array = makeArray(XSD_INTEGER, ",", "");
+		STMLArrayAppender appender = array.createAppender();
+		appender.append(new int[] {1, 2, 3});
+		appender.flush();
+		Assert.assertEquals(",1,2,3,", array.getXMLContent());
+		Assert.assertArrayEquals(new int[] {1, 2, 3}, array.getInts());
+		Assert.assertEquals("3", array.getAttributeValue("size"));
+	}
+
+	@Test
+	public void testAppendToUndelimitedContent() {
+		STMLArray array = makeArray(XSD_INTEGER, ",", "1,2");
+		STMLArrayAppender appender = array.createAppender();
+		appender.append(3);
+		appender.flush();
+		Assert.assertEquals(",1,2,3,", array.getXMLContent());
+		Assert.assertArrayEquals(new int[] {1, 2, 3}, array.getInts());
+		Assert.assertEquals(3, array.getSize());
+
+		array = makeArray(XSD_INTEGER, null, "1 2");
+		appender = array.createAppender();
+		appender.append(3);
+		appender.flush();
+		Assert.assertArrayEquals(new int[] {1, 2, 3}, array.getInts());
+		Assert.assertEquals("3", array.getAttributeValue("size"));
+	}
+
+	@Test
+	public void testAppenderChunks() {
+		STMLArray array = makeArray(XSD_INTEGER, "|", "");
+		// flushes whenever 8 characters are buffered
+		STMLArrayAppender appender = array.createAppender(8);
+		int[] expected = new int[100];
+		for (int i = 0; i < expected.length; i++) {
+			expected[i] = 10 * i;
+			appender.append(expected[i]);
+			Assert.assertEquals(i + 1, appender.getCount());
+			Assert.assertTrue(appender.getPendingCount() <= 4);
+		}
+		appender.append(7);
+		Assert.assertTrue(appender.getPendingCount() > 0);
+		appender.flush();
+		Assert.assertEquals(0, appender.getPendingCount());
+		Assert.assertEquals(101, appender.getCount());
+		// flushing again adds nothing
+		appender.flush();
+		Assert.assertEquals(101, array.getSize());
+		Assert.assertEquals("101", array.getAttributeValue("size"));
+		int[] ii = array.getInts();
+		Assert.assertEquals(101, ii.length);
+		for (int i = 0; i < expected.length; i++) {
+			Assert.assertEquals(expected[i], ii[i]);
+		}
+		Assert.assertEquals(7, ii[100]);
+		// a second appender continues the same array
+		appender = array.createAppender();
+		appender.append(8);
+		appender.flush();
+		Assert.assertEquals(102, array.getSize());
+		Assert.assertEquals(8, array.getInts()[101]);
+	}
+
+	@Test
+	public void testAppenderWrongType() {
+		STMLArray array = makeArray(XSD_INTEGER, null, "");
+		try {
+			array.createAppender().append(1.0);
+			Assert.fail("should throw");
+		} catch (RuntimeException e) {
+			// expected
+		}
+	}
+}